@@ -63,37 +63,57 @@ public class BuildArtifactsDownloader extends ProducerRunnableBase {
         ObjectMapper mapper = createMapper();
 
         try (ArtifactoryManager artifactoryManager = artifactoryManagerBuilder.build()) {
-            while (!buildArtifacts.isEmpty()) {
+            // The queue is shared with other producers, so an entry is taken atomically
+            AqlSearchResult.SearchEntry searchEntry;
+            while ((searchEntry = buildArtifacts.poll()) != null) {
                 if (Thread.interrupted()) {
                     // Stop the producer if the thread received an interruption event
                     break;
                 }
-                AqlSearchResult.SearchEntry searchEntry = buildArtifacts.remove();
-                String buildName = searchEntry.getPath();
-                String buildNumber = StringUtils.substringBefore(searchEntry.getName(), "-");
+                BuildGeneralInfo buildGeneralInfo;
                 try {
-                    checkCancel.run();
-                    String encodedBuildName = new URLCodec().decode(buildName);
-                    Build build = buildsCache.loadBuildInfo(mapper, encodedBuildName, buildNumber);
-                    if (build == null) {
-                        build = downloadBuildInfo(mapper, searchEntry, artifactoryManager);
-                    }
-
-                    // Create and produce the build general info to the consumer
-                    executor.put(createBuildGeneralInfo(build, log));
+                    buildGeneralInfo = downloadBuild(mapper, artifactoryManager, searchEntry);
                 } catch (CancellationException e) {
                     break;
-                } catch (ParseException | IllegalArgumentException | DecoderException e) {
-                    logError(log, String.format(BUILD_RET_ERR_FMT, buildName, buildNumber), e, true);
-                } catch (IOException e) {
-                    logError(log, "", e, true);
-                } finally {
-                    indicator.setFraction(count.incrementAndGet() / total);
+                }
+                if (buildGeneralInfo != null) {
+                    // Produce the build general info to the consumer
+                    executor.put(buildGeneralInfo);
                 }
             }
         }
     }
 
+    /**
+     * Load a build info from the cache, or download it from Artifactory if it is not cached.
+     *
+     * @param mapper             - The object mapper
+     * @param artifactoryManager - Artifactory manager
+     * @param searchEntry        - The AQL search results entry of the build info
+     * @return the build general info, or null if the build info couldn't be retrieved.
+     * @throws CancellationException if the scan was canceled by the user.
+     */
+    BuildGeneralInfo downloadBuild(ObjectMapper mapper, ArtifactoryManager artifactoryManager, AqlSearchResult.SearchEntry searchEntry) {
+        String buildName = searchEntry.getPath();
+        String buildNumber = StringUtils.substringBefore(searchEntry.getName(), "-");
+        try {
+            checkCancel.run();
+            String encodedBuildName = new URLCodec().decode(buildName);
+            Build build = buildsCache.loadBuildInfo(mapper, encodedBuildName, buildNumber);
+            if (build == null) {
+                build = downloadBuildInfo(mapper, searchEntry, artifactoryManager);
+            }
+            return createBuildGeneralInfo(build, log);
+        } catch (ParseException | IllegalArgumentException | DecoderException e) {
+            logError(log, String.format(BUILD_RET_ERR_FMT, buildName, buildNumber), e, true);
+        } catch (IOException e) {
+            logError(log, "", e, true);
+        } finally {
+            indicator.setFraction(count.incrementAndGet() / total);
+        }
+        return null;
+    }
+
     /**
      * Download build info from Artifactory and save it in the builds cache.
      *
@@ -0,0 +1,118 @@
+package com.jfrog.ide.common.ci;
+
+import com.jfrog.xray.client.impl.XrayClient;
+import com.jfrog.xray.client.services.details.DetailsResponse;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import static com.jfrog.ide.common.utils.Constants.MINIMAL_XRAY_VERSION_SUPPORTED_FOR_CI;
+
+/**
+ * The Xray requests of a CI scan, shared by all {@link XrayBuildDetailsDownloader}s of the scan.
+ * The Xray version check is done once per Xray server in the session, and concurrent 'details/build' downloads of the
+ * same build are coalesced into a single request.
+ */
+public class BuildDetailsRequests {
+    // Xray URL to the result of the Xray version check
+    private static final Map<String, CompletableFuture<Boolean>> xraySupportedByServer = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Void>> inFlightDownloads = new ConcurrentHashMap<>();
+    private final String xrayUrl;
+    private final String project;
+
+    interface BuildDetailsDownload {
+        void download() throws IOException;
+    }
+
+    /**
+     * @param xrayUrl - The Xray URL
+     * @param project - The JFrog project of the builds, or null
+     */
+    public BuildDetailsRequests(String xrayUrl, String project) {
+        this.xrayUrl = xrayUrl;
+        this.project = project;
+    }
+
+    /**
+     * Check whether the Xray version supports the 'details/build' API. The result is cached for the Xray server.
+     * Failed checks are not cached, so they are retried in the next CI scan.
+     *
+     * @param xrayClient - Xray client
+     * @return true if the Xray version supports the 'details/build' API.
+     */
+    public boolean isXraySupported(XrayClient xrayClient) {
+        CompletableFuture<Boolean> versionCheck = new CompletableFuture<>();
+        CompletableFuture<Boolean> existing = xraySupportedByServer.putIfAbsent(xrayUrl, versionCheck);
+        if (existing != null) {
+            return existing.join();
+        }
+        try {
+            boolean supported = xrayClient.system().version().isAtLeast(MINIMAL_XRAY_VERSION_SUPPORTED_FOR_CI);
+            versionCheck.complete(supported);
+            return supported;
+        } catch (IOException | RuntimeException e) {
+            xraySupportedByServer.remove(xrayUrl, versionCheck);
+            versionCheck.complete(false);
+            return false;
+        }
+    }
+
+    /**
+     * Get the 'details/build' response of a build from Xray.
+     *
+     * @param xrayClient  - Xray client
+     * @param buildName   - Build name
+     * @param buildNumber - Build number
+     * @return the Xray response.
+     * @throws IOException in case of connection error.
+     */
+    public DetailsResponse getBuildDetails(XrayClient xrayClient, String buildName, String buildNumber) throws IOException {
+        return xrayClient.details().build(buildName, buildNumber, project);
+    }
+
+    /**
+     * Run a download of the build details, unless the same build is already being downloaded. In that case, wait for
+     * the running download to complete.
+     *
+     * @param buildName   - Build name
+     * @param buildNumber - Build number
+     * @param download    - The download to run
+     * @throws IOException in case of an error in the download.
+     */
+    void downloadOnce(String buildName, String buildNumber, BuildDetailsDownload download) throws IOException {
+        String buildKey = buildName + "/" + buildNumber;
+        CompletableFuture<Void> newDownload = new CompletableFuture<>();
+        CompletableFuture<Void> runningDownload = inFlightDownloads.putIfAbsent(buildKey, newDownload);
+        if (runningDownload != null) {
+            waitForDownload(runningDownload);
+            return;
+        }
+        try {
+            download.download();
+            newDownload.complete(null);
+        } catch (IOException | RuntimeException e) {
+            newDownload.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightDownloads.remove(buildKey, newDownload);
+        }
+    }
+
+    private static void waitForDownload(CompletableFuture<Void> download) throws IOException {
+        try {
+            download.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw (RuntimeException) cause;
+        }
+    }
+}
@@ -4,8 +4,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jfrog.ide.common.configuration.ServerConfig;
 import com.jfrog.ide.common.log.ProgressIndicator;
 import com.jfrog.ide.common.persistency.BuildsScanCache;
+import com.jfrog.ide.common.utils.BlockingTaskExecutor;
+import com.jfrog.xray.client.impl.XrayClient;
 import com.jfrog.xray.client.impl.XrayClientBuilder;
 import com.jfrog.xray.client.services.details.DetailsResponse;
+import lombok.Setter;
 import org.apache.commons.lang3.StringUtils;
 import org.jfrog.build.api.Build;
 import org.jfrog.build.api.search.AqlSearchResult;
@@ -26,6 +29,8 @@ import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
@@ -37,6 +42,7 @@ import static com.jfrog.ide.common.ci.Utils.createAqlForBuildArtifacts;
 import static com.jfrog.ide.common.log.Utils.logError;
 import static com.jfrog.ide.common.utils.ArtifactoryConnectionUtils.createArtifactoryManagerBuilder;
 import static com.jfrog.ide.common.utils.Utils.createMapper;
+import static com.jfrog.ide.common.utils.Utils.resolveXrayUrl;
 import static com.jfrog.ide.common.utils.XrayConnectionUtils.createXrayClientBuilder;
 import static org.jfrog.build.client.PreemptiveHttpClientBuilder.CONNECTION_POOL_SIZE;
 
@@ -48,11 +54,23 @@ import static org.jfrog.build.client.PreemptiveHttpClientBuilder.CONNECTION_POOL
 @SuppressWarnings("unused")
 public class CiManagerBase {
     private static final String DEFAULT_PROJECT = "artifactory";
+    public static final int DEFAULT_PRODUCERS_COUNT = 4;
+    public static final int DEFAULT_CONSUMERS_COUNT = 4;
     protected DependencyTree root = new DependencyTree();
     private final ObjectMapper mapper = createMapper();
     private final ServerConfig serverConfig;
     final BuildsScanCache buildsCache;
     private final Log log;
+    // The number of concurrent build info downloaders. Each downloader uses its own Artifactory connection.
+    @Setter
+    private int producersCount = DEFAULT_PRODUCERS_COUNT;
+    // The number of concurrent Xray build details downloaders. Each downloader uses its own Xray connection.
+    @Setter
+    private int consumersCount = DEFAULT_CONSUMERS_COUNT;
+    // Download each build in its own task using a BlockingTaskExecutor, instead of using producers and consumers.
+    // The tasks run on virtual threads if supported by the JVM.
+    @Setter
+    private boolean taskPerBuild;
 
     public CiManagerBase(Path cachePath, String projectName, Log log, ServerConfig serverConfig) throws IOException {
         this.buildsCache = new BuildsScanCache(projectName, cachePath, log);
@@ -69,6 +87,8 @@ public class CiManagerBase {
      * <p>
      * When the produce-consumer job is done, the CI tree contains only general information on the builds.
      * The build dependencies, artifacts and Xray scan results is stored in cache to save RAM.
+     * <p>
+     * If task per build is set, each build is downloaded from Artifactory and Xray in a separate task instead.
      *
      * @param buildsPattern - The build pattern configured in the IDE configuration
      * @param project       - The JFrog project to scan
@@ -95,14 +115,26 @@ public class CiManagerBase {
 
             AtomicInteger count = new AtomicInteger();
             double total = buildArtifacts.size() * 2;
-            // Create producer Runnables.
-            ProducerRunnableBase[] producerRunnable = new ProducerRunnableBase[]{new BuildArtifactsDownloader(
-                    buildArtifacts, artifactoryManagerBuilder,
-                    buildsCache, indicator, count, total, log, checkCanceled, buildInfoRepo)};
+            BuildDetailsRequests buildDetailsRequests = new BuildDetailsRequests(
+                    resolveXrayUrl(serverConfig.getXrayUrl(), serverConfig.getUrl()), serverConfig.getProject());
+            if (taskPerBuild) {
+                downloadBuildsInTasks(buildArtifacts, artifactoryManager, artifactoryManagerBuilder, xrayClientBuilder,
+                        buildDetailsRequests, indicator, count, total, checkCanceled, buildInfoRepo);
+                checkCanceled.run();
+                return;
+            }
+            // Create producer Runnables. The producers share the queue of the build artifacts.
+            ProducerRunnableBase[] producerRunnable = new ProducerRunnableBase[getWorkersCount(producersCount, buildArtifacts.size())];
+            for (int i = 0; i < producerRunnable.length; i++) {
+                producerRunnable[i] = new BuildArtifactsDownloader(buildArtifacts, artifactoryManagerBuilder,
+                        buildsCache, indicator, count, total, log, checkCanceled, buildInfoRepo);
+            }
             // Create consumer Runnables.
-            ConsumerRunnableBase[] consumerRunnables = new ConsumerRunnableBase[]{new XrayBuildDetailsDownloader(
-                    root, buildsCache, xrayClientBuilder, indicator, count, total, log, checkCanceled, serverConfig.getProject())
-            };
+            ConsumerRunnableBase[] consumerRunnables = new ConsumerRunnableBase[getWorkersCount(consumersCount, buildArtifacts.size())];
+            for (int i = 0; i < consumerRunnables.length; i++) {
+                consumerRunnables[i] = new XrayBuildDetailsDownloader(root, buildsCache, xrayClientBuilder, indicator,
+                        count, total, log, checkCanceled, buildDetailsRequests);
+            }
 
             new ProducerConsumerExecutor(log, producerRunnable, consumerRunnables, CONNECTION_POOL_SIZE).start();
             checkCanceled.run();
@@ -113,6 +145,48 @@ public class CiManagerBase {
         }
     }
 
+    /**
+     * Download the builds using a task per build. A task downloads the build info from Artifactory and then the build
+     * scan results from Xray. All tasks share the same Artifactory and Xray clients, and the number of tasks running
+     * at the same time is limited by the connection pool size.
+     */
+    private void downloadBuildsInTasks(Queue<AqlSearchResult.SearchEntry> buildArtifacts, ArtifactoryManager artifactoryManager,
+                                       ArtifactoryManagerBuilder artifactoryManagerBuilder, XrayClientBuilder xrayClientBuilder,
+                                       BuildDetailsRequests buildDetailsRequests, ProgressIndicator indicator, AtomicInteger count, double total, Runnable checkCanceled,
+                                       String buildInfoRepo) throws IOException, InterruptedException {
+        BuildArtifactsDownloader buildArtifactsDownloader = new BuildArtifactsDownloader(buildArtifacts, artifactoryManagerBuilder,
+                buildsCache, indicator, count, total, log, checkCanceled, buildInfoRepo);
+        XrayBuildDetailsDownloader buildDetailsDownloader = new XrayBuildDetailsDownloader(root, buildsCache, xrayClientBuilder,
+                indicator, count, total, log, checkCanceled, buildDetailsRequests);
+        try (XrayClient xrayClient = xrayClientBuilder.build();
+             BlockingTaskExecutor taskExecutor = new BlockingTaskExecutor("ci-builds-downloader", CONNECTION_POOL_SIZE)) {
+            boolean xraySupported = buildDetailsRequests.isXraySupported(xrayClient);
+            List<BlockingTaskExecutor.BlockingTask<Void>> tasks = new ArrayList<>();
+            for (AqlSearchResult.SearchEntry searchEntry : buildArtifacts) {
+                tasks.add(() -> {
+                    BuildGeneralInfo buildGeneralInfo = buildArtifactsDownloader.downloadBuild(mapper, artifactoryManager, searchEntry);
+                    if (buildGeneralInfo != null) {
+                        buildDetailsDownloader.downloadBuildDetails(mapper, xrayClient, xraySupported, buildGeneralInfo);
+                    }
+                    return null;
+                });
+            }
+            taskExecutor.invokeAll(tasks);
+        }
+    }
+
+    /**
+     * Get the number of producers or consumers to run. There is no need for more workers than builds, and each
+     * worker uses its own HTTP client, so the number is also limited by the connection pool size.
+     *
+     * @param configuredCount - The configured number of workers
+     * @param buildsCount     - The number of builds to download
+     * @return the number of workers to run.
+     */
+    static int getWorkersCount(int configuredCount, int buildsCount) {
+        return Math.max(1, Math.min(configuredCount, Math.min(buildsCount, CONNECTION_POOL_SIZE)));
+    }
+
     public BuildDependencyTree loadBuildTree(BuildGeneralInfo buildGeneralInfo) throws IOException, ParseException {
         BuildDependencyTree buildDependencyTree = new BuildDependencyTree();
         // Load build info from cache
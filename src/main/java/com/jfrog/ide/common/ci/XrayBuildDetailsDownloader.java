@@ -20,7 +20,6 @@ import java.util.concurrent.CancellationException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.jfrog.ide.common.ci.Utils.BUILD_RET_ERR_FMT;
-import static com.jfrog.ide.common.utils.Constants.MINIMAL_XRAY_VERSION_SUPPORTED_FOR_CI;
 import static com.jfrog.ide.common.utils.Utils.createMapper;
 import static org.apache.commons.collections4.CollectionUtils.isEmpty;
 
@@ -31,6 +30,7 @@ import static org.apache.commons.collections4.CollectionUtils.isEmpty;
  * @author yahavi
  **/
 public class XrayBuildDetailsDownloader extends ConsumerRunnableBase {
+    private final BuildDetailsRequests buildDetailsRequests;
     private final XrayClientBuilder xrayClientBuilder;
     private ProducerConsumerExecutor executor;
     private final ProgressIndicator indicator;
@@ -39,17 +39,16 @@ public class XrayBuildDetailsDownloader extends ConsumerRunnableBase {
     private final DependencyTree root;
     private final AtomicInteger count;
     private final double total;
-    private String project;
     private Log log;
 
     public XrayBuildDetailsDownloader(DependencyTree root, BuildsScanCache buildsCache, XrayClientBuilder xrayClientBuilder,
                                       ProgressIndicator indicator, AtomicInteger count, double total, Log log, Runnable checkCancel,
-                                      String project) {
+                                      BuildDetailsRequests buildDetailsRequests) {
+        this.buildDetailsRequests = buildDetailsRequests;
         this.xrayClientBuilder = xrayClientBuilder;
         this.buildsCache = buildsCache;
         this.checkCancel = checkCancel;
         this.indicator = indicator;
-        this.project = project;
         this.count = count;
         this.total = total;
         this.root = root;
@@ -60,7 +59,7 @@ public class XrayBuildDetailsDownloader extends ConsumerRunnableBase {
     public void consumerRun() {
         ObjectMapper mapper = createMapper();
         try (XrayClient xrayClient = xrayClientBuilder.build()) {
-            boolean xraySupported = isXraySupported(xrayClient);
+            boolean xraySupported = buildDetailsRequests.isXraySupported(xrayClient);
             while (!Thread.interrupted()) {
                 ProducerConsumerItem item = executor.take();
                 if (item == executor.TERMINATE) {
@@ -68,39 +67,43 @@ public class XrayBuildDetailsDownloader extends ConsumerRunnableBase {
                     executor.put(item);
                     break;
                 }
-                BuildGeneralInfo generalInfo = (BuildGeneralInfo) item;
-                String buildName = generalInfo.getBuildName();
-                String buildNumber = generalInfo.getBuildNumber();
-                try {
-                    checkCancel.run();
-                    if (!xraySupported) {
-                        continue;
-                    }
-                    if (buildsCache.loadScanResults(mapper, buildName, buildNumber) == null) {
-                        downloadBuildDetails(mapper, xrayClient, buildName, buildNumber);
-                    }
-                } catch (CancellationException ignored) {
-                } catch (IOException e) {
-                    log.debug(String.format(BUILD_RET_ERR_FMT, buildName, buildNumber) + ". " + ExceptionUtils.getRootCauseMessage(e));
-                } finally {
-                    addResults(generalInfo);
-                    indicator.setFraction(count.incrementAndGet() / total);
-                }
+                downloadBuildDetails(mapper, xrayClient, xraySupported, (BuildGeneralInfo) item);
             }
         } catch (InterruptedException ignored) {
         }
     }
 
-    private boolean isXraySupported(XrayClient xrayClient) {
+    /**
+     * Download the Xray scan results of a build if they are not cached, and add the build to the CI tree.
+     *
+     * @param mapper        - The object mapper
+     * @param xrayClient    - Xray client
+     * @param xraySupported - True if the Xray version supports the 'details/build' API
+     * @param generalInfo   - The build general info
+     */
+    void downloadBuildDetails(ObjectMapper mapper, XrayClient xrayClient, boolean xraySupported, BuildGeneralInfo generalInfo) {
+        String buildName = generalInfo.getBuildName();
+        String buildNumber = generalInfo.getBuildNumber();
         try {
-            return xrayClient.system().version().isAtLeast(MINIMAL_XRAY_VERSION_SUPPORTED_FOR_CI);
-        } catch (IOException ignored) {
-            return false;
+            checkCancel.run();
+            if (!xraySupported) {
+                return;
+            }
+            if (buildsCache.loadScanResults(mapper, buildName, buildNumber) == null) {
+                // Another downloader may be downloading the same build, if it has more than one build info artifact
+                buildDetailsRequests.downloadOnce(buildName, buildNumber, () -> downloadBuildDetails(mapper, xrayClient, buildName, buildNumber));
+            }
+        } catch (CancellationException ignored) {
+        } catch (IOException e) {
+            log.debug(String.format(BUILD_RET_ERR_FMT, buildName, buildNumber) + ". " + ExceptionUtils.getRootCauseMessage(e));
+        } finally {
+            addResults(generalInfo);
+            indicator.setFraction(count.incrementAndGet() / total);
         }
     }
 
     private void downloadBuildDetails(ObjectMapper mapper, XrayClient xrayClient, String buildName, String buildNumber) throws IOException {
-        DetailsResponse response = xrayClient.details().build(buildName, buildNumber, project);
+        DetailsResponse response = buildDetailsRequests.getBuildDetails(xrayClient, buildName, buildNumber);
         if (!response.isScanCompleted() || response.getError() != null || isEmpty(response.getComponents())) {
             if (response.getError() != null) {
                 Error error = response.getError();
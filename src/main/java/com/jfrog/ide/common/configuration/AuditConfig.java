@@ -1,5 +1,7 @@
 package com.jfrog.ide.common.configuration;
 
+import com.jfrog.ide.common.persistency.AuditFingerprints;
+import com.jfrog.ide.common.persistency.ScanCache;
 import lombok.Getter;
 
 import java.util.List;
@@ -12,12 +14,22 @@ public class AuditConfig {
     private final String serverId;
     private final List<String> excludedPattern;
     private final Map<String, String> envVars;
+    private final ScanCache scanCache;
+    private final AuditFingerprints auditFingerprints;
+    private final int parallelism;
 
     private AuditConfig(Builder builder) {
         this.scannedDirectories = builder.scannedDirectories;
         this.serverId = builder.serverId;
         this.excludedPattern = builder.excludedPattern;
         this.envVars = builder.envVars;
+        this.scanCache = builder.scanCache;
+        this.auditFingerprints = builder.auditFingerprints;
+        this.parallelism = builder.parallelism;
+    }
+
+    public boolean isIncremental() {
+        return scanCache != null && auditFingerprints != null;
     }
 
     public static class Builder {
@@ -25,6 +37,22 @@ public class AuditConfig {
         private String serverId;
         private List<String> excludedPattern;
         private Map<String, String> envVars;
+        private ScanCache scanCache;
+        private AuditFingerprints auditFingerprints;
+        private int parallelism = 1;
+
+        public Builder() {
+        }
+
+        public Builder(AuditConfig config) {
+            this.scannedDirectories = config.scannedDirectories;
+            this.serverId = config.serverId;
+            this.excludedPattern = config.excludedPattern;
+            this.envVars = config.envVars;
+            this.scanCache = config.scanCache;
+            this.auditFingerprints = config.auditFingerprints;
+            this.parallelism = config.parallelism;
+        }
 
         public Builder serverId(String serverId) {
             this.serverId = serverId;
@@ -46,6 +74,32 @@ public class AuditConfig {
             return this;
         }
 
+        /**
+         * Enable the incremental audit. Only the scanned directories whose descriptors changed since the last audit
+         * are rescanned, and the cached results of the other directories are reused.
+         *
+         * @param scanCache         - The scan cache of the project
+         * @param auditFingerprints - The descriptors fingerprints of the project
+         * @return this builder.
+         */
+        public Builder incremental(ScanCache scanCache, AuditFingerprints auditFingerprints) {
+            this.scanCache = scanCache;
+            this.auditFingerprints = auditFingerprints;
+            return this;
+        }
+
+        /**
+         * Set the number of concurrent audit processes of a sharded audit. The scanned directories are split between
+         * the processes.
+         *
+         * @param parallelism - The maximal number of concurrent audit processes
+         * @return this builder.
+         */
+        public Builder parallelism(int parallelism) {
+            this.parallelism = Math.max(1, parallelism);
+            return this;
+        }
+
         public AuditConfig build() {
             return new AuditConfig(this);
         }
@@ -0,0 +1,120 @@
+package com.jfrog.ide.common.configuration;
+
+import org.jfrog.build.extractor.executor.CommandResults;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the results of idempotent JFrog CLI commands, such as 'jf --version' and 'jf config export', so that repeated
+ * calls don't start a new CLI process each time. The cache is shared by all {@link JfrogCliDriver}s in the JVM.
+ * <p>
+ * A cached result is valid as long as the CLI executable and the CLI configuration files in the JFrog CLI home
+ * directory are not modified. Only successful results are cached.
+ */
+class CliCommandCache {
+    private static final String CLI_CONFIG_FILE_PREFIX = "jfrog-cli.conf";
+    private static final Map<String, CachedResults> cache = new ConcurrentHashMap<>();
+
+    private record CachedResults(String res, String err, int exitValue, String stamp) {
+    }
+
+    interface CliCommand {
+        CommandResults run() throws IOException, InterruptedException;
+    }
+
+    /**
+     * Get the cached results of a command, or run the command if there are no valid cached results.
+     *
+     * @param executable - The CLI executable, or null if it is unknown. If null, the command isn't cached
+     * @param cliHomeDir - The JFrog CLI home directory
+     * @param args       - The command arguments
+     * @param command    - Runs the command
+     * @return the command results.
+     * @throws IOException          in case of an error in the command.
+     * @throws InterruptedException if the command was interrupted.
+     */
+    static CommandResults get(Path executable, Path cliHomeDir, List<String> args, CliCommand command) throws IOException, InterruptedException {
+        // The stamp is taken before running the command, so modifications during the run invalidate the results
+        String stamp = executable == null ? null : getStamp(executable, cliHomeDir);
+        if (stamp == null) {
+            return command.run();
+        }
+        String key = getKey(executable, cliHomeDir, args);
+        CachedResults cached = cache.get(key);
+        if (cached != null && cached.stamp.equals(stamp)) {
+            return toCommandResults(cached);
+        }
+        CommandResults results = command.run();
+        if (results.isOk()) {
+            cache.put(key, new CachedResults(results.getRes(), results.getErr(), results.getExitValue(), stamp));
+        }
+        return results;
+    }
+
+    /**
+     * Remove the cached results of the commands of a CLI executable.
+     *
+     * @param executable - The CLI executable
+     */
+    static void invalidate(Path executable) {
+        String prefix = executable.toAbsolutePath() + "\0";
+        cache.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    private static String getKey(Path executable, Path cliHomeDir, List<String> args) {
+        return executable.toAbsolutePath() + "\0" + cliHomeDir.toAbsolutePath() + "\0" + String.join("\0", args);
+    }
+
+    /**
+     * Get the modification stamp of the CLI executable and the CLI configuration files.
+     *
+     * @return the stamp, or null if the executable doesn't exist.
+     */
+    private static String getStamp(Path executable, Path cliHomeDir) {
+        StringBuilder stamp = new StringBuilder();
+        try {
+            appendStamp(stamp, executable);
+        } catch (IOException e) {
+            return null;
+        }
+        // Sort the configuration files, since the order of the directory listing is undefined
+        Map<String, Path> configFiles = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(cliHomeDir, CLI_CONFIG_FILE_PREFIX + "*")) {
+            files.forEach(file -> configFiles.put(file.getFileName().toString(), file));
+        } catch (IOException e) {
+            // No CLI home directory yet
+        }
+        for (Path configFile : configFiles.values()) {
+            try {
+                appendStamp(stamp, configFile);
+            } catch (IOException e) {
+                // Removed while listing
+                stamp.append(configFile.getFileName()).append(":deleted;");
+            }
+        }
+        return stamp.toString();
+    }
+
+    private static void appendStamp(StringBuilder stamp, Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        stamp.append(file.getFileName()).append(':')
+                .append(attributes.lastModifiedTime()).append(':')
+                .append(attributes.size()).append(';');
+    }
+
+    private static CommandResults toCommandResults(CachedResults cached) {
+        CommandResults results = new CommandResults();
+        results.setRes(cached.res);
+        results.setErr(cached.err);
+        results.setExitValue(cached.exitValue);
+        return results;
+    }
+}
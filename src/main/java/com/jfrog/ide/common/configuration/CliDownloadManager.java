@@ -0,0 +1,233 @@
+package com.jfrog.ide.common.configuration;
+
+import com.jfrog.ide.common.persistency.CacheFiles;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.lang3.StringUtils;
+import org.jfrog.build.api.util.Log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Downloads JFrog CLI executables into a cache directory shared by all IDE instances of the user.
+ * Each version is downloaded once, into {@code <cache-dir>/<version>/<os-and-arch>/<executable>}.
+ * <p>
+ * The download is written to a partial file, which is resumed with a range request after a failure, and is moved to
+ * its final name only after its SHA-256 checksum is verified against the X-Checksum-Sha256 response header. If the
+ * download response has no checksum header, the checksum is requested with a HEAD request. Downloads without a
+ * checksum fail.
+ * Concurrent downloads of the same executable, in the same process or in other processes, are serialized with a
+ * lock file.
+ */
+public class CliDownloadManager {
+    static final String CHECKSUM_HEADER = "X-Checksum-Sha256";
+    static final int MAX_ATTEMPTS = 3;
+    private static final String PARTIAL_SUFFIX = ".part";
+    private static final String SHA256_SUFFIX = ".sha256";
+    private static final String LOCK_FILE_NAME = ".lock";
+    private static final int CONNECT_TIMEOUT_MILLIS = 30_000;
+    private static final int READ_TIMEOUT_MILLIS = 60_000;
+
+    private final String releasesUrl;
+    private final Path cacheDir;
+    private final Log log;
+
+    /**
+     * @param releasesUrl - The URL of the JFrog releases Artifactory
+     * @param cacheDir    - The shared cache directory of the CLI executables
+     * @param log         - The logger
+     */
+    public CliDownloadManager(String releasesUrl, Path cacheDir, Log log) {
+        this.releasesUrl = StringUtils.removeEnd(releasesUrl, "/");
+        this.cacheDir = cacheDir;
+        this.log = log;
+    }
+
+    /**
+     * Get the CLI executable of a version from the cache, and download it if it isn't cached.
+     *
+     * @param cliVersion     - The CLI version
+     * @param osAndArc       - The OS and architecture, as used in the releases repository
+     * @param executableName - The executable name
+     * @return the path to the verified executable in the cache.
+     * @throws IOException in case of a download error, or if the checksum of the executable doesn't match.
+     */
+    public Path getExecutable(String cliVersion, String osAndArc, String executableName) throws IOException {
+        Path versionDir = cacheDir.resolve(cliVersion).resolve(osAndArc);
+        Path executable = versionDir.resolve(executableName);
+        Files.createDirectories(versionDir);
+        return CacheFiles.withLock(versionDir.resolve(LOCK_FILE_NAME), () -> {
+            if (isCached(executable)) {
+                log.debug("Using the cached JFrog CLI executable: " + executable);
+                return executable;
+            }
+            String url = String.join("/", releasesUrl, "jfrog-cli/v2-jf", cliVersion, "jfrog-cli-" + osAndArc, executableName);
+            download(url, executable);
+            return executable;
+        });
+    }
+
+    /**
+     * @return true if the executable and its checksum file exist, and the checksum matches.
+     */
+    private boolean isCached(Path executable) throws IOException {
+        Path checksumFile = getChecksumFile(executable);
+        if (!Files.isRegularFile(executable) || !Files.isRegularFile(checksumFile)) {
+            return false;
+        }
+        String expected = Files.readString(checksumFile, StandardCharsets.UTF_8).trim();
+        if (expected.equalsIgnoreCase(sha256(executable))) {
+            return true;
+        }
+        log.warn("The cached JFrog CLI executable is corrupted and will be downloaded again: " + executable);
+        Files.deleteIfExists(checksumFile);
+        Files.deleteIfExists(executable);
+        return false;
+    }
+
+    private void download(String url, Path executable) throws IOException {
+        Path partialFile = executable.resolveSibling(executable.getFileName() + PARTIAL_SUFFIX);
+        Path partialChecksumFile = getChecksumFile(partialFile);
+        IOException lastError = null;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                downloadToPartialFile(url, partialFile, partialChecksumFile);
+                lastError = null;
+                break;
+            } catch (IOException e) {
+                lastError = e;
+                log.debug(String.format("Download attempt %d of %s failed: %s", attempt, url, e.getMessage()));
+            }
+        }
+        if (lastError != null) {
+            throw new IOException(String.format("Failed to download CLI from %s. Reason: %s", url, lastError.getMessage()), lastError);
+        }
+
+        String actual = sha256(partialFile);
+        String expected = Files.exists(partialChecksumFile) ? Files.readString(partialChecksumFile, StandardCharsets.UTF_8).trim() : requestChecksum(url);
+        if (StringUtils.isBlank(expected)) {
+            Files.deleteIfExists(partialFile);
+            Files.deleteIfExists(partialChecksumFile);
+            throw new IOException("No SHA-256 checksum was received for " + url + ", so the downloaded CLI can't be verified.");
+        }
+        if (!expected.equalsIgnoreCase(actual)) {
+            Files.deleteIfExists(partialFile);
+            Files.deleteIfExists(partialChecksumFile);
+            throw new IOException(String.format("Checksum mismatch for %s. Expected SHA-256: %s, actual: %s", url, expected, actual));
+        }
+        if (!partialFile.toFile().setExecutable(true)) {
+            log.error("Failed to set downloaded CLI as executable. Path: " + partialFile);
+        }
+        Files.move(partialFile, executable, ATOMIC_MOVE, REPLACE_EXISTING);
+        writeChecksumFile(getChecksumFile(executable), actual);
+        Files.deleteIfExists(partialChecksumFile);
+        log.debug("Downloaded JFrog CLI to " + executable);
+    }
+
+    /**
+     * Download the executable into the partial file. If the partial file already contains a prefix of the executable,
+     * only the rest of it is requested.
+     */
+    private void downloadToPartialFile(String url, Path partialFile, Path partialChecksumFile) throws IOException {
+        long existingSize = Files.exists(partialFile) ? Files.size(partialFile) : 0;
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+            connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+            if (existingSize > 0) {
+                connection.setRequestProperty("Range", "bytes=" + existingSize + "-");
+            }
+            int responseCode = connection.getResponseCode();
+            if (responseCode == 416) {
+                // The partial file is not a prefix of the executable. Start over.
+                Files.deleteIfExists(partialFile);
+                Files.deleteIfExists(partialChecksumFile);
+                throw new IOException("The requested range is not satisfiable");
+            }
+            if (responseCode != HttpURLConnection.HTTP_OK && responseCode != HttpURLConnection.HTTP_PARTIAL) {
+                throw new IOException("Unexpected response code " + responseCode);
+            }
+            boolean resume = responseCode == HttpURLConnection.HTTP_PARTIAL;
+            String checksum = connection.getHeaderField(CHECKSUM_HEADER);
+            if (!resume || !Files.exists(partialChecksumFile)) {
+                Files.deleteIfExists(partialChecksumFile);
+                if (StringUtils.isNotBlank(checksum)) {
+                    writeChecksumFile(partialChecksumFile, checksum.trim());
+                }
+            } else if (StringUtils.isNotBlank(checksum) && !checksum.trim().equalsIgnoreCase(Files.readString(partialChecksumFile).trim())) {
+                // The executable was replaced since the partial download started. Start over.
+                Files.deleteIfExists(partialFile);
+                Files.deleteIfExists(partialChecksumFile);
+                throw new IOException("The executable changed during the download");
+            }
+            if (resume) {
+                log.debug(String.format("Resuming the download of %s from byte %d", url, existingSize));
+            }
+            StandardOpenOption[] options = resume ?
+                    new StandardOpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.APPEND} :
+                    new StandardOpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE};
+            try (InputStream in = connection.getInputStream(); OutputStream out = Files.newOutputStream(partialFile, options)) {
+                in.transferTo(out);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Request the checksum of the executable with a HEAD request, if it wasn't received with the download.
+     *
+     * @return the checksum, or null if the response has no checksum header.
+     */
+    private String requestChecksum(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+            connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+            connection.setRequestMethod("HEAD");
+            int responseCode = connection.getResponseCode();
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Unexpected response code " + responseCode + " when requesting the checksum of " + url);
+            }
+            return StringUtils.trimToNull(connection.getHeaderField(CHECKSUM_HEADER));
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static void writeChecksumFile(Path checksumFile, String checksum) throws IOException {
+        CacheFiles.writeAtomically(checksumFile, tempFile -> Files.writeString(tempFile, checksum, StandardCharsets.UTF_8));
+    }
+
+    private static Path getChecksumFile(Path file) {
+        return file.resolveSibling(file.getFileName() + SHA256_SUFFIX);
+    }
+
+    static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return Hex.encodeHexString(digest.digest());
+    }
+}
@@ -1,7 +1,14 @@
 package com.jfrog.ide.common.configuration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jfrog.ide.common.nodes.FileTreeNode;
+import com.jfrog.ide.common.parse.SarifParser;
+import com.jfrog.ide.common.persistency.AuditFingerprints;
+import com.jfrog.ide.common.persistency.ScanCacheObject;
+import com.jfrog.ide.common.utils.BlockingTaskExecutor;
+import com.jfrog.ide.common.utils.StreamingCommandExecutor;
 import lombok.Getter;
+import lombok.Setter;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.SystemUtils;
 import org.jfrog.build.api.util.Log;
@@ -10,13 +17,12 @@ import org.jfrog.build.extractor.executor.CommandResults;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.regex.Matcher;
@@ -29,12 +35,16 @@ import static com.jfrog.ide.common.utils.Utils.*;
  */
 public class JfrogCliDriver {
     private static final String JFROG_CLI_RELEASES_URL = "https://releases.jfrog.io/artifactory";
+    private static final String JFROG_CLI_HOME_DIR_ENV = "JFROG_CLI_HOME_DIR";
     private static final ObjectMapper jsonReader = createMapper();
     private final Log log;
     private final String path;
     private final Map<String, String> env;
     @Getter
     private String jfrogExec = "jf";
+    // The shared cache of downloaded CLI executables
+    @Setter
+    private Path cliDownloadCacheDir = Paths.get(System.getProperty("user.home"), ".jfrog", "ide-plugins-common", "cli-cache");
 
     @SuppressWarnings("unused")
     public JfrogCliDriver(Map<String, String> env, Log log) {
@@ -67,7 +77,8 @@ public class JfrogCliDriver {
         args.add("export");
         args.addAll(extraArgs);
         try {
-            CommandResults commandResults = runCommand(workingDirectory, envVars, args.toArray(new String[0]), Collections.emptyList(),null, log);
+            CommandResults commandResults = runCachedCommand(envVars, args,
+                    () -> runCommand(workingDirectory, envVars, args.toArray(new String[0]), Collections.emptyList(), null, log));
             String res = commandResults.getRes();
             if (StringUtils.isBlank(res) || !commandResults.isOk()) {
                 throw new IOException(commandResults.getErr());
@@ -85,7 +96,8 @@ public class JfrogCliDriver {
     public String runVersion(File workingDirectory) {
         String versionOutput = null;
         try {
-            versionOutput = runCommand(workingDirectory, env, new String[]{"--version"}, Collections.emptyList()).getRes();
+            versionOutput = runCachedCommand(env, List.of("--version"),
+                    () -> runCommand(workingDirectory, env, new String[]{"--version"}, Collections.emptyList())).getRes();
         } catch (IOException | InterruptedException e) {
             log.error("Failed to get CLI version. Reason: " + e.getMessage());
         }
@@ -101,9 +113,7 @@ public class JfrogCliDriver {
     public CommandResults runCommand(File workingDirectory, Map<String, String> commandEnvVars, String[] args, List<String> extraArgs,List<String> credentials, Log logger)
             throws IOException, InterruptedException {
         List<String> finalArgs = Stream.concat(Arrays.stream(args), extraArgs.stream()).collect(Collectors.toList());
-        Map<String, String> combinedEnvVars = new HashMap<>();
-        Optional.ofNullable(env).ifPresent(combinedEnvVars::putAll);
-        Optional.ofNullable(commandEnvVars).ifPresent(combinedEnvVars::putAll);
+        Map<String, String> combinedEnvVars = combineEnvVars(commandEnvVars);
         CommandExecutor commandExecutor = new CommandExecutor(Paths.get(path, this.jfrogExec).toString(), combinedEnvVars);
         CommandResults commandResults = commandExecutor.exeCommand(workingDirectory, finalArgs, credentials, logger);
         if (!commandResults.isOk()) {
@@ -113,6 +123,58 @@ public class JfrogCliDriver {
         return commandResults;
     }
 
+    /**
+     * Run an idempotent command, or get its cached results. The results are cached until the CLI executable or the CLI
+     * configuration is modified.
+     *
+     * @param commandEnvVars - The environment variables of the command
+     * @param args           - The command arguments
+     * @param command        - Runs the command
+     * @return the command results.
+     */
+    private CommandResults runCachedCommand(Map<String, String> commandEnvVars, List<String> args, CliCommandCache.CliCommand command)
+            throws IOException, InterruptedException {
+        Map<String, String> combinedEnvVars = combineEnvVars(commandEnvVars);
+        return CliCommandCache.get(resolveExecutable(combinedEnvVars), getCliHomeDir(combinedEnvVars), args, command);
+    }
+
+    private Map<String, String> combineEnvVars(Map<String, String> commandEnvVars) {
+        Map<String, String> combinedEnvVars = new HashMap<>();
+        Optional.ofNullable(env).ifPresent(combinedEnvVars::putAll);
+        Optional.ofNullable(commandEnvVars).ifPresent(combinedEnvVars::putAll);
+        return combinedEnvVars;
+    }
+
+    /**
+     * Find the CLI executable. If the CLI path isn't set, search it in the PATH environment variable.
+     *
+     * @return the CLI executable, or null if not found.
+     */
+    private Path resolveExecutable(Map<String, String> envVars) {
+        if (StringUtils.isNotBlank(path)) {
+            return Paths.get(path, jfrogExec);
+        }
+        String pathEnv = envVars.getOrDefault("PATH", System.getenv("PATH"));
+        if (pathEnv == null) {
+            return null;
+        }
+        for (String dir : pathEnv.split(File.pathSeparator)) {
+            if (StringUtils.isBlank(dir)) {
+                continue;
+            }
+            Path executable = Paths.get(dir, jfrogExec);
+            if (Files.isRegularFile(executable)) {
+                return executable;
+            }
+        }
+        return null;
+    }
+
+    private static Path getCliHomeDir(Map<String, String> envVars) {
+        String cliHomeDir = envVars.getOrDefault(JFROG_CLI_HOME_DIR_ENV, System.getenv(JFROG_CLI_HOME_DIR_ENV));
+        return StringUtils.isNotBlank(cliHomeDir) ? Paths.get(cliHomeDir) : Paths.get(System.getProperty("user.home"), ".jfrog");
+    }
+
     public void downloadCliIfNeeded(String destinationPath, String jfrogCliVersion) throws IOException {
         // verify installed cli version
         if (Files.exists(Paths.get(path, jfrogExec))){
@@ -132,26 +194,26 @@ public class JfrogCliDriver {
     }
 
     public void downloadCliFromReleases(String cliVersion, String destinationFolder) throws IOException {
-        String[] urlParts = {"jfrog-cli/v2-jf", cliVersion, "jfrog-cli-" + getOSAndArc(), jfrogExec};
-        String fileLocationInReleases = String.join("/", urlParts);
         Path basePath = Paths.get(destinationFolder);
-        String destinationPath = basePath.resolve(jfrogExec).toString();
-        String finalUrl = JFROG_CLI_RELEASES_URL + "/" + fileLocationInReleases;
-
-        // download executable from releases and save it in 'destinationPath'
-        try (InputStream in = new URL(finalUrl).openStream()){
-            Files.copy(in, basePath.resolve(jfrogExec), StandardCopyOption.REPLACE_EXISTING);
+        Path destinationPath = basePath.resolve(jfrogExec);
+        CliDownloadManager downloadManager = new CliDownloadManager(JFROG_CLI_RELEASES_URL, cliDownloadCacheDir, log);
+        Path cachedExecutable = downloadManager.getExecutable(cliVersion, getOSAndArc(), jfrogExec);
 
+        // Copy the verified executable from the shared cache, and replace the destination executable atomically
+        Files.createDirectories(basePath);
+        Path tempFile = Files.createTempFile(basePath, jfrogExec, ".tmp");
+        try {
+            Files.copy(cachedExecutable, tempFile, StandardCopyOption.REPLACE_EXISTING);
             // setting the file as executable
-            File cliExecutable = new File(String.valueOf(basePath.resolve(jfrogExec)));
-            if (!cliExecutable.setExecutable(true)) {
+            if (!tempFile.toFile().setExecutable(true)) {
                 log.error(String.format("Failed to set downloaded CLI as executable. Path: %s", destinationPath));
-            } else {
-                log.debug(String.format("Downloaded CLI to %s. Permission te execute: %s", destinationPath, cliExecutable.canExecute()));
             }
-        } catch (IOException e) {
-            throw new IOException(String.format("Failed to download CLI from %s. Reason: %s", fileLocationInReleases, e.getMessage()), e.getCause());
+            Files.move(tempFile, destinationPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            log.debug(String.format("Downloaded CLI to %s. Permission te execute: %s", destinationPath, destinationPath.toFile().canExecute()));
+        } finally {
+            Files.deleteIfExists(tempFile);
         }
+        CliCommandCache.invalidate(destinationPath);
     }
 
     public CommandResults addCliServerConfig(String xrayUrl, String artifactoryUrl, String cliServerId, String user, String password, String accessToken, File workingDirectory, Map<String, String> envVars) throws Exception {
@@ -176,7 +238,10 @@ public class JfrogCliDriver {
         args.add("--artifactory-url=" + artifactoryUrl);
 
         try {
-            return runCommand(workingDirectory, envVars, args.toArray(new String[0]), Collections.emptyList(), credentials ,log);
+            CommandResults commandResults = runCommand(workingDirectory, envVars, args.toArray(new String[0]), Collections.emptyList(), credentials ,log);
+            // The exported config changed
+            Optional.ofNullable(resolveExecutable(combineEnvVars(envVars))).ifPresent(CliCommandCache::invalidate);
+            return commandResults;
         } catch (IOException | InterruptedException e) {
             throw new Exception("Failed to configure JFrog CLI server. Reason: " + e.getMessage(), e);
         }
@@ -192,6 +257,51 @@ public class JfrogCliDriver {
     }
 
     public CommandResults runCliAudit(File workingDirectory, AuditConfig config) throws Exception {
+        List<String> args = createAuditArgs(config);
+        try {
+            return runCommand(workingDirectory, config.getEnvVars(), args.toArray(new String[0]), Collections.emptyList(), null, log);
+        } catch (IOException | InterruptedException e) {
+            throw new Exception("Failed to run JF audit. Reason: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Run an audit and parse its SARIF report while the CLI writes it, instead of buffering the whole report in memory.
+     * The FileTreeNodes of each run of the report are passed to the consumer as soon as the run is parsed, so the
+     * consumer may receive some of the results before an error is thrown.
+     *
+     * @param workingDirectory - The working directory of the audit command
+     * @param config           - The audit config
+     * @param consumer         - Receives the FileTreeNodes of the findings
+     * @throws Exception in case of an error in the audit command, or in parsing its results.
+     */
+    public void runCliAudit(File workingDirectory, AuditConfig config, Consumer<FileTreeNode> consumer) throws Exception {
+        List<String> args = createAuditArgs(config);
+        SarifParser sarifParser = new SarifParser(log);
+        StreamingCommandExecutor commandExecutor = new StreamingCommandExecutor(Paths.get(path, this.jfrogExec).toString(), combineEnvVars(config.getEnvVars()));
+        StreamingCommandExecutor.Results<Exception> commandResults;
+        try {
+            commandResults = commandExecutor.exeCommand(workingDirectory, args, log, stdout -> {
+                // Keep the parsing error, so the error of the command is reported if the command failed
+                try {
+                    sarifParser.parse(stdout, consumer);
+                    return null;
+                } catch (IOException | RuntimeException e) {
+                    return e;
+                }
+            });
+        } catch (IOException | InterruptedException e) {
+            throw new Exception("Failed to run JF audit. Reason: " + e.getMessage(), e);
+        }
+        if (!commandResults.isOk()) {
+            throw new Exception("Failed to run JF audit. Reason: " + commandResults.err());
+        }
+        if (commandResults.output() != null) {
+            throw new IOException("Failed to parse the JF audit results. Reason: " + commandResults.output().getMessage(), commandResults.output());
+        }
+    }
+
+    private List<String> createAuditArgs(AuditConfig config) {
         List<String> args = new ArrayList<>();
         args.add("audit");
 
@@ -209,12 +319,152 @@ public class JfrogCliDriver {
             String excludedPatterns = String.join(",", config.getExcludedPattern());
             args.add("--exclusions=" + quoteArgumentForUnix(excludedPatterns));
         }
+        return args;
+    }
 
-        try {
-            return runCommand(workingDirectory, config.getEnvVars(), args.toArray(new String[0]), Collections.emptyList(), null, log);
-        } catch (IOException | InterruptedException e) {
-            throw new Exception("Failed to run JF audit. Reason: " + e.getMessage(), e);
+    /**
+     * Run a sharded audit. The scanned directories are split into groups, according to the parallelism of the config,
+     * and each group is audited by a separate CLI process. The processes run concurrently.
+     * The SARIF report of each shard is parsed while the CLI writes it, and the results of the shards are merged.
+     * A failed shard doesn't fail the audit, and is reported in the results instead.
+     *
+     * @param workingDirectory - The working directory of the audit command
+     * @param config           - The audit config
+     * @return the merged results and the failed shards.
+     * @throws Exception if all shards failed.
+     */
+    public ShardedAuditResults runShardedCliAudit(File workingDirectory, AuditConfig config) throws Exception {
+        List<List<String>> shards = splitToShards(config.getScannedDirectories(), config.getParallelism());
+        if (shards.size() <= 1) {
+            List<FileTreeNode> results = new ArrayList<>();
+            runCliAudit(workingDirectory, config, results::add);
+            return new ShardedAuditResults(results, new ArrayList<>());
+        }
+        log.debug("Running the audit in " + shards.size() + " shards");
+        Exception[] errors = new Exception[shards.size()];
+        List<BlockingTaskExecutor.BlockingTask<List<FileTreeNode>>> tasks = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++) {
+            int shardIndex = i;
+            AuditConfig shardConfig = new AuditConfig.Builder(config).scannedDirectories(shards.get(i)).build();
+            tasks.add(() -> {
+                List<FileTreeNode> shardResults = new ArrayList<>();
+                try {
+                    runCliAudit(workingDirectory, shardConfig, shardResults::add);
+                    return shardResults;
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    errors[shardIndex] = e;
+                    return null;
+                }
+            });
+        }
+        List<List<FileTreeNode>> shardsResults;
+        try (BlockingTaskExecutor executor = new BlockingTaskExecutor("jf-audit", config.getParallelism())) {
+            shardsResults = executor.invokeAll(tasks);
+        }
+
+        List<ShardedAuditResults.ShardFailure> failedShards = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++) {
+            if (errors[i] != null) {
+                log.warn("JF audit failed for " + shards.get(i) + ". Reason: " + errors[i].getMessage());
+                failedShards.add(new ShardedAuditResults.ShardFailure(shards.get(i), errors[i]));
+            }
+        }
+        if (failedShards.size() == shards.size()) {
+            Exception error = failedShards.get(0).error();
+            throw new Exception("Failed to run JF audit. Reason: " + error.getMessage(), error);
+        }
+        return new ShardedAuditResults(mergeShardsResults(shardsResults), failedShards);
+    }
+
+    /**
+     * Split the scanned directories into shards, in a round-robin order.
+     *
+     * @param scannedDirectories - The scanned directories
+     * @param parallelism        - The maximal number of shards
+     * @return the shards, or a single empty shard if there are no scanned directories.
+     */
+    static List<List<String>> splitToShards(List<String> scannedDirectories, int parallelism) {
+        if (scannedDirectories == null || scannedDirectories.isEmpty()) {
+            return List.of(new ArrayList<>());
+        }
+        int shardsCount = Math.max(1, Math.min(parallelism, scannedDirectories.size()));
+        List<List<String>> shards = new ArrayList<>();
+        for (int i = 0; i < shardsCount; i++) {
+            shards.add(new ArrayList<>());
+        }
+        for (int i = 0; i < scannedDirectories.size(); i++) {
+            shards.get(i % shardsCount).add(scannedDirectories.get(i));
+        }
+        return shards;
+    }
+
+    /**
+     * Merge the results of the shards in their order. A file found by several shards keeps a node per shard, as in the
+     * results of a SARIF report with a run per shard.
+     *
+     * @param shardsResults - The results of each shard. The results of failed shards are null, and are skipped.
+     * @return the merged results.
+     */
+    static List<FileTreeNode> mergeShardsResults(List<List<FileTreeNode>> shardsResults) {
+        List<FileTreeNode> merged = new ArrayList<>();
+        for (List<FileTreeNode> shardResults : shardsResults) {
+            if (shardResults != null) {
+                merged.addAll(shardResults);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Run an incremental audit. The scanned directories whose descriptor and lock files didn't change since the last
+     * incremental audit are not rescanned, and their results are taken from the scan cache. The merged results are
+     * written to the scan cache.
+     * If the config isn't incremental, or if it has no scanned directories, all directories are scanned.
+     * The changed directories are audited in shards, according to the parallelism of the config. The directories of
+     * failed shards keep their cached results.
+     *
+     * @param workingDirectory - The working directory of the audit command
+     * @param config           - The audit config
+     * @return the results of the scanned directories.
+     * @throws Exception in case of an error in the audit command, or in parsing its results.
+     */
+    public List<FileTreeNode> runIncrementalCliAudit(File workingDirectory, AuditConfig config) throws Exception {
+        List<String> scannedDirectories = config.getScannedDirectories();
+        if (!config.isIncremental() || scannedDirectories == null || scannedDirectories.isEmpty()) {
+            List<FileTreeNode> results = new ArrayList<>();
+            runCliAudit(workingDirectory, config, results::add);
+            if (config.isIncremental()) {
+                config.getScanCache().cacheNodes(results);
+                config.getAuditFingerprints().clear();
+            }
+            return results;
+        }
+
+        Map<String, String> fingerprints = AuditFingerprints.computeFingerprints(scannedDirectories);
+        ScanCacheObject cached = config.getScanCache().getScanCacheObject();
+        List<FileTreeNode> cachedNodes = cached != null ? cached.getFileTreeNodes() : null;
+        List<String> changedDirectories = cachedNodes != null ?
+                config.getAuditFingerprints().getChangedDirectories(fingerprints) : scannedDirectories;
+        if (changedDirectories.isEmpty()) {
+            log.debug("No descriptor changed since the last audit. Using the cached results.");
+            return cachedNodes;
         }
+        log.debug("Auditing the changed directories: " + changedDirectories);
+
+        AuditConfig changedDirsConfig = new AuditConfig.Builder(config).scannedDirectories(changedDirectories).build();
+        ShardedAuditResults auditResults = runShardedCliAudit(workingDirectory, changedDirsConfig);
+        List<FileTreeNode> freshNodes = auditResults.getResults();
+        // Keep the cached results of the failed shards, and rescan them in the next audit
+        List<String> failedDirectories = auditResults.getFailedDirectories();
+        List<String> rescannedDirectories = new ArrayList<>(changedDirectories);
+        rescannedDirectories.removeAll(failedDirectories);
+        fingerprints.keySet().removeAll(failedDirectories);
+        List<FileTreeNode> results = AuditFingerprints.mergeResults(freshNodes, cachedNodes, scannedDirectories, rescannedDirectories);
+        config.getScanCache().cacheNodes(results);
+        config.getAuditFingerprints().update(fingerprints);
+        return results;
     }
 
     private String extractVersionFromCliOutput(String input) {
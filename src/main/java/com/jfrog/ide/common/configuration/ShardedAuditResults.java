@@ -0,0 +1,41 @@
+package com.jfrog.ide.common.configuration;
+
+import com.jfrog.ide.common.nodes.FileTreeNode;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The results of a sharded audit.
+ * The findings of the successful shards are merged into a single list, and the failed shards are reported separately.
+ */
+@Getter
+public class ShardedAuditResults {
+    // The merged findings of the successful shards
+    private final List<FileTreeNode> results;
+    private final List<ShardFailure> failedShards;
+
+    /**
+     * A failed shard of the audit.
+     *
+     * @param scannedDirectories the scanned directories of the shard.
+     * @param error              the failure.
+     */
+    public record ShardFailure(List<String> scannedDirectories, Exception error) {
+    }
+
+    public ShardedAuditResults(List<FileTreeNode> results, List<ShardFailure> failedShards) {
+        this.results = results;
+        this.failedShards = failedShards;
+    }
+
+    /**
+     * @return the scanned directories of the failed shards.
+     */
+    public List<String> getFailedDirectories() {
+        return failedShards.stream()
+                .flatMap(failure -> failure.scannedDirectories().stream())
+                .collect(Collectors.toList());
+    }
+}
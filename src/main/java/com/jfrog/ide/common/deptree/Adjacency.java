@@ -0,0 +1,55 @@
+package com.jfrog.ide.common.deptree;
+
+import java.util.Arrays;
+
+/**
+ * Adjacency lists of a graph in a compressed form, by the interned indexes of its nodes. The adjacent nodes of node i
+ * are targets[offsets[i]] to targets[offsets[i + 1] - 1], sorted and without duplicates.
+ *
+ * @param offsets the offsets of the adjacent nodes of each node, and the total number of adjacent nodes at the end.
+ * @param targets the adjacent nodes of all nodes.
+ */
+record Adjacency(int[] offsets, int[] targets) {
+
+    /**
+     * Group edges by their sources, or by their targets if reversed.
+     *
+     * @param edges      the edges as pairs of (source index, target index).
+     * @param edgesSize  the number of used elements in edges, which is twice the number of edges.
+     * @param nodesCount the number of nodes. All indexes are lower than it.
+     * @param reverse    true to get the sources of each target instead of the targets of each source.
+     * @return the adjacency lists.
+     */
+    static Adjacency of(int[] edges, int edgesSize, int nodesCount, boolean reverse) {
+        int keyOffset = reverse ? 1 : 0;
+        int valueOffset = 1 - keyOffset;
+        int[] offsets = new int[nodesCount + 1];
+        for (int i = 0; i < edgesSize; i += 2) {
+            offsets[edges[i + keyOffset] + 1]++;
+        }
+        for (int i = 0; i < nodesCount; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] targets = new int[edgesSize / 2];
+        int[] positions = Arrays.copyOf(offsets, nodesCount);
+        for (int i = 0; i < edgesSize; i += 2) {
+            targets[positions[edges[i + keyOffset]]++] = edges[i + valueOffset];
+        }
+
+        // Sort the adjacent nodes of each node and remove duplicates
+        int size = 0;
+        for (int node = 0; node < nodesCount; node++) {
+            int start = offsets[node];
+            int end = offsets[node + 1];
+            Arrays.sort(targets, start, end);
+            offsets[node] = size;
+            for (int i = start; i < end; i++) {
+                if (i == start || targets[i] != targets[i - 1]) {
+                    targets[size++] = targets[i];
+                }
+            }
+        }
+        offsets[nodesCount] = size;
+        return new Adjacency(offsets, size == targets.length ? targets : Arrays.copyOf(targets, size));
+    }
+}
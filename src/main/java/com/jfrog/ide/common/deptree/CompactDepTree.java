@@ -0,0 +1,621 @@
+package com.jfrog.ide.common.deptree;
+
+import java.util.*;
+
+/**
+ * A memory-efficient dependency tree.
+ * The component IDs are interned into a table, and each node is referred to by its index in the table. The children
+ * of the nodes are stored in a single int array in compressed sparse row (CSR) form, and the scopes of each node are
+ * stored as a bitset over the scopes of the tree.
+ * <p>
+ * Use {@link #asDepTree()} to pass the tree to code that works with {@link DepTree}. The nodes of the returned tree
+ * are views of the compact tree, which are copied on write.
+ */
+public final class CompactDepTree {
+    private final String[] componentIds;
+    // Open addressing hash table of the component IDs. Contains the index of each ID plus 1, or 0 for an empty slot.
+    private final int[] idTable;
+    private final int rootIndex;
+    // The children of node i are children[childOffsets[i]] to children[childOffsets[i + 1] - 1], sorted by index
+    private final int[] childOffsets;
+    private final int[] children;
+    private final String[] scopeNames;
+    private final int scopeWords;
+    private final long[] scopeBits;
+    private final Map<Integer, String> descriptorFilePaths;
+
+    private CompactDepTree(String[] componentIds, int rootIndex, int[] childOffsets, int[] children, String[] scopeNames,
+                           long[] scopeBits, Map<Integer, String> descriptorFilePaths) {
+        this.componentIds = componentIds;
+        this.idTable = createIdTable(componentIds);
+        this.rootIndex = rootIndex;
+        this.childOffsets = childOffsets;
+        this.children = children;
+        this.scopeNames = scopeNames;
+        this.scopeWords = getScopeWords(scopeNames.length);
+        this.scopeBits = scopeBits;
+        this.descriptorFilePaths = descriptorFilePaths;
+    }
+
+    /**
+     * Create a compact copy of a dependency tree.
+     *
+     * @param depTree the dependency tree.
+     * @return the compact tree.
+     */
+    public static CompactDepTree of(DepTree depTree) {
+        Builder builder = new Builder();
+        builder.addNode(depTree.rootId());
+        for (Map.Entry<String, DepTreeNode> entry : depTree.nodes().entrySet()) {
+            String componentId = entry.getKey();
+            DepTreeNode node = entry.getValue();
+            builder.addNode(componentId);
+            node.getScopes().forEach(scope -> builder.addScope(componentId, scope));
+            node.getChildren().forEach(child -> builder.addChild(componentId, child));
+            if (node.getDescriptorFilePath() != null) {
+                builder.descriptorFilePath(componentId, node.getDescriptorFilePath());
+            }
+        }
+        return builder.build(depTree.rootId());
+    }
+
+    /**
+     * @return the number of nodes in the tree.
+     */
+    public int size() {
+        return componentIds.length;
+    }
+
+    public int getRootIndex() {
+        return rootIndex;
+    }
+
+    public String getRootId() {
+        return componentIds[rootIndex];
+    }
+
+    public String getComponentId(int index) {
+        return componentIds[index];
+    }
+
+    /**
+     * @param componentId the component ID.
+     * @return the index of the node of the component, or -1 if the component is not in the tree.
+     */
+    public int indexOf(Object componentId) {
+        if (!(componentId instanceof String) || idTable.length == 0) {
+            return -1;
+        }
+        int mask = idTable.length - 1;
+        for (int slot = componentId.hashCode() & mask; idTable[slot] != 0; slot = (slot + 1) & mask) {
+            if (componentIds[idTable[slot] - 1].equals(componentId)) {
+                return idTable[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    public int getChildCount(int index) {
+        return childOffsets[index + 1] - childOffsets[index];
+    }
+
+    /**
+     * @param index    the index of the parent node.
+     * @param position the position of the child, between 0 and {@link #getChildCount(int)} - 1.
+     * @return the index of the child node.
+     */
+    public int getChild(int index, int position) {
+        return children[childOffsets[index] + position];
+    }
+
+    /**
+     * @param index the index of the parent node.
+     * @return a copy of the indexes of the children, in ascending order.
+     */
+    public int[] getChildren(int index) {
+        return Arrays.copyOfRange(children, childOffsets[index], childOffsets[index + 1]);
+    }
+
+    public boolean hasChild(int index, int childIndex) {
+        return Arrays.binarySearch(children, childOffsets[index], childOffsets[index + 1], childIndex) >= 0;
+    }
+
+    public boolean hasScope(int index, String scope) {
+        int scopeIndex = Arrays.asList(scopeNames).indexOf(scope);
+        return scopeIndex >= 0 && hasScope(index, scopeIndex);
+    }
+
+    private boolean hasScope(int index, int scopeIndex) {
+        return (scopeBits[index * scopeWords + (scopeIndex >>> 6)] & (1L << scopeIndex)) != 0;
+    }
+
+    /**
+     * @return the scopes of a node, in the order they were added to the tree.
+     */
+    public Set<String> getScopes(int index) {
+        return new ScopesView(index);
+    }
+
+    public String getDescriptorFilePath(int index) {
+        return descriptorFilePaths.get(index);
+    }
+
+    /**
+     * Get a {@link DepTree} view of this tree. Each node has a single view, which is created on first access.
+     * The view can be modified like any other {@link DepTree}: the modified sets, nodes and node map are copied on the
+     * first write, so the modifications don't affect this tree or other views of it.
+     *
+     * @return a {@link DepTree} view of this tree.
+     */
+    public DepTree asDepTree() {
+        return new DepTree(getRootId(), new NodesView());
+    }
+
+    private static int getScopeWords(int scopesCount) {
+        return (scopesCount + 63) >>> 6;
+    }
+
+    private static int[] createIdTable(String[] componentIds) {
+        int capacity = Integer.highestOneBit(Math.max(2, componentIds.length * 2 - 1)) << 1;
+        int[] idTable = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < componentIds.length; i++) {
+            int slot = componentIds[i].hashCode() & mask;
+            while (idTable[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            idTable[slot] = i + 1;
+        }
+        return idTable;
+    }
+
+    /**
+     * A {@link DepTreeNode} view of a node. The children, the scopes and the descriptor file path are read from the
+     * compact tree until they are modified.
+     */
+    private class NodeView extends DepTreeNode {
+        private final int index;
+        private Set<String> scopes;
+        private Set<String> children;
+        private String descriptorFilePath;
+        private boolean descriptorFilePathSet;
+
+        private NodeView(int index) {
+            this.index = index;
+            this.scopes = new CopyOnWriteSet(new ScopesView(index));
+            this.children = new CopyOnWriteSet(new ChildrenView(index));
+            // The sets of the base class are not used
+            super.scopes(null);
+            super.children(null);
+        }
+
+        @Override
+        public DepTreeNode descriptorFilePath(String path) {
+            descriptorFilePath = path;
+            descriptorFilePathSet = true;
+            return this;
+        }
+
+        @Override
+        public DepTreeNode scopes(Set<String> scopes) {
+            this.scopes = scopes;
+            return this;
+        }
+
+        @Override
+        public DepTreeNode children(Set<String> children) {
+            this.children = children;
+            return this;
+        }
+
+        @Override
+        public String getDescriptorFilePath() {
+            return descriptorFilePathSet ? descriptorFilePath : CompactDepTree.this.getDescriptorFilePath(index);
+        }
+
+        @Override
+        public Set<String> getScopes() {
+            return scopes;
+        }
+
+        @Override
+        public Set<String> getChildren() {
+            return children;
+        }
+    }
+
+    /**
+     * A set that reads from a read-only view, until it is modified for the first time. Then, the view is copied and
+     * all operations use the copy.
+     */
+    private static class CopyOnWriteSet extends AbstractSet<String> {
+        private final Set<String> view;
+        private Set<String> copy;
+
+        private CopyOnWriteSet(Set<String> view) {
+            this.view = view;
+        }
+
+        private Set<String> getCopy() {
+            if (copy == null) {
+                copy = new LinkedHashSet<>(view);
+            }
+            return copy;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return (copy != null ? copy : view).contains(o);
+        }
+
+        @Override
+        public int size() {
+            return (copy != null ? copy : view).size();
+        }
+
+        @Override
+        public boolean add(String s) {
+            return getCopy().add(s);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return getCopy().remove(o);
+        }
+
+        @Override
+        public void clear() {
+            copy = new LinkedHashSet<>();
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            if (copy != null) {
+                return copy.iterator();
+            }
+            Iterator<String> viewIterator = view.iterator();
+            return new Iterator<>() {
+                private String last;
+
+                @Override
+                public boolean hasNext() {
+                    return viewIterator.hasNext();
+                }
+
+                @Override
+                public String next() {
+                    last = viewIterator.next();
+                    return last;
+                }
+
+                @Override
+                public void remove() {
+                    if (last == null) {
+                        throw new IllegalStateException();
+                    }
+                    getCopy().remove(last);
+                    last = null;
+                }
+            };
+        }
+    }
+
+    private class ChildrenView extends AbstractSet<String> {
+        private final int index;
+
+        private ChildrenView(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public boolean contains(Object componentId) {
+            int childIndex = indexOf(componentId);
+            return childIndex >= 0 && hasChild(index, childIndex);
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<>() {
+                private int offset = childOffsets[index];
+
+                @Override
+                public boolean hasNext() {
+                    return offset < childOffsets[index + 1];
+                }
+
+                @Override
+                public String next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return componentIds[children[offset++]];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return getChildCount(index);
+        }
+    }
+
+    private class ScopesView extends AbstractSet<String> {
+        private final int index;
+
+        private ScopesView(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public boolean contains(Object scope) {
+            int scopeIndex = Arrays.asList(scopeNames).indexOf(scope);
+            return scopeIndex >= 0 && hasScope(index, scopeIndex);
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<>() {
+                private int next = findNext(0);
+
+                private int findNext(int from) {
+                    for (int scopeIndex = from; scopeIndex < scopeNames.length; scopeIndex++) {
+                        if (hasScope(index, scopeIndex)) {
+                            return scopeIndex;
+                        }
+                    }
+                    return scopeNames.length;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next < scopeNames.length;
+                }
+
+                @Override
+                public String next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    String scope = scopeNames[next];
+                    next = findNext(next + 1);
+                    return scope;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (int word = 0; word < scopeWords; word++) {
+                size += Long.bitCount(scopeBits[index * scopeWords + word]);
+            }
+            return size;
+        }
+    }
+
+    /**
+     * A map view of the nodes, by their component IDs. The node views are created on first access. The map is copied
+     * when it is modified for the first time, either directly or through its entries, key set, values or iterators.
+     */
+    private class NodesView extends AbstractMap<String, DepTreeNode> {
+        private final DepTreeNode[] nodeViews = new DepTreeNode[componentIds.length];
+        private volatile Map<String, DepTreeNode> copy;
+
+        private synchronized DepTreeNode getNodeView(int index) {
+            if (nodeViews[index] == null) {
+                nodeViews[index] = new NodeView(index);
+            }
+            return nodeViews[index];
+        }
+
+        private synchronized Map<String, DepTreeNode> getCopy() {
+            if (copy == null) {
+                Map<String, DepTreeNode> nodes = new HashMap<>();
+                for (int index = 0; index < componentIds.length; index++) {
+                    nodes.put(componentIds[index], getNodeView(index));
+                }
+                copy = nodes;
+            }
+            return copy;
+        }
+
+        @Override
+        public DepTreeNode get(Object componentId) {
+            if (copy != null) {
+                return copy.get(componentId);
+            }
+            int index = indexOf(componentId);
+            return index >= 0 ? getNodeView(index) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object componentId) {
+            return copy != null ? copy.containsKey(componentId) : indexOf(componentId) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return copy != null ? copy.size() : componentIds.length;
+        }
+
+        @Override
+        public DepTreeNode put(String componentId, DepTreeNode node) {
+            return getCopy().put(componentId, node);
+        }
+
+        @Override
+        public DepTreeNode remove(Object componentId) {
+            return getCopy().remove(componentId);
+        }
+
+        @Override
+        public void clear() {
+            getCopy().clear();
+        }
+
+        @Override
+        public Set<Entry<String, DepTreeNode>> entrySet() {
+            if (copy != null) {
+                return copy.entrySet();
+            }
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, DepTreeNode>> iterator() {
+                    if (copy != null) {
+                        return copy.entrySet().iterator();
+                    }
+                    // Changes through the entries and the iterator are written to the copy. The copy has the same node
+                    // views, so the next entries are still up to date.
+                    return new Iterator<>() {
+                        private int index;
+                        private String lastComponentId;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < componentIds.length;
+                        }
+
+                        @Override
+                        public Entry<String, DepTreeNode> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            lastComponentId = componentIds[index];
+                            Entry<String, DepTreeNode> entry = new SimpleEntry<>(lastComponentId, getNodeView(index)) {
+                                @Override
+                                public DepTreeNode setValue(DepTreeNode node) {
+                                    getCopy().put(getKey(), node);
+                                    return super.setValue(node);
+                                }
+                            };
+                            index++;
+                            return entry;
+                        }
+
+                        @Override
+                        public void remove() {
+                            if (lastComponentId == null) {
+                                throw new IllegalStateException();
+                            }
+                            getCopy().remove(lastComponentId);
+                            lastComponentId = null;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return NodesView.this.size();
+                }
+            };
+        }
+    }
+
+    /**
+     * Builds a {@link CompactDepTree}. The edges and scopes are collected in primitive arrays, and duplicate edges and
+     * scopes are removed when the tree is built.
+     */
+    public static class Builder {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> componentIds = new ArrayList<>();
+        private final Map<String, Integer> scopeIndexes = new LinkedHashMap<>();
+        private final Map<Integer, String> descriptorFilePaths = new HashMap<>();
+        // Pairs of (parent index, child index)
+        private int[] edges = new int[64];
+        private int edgesSize;
+        // Pairs of (node index, scope index)
+        private int[] scopes = new int[64];
+        private int scopesSize;
+
+        /**
+         * Add a node to the tree, if it doesn't exist.
+         *
+         * @param componentId the component ID.
+         * @return the index of the node.
+         */
+        public int addNode(String componentId) {
+            Integer index = indexes.get(componentId);
+            if (index == null) {
+                index = componentIds.size();
+                indexes.put(componentId, index);
+                componentIds.add(componentId);
+            }
+            return index;
+        }
+
+        /**
+         * Add an edge to the tree. The nodes are added if they don't exist.
+         *
+         * @param parentId the component ID of the parent.
+         * @param childId  the component ID of the child.
+         * @return this builder.
+         */
+        public Builder addChild(String parentId, String childId) {
+            int parentIndex = addNode(parentId);
+            int childIndex = addNode(childId);
+            edges = ensureCapacity(edges, edgesSize + 2);
+            edges[edgesSize++] = parentIndex;
+            edges[edgesSize++] = childIndex;
+            return this;
+        }
+
+        /**
+         * Add a scope to a node. The node is added if it doesn't exist.
+         *
+         * @param componentId the component ID.
+         * @param scope       the scope.
+         * @return this builder.
+         */
+        public Builder addScope(String componentId, String scope) {
+            int index = addNode(componentId);
+            int scopeIndex = scopeIndexes.computeIfAbsent(scope, key -> scopeIndexes.size());
+            scopes = ensureCapacity(scopes, scopesSize + 2);
+            scopes[scopesSize++] = index;
+            scopes[scopesSize++] = scopeIndex;
+            return this;
+        }
+
+        /**
+         * Set the descriptor file path of a node. The node is added if it doesn't exist.
+         *
+         * @param componentId        the component ID.
+         * @param descriptorFilePath the descriptor file path.
+         * @return this builder.
+         */
+        public Builder descriptorFilePath(String componentId, String descriptorFilePath) {
+            int index = addNode(componentId);
+            if (descriptorFilePath == null) {
+                descriptorFilePaths.remove(index);
+            } else {
+                descriptorFilePaths.put(index, descriptorFilePath);
+            }
+            return this;
+        }
+
+        /**
+         * @param rootId the component ID of the root. The root is added if it doesn't exist.
+         * @return the tree.
+         */
+        public CompactDepTree build(String rootId) {
+            int rootIndex = addNode(rootId);
+            int nodesCount = componentIds.size();
+
+            Adjacency children = Adjacency.of(edges, edgesSize, nodesCount, false);
+
+            String[] scopeNames = scopeIndexes.keySet().toArray(new String[0]);
+            int scopeWords = getScopeWords(scopeNames.length);
+            long[] scopeBits = new long[nodesCount * scopeWords];
+            for (int i = 0; i < scopesSize; i += 2) {
+                int scopeIndex = scopes[i + 1];
+                scopeBits[scopes[i] * scopeWords + (scopeIndex >>> 6)] |= 1L << scopeIndex;
+            }
+
+            return new CompactDepTree(componentIds.toArray(new String[0]), rootIndex, children.offsets(),
+                    children.targets(), scopeNames, scopeBits, new HashMap<>(descriptorFilePaths));
+        }
+
+        private static int[] ensureCapacity(int[] array, int capacity) {
+            return capacity <= array.length ? array : Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.jfrog.ide.common.deptree;
+
+import java.util.*;
+
+/**
+ * The differences between two snapshots of a dependency tree, for example before and after a lock file change.
+ * Scans and views can process only the changed components, instead of the whole tree.
+ * <p>
+ * The component IDs of both trees are interned into a single table, and the parents of each component are compared
+ * as sorted int arrays, so the diff runs in linear time in the number of nodes and edges of the trees.
+ */
+public final class DepTreeDiff {
+    private final Set<String> addedComponents;
+    private final Set<String> removedComponents;
+    private final Map<String, ParentsChange> reparentedComponents;
+    private final Map<String, ScopesChange> changedScopes;
+
+    /**
+     * The parents of a component in both trees.
+     *
+     * @param previousParents the parents in the previous tree.
+     * @param currentParents  the parents in the current tree.
+     */
+    public record ParentsChange(Set<String> previousParents, Set<String> currentParents) {
+    }
+
+    /**
+     * The scopes of a component in both trees.
+     *
+     * @param previousScopes the scopes in the previous tree.
+     * @param currentScopes  the scopes in the current tree.
+     */
+    public record ScopesChange(Set<String> previousScopes, Set<String> currentScopes) {
+    }
+
+    private DepTreeDiff(Set<String> addedComponents, Set<String> removedComponents,
+                        Map<String, ParentsChange> reparentedComponents, Map<String, ScopesChange> changedScopes) {
+        this.addedComponents = Collections.unmodifiableSet(addedComponents);
+        this.removedComponents = Collections.unmodifiableSet(removedComponents);
+        this.reparentedComponents = Collections.unmodifiableMap(reparentedComponents);
+        this.changedScopes = Collections.unmodifiableMap(changedScopes);
+    }
+
+    /**
+     * Compare two snapshots of a dependency tree.
+     *
+     * @param previous the previous tree, or null if there is no previous tree.
+     * @param current  the current tree.
+     * @return the differences between the trees.
+     */
+    public static DepTreeDiff compute(DepTree previous, DepTree current) {
+        Map<String, Integer> indexes = new HashMap<>();
+        List<String> componentIds = new ArrayList<>();
+        ParentsIndex previousParents = previous != null ? new ParentsIndex(previous, indexes, componentIds) : null;
+        ParentsIndex currentParents = new ParentsIndex(current, indexes, componentIds);
+
+        Set<String> addedComponents = new LinkedHashSet<>();
+        Set<String> removedComponents = new LinkedHashSet<>();
+        Map<String, ParentsChange> reparentedComponents = new LinkedHashMap<>();
+        Map<String, ScopesChange> changedScopes = new LinkedHashMap<>();
+        for (int index = 0; index < componentIds.size(); index++) {
+            String componentId = componentIds.get(index);
+            boolean inPrevious = previousParents != null && previousParents.contains(index);
+            boolean inCurrent = currentParents.contains(index);
+            if (!inPrevious && !inCurrent) {
+                // A child without a node in both trees
+                continue;
+            }
+            if (!inPrevious) {
+                addedComponents.add(componentId);
+                continue;
+            }
+            if (!inCurrent) {
+                removedComponents.add(componentId);
+                continue;
+            }
+            if (!previousParents.hasSameParents(index, currentParents)) {
+                reparentedComponents.put(componentId, new ParentsChange(
+                        previousParents.getParentIds(index, componentIds), currentParents.getParentIds(index, componentIds)));
+            }
+            Set<String> previousScopes = previous.nodes().get(componentId).getScopes();
+            Set<String> currentScopes = current.nodes().get(componentId).getScopes();
+            if (!previousScopes.equals(currentScopes)) {
+                changedScopes.put(componentId, new ScopesChange(Set.copyOf(previousScopes), Set.copyOf(currentScopes)));
+            }
+        }
+        return new DepTreeDiff(addedComponents, removedComponents, reparentedComponents, changedScopes);
+    }
+
+    /**
+     * @return the components that exist only in the current tree.
+     */
+    public Set<String> getAddedComponents() {
+        return addedComponents;
+    }
+
+    /**
+     * @return the components that exist only in the previous tree.
+     */
+    public Set<String> getRemovedComponents() {
+        return removedComponents;
+    }
+
+    /**
+     * @return the components of both trees whose parents changed, by their component IDs.
+     */
+    public Map<String, ParentsChange> getReparentedComponents() {
+        return reparentedComponents;
+    }
+
+    /**
+     * @return the components of both trees whose scopes changed, by their component IDs.
+     */
+    public Map<String, ScopesChange> getChangedScopes() {
+        return changedScopes;
+    }
+
+    /**
+     * Get the components of the current tree that should be refreshed: the added components, and the components whose
+     * parents or scopes changed.
+     *
+     * @return the component IDs.
+     */
+    public Set<String> getChangedComponents() {
+        Set<String> changedComponents = new LinkedHashSet<>(addedComponents);
+        changedComponents.addAll(reparentedComponents.keySet());
+        changedComponents.addAll(changedScopes.keySet());
+        return changedComponents;
+    }
+
+    /**
+     * @return true if the trees have the same components, parents and scopes.
+     */
+    public boolean isEmpty() {
+        return addedComponents.isEmpty() && removedComponents.isEmpty() && reparentedComponents.isEmpty() && changedScopes.isEmpty();
+    }
+
+    /**
+     * The parents of each node of a tree, by the interned indexes of the component IDs. The parents of node i are
+     * parents[parentOffsets[i]] to parents[parentOffsets[i + 1] - 1], sorted and without duplicates.
+     */
+    private static class ParentsIndex {
+        private final BitSet nodes = new BitSet();
+        private final int[] parentOffsets;
+        private final int[] parents;
+
+        private ParentsIndex(DepTree tree, Map<String, Integer> indexes, List<String> componentIds) {
+            // Collect the edges as pairs of (parent index, child index)
+            int[] edges = new int[64];
+            int edgesSize = 0;
+            for (Map.Entry<String, DepTreeNode> entry : tree.nodes().entrySet()) {
+                int parentIndex = intern(entry.getKey(), indexes, componentIds);
+                nodes.set(parentIndex);
+                for (String child : entry.getValue().getChildren()) {
+                    if (edgesSize + 2 > edges.length) {
+                        edges = Arrays.copyOf(edges, edges.length * 2);
+                    }
+                    edges[edgesSize++] = parentIndex;
+                    edges[edgesSize++] = intern(child, indexes, componentIds);
+                }
+            }
+            // Children that aren't nodes of the tree are interned too, so the size is known only now
+            Adjacency adjacency = Adjacency.of(edges, edgesSize, componentIds.size(), true);
+            parentOffsets = adjacency.offsets();
+            parents = adjacency.targets();
+        }
+
+        private boolean contains(int index) {
+            return nodes.get(index);
+        }
+
+        private int getStart(int index) {
+            // Nodes that were interned after this index was built have no parents in its tree
+            return index < parentOffsets.length - 1 ? parentOffsets[index] : parents.length;
+        }
+
+        private int getEnd(int index) {
+            return index < parentOffsets.length - 1 ? parentOffsets[index + 1] : parents.length;
+        }
+
+        private boolean hasSameParents(int index, ParentsIndex other) {
+            return Arrays.equals(parents, getStart(index), getEnd(index), other.parents, other.getStart(index), other.getEnd(index));
+        }
+
+        private Set<String> getParentIds(int index, List<String> componentIds) {
+            Set<String> parentIds = new LinkedHashSet<>();
+            for (int i = getStart(index); i < getEnd(index); i++) {
+                parentIds.add(componentIds.get(parents[i]));
+            }
+            return parentIds;
+        }
+
+        private static int intern(String componentId, Map<String, Integer> indexes, List<String> componentIds) {
+            return indexes.computeIfAbsent(componentId, id -> {
+                componentIds.add(id);
+                return componentIds.size() - 1;
+            });
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.jfrog.ide.common.deptree;
+
+import com.jfrog.ide.common.nodes.DependencyNode;
+import com.jfrog.ide.common.nodes.subentities.ImpactTree;
+import com.jfrog.ide.common.nodes.subentities.ImpactTreeNode;
+
+import java.util.*;
+
+/**
+ * Find the impact paths of components, from the root of a dependency tree to each component, using a
+ * {@link ParentsIndex} of the tree.
+ * <p>
+ * The paths of all components are found in one multi-source search. The search walks up from the components toward
+ * the root, expanding the partial paths in the order of the length of the full paths they lead to: the length of the
+ * partial path plus the distance of its last node from the root. Therefore, the paths of each component are found
+ * shortest first, and a partial path is expanded only if it leads to one of the next paths. The search stops for a
+ * component after {@link ImpactTree#IMPACT_PATHS_LIMIT} paths. The total number of paths of each component is counted
+ * separately, see {@link #countPaths}.
+ */
+public final class ImpactTreeBuilder {
+    // Bounds the work per component in graphs with many cycles, where partial paths may run into themselves
+    private static final int MAX_EXPANSIONS_PER_COMPONENT = 100 * ImpactTree.IMPACT_PATHS_LIMIT;
+
+    private ImpactTreeBuilder() {
+    }
+
+    /**
+     * Set the impact trees of the dependencies. The root of each impact tree is the root of the dependency tree.
+     * Each impact tree holds up to {@link ImpactTree#IMPACT_PATHS_LIMIT} paths, and its impact paths count is the
+     * number of all the paths to the dependency.
+     *
+     * @param depTree      the dependency tree.
+     * @param dependencies the dependencies by their component IDs, without the package type prefix. Dependencies that
+     *                     aren't reachable from the root of the tree are skipped.
+     */
+    public static void populateImpactTrees(DepTree depTree, Map<String, DependencyNode> dependencies) {
+        // The tree may have changed since the last call, so it is indexed again
+        ParentsIndex index = new ParentsIndex(depTree);
+        Map<String, List<List<String>>> impactPaths = findImpactPaths(index, dependencies.keySet());
+        int[] pathsCounts = countPaths(index);
+        impactPaths.forEach((componentId, paths) -> {
+            // In graphs with cycles, the search may find paths that aren't counted
+            int pathsCount = Math.max(paths.size(), pathsCounts[index.indexOf(componentId)]);
+            dependencies.get(componentId).setImpactTree(createImpactTree(paths, pathsCount));
+        });
+    }
+
+    /**
+     * Find the impact paths of many components at once.
+     *
+     * @param depTree      the dependency tree.
+     * @param componentIds the component IDs.
+     * @return the paths of each component that is reachable from the root, shortest first, up to
+     * {@link ImpactTree#IMPACT_PATHS_LIMIT} paths per component. Each path starts with the root ID and ends with the
+     * component ID.
+     */
+    public static Map<String, List<List<String>>> findImpactPaths(DepTree depTree, Collection<String> componentIds) {
+        return findImpactPaths(new ParentsIndex(depTree), componentIds);
+    }
+
+    /**
+     * Find the impact paths of many components at once, using an index that was created in advance. The index can be
+     * reused as long as the tree doesn't change.
+     *
+     * @param index        the parents index of the dependency tree.
+     * @param componentIds the component IDs.
+     * @return the paths of each component that is reachable from the root, shortest first, up to
+     * {@link ImpactTree#IMPACT_PATHS_LIMIT} paths per component. Each path starts with the root ID and ends with the
+     * component ID.
+     */
+    public static Map<String, List<List<String>>> findImpactPaths(ParentsIndex index, Collection<String> componentIds) {
+        int[] depths = index.depths;
+        PartialPaths partialPaths = new PartialPaths();
+        PriorityQueue<Integer> queue = new PriorityQueue<>(Comparator.<Integer>comparingInt(partialPath ->
+                partialPaths.lengths[partialPath] + depths[partialPaths.nodes[partialPath]]).thenComparingInt(partialPath -> partialPath));
+
+        // A source is a component to find the paths of
+        List<String> sources = new ArrayList<>();
+        for (String componentId : new LinkedHashSet<>(componentIds)) {
+            int nodeIndex = index.indexOf(componentId);
+            if (nodeIndex < 0 || nodeIndex == index.rootIndex || depths[nodeIndex] == Integer.MAX_VALUE) {
+                continue;
+            }
+            queue.add(partialPaths.add(nodeIndex, -1, 0, sources.size()));
+            sources.add(componentId);
+        }
+        List<List<List<String>>> sourcesPaths = new ArrayList<>();
+        sources.forEach(source -> sourcesPaths.add(new ArrayList<>()));
+        int[] expansions = new int[sources.size()];
+
+        while (!queue.isEmpty()) {
+            int partialPath = queue.poll();
+            int source = partialPaths.sources[partialPath];
+            List<List<String>> paths = sourcesPaths.get(source);
+            if (paths.size() >= ImpactTree.IMPACT_PATHS_LIMIT || expansions[source] >= MAX_EXPANSIONS_PER_COMPONENT) {
+                continue;
+            }
+            int node = partialPaths.nodes[partialPath];
+            if (node == index.rootIndex) {
+                paths.add(partialPaths.toComponentIds(partialPath, index.componentIds));
+                continue;
+            }
+            expansions[source]++;
+            for (int i = index.parents.offsets()[node]; i < index.parents.offsets()[node + 1]; i++) {
+                int parent = index.parents.targets()[i];
+                if (depths[parent] != Integer.MAX_VALUE && !partialPaths.contains(partialPath, parent)) {
+                    queue.add(partialPaths.add(parent, partialPath, partialPaths.lengths[partialPath] + 1, source));
+                }
+            }
+        }
+
+        Map<String, List<List<String>>> impactPaths = new LinkedHashMap<>();
+        for (int source = 0; source < sources.size(); source++) {
+            impactPaths.put(sources.get(source), sourcesPaths.get(source));
+        }
+        return impactPaths;
+    }
+
+    /**
+     * Count the paths from the root to each node. The paths are counted in the graph without the edges that close
+     * cycles, which are found by a depth-first search from the root, so the count is exact in acyclic graphs and a
+     * lower bound otherwise. The search visits the children of each node in the order of their component IDs, so the
+     * count doesn't depend on the order of the nodes and children in the tree. The counts are capped at
+     * Integer.MAX_VALUE.
+     *
+     * @param index the parents index of the dependency tree.
+     * @return the number of paths to each node by its index, and 0 for nodes that are unreachable from the root.
+     */
+    static int[] countPaths(ParentsIndex index) {
+        int[] childOffsets = index.children.offsets();
+        int[] children = index.children.targets();
+        int size = childOffsets.length - 1;
+
+        // Order the nodes by the time the depth-first search finishes them. An edge to a node that finishes later,
+        // which is an ancestor of the node in the search, closes a cycle.
+        int[] finishTimes = new int[size];
+        int[] finishedNodes = new int[size];
+        int finishedCount = 0;
+        boolean[] visited = new boolean[size];
+        int[] nextChild = new int[size];
+        int[] stack = new int[size];
+        int top = 0;
+        visited[index.rootIndex] = true;
+        nextChild[index.rootIndex] = childOffsets[index.rootIndex];
+        stack[top++] = index.rootIndex;
+        while (top > 0) {
+            int node = stack[top - 1];
+            if (nextChild[node] < childOffsets[node + 1]) {
+                int child = children[nextChild[node]++];
+                if (!visited[child]) {
+                    visited[child] = true;
+                    nextChild[child] = childOffsets[child];
+                    stack[top++] = child;
+                }
+                continue;
+            }
+            top--;
+            finishTimes[node] = finishedCount;
+            finishedNodes[finishedCount++] = node;
+        }
+
+        // Without the edges that close cycles, the nodes in reverse finish order are topologically sorted
+        int[] pathsCounts = new int[size];
+        pathsCounts[index.rootIndex] = 1;
+        for (int i = finishedCount - 1; i >= 0; i--) {
+            int node = finishedNodes[i];
+            for (int j = childOffsets[node]; j < childOffsets[node + 1]; j++) {
+                int child = children[j];
+                if (finishTimes[child] < finishTimes[node]) {
+                    pathsCounts[child] = (int) Math.min((long) pathsCounts[child] + pathsCounts[node], Integer.MAX_VALUE);
+                }
+            }
+        }
+        return pathsCounts;
+    }
+
+    /**
+     * Merge paths with the same root into an impact tree.
+     *
+     * @param paths      the paths, each one starts with the root.
+     * @param pathsCount the number of all the paths to the component, which may be larger than the number of paths.
+     * @return the impact tree.
+     */
+    static ImpactTree createImpactTree(List<List<String>> paths, int pathsCount) {
+        ImpactTree impactTree = new ImpactTree(new ImpactTreeNode(paths.get(0).get(0)));
+        for (List<String> path : paths) {
+            ImpactTreeNode parent = impactTree.getRoot();
+            for (String componentId : path.subList(1, path.size())) {
+                ImpactTreeNode child = parent.getChildren().stream()
+                        .filter(node -> node.getName().equals(componentId))
+                        .findFirst().orElse(null);
+                if (child == null) {
+                    child = new ImpactTreeNode(componentId);
+                    parent.getChildren().add(child);
+                }
+                parent = child;
+            }
+        }
+        impactTree.setImpactPathsCount(pathsCount);
+        return impactTree;
+    }
+
+    /**
+     * The partial paths of the search, in parallel arrays. Each partial path is its last node, the partial path it
+     * extends, its length and the source it started from.
+     */
+    private static class PartialPaths {
+        private int[] nodes = new int[64];
+        private int[] previous = new int[64];
+        private int[] lengths = new int[64];
+        private int[] sources = new int[64];
+        private int size;
+
+        private int add(int node, int previousPath, int length, int source) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                previous = Arrays.copyOf(previous, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+                sources = Arrays.copyOf(sources, size * 2);
+            }
+            nodes[size] = node;
+            previous[size] = previousPath;
+            lengths[size] = length;
+            sources[size] = source;
+            return size++;
+        }
+
+        private boolean contains(int partialPath, int node) {
+            for (int i = partialPath; i >= 0; i = previous[i]) {
+                if (nodes[i] == node) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return the component IDs of a partial path that ends at the root, from the root to the source.
+         */
+        private List<String> toComponentIds(int partialPath, String[] componentIds) {
+            List<String> path = new ArrayList<>(lengths[partialPath] + 1);
+            for (int i = partialPath; i >= 0; i = previous[i]) {
+                path.add(componentIds[nodes[i]]);
+            }
+            return path;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.jfrog.ide.common.deptree;
+
+import java.util.*;
+
+/**
+ * The reverse edges of a dependency tree, by the interned indexes of the component IDs, so the tree can be walked from
+ * any node up to the root. The distance of each node from the root is kept too, with Integer.MAX_VALUE for nodes that
+ * are unreachable from the root.
+ * <p>
+ * The index is a snapshot of the tree when it was created, and isn't updated when the tree changes. Create a new index
+ * after modifying the tree.
+ */
+public final class ParentsIndex {
+    final String[] componentIds;
+    final Adjacency children;
+    final Adjacency parents;
+    final int[] depths;
+    final int rootIndex;
+    private final Map<String, Integer> indexes = new HashMap<>();
+
+    /**
+     * @param tree the dependency tree to index.
+     */
+    public ParentsIndex(DepTree tree) {
+        // The component IDs are interned in sorted order, so the adjacency lists are sorted by component ID, and the
+        // searches over them don't depend on the order of the nodes and children in the tree
+        Set<String> ids = new HashSet<>();
+        ids.add(tree.rootId());
+        for (Map.Entry<String, DepTreeNode> entry : tree.nodes().entrySet()) {
+            ids.add(entry.getKey());
+            ids.addAll(entry.getValue().getChildren());
+        }
+        componentIds = ids.toArray(new String[0]);
+        Arrays.sort(componentIds);
+        for (int i = 0; i < componentIds.length; i++) {
+            indexes.put(componentIds[i], i);
+        }
+
+        // Collect the edges as pairs of (parent index, child index)
+        int[] edges = new int[64];
+        int edgesSize = 0;
+        for (Map.Entry<String, DepTreeNode> entry : tree.nodes().entrySet()) {
+            int parentIndex = indexes.get(entry.getKey());
+            for (String child : entry.getValue().getChildren()) {
+                if (edgesSize + 2 > edges.length) {
+                    edges = Arrays.copyOf(edges, edges.length * 2);
+                }
+                edges[edgesSize++] = parentIndex;
+                edges[edgesSize++] = indexes.get(child);
+            }
+        }
+        rootIndex = indexes.get(tree.rootId());
+        int size = componentIds.length;
+        children = Adjacency.of(edges, edgesSize, size, false);
+        parents = Adjacency.of(edges, edgesSize, size, true);
+
+        depths = new int[size];
+        Arrays.fill(depths, Integer.MAX_VALUE);
+        int[] queue = new int[size];
+        int head = 0;
+        int tail = 0;
+        depths[rootIndex] = 0;
+        queue[tail++] = rootIndex;
+        while (head < tail) {
+            int node = queue[head++];
+            for (int i = children.offsets()[node]; i < children.offsets()[node + 1]; i++) {
+                int child = children.targets()[i];
+                if (depths[child] == Integer.MAX_VALUE) {
+                    depths[child] = depths[node] + 1;
+                    queue[tail++] = child;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the parents of a node.
+     *
+     * @param componentId the component ID of the node.
+     * @return the component IDs of the nodes that have the node as a child.
+     */
+    public Set<String> getParents(String componentId) {
+        int nodeIndex = indexOf(componentId);
+        if (nodeIndex < 0) {
+            return Collections.emptySet();
+        }
+        Set<String> parentIds = new LinkedHashSet<>();
+        for (int i = parents.offsets()[nodeIndex]; i < parents.offsets()[nodeIndex + 1]; i++) {
+            parentIds.add(componentIds[parents.targets()[i]]);
+        }
+        return parentIds;
+    }
+
+    int indexOf(String componentId) {
+        Integer index = indexes.get(componentId);
+        return index != null ? index : -1;
+    }
+}
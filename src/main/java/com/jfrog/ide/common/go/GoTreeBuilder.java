@@ -2,6 +2,7 @@ package com.jfrog.ide.common.go;
 
 import com.jfrog.ide.common.deptree.DepTree;
 import com.jfrog.ide.common.deptree.DepTreeNode;
+import com.jfrog.ide.common.utils.StreamingCommandExecutor;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -17,6 +18,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -58,11 +60,22 @@ public class GoTreeBuilder {
      * @throws IOException in case of any I/O error.
      */
     public DepTree createDependencyTree(GoDriver goDriver, Log logger, boolean verbose, boolean dontBuildVcs) throws IOException {
-        // Run go mod graph.
-        // Not all the dependencies returned are used.
-        CommandResults goGraphResult = goDriver.modGraph(verbose);
-        String[] dependenciesGraph = goGraphResult.getRes().split("\\r?\\n");
+        return createDependencyTree(goDriver, null, logger, verbose, dontBuildVcs);
+    }
 
+    /**
+     * Create Go dependency tree of actually used dependencies.
+     *
+     * @param goDriver         Go driver
+     * @param workingDirectory the working directory of the Go driver, to stream the 'go mod graph' output from, or null
+     *                         to run 'go mod graph' through the Go driver
+     * @param logger           the logger
+     * @param verbose          verbose logging
+     * @param dontBuildVcs     skip VCS stamping - can be used only on Go later than 1.18
+     * @return Go dependency tree
+     * @throws IOException in case of any I/O error.
+     */
+    private DepTree createDependencyTree(GoDriver goDriver, File workingDirectory, Log logger, boolean verbose, boolean dontBuildVcs) throws IOException {
         CommandResults usedModulesResults;
         try {
             usedModulesResults = goDriver.getUsedModules(false, false, dontBuildVcs);
@@ -83,10 +96,36 @@ public class GoTreeBuilder {
         String rootPackageName = goDriver.getModuleName();
         Map<String, DepTreeNode> nodes = createNodes(usedDependencies);
         DepTree depTree = new DepTree(rootPackageName, nodes);
-        populateChildren(depTree, dependenciesGraph);
+        // Run go mod graph.
+        // Not all the dependencies returned are used.
+        if (workingDirectory == null) {
+            CommandResults goGraphResult = goDriver.modGraph(verbose);
+            populateChildren(depTree, goGraphResult.getRes().split("\\r?\\n"));
+        } else {
+            streamModGraph(depTree, workingDirectory, verbose);
+        }
         return depTree;
     }
 
+    /**
+     * Run 'go mod graph' and add each edge of the graph to the tree while the command runs. The graph contains all
+     * the module requirements, so its output may be much larger than the tree itself.
+     */
+    private void streamModGraph(DepTree depTree, File workingDirectory, boolean verbose) throws IOException {
+        Map<String, DepTreeNode> nodes = depTree.nodes();
+        StreamingCommandExecutor executor = new StreamingCommandExecutor(StringUtils.defaultIfBlank(executablePath, "go"), env);
+        try {
+            StreamingCommandExecutor.Results<Void> results = executor.exeCommandByLines(workingDirectory, List.of("mod", "graph"),
+                    verbose ? logger : null, entry -> addGraphEntry(nodes, entry));
+            if (!results.isOk()) {
+                throw new IOException(results.err());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("go mod graph was interrupted", e);
+        }
+    }
+
     private static Map<String, DepTreeNode> createNodes(Set<String> usedDependencies) {
         Map<String, DepTreeNode> nodes = new HashMap<>();
         for (String dependencyId : usedDependencies) {
@@ -161,18 +200,22 @@ public class GoTreeBuilder {
     private static void populateChildren(DepTree depTree, String[] dependenciesGraph) {
         Map<String, DepTreeNode> nodes = depTree.nodes();
         for (String entry : dependenciesGraph) {
-            if (StringUtils.isAllBlank(entry)) {
-                continue;
-            }
-            String[] parsedEntry = entry.replace("@v", ":").split("\\s");
-            String parentId = parsedEntry[0];
-            String childId = parsedEntry[1];
-            if (!nodes.containsKey(childId) || !nodes.containsKey(parentId)) {
-                // Parent or child is not in use
-                continue;
-            }
-            nodes.get(parentId).getChildren().add(childId);
+            addGraphEntry(nodes, entry);
+        }
+    }
+
+    private static void addGraphEntry(Map<String, DepTreeNode> nodes, String entry) {
+        if (StringUtils.isAllBlank(entry)) {
+            return;
+        }
+        String[] parsedEntry = entry.replace("@v", ":").split("\\s");
+        String parentId = parsedEntry[0];
+        String childId = parsedEntry[1];
+        if (!nodes.containsKey(childId) || !nodes.containsKey(parentId)) {
+            // Parent or child is not in use
+            return;
         }
+        nodes.get(parentId).getChildren().add(childId);
     }
 
     public DepTree buildTree() throws IOException {
@@ -187,7 +230,8 @@ public class GoTreeBuilder {
             CommandResults versionRes = goDriver.version(false);
             Version goVersion = parseGoVersion(versionRes, logger);
             goDriver.modTidy(false, goVersion.isAtLeast(MIN_GO_VERSION));
-            DepTree depTree = createDependencyTree(goDriver, logger, false, goVersion.isAtLeast(MIN_GO_VERSION_FOR_BUILD_VCS_FLAG));
+            // Through WSL, 'go mod graph' runs by the Go driver, which routes the command to wsl.exe
+            DepTree depTree = createDependencyTree(goDriver, runGoThroughWsl ? null : tmpDir, logger, false, goVersion.isAtLeast(MIN_GO_VERSION_FOR_BUILD_VCS_FLAG));
             addGoVersionNode(depTree, goVersion);
             depTree.getRootNode().descriptorFilePath(descriptorFilePath);
             return depTree;
@@ -29,6 +29,7 @@ public class DescriptorFileTreeNode extends FileTreeNode {
     }
 
     public Collection<DependencyNode> getDependencies() {
+        ensureChildrenLoaded();
         if (children == null) {
             return List.of();
         }
@@ -5,6 +5,7 @@ import com.jfrog.ide.common.nodes.subentities.FindingInfo;
 import com.jfrog.ide.common.nodes.subentities.SourceCodeScanType;
 import com.jfrog.ide.common.nodes.subentities.Severity;
 import lombok.Getter;
+import lombok.Setter;
 
 import java.util.Objects;
 
@@ -16,6 +17,7 @@ public class FileIssueNode extends IssueNode implements SubtitledTreeNode {
     private String reason;
     @JsonProperty()
     private FindingInfo findingInfo;
+    @Setter
     @JsonProperty()
     private Severity severity;
     @JsonProperty()
@@ -1,13 +1,15 @@
 package com.jfrog.ide.common.nodes;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.jfrog.ide.common.nodes.subentities.Severity;
 import lombok.Getter;
+import lombok.Setter;
 
+import javax.swing.tree.MutableTreeNode;
+import javax.swing.tree.TreeNode;
 import java.io.File;
-import java.util.Collections;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
 
 public class FileTreeNode extends SortableChildrenTreeNode implements SubtitledTreeNode, Comparable<FileTreeNode> {
     @JsonProperty()
@@ -15,8 +17,17 @@ public class FileTreeNode extends SortableChildrenTreeNode implements SubtitledT
     @Getter
     @JsonProperty()
     protected String filePath = "";
+    @Setter
     @JsonProperty()
     protected Severity topSeverity = Severity.Normal;
+    private ChildrenLoader childrenLoader;
+
+    /**
+     * Loads the children of a {@link FileTreeNode} on first access.
+     */
+    public interface ChildrenLoader {
+        void loadChildren(FileTreeNode node);
+    }
 
     // Empty constructor for deserialization
     protected FileTreeNode() {
@@ -32,6 +43,73 @@ public class FileTreeNode extends SortableChildrenTreeNode implements SubtitledT
         return topSeverity;
     }
 
+    /**
+     * Set a loader for the children of this node. The loader is called once, when the children are accessed for the
+     * first time. This allows loading the issues of a file only if they are needed.
+     *
+     * @param childrenLoader the children loader.
+     */
+    @JsonIgnore
+    public synchronized void setChildrenLoader(ChildrenLoader childrenLoader) {
+        this.childrenLoader = childrenLoader;
+    }
+
+    protected synchronized void ensureChildrenLoaded() {
+        ChildrenLoader loader = childrenLoader;
+        if (loader != null) {
+            childrenLoader = null;
+            loader.loadChildren(this);
+        }
+    }
+
+    @Override
+    public int getChildCount() {
+        ensureChildrenLoaded();
+        return super.getChildCount();
+    }
+
+    @Override
+    public TreeNode getChildAt(int index) {
+        ensureChildrenLoaded();
+        return super.getChildAt(index);
+    }
+
+    @Override
+    public int getIndex(TreeNode aChild) {
+        ensureChildrenLoaded();
+        return super.getIndex(aChild);
+    }
+
+    @Override
+    public Enumeration<TreeNode> children() {
+        ensureChildrenLoaded();
+        return super.children();
+    }
+
+    @Override
+    public void insert(MutableTreeNode newChild, int childIndex) {
+        ensureChildrenLoaded();
+        super.insert(newChild, childIndex);
+    }
+
+    @Override
+    public void remove(int childIndex) {
+        ensureChildrenLoaded();
+        super.remove(childIndex);
+    }
+
+    @Override
+    public Vector<TreeNode> getChildren() {
+        ensureChildrenLoaded();
+        return super.getChildren();
+    }
+
+    @Override
+    public void sortChildren() {
+        ensureChildrenLoaded();
+        super.sortChildren();
+    }
+
     @Override
     public String getTitle() {
         return fileName;
@@ -78,11 +156,14 @@ public class FileTreeNode extends SortableChildrenTreeNode implements SubtitledT
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         FileTreeNode that = (FileTreeNode) o;
+        ensureChildrenLoaded();
+        that.ensureChildrenLoaded();
         return Objects.equals(fileName, that.fileName) && Objects.equals(filePath, that.filePath) && topSeverity == that.topSeverity && Objects.equals(children, that.children);
     }
 
     @Override
     public int hashCode() {
+        ensureChildrenLoaded();
         return Objects.hash(fileName, filePath, topSeverity, children);
     }
 }
@@ -123,6 +123,10 @@ public class VulnerabilityNode extends IssueNode {
         return applicableInfo;
     }
 
+    public void setApplicableInfo(ApplicableInfo applicableInfo) {
+        this.applicableInfo = applicableInfo;
+    }
+
     /**
      * If no previous applicability evidences exist, set the applicable info as "no applicable".
      */
@@ -34,4 +34,12 @@ public class ImpactTree {
     public void incImpactPathsCount() {
         this.impactPathsCount++;
     }
+
+    /**
+     * @param impactPathsCount the number of paths to the component, which may be larger than the number of paths in
+     *                         the tree. The tree holds up to {@link #IMPACT_PATHS_LIMIT} paths.
+     */
+    public void setImpactPathsCount(int impactPathsCount) {
+        this.impactPathsCount = impactPathsCount;
+    }
 }
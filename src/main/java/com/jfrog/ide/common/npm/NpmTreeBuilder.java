@@ -5,11 +5,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.Lists;
+import com.jfrog.ide.common.deptree.CompactDepTree;
 import com.jfrog.ide.common.deptree.DepTree;
-import com.jfrog.ide.common.deptree.DepTreeNode;
+import com.jfrog.ide.common.utils.StreamingCommandExecutor;
 import com.jfrog.ide.common.utils.Utils;
 import org.jfrog.build.extractor.WslUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import org.jfrog.build.api.util.Log;
 import org.jfrog.build.extractor.executor.CommandExecutor;
 import org.jfrog.build.extractor.executor.CommandResults;
@@ -17,10 +19,9 @@ import org.jfrog.build.extractor.npm.NpmDriver;
 
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
 
 /**
  * Build npm dependency tree before the Xray scan.
@@ -30,11 +31,15 @@ import java.util.Map;
 public class NpmTreeBuilder {
     private static final ObjectMapper objectMapper = new ObjectMapper();
     private static final ObjectReader jsonReader = objectMapper.reader();
+    private static final String PROD_SCOPE = "prod";
+    private static final String DEV_SCOPE = "dev";
     private final NpmDriver npmDriver;
     private final CommandExecutor wslExecutor;
+    private final StreamingCommandExecutor listExecutor;
     private final boolean isWsl;
     private final Path projectDir;
     private final String descriptorFilePath;
+    private boolean singleListCommand;
 
     public NpmTreeBuilder(Path projectDir, String descriptorFilePath, Map<String, String> env) {
         this.projectDir = projectDir;
@@ -47,32 +52,56 @@ public class NpmTreeBuilder {
             this.npmDriver = new NpmDriver(env);
             this.wslExecutor = null;
         }
+        this.listExecutor = new StreamingCommandExecutor(isWsl ? "wsl.exe" : "npm", env);
+    }
+
+    /**
+     * Run a single 'npm ls --long' command to build the tree, instead of one command for the production dependencies
+     * and one for the development dependencies. The scopes are derived from the dependencies and devDependencies of the
+     * root package. Note that on npm 7 and above, 'npm ls --dev' lists all the dependencies, so in the default mode all
+     * packages get the "dev" scope, while in this mode only the packages reachable from devDependencies get it.
+     *
+     * @param singleListCommand true to run a single 'npm ls' command.
+     */
+    public void setSingleListCommand(boolean singleListCommand) {
+        this.singleListCommand = singleListCommand;
     }
 
     /**
      * Build the npm project dependency tree.
+     * If the project has a package-lock.json of lockfileVersion 2 or higher, the tree is built from the lock file.
+     * Otherwise, the tree is built from the output of 'npm ls'.
      *
      * @param logger the logger.
      * @return full dependency tree without Xray scan results.
      * @throws IOException in case of I/O error.
      */
     public DepTree buildTree(Log logger) throws IOException {
+        DepTree packageLockTree = new PackageLockTreeBuilder(projectDir, descriptorFilePath).buildTree();
+        if (packageLockTree != null) {
+            return packageLockTree;
+        }
         if (!isNpmInstalled()) {
             throw new IOException("Could not scan npm project dependencies, because npm CLI is not in the PATH. [WSL=" + this.isWsl + "]");
         }
-        JsonNode prodResults = npmList(Lists.newArrayList("--prod", "--package-lock-only"));
-        if (prodResults.get("problems") != null) {
-            logger.warn("Errors occurred during building the Npm dependency tree. " +
-                    "The dependency tree may be incomplete:\n" + prodResults.get("problems").toString());
+        // npm trees may contain many thousands of nodes, so they are kept in a compact form
+        CompactDepTree.Builder treeBuilder = new CompactDepTree.Builder();
+        String packageId;
+        if (singleListCommand) {
+            JsonNode results = npmList(Lists.newArrayList("--long", "--package-lock-only"));
+            warnProblems(results, logger);
+            packageId = getPackageId(results, projectDir);
+            addDepTreeNodes(treeBuilder, results, packageId);
+        } else {
+            JsonNode prodResults = npmList(Lists.newArrayList("--prod", "--package-lock-only"));
+            warnProblems(prodResults, logger);
+            JsonNode devResults = npmList(Lists.newArrayList("--dev", "--package-lock-only"));
+            packageId = getPackageId(prodResults, projectDir);
+            addDepTreeNodes(treeBuilder, prodResults, packageId, PROD_SCOPE);
+            addDepTreeNodes(treeBuilder, devResults, packageId, DEV_SCOPE);
         }
-        JsonNode devResults = npmList(Lists.newArrayList("--dev", "--package-lock-only"));
-        Map<String, DepTreeNode> nodes = new HashMap<>();
-        String packageId = getPackageId(prodResults);
-        addDepTreeNodes(nodes, prodResults, packageId, "prod");
-        addDepTreeNodes(nodes, devResults, packageId, "dev");
-        DepTree tree = new DepTree(packageId, nodes);
-        tree.getRootNode().descriptorFilePath(descriptorFilePath);
-        return tree;
+        treeBuilder.descriptorFilePath(packageId, descriptorFilePath);
+        return treeBuilder.build(packageId).asDepTree();
     }
 
     /**
@@ -109,40 +138,112 @@ public class NpmTreeBuilder {
 
     /**
      * Run {@code npm ls} and return the parsed JSON output.
+     * The output is parsed while the command runs, since it may be large in projects with many dependencies.
      * For WSL projects, the command is routed through {@code wsl.exe --cd <linux-path> --exec npm ...}.
      */
     private JsonNode npmList(List<String> extraArgs) throws IOException {
-        if (isWsl) {
-            List<String> args = new ArrayList<>(wslNpmInvocationPrefix());
-            args.add("ls");
-            args.add("--json");
-            args.add("--all");
-            args.addAll(extraArgs);
-            try {
-                CommandResults commandRes = wslExecutor.exeCommand(null, args, null, null);
-                String res = StringUtils.isBlank(commandRes.getRes()) ? "{}" : commandRes.getRes();
-                JsonNode results = jsonReader.readTree(res);
-                if (!commandRes.isOk() && !results.has("problems") && results.isObject()) {
-                    ((ObjectNode) results).put("problems", commandRes.getErr());
-                }
-                return results;
-            } catch (IOException | InterruptedException e) {
-                throw new IOException("npm ls failed via WSL", e);
+        List<String> args = isWsl ? new ArrayList<>(wslNpmInvocationPrefix()) : new ArrayList<>();
+        args.add("ls");
+        args.add("--json");
+        args.add("--all");
+        args.addAll(extraArgs);
+        try {
+            StreamingCommandExecutor.Results<JsonNode> commandRes = listExecutor.exeCommand(isWsl ? null : projectDir.toFile(), args, null, stdout -> {
+                JsonNode results = jsonReader.readTree(stdout);
+                return results == null || results.isMissingNode() ? objectMapper.createObjectNode() : results;
+            });
+            JsonNode results = commandRes.output();
+            if (!commandRes.isOk() && !results.has("problems") && results.isObject()) {
+                ((ObjectNode) results).put("problems", commandRes.err());
             }
+            return results;
+        } catch (IOException | InterruptedException e) {
+            throw new IOException(isWsl ? "npm ls failed via WSL" : "npm ls failed", e);
         }
-        return npmDriver.list(projectDir.toFile(), extraArgs);
     }
 
-    private void addDepTreeNodes(Map<String, DepTreeNode> nodes, JsonNode jsonDep, String depId, String scope) {
-        DepTreeNode depNode;
-        if (nodes.containsKey(depId)) {
-            depNode = nodes.get(depId);
-        } else {
-            depNode = new DepTreeNode();
-            nodes.put(depId, depNode);
+    private static void warnProblems(JsonNode results, Log logger) {
+        if (results.get("problems") != null) {
+            logger.warn("Errors occurred during building the Npm dependency tree. " +
+                    "The dependency tree may be incomplete:\n" + results.get("problems").toString());
+        }
+    }
+
+    /**
+     * Add the dependencies of an 'npm ls' output to the tree, all in the same scope.
+     */
+    private void addDepTreeNodes(CompactDepTree.Builder treeBuilder, JsonNode results, String rootId, String scope) {
+        // Iterate with a stack, since deep trees may overflow the call stack
+        Deque<Pair<String, JsonNode>> stack = new ArrayDeque<>();
+        stack.push(Pair.of(rootId, results));
+        while (!stack.isEmpty()) {
+            Pair<String, JsonNode> dep = stack.pop();
+            String depId = dep.getLeft();
+            treeBuilder.addScope(depId, scope);
+            forEachDependency(dep.getRight(), (subDepId, subDep) -> {
+                treeBuilder.addChild(depId, subDepId);
+                stack.push(Pair.of(subDepId, subDep));
+            });
+        }
+    }
+
+    /**
+     * Add the dependencies of an 'npm ls --long' output to the tree. The scopes are attributed the same way as when
+     * running one command per scope: a package gets the "prod" scope if it is reachable from the production
+     * dependencies of the root, and the "dev" scope if it is reachable from its development dependencies.
+     */
+    private void addDepTreeNodes(CompactDepTree.Builder treeBuilder, JsonNode results, String rootId) {
+        JsonNode devDependencies = results.path("devDependencies");
+        // In the 'npm ls --long' output, the "dependencies" field is the tree, and the declared ones are in "_dependencies"
+        JsonNode prodDependencies = results.path("_dependencies");
+        JsonNode optionalDependencies = results.path("optionalDependencies");
+        addDepTreeNodes(treeBuilder, results, rootId, PROD_SCOPE,
+                name -> !devDependencies.has(name) || prodDependencies.has(name) || optionalDependencies.has(name));
+        addDepTreeNodes(treeBuilder, results, rootId, DEV_SCOPE, devDependencies::has);
+    }
+
+    /**
+     * Add the scope to the root and to the packages reachable from its direct dependencies that match the filter.
+     * The output contains the "path" of each package in node_modules, so a package that appears several times in the
+     * output is expanded only once.
+     */
+    private void addDepTreeNodes(CompactDepTree.Builder treeBuilder, JsonNode results, String rootId, String scope,
+                                 Predicate<String> directDependencyFilter) {
+        treeBuilder.addScope(rootId, scope);
+        Set<String> visited = new HashSet<>();
+        Deque<Pair<String, JsonNode>> stack = new ArrayDeque<>();
+        results.path("dependencies").fields().forEachRemaining(entry -> {
+            if (directDependencyFilter.test(entry.getKey())) {
+                visit(treeBuilder, rootId, entry.getKey(), entry.getValue(), scope, visited, stack);
+            }
+        });
+        while (!stack.isEmpty()) {
+            Pair<String, JsonNode> dep = stack.pop();
+            dep.getRight().path("dependencies").fields().forEachRemaining(entry ->
+                    visit(treeBuilder, dep.getLeft(), entry.getKey(), entry.getValue(), scope, visited, stack));
         }
-        depNode.getScopes().add(scope);
+    }
 
+    private static void visit(CompactDepTree.Builder treeBuilder, String parentId, String name, JsonNode dep, String scope,
+                              Set<String> visited, Deque<Pair<String, JsonNode>> stack) {
+        // Missing dependencies have no version, and are skipped
+        JsonNode versionNode = dep.get("version");
+        if (versionNode == null) {
+            return;
+        }
+        String depId = Utils.createComponentId(name, versionNode.asText());
+        treeBuilder.addChild(parentId, depId);
+        if (visited.add(dep.path("path").asText(depId))) {
+            treeBuilder.addScope(depId, scope);
+            stack.push(Pair.of(depId, dep));
+        }
+    }
+
+    /**
+     * Pass the installed dependencies of an 'npm ls' JSON node to the consumer. Missing dependencies have no version,
+     * and are skipped.
+     */
+    private static void forEachDependency(JsonNode jsonDep, BiConsumer<String, JsonNode> consumer) {
         JsonNode dependenciesList = jsonDep.get("dependencies");
         if (dependenciesList == null) {
             return;
@@ -151,9 +252,7 @@ public class NpmTreeBuilder {
             JsonNode subDep = stringJsonNodeEntry.getValue();
             JsonNode versionNode = subDep.get("version");
             if (versionNode != null) {
-                String subDepId = Utils.createComponentId(stringJsonNodeEntry.getKey(), versionNode.asText());
-                depNode.getChildren().add(subDepId);
-                addDepTreeNodes(nodes, subDep, subDepId, scope);
+                consumer.accept(Utils.createComponentId(stringJsonNodeEntry.getKey(), versionNode.asText()), subDep);
             }
         });
     }
@@ -161,10 +260,11 @@ public class NpmTreeBuilder {
     /**
      * Get root package ID. Typically, "name:version".
      *
-     * @param results results of 'npm ls' command.
+     * @param results    results of 'npm ls' command.
+     * @param projectDir the project directory, containing the package.json.
      * @return root package ID.
      */
-    private String getPackageId(JsonNode results) throws IOException {
+    static String getPackageId(JsonNode results, Path projectDir) throws IOException {
         String packageName;
         String packageVersion = null;
         JsonNode packageNameNode = results.get("name");
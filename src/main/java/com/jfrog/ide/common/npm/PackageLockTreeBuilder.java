@@ -0,0 +1,304 @@
+package com.jfrog.ide.common.npm;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.jfrog.ide.common.deptree.CompactDepTree;
+import com.jfrog.ide.common.deptree.DepTree;
+import com.jfrog.ide.common.utils.Utils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Build npm dependency tree from the "packages" section of package-lock.json (lockfileVersion 2 and 3), without
+ * running 'npm ls'.
+ * The lock file is read with the Jackson streaming API, keeping only the fields that are needed to build the tree.
+ * The dependencies are resolved the same way as in npm: a dependency of the package at some location is the nearest
+ * node_modules/&lt;name&gt; entry, looking up from the location to the project root.
+ * <p>
+ * Components that are reachable from the production dependencies of the project get the "prod" scope. The "dev" scope
+ * goes only to components that are reachable from development dependencies, of the project itself or of its workspaces
+ * and linked packages. The development dependencies of installed packages are not part of the tree, as in npm.
+ */
+public class PackageLockTreeBuilder {
+    private static final JsonFactory jsonFactory = new JsonFactory();
+    private static final int MIN_LOCKFILE_VERSION = 2;
+    private static final String NODE_MODULES = "node_modules/";
+    private static final String PROD_SCOPE = "prod";
+    private static final String DEV_SCOPE = "dev";
+
+    private final Path projectDir;
+    private final String descriptorFilePath;
+
+    /**
+     * A package of the lock file.
+     *
+     * @param name            the "name" field, which is set for aliases and workspaces.
+     * @param version         the package version.
+     * @param link            true if the package is a link to another location.
+     * @param resolved        the target location of a link.
+     * @param dependencies    the names of the production, optional and peer dependencies.
+     * @param devDependencies the names of the development dependencies.
+     */
+    private record LockPackage(String name, String version, boolean link, String resolved, List<String> dependencies,
+                               List<String> devDependencies) {
+    }
+
+    /**
+     * A package location to visit in a scope.
+     *
+     * @param location   the location of the package in the lock file, or null if the dependency is not installed.
+     * @param dependency the name of the dependency, as declared by the parent.
+     * @param parentId   the component ID of the parent.
+     * @param scope      the scope.
+     */
+    private record Visit(String location, String dependency, String parentId, String scope) {
+    }
+
+    public PackageLockTreeBuilder(Path projectDir, String descriptorFilePath) {
+        this.projectDir = projectDir;
+        this.descriptorFilePath = descriptorFilePath;
+    }
+
+    /**
+     * @return true if the project has a package-lock.json file.
+     */
+    public boolean isPackageLockExists() {
+        return Files.isRegularFile(projectDir.resolve("package-lock.json"));
+    }
+
+    /**
+     * Build the npm project dependency tree from package-lock.json.
+     *
+     * @return full dependency tree without Xray scan results, or null if package-lock.json doesn't exist, or if its
+     * lockfileVersion is lower than 2.
+     * @throws IOException in case of I/O error, or if package-lock.json is not a valid JSON.
+     */
+    public DepTree buildTree() throws IOException {
+        if (!isPackageLockExists()) {
+            return null;
+        }
+        Map<String, LockPackage> packages = readPackages(projectDir.resolve("package-lock.json"));
+        if (packages == null) {
+            return null;
+        }
+        LockPackage rootPackage = packages.get("");
+        ObjectNode rootResults = JsonNodeFactory.instance.objectNode();
+        if (rootPackage != null && rootPackage.name() != null) {
+            rootResults.put("name", rootPackage.name());
+            if (rootPackage.version() != null) {
+                rootResults.put("version", rootPackage.version());
+            }
+        }
+        String packageId = NpmTreeBuilder.getPackageId(rootResults, projectDir);
+
+        CompactDepTree.Builder treeBuilder = new CompactDepTree.Builder();
+        treeBuilder.addScope(packageId, PROD_SCOPE);
+        treeBuilder.addScope(packageId, DEV_SCOPE);
+        treeBuilder.descriptorFilePath(packageId, descriptorFilePath);
+        if (rootPackage != null) {
+            Deque<Visit> visits = new ArrayDeque<>();
+            rootPackage.dependencies().forEach(dependency -> visits.add(new Visit(resolve(packages, "", dependency), dependency, packageId, PROD_SCOPE)));
+            rootPackage.devDependencies().forEach(dependency -> visits.add(new Visit(resolve(packages, "", dependency), dependency, packageId, DEV_SCOPE)));
+            addDependencies(treeBuilder, packages, visits);
+        }
+        return treeBuilder.build(packageId).asDepTree();
+    }
+
+    /**
+     * Visit the packages in a single pass. Each location is expanded at most once per scope.
+     */
+    private static void addDependencies(CompactDepTree.Builder treeBuilder, Map<String, LockPackage> packages, Deque<Visit> visits) {
+        Map<String, Set<String>> visitedScopes = new HashMap<>();
+        while (!visits.isEmpty()) {
+            Visit visit = visits.poll();
+            if (visit.location() == null) {
+                // A missing optional or peer dependency
+                continue;
+            }
+            LockPackage lockPackage = packages.get(visit.location());
+            if (lockPackage.version() == null) {
+                // 'npm ls' skips dependencies without a version
+                continue;
+            }
+            // The "name" field is the real name of aliases
+            String name = StringUtils.defaultIfBlank(lockPackage.name(), visit.dependency());
+            String componentId = Utils.createComponentId(name, lockPackage.version());
+            treeBuilder.addChild(visit.parentId(), componentId);
+            if (!visitedScopes.computeIfAbsent(visit.location(), key -> new HashSet<>()).add(visit.scope())) {
+                continue;
+            }
+            treeBuilder.addScope(componentId, visit.scope());
+            for (String dependency : lockPackage.dependencies()) {
+                visits.add(new Visit(resolve(packages, visit.location(), dependency), dependency, componentId, visit.scope()));
+            }
+            // Only workspaces and link targets have development dependencies
+            for (String dependency : lockPackage.devDependencies()) {
+                visits.add(new Visit(resolve(packages, visit.location(), dependency), dependency, componentId, DEV_SCOPE));
+            }
+        }
+    }
+
+    /**
+     * Resolve a dependency of the package at a location to the location of the installed package, following links.
+     *
+     * @return the location of the dependency, or null if it is not installed.
+     */
+    private static String resolve(Map<String, LockPackage> packages, String location, String dependency) {
+        for (String dir = location; ; dir = getParentDir(dir)) {
+            String candidate = (dir.isEmpty() ? "" : dir + "/") + NODE_MODULES + dependency;
+            LockPackage lockPackage = packages.get(candidate);
+            if (lockPackage != null) {
+                return lockPackage.link() ? (packages.containsKey(lockPackage.resolved()) ? lockPackage.resolved() : null) : candidate;
+            }
+            if (dir.isEmpty()) {
+                return null;
+            }
+        }
+    }
+
+    private static String getParentDir(String location) {
+        int lastSlash = location.lastIndexOf('/');
+        return lastSlash < 0 ? "" : location.substring(0, lastSlash);
+    }
+
+    /**
+     * Read the packages of the lock file by their locations.
+     *
+     * @return the packages, or null if the lockfileVersion is lower than 2 or there is no "packages" section.
+     */
+    private static Map<String, LockPackage> readPackages(Path packageLock) throws IOException {
+        int lockfileVersion = 0;
+        Map<String, LockPackage> packages = null;
+        try (JsonParser parser = jsonFactory.createParser(packageLock.toFile())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Invalid package-lock.json: " + packageLock);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                parser.nextToken();
+                switch (fieldName) {
+                    case "lockfileVersion":
+                        lockfileVersion = parser.getValueAsInt();
+                        break;
+                    case "packages":
+                        packages = readPackagesSection(parser);
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+        }
+        return lockfileVersion >= MIN_LOCKFILE_VERSION ? packages : null;
+    }
+
+    private static Map<String, LockPackage> readPackagesSection(JsonParser parser) throws IOException {
+        Map<String, LockPackage> packages = new HashMap<>();
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return packages;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String location = parser.currentName();
+            parser.nextToken();
+            packages.put(location, readPackage(parser, !isInstalledPackage(location)));
+        }
+        return packages;
+    }
+
+    /**
+     * @return true if the location is under a node_modules directory, false for the root, workspaces and link targets.
+     */
+    private static boolean isInstalledPackage(String location) {
+        return location.startsWith(NODE_MODULES) || location.contains("/" + NODE_MODULES);
+    }
+
+    /**
+     * Read a package of the lock file.
+     *
+     * @param withDevDependencies true to read the development dependencies, which are installed only for the root,
+     *                            workspaces and link targets.
+     */
+    private static LockPackage readPackage(JsonParser parser, boolean withDevDependencies) throws IOException {
+        String name = null;
+        String version = null;
+        boolean link = false;
+        String resolved = null;
+        List<String> prodDependencies = new ArrayList<>();
+        List<String> optionalDependencies = new ArrayList<>();
+        List<String> devDependencies = new ArrayList<>();
+        List<String> peerDependencies = new ArrayList<>();
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return new LockPackage(null, null, false, null, List.of(), List.of());
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            parser.nextToken();
+            switch (fieldName) {
+                case "name":
+                    name = parser.getValueAsString();
+                    break;
+                case "version":
+                    version = parser.getValueAsString();
+                    break;
+                case "link":
+                    link = parser.getValueAsBoolean();
+                    break;
+                case "resolved":
+                    resolved = parser.getValueAsString();
+                    break;
+                case "dependencies":
+                    prodDependencies.addAll(readKeys(parser));
+                    break;
+                case "optionalDependencies":
+                    optionalDependencies.addAll(readKeys(parser));
+                    break;
+                case "devDependencies":
+                    if (withDevDependencies) {
+                        devDependencies.addAll(readKeys(parser));
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+                case "peerDependencies":
+                    peerDependencies.addAll(readKeys(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        // As in npm, the type of a dependency that is declared in more than one section is the type of the last
+        // section in the order: dependencies, optionalDependencies, devDependencies. Peer dependencies don't
+        // override other types.
+        Map<String, Boolean> devByDependency = new LinkedHashMap<>();
+        prodDependencies.forEach(dependency -> devByDependency.put(dependency, false));
+        optionalDependencies.forEach(dependency -> devByDependency.put(dependency, false));
+        devDependencies.forEach(dependency -> devByDependency.put(dependency, true));
+        peerDependencies.forEach(dependency -> devByDependency.putIfAbsent(dependency, false));
+        List<String> dependencies = new ArrayList<>();
+        List<String> dev = new ArrayList<>();
+        devByDependency.forEach((dependency, isDev) -> (isDev ? dev : dependencies).add(dependency));
+        return new LockPackage(name, version, link, resolved, dependencies, dev);
+    }
+
+    private static List<String> readKeys(JsonParser parser) throws IOException {
+        List<String> keys = new ArrayList<>();
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return keys;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            keys.add(parser.currentName());
+            parser.nextToken();
+            parser.skipChildren();
+        }
+        return keys;
+    }
+}
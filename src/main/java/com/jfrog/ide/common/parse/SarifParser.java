@@ -1,8 +1,10 @@
 package com.jfrog.ide.common.parse;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.jetbrains.qodana.sarif.model.*;
 import com.jfrog.ide.common.nodes.FileIssueNode;
 import com.jfrog.ide.common.nodes.FileTreeNode;
 import com.jfrog.ide.common.nodes.SastIssueNode;
@@ -12,19 +14,35 @@ import com.jfrog.ide.common.nodes.subentities.ImpactPath;
 import com.jfrog.ide.common.nodes.subentities.Severity;
 import com.jfrog.ide.common.nodes.subentities.SourceCodeScanType;
 import org.jfrog.build.api.util.Log;
-import com.jetbrains.qodana.sarif.SarifUtil;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+import static com.jfrog.ide.common.utils.Utils.createMapper;
 
 /**
  * SarifParser is responsible for parsing SARIF reports and converting them into a list of FileTreeNode objects.
+ * The report is read with the Jackson streaming API. Only the tool of the current run and a single result are held in
+ * memory at a time, in addition to the FileTreeNodes of the current run. In parallel mode, the results of a run are
+ * held until the run is converted.
+ * <p>
+ * The files of each run are returned in the order of their first result in the report.
  */
 public class SarifParser {
     private static final String APPLICABILITY = "applicability";
     private static final String FIXED_VERSION = "fixedVersion";
     private static final String IMPACT_PATHS = "impactPaths";
     private static final String NO_FIX_AVAILABLE = "No fix available";
+    // The default level of a result, according to the SARIF specification
+    private static final String DEFAULT_LEVEL = "warning";
+    // The maximal number of results converted by a single task in parallel mode
+    private static final int PARALLEL_RESULTS_THRESHOLD = 1000;
+    private static final ObjectMapper objectMapper = createMapper();
+    private final ForkJoinPool forkJoinPool;
     private final Log log;
 
     /**
@@ -33,7 +51,20 @@ public class SarifParser {
      * @param log the logger to be used for logging errors and information.
      */
     public SarifParser(Log log) {
+        this(log, null);
+    }
+
+    /**
+     * Constructor for SarifParser with parallel conversion of the findings.
+     * The runs of the report, and large result lists of a run, are converted into FileTreeNodes in parallel.
+     * The output is the same as the output of the sequential conversion.
+     *
+     * @param log          the logger to be used for logging errors and information.
+     * @param forkJoinPool the pool to convert the findings in, or null to convert them sequentially.
+     */
+    public SarifParser(Log log, ForkJoinPool forkJoinPool) {
         this.log = log;
+        this.forkJoinPool = forkJoinPool;
     }
 
     /**
@@ -41,66 +72,229 @@ public class SarifParser {
      *
      * @param output the SARIF report as a string.
      * @return a list of FileTreeNode objects representing the parsed findings.
+     * @throws UncheckedIOException   if the report is not a valid JSON, or if a run has no tool.
      * @throws NoSuchElementException if no runs are found in the SARIF report.
      */
-    public List<FileTreeNode> parse (String output) {
-        Reader reader = new StringReader(output);
-        SarifReport report = SarifUtil.readReport(reader);
-        List<Run> runs = report.getRuns();
-        if (runs == null || runs.isEmpty()) {
-            throw new NoSuchElementException("No runs found in the scan SARIF report");
+    public List<FileTreeNode> parse(String output) {
+        try (JsonParser parser = objectMapper.createParser(output)) {
+            List<FileTreeNode> fileTreeNodes = new ArrayList<>();
+            parse(parser, fileTreeNodes::add);
+            return fileTreeNodes;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        return new ArrayList<>(parseScanFindings(runs));
     }
 
     /**
-     * Parses the scan findings from the given list of runs.
+     * Parses a SARIF report from the given input stream and returns a list of FileTreeNode objects.
      *
-     * @param runs the list of runs from the SARIF report.
+     * @param input the SARIF report input stream, for example the output of the audit command.
      * @return a list of FileTreeNode objects representing the parsed findings.
+     * @throws IOException            in case of an I/O error, an invalid JSON, or a run without a tool.
+     * @throws NoSuchElementException if no runs are found in the SARIF report.
      */
-    private List<FileTreeNode> parseScanFindings(List<Run> runs){
+    public List<FileTreeNode> parse(InputStream input) throws IOException {
         List<FileTreeNode> fileTreeNodes = new ArrayList<>();
+        parse(input, fileTreeNodes::add);
+        return fileTreeNodes;
+    }
 
-        for (Run run : runs) {
-            HashMap<String, FileTreeNode> resultsMap = new HashMap<>();
-            List<Result> resultsList = run.getResults();
-            // get the scanner tool name with characters only
-            String sourceCodeToolName = run.getTool().getDriver().getName().replaceAll("[^a-zA-Z\\s]", "").trim();
-            SourceCodeScanType reporter = SourceCodeScanType.fromParam(sourceCodeToolName);
-
-            for (Result result : resultsList){
-                ReportingDescriptor rule = run.getTool().getDriver().getRules().stream()
-                        .filter(r -> r.getId().equals(result.getRuleId()))
-                        .findFirst()
-                        .orElse(null);
+    /**
+     * Parses a SARIF report from the given input stream, and passes the FileTreeNodes of each run to the consumer as
+     * soon as the run is parsed.
+     *
+     * @param input    the SARIF report input stream, for example the output of the audit command.
+     * @param consumer receives the FileTreeNodes of the findings.
+     * @throws IOException            in case of an I/O error, an invalid JSON, or a run without a tool.
+     * @throws NoSuchElementException if no runs are found in the SARIF report.
+     */
+    public void parse(InputStream input, Consumer<FileTreeNode> consumer) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(input)) {
+            parse(parser, consumer);
+        }
+    }
 
-                if (rule == null) {
-                    log.error("Rule not found for result: " + result.getRuleId());
+    private void parse(JsonParser parser, Consumer<FileTreeNode> consumer) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Invalid SARIF report: expected a JSON object");
+        }
+        boolean runsFound = false;
+        // In parallel mode, the runs are converted while the next runs are read, and emitted in their report order
+        List<ForkJoinTask<Map<String, FileTreeNode>>> runTasks = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            if (parser.nextToken() != JsonToken.START_ARRAY || !"runs".equals(fieldName)) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                runsFound = true;
+                if (forkJoinPool == null) {
+                    Map<String, FileTreeNode> resultsMap = new LinkedHashMap<>();
+                    Run run = readRun(parser, resultsMap);
+                    run.results.forEach(result -> addResult(run.tool, result, resultsMap));
+                    resultsMap.values().forEach(consumer);
                 } else {
-                    if (result.getLocations() == null || result.getLocations().isEmpty() || result.getLocations().get(0).getPhysicalLocation() == null) {
-                        log.error("Invalid location data for result: " + result.getRuleId());
-                        continue;
-                    }
-                    String filePath = result.getLocations().get(0).getPhysicalLocation().getArtifactLocation().getUri();
+                    Run run = readRun(parser, null);
+                    runTasks.add(forkJoinPool.submit(new ConvertResultsTask(run.tool, run.results, 0, run.results.size())));
+                }
+            }
+        }
+        if (!runsFound) {
+            throw new NoSuchElementException("No runs found in the scan SARIF report");
+        }
+        for (ForkJoinTask<Map<String, FileTreeNode>> runTask : runTasks) {
+            runTask.join().values().forEach(consumer);
+        }
+    }
 
-                    // Create FileTreeNodes for files with found issues
-                    FileTreeNode fileNode = resultsMap.get(filePath);
-                    if (fileNode == null) {
-                        fileNode = new FileTreeNode(filePath);
-                        resultsMap.put(filePath, fileNode);
-                    }
+    /**
+     * A run of the SARIF report.
+     *
+     * @param tool    the tool of the run.
+     * @param results the results of the run that were not converted while reading.
+     */
+    private record Run(RunTool tool, List<JsonNode> results) {
+    }
 
-                    if (reporter.equals(SourceCodeScanType.SCA)){
-                        fileNode.addIssue(generateScaFileIssueNode(rule, result));
+    /**
+     * Reads a single run. The parser should point to the start of the run object.
+     *
+     * @param parser     the JSON parser.
+     * @param resultsMap if not null, results that appear after the tool are converted into this map while reading.
+     * @return the run.
+     * @throws IOException in case of an I/O error, an invalid JSON, or a run without a tool.
+     */
+    private Run readRun(JsonParser parser, Map<String, FileTreeNode> resultsMap) throws IOException {
+        // Results that can't be converted while reading, including results that appear before the tool in the run
+        List<JsonNode> results = new ArrayList<>();
+        RunTool tool = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if ("tool".equals(fieldName)) {
+                tool = new RunTool(parser.readValueAsTree());
+            } else if ("results".equals(fieldName) && token == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    JsonNode result = parser.readValueAsTree();
+                    if (tool == null || resultsMap == null) {
+                        results.add(result);
                     } else {
-                        fileNode.addIssue(generateJasFileIssueNode(rule, result, reporter, filePath));
+                        addResult(tool, result, resultsMap);
                     }
                 }
+            } else {
+                parser.skipChildren();
             }
-            fileTreeNodes.addAll(resultsMap.values());
         }
-        return fileTreeNodes;
+        // The results list is optional, and a run without it has no results
+        if (tool == null) {
+            throw new IOException("Invalid SARIF report: no tool found in a run");
+        }
+        return new Run(tool, results);
+    }
+
+    /**
+     * Converts a range of results of a run into FileTreeNodes grouped by file path. Large ranges are split in half,
+     * and the file nodes of the second half are merged into the file nodes of the first half, so the files and
+     * the issues keep the order of the results in the report.
+     */
+    private class ConvertResultsTask extends RecursiveTask<Map<String, FileTreeNode>> {
+        private final RunTool tool;
+        private final List<JsonNode> results;
+        private final int from;
+        private final int to;
+
+        private ConvertResultsTask(RunTool tool, List<JsonNode> results, int from, int to) {
+            this.tool = tool;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<String, FileTreeNode> compute() {
+            if (to - from <= PARALLEL_RESULTS_THRESHOLD) {
+                Map<String, FileTreeNode> resultsMap = new LinkedHashMap<>();
+                for (int i = from; i < to; i++) {
+                    addResult(tool, results.get(i), resultsMap);
+                }
+                return resultsMap;
+            }
+            int middle = (from + to) >>> 1;
+            ConvertResultsTask firstHalf = new ConvertResultsTask(tool, results, from, middle);
+            firstHalf.fork();
+            Map<String, FileTreeNode> secondHalfMap = new ConvertResultsTask(tool, results, middle, to).compute();
+            Map<String, FileTreeNode> resultsMap = firstHalf.join();
+            secondHalfMap.forEach((filePath, fileNode) -> {
+                FileTreeNode existing = resultsMap.putIfAbsent(filePath, fileNode);
+                if (existing != null) {
+                    existing.mergeFileTreeNode(fileNode);
+                }
+            });
+            return resultsMap;
+        }
+    }
+
+    /**
+     * The tool of a run, containing the scanner name and the rules indexed by their IDs.
+     */
+    static class RunTool {
+        private final Map<String, JsonNode> rulesById = new HashMap<>();
+        private final SourceCodeScanType reporter;
+        private final JsonNode rules;
+
+        RunTool(JsonNode tool) {
+            JsonNode driver = tool.path("driver");
+            // get the scanner tool name with characters only
+            String sourceCodeToolName = driver.path("name").asText().replaceAll("[^a-zA-Z\\s]", "").trim();
+            this.reporter = SourceCodeScanType.fromParam(sourceCodeToolName);
+            this.rules = driver.path("rules");
+            for (JsonNode rule : rules) {
+                // If several rules have the same ID, the first one is used
+                rulesById.putIfAbsent(rule.path("id").asText(), rule);
+            }
+        }
+
+        /**
+         * Get the rule of a result. The rule at the result's ruleIndex is used if it matches the ruleId.
+         *
+         * @param ruleId    the ruleId of the result.
+         * @param ruleIndex the ruleIndex of the result, or a missing node.
+         * @return the rule, or null if not found.
+         */
+        JsonNode getRule(String ruleId, JsonNode ruleIndex) {
+            if (ruleIndex.isIntegralNumber()) {
+                JsonNode rule = rules.path(ruleIndex.asInt());
+                if (rule.isObject() && (ruleId == null || ruleId.equals(rule.path("id").asText()))) {
+                    return rule;
+                }
+            }
+            return rulesById.get(ruleId);
+        }
+    }
+
+    private void addResult(RunTool tool, JsonNode result, Map<String, FileTreeNode> resultsMap) {
+        String ruleId = getText(result, "ruleId");
+        JsonNode rule = tool.getRule(ruleId, result.path("ruleIndex"));
+        if (rule == null) {
+            log.error("Rule not found for result: " + ruleId);
+            return;
+        }
+        JsonNode physicalLocation = result.path("locations").path(0).path("physicalLocation");
+        if (!physicalLocation.isObject()) {
+            log.error("Invalid location data for result: " + ruleId);
+            return;
+        }
+        String filePath = getText(physicalLocation, "artifactLocation", "uri");
+
+        // Create FileTreeNodes for files with found issues
+        FileTreeNode fileNode = resultsMap.computeIfAbsent(filePath, FileTreeNode::new);
+        if (tool.reporter.equals(SourceCodeScanType.SCA)) {
+            fileNode.addIssue(generateScaFileIssueNode(rule, result));
+        } else {
+            fileNode.addIssue(generateJasFileIssueNode(rule, result, tool.reporter, filePath));
+        }
     }
 
     /**
@@ -110,17 +304,18 @@ public class SarifParser {
      * @param result the result from the SARIF report.
      * @return a ScaIssueNode representing the issue.
      */
-    private FileIssueNode generateScaFileIssueNode(ReportingDescriptor rule, Result result){
-        Applicability applicability = (result.getProperties().get(APPLICABILITY) != null) ? Applicability.fromSarif(result.getProperties().get(APPLICABILITY).toString().toLowerCase()) : null;
-        String fixedVersionsString = Objects.requireNonNull(result.getProperties()).get(FIXED_VERSION).toString();
+    private FileIssueNode generateScaFileIssueNode(JsonNode rule, JsonNode result) {
+        JsonNode properties = Objects.requireNonNull(result.get("properties"));
+        Applicability applicability = properties.hasNonNull(APPLICABILITY) ? Applicability.fromSarif(properties.get(APPLICABILITY).asText().toLowerCase()) : null;
+        String fixedVersionsString = Objects.requireNonNull(properties.get(FIXED_VERSION)).asText();
         String[] fixedVersions = fixedVersionsString.equals(NO_FIX_AVAILABLE) ? null : fixedVersionsString.split(",");
-        List<List<ImpactPath>> impactPaths = new ObjectMapper().convertValue(Objects.requireNonNull(rule.getProperties()).get(IMPACT_PATHS), new TypeReference<>() {});
-        Severity severity = Severity.fromSarif(result.getLevel().toString());
-        String fullDescription = rule.getHelp() != null ? rule.getHelp().getText() : null;
-        String reason = result.getMessage().getText();
+        List<List<ImpactPath>> impactPaths = objectMapper.convertValue(Objects.requireNonNull(rule.get("properties")).get(IMPACT_PATHS), new TypeReference<>() {});
+        Severity severity = Severity.fromSarif(result.path("level").asText(DEFAULT_LEVEL));
+        String fullDescription = getText(rule, "help", "text");
+        String reason = getText(result, "message", "text");
         String title = getTitleByScannerType(SourceCodeScanType.SCA, rule, result);
 
-        return new ScaIssueNode(title, reason, severity, rule.getId(), applicability, impactPaths, fixedVersions, fullDescription);
+        return new ScaIssueNode(title, reason, severity, getText(rule, "id"), applicability, impactPaths, fixedVersions, fullDescription);
     }
 
     /**
@@ -132,66 +327,69 @@ public class SarifParser {
      * @param filePath  the file path where the issue was found.
      * @return a FileIssueNode representing the issue.
      */
-    private FileIssueNode generateJasFileIssueNode(ReportingDescriptor rule, Result result, SourceCodeScanType reporter, String filePath){
-        Severity severity = Severity.fromSarif(result.getLevel().toString());
-        String fullDescription = rule.getFullDescription().getText();
-        Region region = getFirstRegionFromResult(result);
-        int rowStart = region.getStartLine();
-        int colStart = region.getStartColumn();
-        int rowEnd = region.getEndLine();
-        int colEnd = region.getEndColumn();
-        String lineSnippet = region.getSnippet().getText();
-        String reason = result.getMessage().getText();
+    private FileIssueNode generateJasFileIssueNode(JsonNode rule, JsonNode result, SourceCodeScanType reporter, String filePath) {
+        Severity severity = Severity.fromSarif(result.path("level").asText(DEFAULT_LEVEL));
+        String fullDescription = getText(rule, "fullDescription", "text");
+        JsonNode region = result.path("locations").path(0).path("physicalLocation").path("region");
+        int rowStart = region.path("startLine").asInt();
+        int colStart = region.path("startColumn").asInt();
+        int rowEnd = region.path("endLine").asInt();
+        int colEnd = region.path("endColumn").asInt();
+        String lineSnippet = getText(region, "snippet", "text");
+        String reason = getText(result, "message", "text");
         String title = getTitleByScannerType(reporter, rule, result);
+        String ruleId = getText(rule, "id");
         if (reporter.equals(SourceCodeScanType.SAST)) {
-            FindingInfo[][] codeFlows = convertCodeFlowsToFindingInfo(result.getCodeFlows());
+            FindingInfo[][] codeFlows = convertCodeFlowsToFindingInfo(result.path("codeFlows"));
             return new SastIssueNode(title, filePath, rowStart, colStart, rowEnd, colEnd, reason,
-                    lineSnippet, codeFlows, severity, rule.getId(), fullDescription);
+                    lineSnippet, codeFlows, severity, ruleId, fullDescription);
         }
 
         return new FileIssueNode(title, filePath, rowStart, colStart, rowEnd, colEnd, reason,
-                lineSnippet, reporter, severity, rule.getId(), fullDescription);
+                lineSnippet, reporter, severity, ruleId, fullDescription);
     }
 
-    private String getTitleByScannerType(SourceCodeScanType reporter, ReportingDescriptor rule, Result result) {
+    private String getTitleByScannerType(SourceCodeScanType reporter, JsonNode rule, JsonNode result) {
         return switch (reporter) {
-            case SCA -> rule.getId().split("_")[0];
-            case SAST -> rule.getShortDescription().getText();
-            default -> result.getMessage().getText();
+            case SCA -> getText(rule, "id").split("_")[0];
+            case SAST -> getText(rule, "shortDescription", "text");
+            default -> getText(result, "message", "text");
         };
     }
 
-    private Region getFirstRegionFromResult(Result result) {
-        Region emptyRegion = new Region();
-        emptyRegion.setSnippet(new ArtifactContent());
-        if (result.getLocations().isEmpty()){
-            return emptyRegion;
+    /**
+     * Get a text value from a path of fields.
+     *
+     * @param node   the JSON node.
+     * @param fields the path of fields.
+     * @return the text value, or null if the path doesn't exist.
+     */
+    private static String getText(JsonNode node, String... fields) {
+        for (String field : fields) {
+            node = node.path(field);
         }
-        return result.getLocations().get(0).getPhysicalLocation().getRegion();
+        return node.isValueNode() ? node.asText() : null;
     }
 
-    private static FindingInfo[][] convertCodeFlowsToFindingInfo(List<CodeFlow> codeFlows) {
-        if (codeFlows == null || codeFlows.isEmpty()) {
-            return null;
-        }
-        List<ThreadFlow> flows = codeFlows.get(0).getThreadFlows();
-        if (flows == null || flows.isEmpty()) {
+    private static FindingInfo[][] convertCodeFlowsToFindingInfo(JsonNode codeFlows) {
+        JsonNode flows = codeFlows.path(0).path("threadFlows");
+        if (flows.isEmpty()) {
             return null;
         }
         FindingInfo[][] results = new FindingInfo[flows.size()][];
         for (int i = 0; i < flows.size(); i++) {
-            ThreadFlow flow = flows.get(i);
-            List<ThreadFlowLocation> locations = flow.getLocations();
+            JsonNode locations = flows.get(i).path("locations");
             results[i] = new FindingInfo[locations.size()];
             for (int j = 0; j < locations.size(); j++) {
-                PhysicalLocation location = locations.get(j).getLocation().getPhysicalLocation();
+                JsonNode location = locations.get(j).path("location").path("physicalLocation");
+                JsonNode region = location.path("region");
                 results[i][j] = new FindingInfo(
-                    location.getArtifactLocation().getUri(),
-                    location.getRegion().getStartLine(),
-                    location.getRegion().getStartColumn(),
-                    location.getRegion().getEndLine(),
-                    location.getRegion().getEndColumn(),
-                    location.getRegion().getSnippet().getText()
+                    getText(location, "artifactLocation", "uri"),
+                    region.path("startLine").asInt(),
+                    region.path("startColumn").asInt(),
+                    region.path("endLine").asInt(),
+                    region.path("endColumn").asInt(),
+                    getText(region, "snippet", "text")
                 );
             }
         }
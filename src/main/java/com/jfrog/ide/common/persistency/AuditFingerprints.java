@@ -0,0 +1,188 @@
+package com.jfrog.ide.common.persistency;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jfrog.ide.common.log.Utils;
+import com.jfrog.ide.common.nodes.FileTreeNode;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.jfrog.build.api.util.Log;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.jfrog.ide.common.utils.Utils.createMapper;
+
+/**
+ * Fingerprints of the descriptor and lock files in the working directories of the last audit.
+ * Used by the incremental audit to rescan only the working directories whose descriptors changed since the last audit,
+ * and to reuse the cached results of the other directories.
+ * <p>
+ * Only the descriptor and lock files directly under each working directory are fingerprinted. Changes in source files,
+ * which affect the JAS results, don't change the fingerprints. A full audit should be run to rescan them.
+ */
+public class AuditFingerprints {
+    static final List<String> DESCRIPTOR_FILES = List.of("package.json", "package-lock.json", "yarn.lock", "go.mod",
+            "go.sum", "build.gradle", "build.gradle.kts", "settings.gradle", "settings.gradle.kts", "gradle.lockfile",
+            "pom.xml");
+    private static final ObjectMapper mapper = createMapper();
+
+    private final Map<String, String> fingerprints = new HashMap<>();
+    private final Path file;
+    private final Path lockFile;
+
+    /**
+     * Construct the audit fingerprints of a project.
+     *
+     * @param projectId - A unique string of a project. This is used to locate and read the fingerprints later.
+     * @param basePath  - The directory for the fingerprints.
+     * @param logger    - The logger.
+     * @throws IOException in case of I/O problem in the paths.
+     */
+    public AuditFingerprints(String projectId, Path basePath, Log logger) throws IOException {
+        String filePrefix = Base64.getEncoder().encodeToString(projectId.getBytes(StandardCharsets.UTF_8));
+        file = basePath.resolve(filePrefix + "AuditFingerprints.json");
+        lockFile = basePath.resolve(filePrefix + "AuditFingerprints.lock");
+        Files.createDirectories(basePath);
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            fingerprints.putAll(mapper.readValue(file.toFile(), new TypeReference<Map<String, String>>() {
+            }));
+        } catch (IOException e) {
+            Utils.logError(logger, "Failed reading the audit fingerprints. All directories will be rescanned.", e, false);
+        }
+    }
+
+    /**
+     * Compute the fingerprints of the descriptor and lock files in the working directories.
+     *
+     * @param workingDirectories - The working directories
+     * @return the working directories mapped to their fingerprints.
+     * @throws IOException in case of I/O error while reading the descriptors.
+     */
+    public static Map<String, String> computeFingerprints(Collection<String> workingDirectories) throws IOException {
+        Map<String, String> results = new LinkedHashMap<>();
+        for (String workingDirectory : workingDirectories) {
+            results.put(workingDirectory, computeFingerprint(Paths.get(workingDirectory)));
+        }
+        return results;
+    }
+
+    private static String computeFingerprint(Path workingDirectory) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        for (String descriptor : DESCRIPTOR_FILES) {
+            Path descriptorPath = workingDirectory.resolve(descriptor);
+            if (!Files.isRegularFile(descriptorPath)) {
+                continue;
+            }
+            byte[] content = Files.readAllBytes(descriptorPath);
+            // The name and the length separate the descriptors, so moving content between them changes the fingerprint
+            digest.update(descriptor.getBytes(StandardCharsets.UTF_8));
+            digest.update(Long.toString(content.length).getBytes(StandardCharsets.UTF_8));
+            digest.update(content);
+        }
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    /**
+     * Get the working directories that should be rescanned.
+     *
+     * @param currentFingerprints - The current fingerprints of the working directories
+     * @return the working directories that weren't audited before, or whose fingerprints changed since the last audit.
+     */
+    public List<String> getChangedDirectories(Map<String, String> currentFingerprints) {
+        return currentFingerprints.entrySet().stream()
+                .filter(entry -> !StringUtils.equals(fingerprints.get(entry.getKey()), entry.getValue()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Replace the stored fingerprints with the fingerprints of the last successful audit.
+     *
+     * @param currentFingerprints - The fingerprints of the audited working directories
+     * @throws IOException in case of I/O error during write.
+     */
+    public void update(Map<String, String> currentFingerprints) throws IOException {
+        fingerprints.clear();
+        fingerprints.putAll(currentFingerprints);
+        byte[] content = mapper.writeValueAsBytes(fingerprints);
+        CacheFiles.withLock(lockFile, () -> {
+            CacheFiles.writeAtomically(file, tempFile -> Files.write(tempFile, content));
+            return null;
+        });
+    }
+
+    /**
+     * Delete the stored fingerprints, so that the next incremental audit rescans all working directories.
+     *
+     * @throws IOException in case of I/O error during delete.
+     */
+    public void clear() throws IOException {
+        fingerprints.clear();
+        CacheFiles.withLock(lockFile, () -> Files.deleteIfExists(file));
+    }
+
+    /**
+     * Merge the results of an incremental audit with the cached results of the previous audit.
+     * Each cached file belongs to the most specific working directory that contains it. A cached file is replaced if
+     * its working directory was rescanned, or if the fresh results include it. For example, with the working directories
+     * /a and /a/b, rescanning /a replaces the cached results of /a/c but keeps the cached results of /a/b.
+     *
+     * @param freshNodes           - The results of the rescanned directories
+     * @param cachedNodes          - The cached results, or null if there are no cached results
+     * @param workingDirectories   - All working directories of the audit
+     * @param rescannedDirectories - The rescanned working directories
+     * @return the merged results.
+     */
+    public static List<FileTreeNode> mergeResults(List<FileTreeNode> freshNodes, List<FileTreeNode> cachedNodes,
+                                                  Collection<String> workingDirectories, Collection<String> rescannedDirectories) {
+        List<FileTreeNode> results = new ArrayList<>(freshNodes);
+        if (cachedNodes == null) {
+            return results;
+        }
+        Set<String> freshPaths = freshNodes.stream().map(node -> normalizePath(node.getFilePath())).collect(Collectors.toSet());
+        Set<String> rescannedPrefixes = rescannedDirectories.stream().map(AuditFingerprints::toPrefix).collect(Collectors.toSet());
+        // The longest prefixes first, so the first match is the most specific working directory
+        List<String> prefixes = Stream.concat(workingDirectories.stream(), rescannedDirectories.stream())
+                .map(AuditFingerprints::toPrefix)
+                .distinct()
+                .sorted(Comparator.comparingInt(String::length).reversed())
+                .collect(Collectors.toList());
+        for (FileTreeNode cachedNode : cachedNodes) {
+            String cachedPath = normalizePath(cachedNode.getFilePath());
+            if (freshPaths.contains(cachedPath)) {
+                continue;
+            }
+            String workingDirectory = prefixes.stream().filter(cachedPath::startsWith).findFirst().orElse(null);
+            if (!rescannedPrefixes.contains(workingDirectory)) {
+                results.add(cachedNode);
+            }
+        }
+        return results;
+    }
+
+    private static String toPrefix(String directory) {
+        return StringUtils.appendIfMissing(normalizePath(directory), "/");
+    }
+
+    private static String normalizePath(String path) {
+        return FilenameUtils.separatorsToUnix(StringUtils.removeStart(StringUtils.defaultString(path), "file://"));
+    }
+}
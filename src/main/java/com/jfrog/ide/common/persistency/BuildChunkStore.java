@@ -0,0 +1,168 @@
+package com.jfrog.ide.common.persistency;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A content-addressed store of compressed chunks, shared by all builds of a project.
+ * Each chunk is stored once in a file named after the SHA-256 of its uncompressed content, so identical parts of
+ * different builds take the disk space of a single copy. Recently loaded chunks are kept in memory.
+ * <p>
+ * Writes and garbage collection must be done while holding the lock of the builds cache.
+ */
+final class BuildChunkStore {
+    static final String CHUNKS_DIR_NAME = "chunks";
+    static final int DIGEST_LENGTH = 32;
+    private static final long MEMORY_CACHE_BYTES = 8L * 1024 * 1024;
+
+    private final Map<String, byte[]> memoryCache = new LinkedHashMap<>(16, 0.75f, true);
+    private final Path chunksDir;
+    private long memoryCacheSize;
+
+    BuildChunkStore(Path buildsDir) {
+        this.chunksDir = buildsDir.resolve(CHUNKS_DIR_NAME);
+    }
+
+    /**
+     * Store a chunk if it doesn't already exist.
+     *
+     * @param content the content containing the chunk.
+     * @param offset  the offset of the chunk in the content.
+     * @param length  the length of the chunk.
+     * @return the SHA-256 digest of the chunk.
+     * @throws IOException in case of I/O error.
+     */
+    byte[] put(byte[] content, int offset, int length) throws IOException {
+        byte[] chunk = Arrays.copyOfRange(content, offset, offset + length);
+        byte[] digest = DigestUtils.sha256(chunk);
+        Path chunkFile = getChunkFile(digest);
+        if (Files.exists(chunkFile)) {
+            return digest;
+        }
+        Files.createDirectories(chunksDir);
+        CacheFiles.writeAtomically(chunkFile, tempFile -> {
+            try (OutputStream os = Files.newOutputStream(tempFile);
+                 DeflaterOutputStream dos = new DeflaterOutputStream(os, new Deflater(Deflater.BEST_SPEED))) {
+                dos.write(chunk);
+            }
+        });
+        return digest;
+    }
+
+    /**
+     * Load a chunk.
+     *
+     * @param digest the SHA-256 digest of the chunk.
+     * @return the uncompressed chunk.
+     * @throws IOException in case of I/O error, or if the chunk is missing or corrupted.
+     */
+    byte[] get(byte[] digest) throws IOException {
+        String name = Hex.encodeHexString(digest);
+        synchronized (memoryCache) {
+            byte[] cached = memoryCache.get(name);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        Path chunkFile = chunksDir.resolve(name);
+        if (!Files.exists(chunkFile)) {
+            throw new FileNotFoundException("Missing cache chunk: " + chunkFile);
+        }
+        byte[] chunk;
+        try (InputStream is = Files.newInputStream(chunkFile);
+             InflaterInputStream iis = new InflaterInputStream(new BufferedInputStream(is))) {
+            chunk = IOUtils.toByteArray(iis);
+        }
+        if (!Arrays.equals(digest, DigestUtils.sha256(chunk))) {
+            throw new IOException("The cache chunk is corrupted: " + chunkFile);
+        }
+        addToMemoryCache(name, chunk);
+        return chunk;
+    }
+
+    /**
+     * @param chunk the hex digest of the chunk.
+     * @return the size in bytes of the compressed chunk, or 0 if the chunk doesn't exist.
+     * @throws IOException in case of I/O error.
+     */
+    long size(String chunk) throws IOException {
+        Path chunkFile = chunksDir.resolve(chunk);
+        return Files.exists(chunkFile) ? Files.size(chunkFile) : 0;
+    }
+
+    /**
+     * Delete chunks.
+     *
+     * @param chunks the hex digests of the chunks to delete.
+     * @throws IOException in case of I/O error.
+     */
+    void delete(Collection<String> chunks) throws IOException {
+        for (String chunk : chunks) {
+            Files.deleteIfExists(chunksDir.resolve(chunk));
+        }
+        synchronized (memoryCache) {
+            for (String chunk : chunks) {
+                byte[] removed = memoryCache.remove(chunk);
+                if (removed != null) {
+                    memoryCacheSize -= removed.length;
+                }
+            }
+        }
+    }
+
+    /**
+     * Delete the chunks that are not referenced.
+     *
+     * @param referenced the hex digests of the referenced chunks.
+     * @return the number of deleted chunks.
+     * @throws IOException in case of I/O error.
+     */
+    int retainAll(Set<String> referenced) throws IOException {
+        if (!Files.isDirectory(chunksDir)) {
+            return 0;
+        }
+        List<Path> unreferenced;
+        try (Stream<Path> chunks = Files.list(chunksDir)) {
+            // Leftovers of interrupted writes are deleted as well, since no write is in progress while the lock is held
+            unreferenced = chunks.filter(chunk -> !referenced.contains(chunk.getFileName().toString())).toList();
+        }
+        for (Path chunk : unreferenced) {
+            Files.deleteIfExists(chunk);
+        }
+        synchronized (memoryCache) {
+            memoryCache.keySet().retainAll(referenced);
+            memoryCacheSize = memoryCache.values().stream().mapToLong(chunk -> chunk.length).sum();
+        }
+        return unreferenced.size();
+    }
+
+    private void addToMemoryCache(String name, byte[] chunk) {
+        if (chunk.length > MEMORY_CACHE_BYTES) {
+            return;
+        }
+        synchronized (memoryCache) {
+            if (memoryCache.put(name, chunk) == null) {
+                memoryCacheSize += chunk.length;
+            }
+            Iterator<byte[]> iterator = memoryCache.values().iterator();
+            while (memoryCacheSize > MEMORY_CACHE_BYTES && iterator.hasNext()) {
+                memoryCacheSize -= iterator.next().length;
+                iterator.remove();
+            }
+        }
+    }
+
+    private Path getChunkFile(byte[] digest) {
+        return chunksDir.resolve(Hex.encodeHexString(digest));
+    }
+}
@@ -0,0 +1,221 @@
+package com.jfrog.ide.common.persistency;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.commons.codec.binary.Hex;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The manifest of a cached build. The manifest describes the content of the build as a list of segments. Each segment
+ * is either a literal stored in the manifest, or a reference to a chunk in the {@link BuildChunkStore}.
+ * <p>
+ * Build infos are split at the boundaries of the modules and of their 'dependencies' and 'artifacts' arrays, so
+ * modules that didn't change between builds are stored once. Other contents are stored as a single chunk.
+ * Splitting is done on the raw bytes, so the loaded content is identical to the saved content.
+ * <p>
+ * The file layout is:
+ * <pre>
+ * magic (int), format version (short), content length (int), content CRC32 (int), number of segments (varint),
+ * and for each segment - segment type (byte), length (varint) and either the literal bytes or the chunk SHA-256
+ * </pre>
+ */
+final class BuildManifest {
+    static final String MANIFEST_FILE_SUFFIX = ".manifest";
+    private static final int MAGIC = 0x4A464243;
+    private static final short FORMAT_VERSION = 1;
+    // Smaller segments are stored as literals, since a chunk file would cost more than the saved space
+    private static final int MIN_CHUNK_SIZE = 256;
+    private static final byte LITERAL_SEGMENT = 1;
+    private static final byte CHUNK_SEGMENT = 2;
+    private static final Set<String> MODULE_CHUNK_FIELDS = Set.of("dependencies", "artifacts");
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private BuildManifest() {
+    }
+
+    /**
+     * Store the content in the chunk store and write its manifest.
+     *
+     * @param manifestFile the manifest file to write.
+     * @param content      the content to store.
+     * @param type         the type of the content.
+     * @param chunkStore   the chunk store.
+     * @return the hex digests of the chunks referenced by the manifest.
+     * @throws IOException in case of I/O error.
+     */
+    static Set<String> write(Path manifestFile, byte[] content, BuildsScanCache.Type type, BuildChunkStore chunkStore) throws IOException {
+        List<Integer> boundaries = type == BuildsScanCache.Type.BUILD_INFO ? findBoundaries(content) : List.of(0, content.length);
+        // Store the chunks before the manifest, so that a written manifest always references existing chunks
+        List<byte[]> digests = new ArrayList<>();
+        for (int i = 1; i < boundaries.size(); i++) {
+            int start = boundaries.get(i - 1);
+            int length = boundaries.get(i) - start;
+            digests.add(length >= MIN_CHUNK_SIZE ? chunkStore.put(content, start, length) : null);
+        }
+        CacheFiles.writeAtomically(manifestFile, tempFile -> {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeShort(FORMAT_VERSION);
+                out.writeInt(content.length);
+                out.writeInt(ScanCacheFormat.checksum(content, 0, content.length));
+                ScanCacheFormat.writeVarInt(out, digests.size());
+                for (int i = 0; i < digests.size(); i++) {
+                    int start = boundaries.get(i);
+                    int length = boundaries.get(i + 1) - start;
+                    byte[] digest = digests.get(i);
+                    out.writeByte(digest == null ? LITERAL_SEGMENT : CHUNK_SEGMENT);
+                    ScanCacheFormat.writeVarInt(out, length);
+                    if (digest == null) {
+                        out.write(content, start, length);
+                    } else {
+                        out.write(digest);
+                    }
+                }
+            }
+        });
+        Set<String> chunks = new HashSet<>();
+        digests.stream().filter(Objects::nonNull).map(Hex::encodeHexString).forEach(chunks::add);
+        return chunks;
+    }
+
+    /**
+     * Read a manifest and assemble the content from its segments.
+     *
+     * @param manifestFile the manifest file.
+     * @param chunkStore   the chunk store.
+     * @return the content.
+     * @throws IOException in case of I/O error, or if the manifest or one of its chunks is missing or corrupted.
+     */
+    static byte[] read(Path manifestFile, BuildChunkStore chunkStore) throws IOException {
+        try (DataInputStream in = openManifest(manifestFile)) {
+            int contentLength = in.readInt();
+            int contentChecksum = in.readInt();
+            byte[] content = new byte[contentLength];
+            int position = 0;
+            for (int segments = ScanCacheFormat.readVarInt(in); segments > 0; segments--) {
+                byte segmentType = in.readByte();
+                int length = ScanCacheFormat.readVarInt(in);
+                if (length > contentLength - position) {
+                    throw new IOException("The cache file is corrupted: " + manifestFile);
+                }
+                if (segmentType == LITERAL_SEGMENT) {
+                    in.readFully(content, position, length);
+                } else if (segmentType == CHUNK_SEGMENT) {
+                    byte[] digest = new byte[BuildChunkStore.DIGEST_LENGTH];
+                    in.readFully(digest);
+                    byte[] chunk = chunkStore.get(digest);
+                    if (chunk.length != length) {
+                        throw new IOException("The cache file is corrupted: " + manifestFile);
+                    }
+                    System.arraycopy(chunk, 0, content, position, length);
+                } else {
+                    throw new IOException("The cache file is corrupted: " + manifestFile);
+                }
+                position += length;
+            }
+            if (position != contentLength || ScanCacheFormat.checksum(content, 0, contentLength) != contentChecksum) {
+                throw new IOException("The cache file is corrupted: " + manifestFile);
+            }
+            return content;
+        }
+    }
+
+    /**
+     * Read the chunks referenced by a manifest.
+     *
+     * @param manifestFile the manifest file.
+     * @return the hex digests of the referenced chunks.
+     * @throws IOException in case of I/O error or if the manifest is corrupted.
+     */
+    static Set<String> readChunkDigests(Path manifestFile) throws IOException {
+        Set<String> digests = new HashSet<>();
+        try (DataInputStream in = openManifest(manifestFile)) {
+            // Skip the content length and checksum
+            in.skipNBytes(Integer.BYTES * 2L);
+            for (int segments = ScanCacheFormat.readVarInt(in); segments > 0; segments--) {
+                byte segmentType = in.readByte();
+                int length = ScanCacheFormat.readVarInt(in);
+                if (segmentType == LITERAL_SEGMENT) {
+                    in.skipNBytes(length);
+                } else if (segmentType == CHUNK_SEGMENT) {
+                    byte[] digest = new byte[BuildChunkStore.DIGEST_LENGTH];
+                    in.readFully(digest);
+                    digests.add(Hex.encodeHexString(digest));
+                } else {
+                    throw new IOException("The cache file is corrupted: " + manifestFile);
+                }
+            }
+        }
+        return digests;
+    }
+
+    private static DataInputStream openManifest(Path manifestFile) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(manifestFile)));
+        try {
+            if (in.readInt() != MAGIC || in.readShort() != FORMAT_VERSION) {
+                throw new IOException("Unsupported cache file: " + manifestFile);
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return in;
+    }
+
+    /**
+     * Find the split points of a build info: the start and end of each module and of its 'dependencies' and
+     * 'artifacts' arrays.
+     *
+     * @param content the build info JSON.
+     * @return ascending offsets, starting with 0 and ending with the content length.
+     */
+    static List<Integer> findBoundaries(byte[] content) {
+        List<Integer> boundaries = new ArrayList<>();
+        boundaries.add(0);
+        try (JsonParser parser = jsonFactory.createParser(content)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return List.of(0, content.length);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                if (parser.nextToken() != JsonToken.START_ARRAY || !"modules".equals(field)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    boundaries.add((int) parser.currentTokenLocation().getByteOffset());
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String moduleField = parser.currentName();
+                        if (parser.nextToken() == JsonToken.START_ARRAY && MODULE_CHUNK_FIELDS.contains(moduleField)) {
+                            boundaries.add((int) parser.currentTokenLocation().getByteOffset());
+                            parser.skipChildren();
+                            boundaries.add((int) parser.currentLocation().getByteOffset());
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    boundaries.add((int) parser.currentLocation().getByteOffset());
+                }
+            }
+        } catch (IOException e) {
+            // Not a valid build info - store it as a single chunk
+            return List.of(0, content.length);
+        }
+        boundaries.add(content.length);
+        for (int i = 1; i < boundaries.size(); i++) {
+            if (boundaries.get(i) < boundaries.get(i - 1)) {
+                return List.of(0, content.length);
+            }
+        }
+        return boundaries;
+    }
+}
@@ -0,0 +1,247 @@
+package com.jfrog.ide.common.persistency;
+
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * The on-disk index of the builds cache. The index holds the last access time and the size of each cached build, and
+ * the size and the reference count of each chunk, so that the cache can be evicted without listing its directory.
+ * <p>
+ * The file layout is:
+ * <pre>
+ * Header:  magic (int), format version (short), payload CRC32 (int)
+ * Chunks:  number of chunks (varint), and for each chunk - SHA-256 (32 bytes) and compressed size (long)
+ * Builds:  number of builds (varint), and for each build - build key (UTF), last access time (long),
+ *          number of files (varint), and for each file - file name (UTF), size (long), number of chunks (varint)
+ *          and the index of each chunk in the chunks section (varint)
+ * </pre>
+ */
+final class BuildsCacheIndex {
+    static final String INDEX_FILE_NAME = ".index";
+    private static final int MAGIC = 0x4A464249;
+    private static final short FORMAT_VERSION = 1;
+
+    private final Map<String, BuildEntry> builds = new HashMap<>();
+    private final Map<String, Long> chunkSizes = new HashMap<>();
+    private final Map<String, Integer> chunkRefCounts = new HashMap<>();
+    private long totalSize;
+
+    private static final class BuildEntry {
+        private final Map<String, FileEntry> files = new HashMap<>();
+        private long lastAccess;
+    }
+
+    private record FileEntry(long size, Set<String> chunks) {
+    }
+
+    /**
+     * The files and the chunks of an evicted build.
+     *
+     * @param files  the file names of the build.
+     * @param chunks the hex digests of the chunks that are no longer referenced.
+     */
+    record Eviction(List<String> files, List<String> chunks) {
+    }
+
+    /**
+     * Add a build file to the index, or replace it if it already exists.
+     *
+     * @param buildKey   the key of the build the file belongs to.
+     * @param fileName   the file name.
+     * @param size       the file size in bytes.
+     * @param chunks     the hex digests of the chunks referenced by the file, mapped to their sizes in bytes.
+     * @param lastAccess the access time of the build.
+     * @return the hex digests of the chunks that were referenced only by the replaced file.
+     */
+    List<String> addFile(String buildKey, String fileName, long size, Map<String, Long> chunks, long lastAccess) {
+        BuildEntry build = builds.computeIfAbsent(buildKey, key -> new BuildEntry());
+        build.lastAccess = Math.max(build.lastAccess, lastAccess);
+        chunks.forEach(this::addChunkReference);
+        totalSize += size;
+        FileEntry replaced = build.files.put(fileName, new FileEntry(size, new HashSet<>(chunks.keySet())));
+        return replaced == null ? new ArrayList<>() : releaseFile(replaced);
+    }
+
+    /**
+     * Remove a build file from the index.
+     *
+     * @param buildKey the key of the build the file belongs to.
+     * @param fileName the file name.
+     * @return the hex digests of the chunks that are no longer referenced.
+     */
+    List<String> removeFile(String buildKey, String fileName) {
+        BuildEntry build = builds.get(buildKey);
+        FileEntry removed = build == null ? null : build.files.remove(fileName);
+        if (removed == null) {
+            return new ArrayList<>();
+        }
+        if (build.files.isEmpty()) {
+            builds.remove(buildKey);
+        }
+        return releaseFile(removed);
+    }
+
+    /**
+     * Update the last access time of a build.
+     *
+     * @param buildKey   the build key.
+     * @param lastAccess the access time.
+     */
+    void touch(String buildKey, long lastAccess) {
+        BuildEntry build = builds.get(buildKey);
+        if (build != null) {
+            build.lastAccess = Math.max(build.lastAccess, lastAccess);
+        }
+    }
+
+    /**
+     * @return the key of the least recently used build, or null if the index is empty.
+     */
+    String getLeastRecentlyUsed() {
+        return builds.entrySet().stream()
+                .min(Comparator.comparingLong(entry -> entry.getValue().lastAccess))
+                .map(Map.Entry::getKey)
+                .orElse(null);
+    }
+
+    /**
+     * Remove a build and all of its files from the index.
+     *
+     * @param buildKey the build key.
+     * @return the files of the build and the chunks that are no longer referenced.
+     */
+    Eviction removeBuild(String buildKey) {
+        BuildEntry build = builds.remove(buildKey);
+        if (build == null) {
+            return new Eviction(new ArrayList<>(), new ArrayList<>());
+        }
+        List<String> unreferenced = new ArrayList<>();
+        build.files.values().forEach(file -> unreferenced.addAll(releaseFile(file)));
+        return new Eviction(new ArrayList<>(build.files.keySet()), unreferenced);
+    }
+
+    int getBuildsCount() {
+        return builds.size();
+    }
+
+    /**
+     * @return the total size in bytes of the build files and of the chunks they reference.
+     */
+    long getTotalSize() {
+        return totalSize;
+    }
+
+    private void addChunkReference(String chunk, long size) {
+        if (chunkRefCounts.merge(chunk, 1, Integer::sum) == 1) {
+            chunkSizes.put(chunk, size);
+            totalSize += size;
+        }
+    }
+
+    private List<String> releaseFile(FileEntry file) {
+        totalSize -= file.size;
+        List<String> unreferenced = new ArrayList<>();
+        for (String chunk : file.chunks) {
+            if (chunkRefCounts.merge(chunk, -1, Integer::sum) == 0) {
+                chunkRefCounts.remove(chunk);
+                totalSize -= chunkSizes.remove(chunk);
+                unreferenced.add(chunk);
+            }
+        }
+        return unreferenced;
+    }
+
+    /**
+     * Write the index atomically.
+     *
+     * @param indexFile the index file.
+     * @throws IOException in case of I/O error.
+     */
+    void write(Path indexFile) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(payload)) {
+            List<String> chunks = new ArrayList<>(chunkSizes.keySet());
+            Map<String, Integer> chunkIndexes = new HashMap<>();
+            ScanCacheFormat.writeVarInt(out, chunks.size());
+            for (String chunk : chunks) {
+                chunkIndexes.put(chunk, chunkIndexes.size());
+                out.write(Hex.decodeHex(chunk));
+                out.writeLong(chunkSizes.get(chunk));
+            }
+            ScanCacheFormat.writeVarInt(out, builds.size());
+            for (Map.Entry<String, BuildEntry> build : builds.entrySet()) {
+                out.writeUTF(build.getKey());
+                out.writeLong(build.getValue().lastAccess);
+                ScanCacheFormat.writeVarInt(out, build.getValue().files.size());
+                for (Map.Entry<String, FileEntry> file : build.getValue().files.entrySet()) {
+                    out.writeUTF(file.getKey());
+                    out.writeLong(file.getValue().size);
+                    ScanCacheFormat.writeVarInt(out, file.getValue().chunks.size());
+                    for (String chunk : file.getValue().chunks) {
+                        ScanCacheFormat.writeVarInt(out, chunkIndexes.get(chunk));
+                    }
+                }
+            }
+        } catch (DecoderException e) {
+            throw new IOException(e);
+        }
+        byte[] bytes = payload.toByteArray();
+        CacheFiles.writeAtomically(indexFile, tempFile -> {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeShort(FORMAT_VERSION);
+                out.writeInt(ScanCacheFormat.checksum(bytes, 0, bytes.length));
+                out.write(bytes);
+            }
+        });
+    }
+
+    /**
+     * Read the index.
+     *
+     * @param indexFile the index file.
+     * @return the index.
+     * @throws IOException in case of I/O error, or if the index is corrupted.
+     */
+    static BuildsCacheIndex read(Path indexFile) throws IOException {
+        byte[] bytes = Files.readAllBytes(indexFile);
+        int headerSize = Integer.BYTES + Short.BYTES + Integer.BYTES;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readInt() != MAGIC || in.readShort() != FORMAT_VERSION ||
+                    in.readInt() != ScanCacheFormat.checksum(bytes, headerSize, bytes.length - headerSize)) {
+                throw new IOException("The cache index is corrupted: " + indexFile);
+            }
+            BuildsCacheIndex index = new BuildsCacheIndex();
+            String[] chunks = new String[ScanCacheFormat.readVarInt(in)];
+            Map<String, Long> chunkSizes = new HashMap<>();
+            for (int i = 0; i < chunks.length; i++) {
+                byte[] digest = new byte[BuildChunkStore.DIGEST_LENGTH];
+                in.readFully(digest);
+                chunks[i] = Hex.encodeHexString(digest);
+                chunkSizes.put(chunks[i], in.readLong());
+            }
+            for (int builds = ScanCacheFormat.readVarInt(in); builds > 0; builds--) {
+                String buildKey = in.readUTF();
+                long lastAccess = in.readLong();
+                for (int files = ScanCacheFormat.readVarInt(in); files > 0; files--) {
+                    String fileName = in.readUTF();
+                    long size = in.readLong();
+                    Map<String, Long> fileChunks = new HashMap<>();
+                    for (int fileChunksCount = ScanCacheFormat.readVarInt(in); fileChunksCount > 0; fileChunksCount--) {
+                        String chunk = chunks[ScanCacheFormat.readVarInt(in)];
+                        fileChunks.put(chunk, chunkSizes.get(chunk));
+                    }
+                    index.addFile(buildKey, fileName, size, fileChunks, lastAccess);
+                }
+            }
+            return index;
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("The cache index is corrupted: " + indexFile, e);
+        }
+    }
+}
@@ -13,16 +13,27 @@ import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Arrays;
-import java.util.Base64;
-import java.util.Objects;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
 import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
 
 /**
  * Represents the cache for the builds information.
- * The build infos and the Xray's 'details/build' responses are stored in different ZIP files.
+ * The build infos and the Xray's 'details/build' responses are stored in different manifests. The content of the
+ * manifests is stored in a content-addressed {@link BuildChunkStore}, so modules that are identical across builds
+ * are stored once. Build caches written by older versions as ZIP files are still loaded.
+ * The files are replaced atomically and writers are serialized using a lock file, so several IDE processes can
+ * share the same cache directory. Checksums are used to detect corrupted files.
+ * <p>
+ * The least recently used builds are evicted when the cache exceeds {@link #MAX_BUILDS} builds or its size limit.
+ * Access times and sizes are kept in a {@link BuildsCacheIndex}, and eviction runs in a background thread.
  *
  * @author yahavi
  */
@@ -31,37 +42,62 @@ public class BuildsScanCache {
 
     private static final String INVALID_CACHE_FMT = "Failed reading cache file for '%s/%s', zapping the old cache and starting a new one.";
     public static final int MAX_BUILDS = 100;
-    // Each build should have 1 build info file and 1 Xray scan results file
+    /**
+     * @deprecated builds are evicted by {@link #MAX_BUILDS} and the cache size, and files are no longer counted.
+     */
+    @Deprecated
     public static final int MAX_FILES = MAX_BUILDS * 2;
+    public static final long DEFAULT_MAX_SIZE_BYTES = 256L * 1024 * 1024;
+    // Limit the work done in a single maintenance run. If more builds should be evicted, another run is scheduled.
+    private static final int MAX_EVICTIONS_PER_RUN = 20;
 
+    private static final String LEGACY_CACHE_FILE_SUFFIX = ".zip";
+    private static final String LOCK_FILE_NAME = ".lock";
+    private static final Executor defaultMaintenanceExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "builds-cache-maintenance");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Build keys of loaded builds, mapped to their access times. Written to the index in the next maintenance run.
+    private final Map<String, Long> pendingAccesses = new ConcurrentHashMap<>();
+    private final AtomicBoolean maintenanceScheduled = new AtomicBoolean();
+    private final Executor maintenanceExecutor;
+    private final BuildChunkStore chunkStore;
+    private final long maxSizeBytes;
     private final Path buildsDir;
+    private final Path indexFile;
+    private final Path lockFile;
     private final Log log;
 
     public BuildsScanCache(String projectName, Path basePath, Log log) throws IOException {
+        this(projectName, basePath, log, DEFAULT_MAX_SIZE_BYTES);
+    }
+
+    /**
+     * @param projectName  - The project name
+     * @param basePath     - The base directory of the cache
+     * @param log          - The logger
+     * @param maxSizeBytes - The size limit of the cache, including the chunks shared between builds
+     * @throws IOException in case of error during creating the cache directory.
+     */
+    public BuildsScanCache(String projectName, Path basePath, Log log, long maxSizeBytes) throws IOException {
+        this(projectName, basePath, log, maxSizeBytes, defaultMaintenanceExecutor);
+    }
+
+    BuildsScanCache(String projectName, Path basePath, Log log, long maxSizeBytes, Executor maintenanceExecutor) throws IOException {
         this.buildsDir = basePath.resolve(Base64.getEncoder().encodeToString(projectName.getBytes(StandardCharsets.UTF_8))).resolve(projectName);
+        this.indexFile = buildsDir.resolve(BuildsCacheIndex.INDEX_FILE_NAME);
+        this.lockFile = buildsDir.resolve(LOCK_FILE_NAME);
+        this.chunkStore = new BuildChunkStore(buildsDir);
+        this.maintenanceExecutor = maintenanceExecutor;
+        this.maxSizeBytes = maxSizeBytes;
         this.log = log;
         if (!Files.exists(buildsDir)) {
             Files.createDirectories(buildsDir);
             return;
         }
-        cleanUpOldBuilds();
-    }
-
-    /**
-     * This builds cache saves only 100 newest builds. This cleanup method deletes builds 101 and older.
-     *
-     * @throws IOException in case of any IO error.
-     */
-    private void cleanUpOldBuilds() throws IOException {
-        String[] currentBuildScanCaches = Arrays.stream(Objects.requireNonNull(buildsDir.toFile().listFiles()))
-                .map(File::getName)
-                .sorted()
-                .toArray(String[]::new);
-        for (int i = MAX_FILES; i < currentBuildScanCaches.length; i++) {
-            Path pathToDelete = buildsDir.resolve(currentBuildScanCaches[i]);
-            log.debug("Deleting " + pathToDelete);
-            Files.delete(buildsDir.resolve(pathToDelete));
-        }
+        scheduleMaintenance();
     }
 
     public void createDirectories() throws IOException {
@@ -78,12 +114,26 @@ public class BuildsScanCache {
      * @throws IOException in case of error during writing the cache file.
      */
     public void save(byte[] content, String buildName, String buildNumber, Type type) throws IOException {
-        try (FileOutputStream fos = new FileOutputStream(getBuildFile(buildName, buildNumber, type));
-             ZipOutputStream zos = new ZipOutputStream(fos)) {
-            ZipEntry entry = new ZipEntry(type.toString());
-            zos.putNextEntry(entry);
-            IOUtils.write(content, zos);
-        }
+        String buildKey = getBuildKey(buildName, buildNumber);
+        CacheFiles.withLock(lockFile, () -> {
+            Path manifestFile = getBuildFile(buildKey, type, BuildManifest.MANIFEST_FILE_SUFFIX);
+            Set<String> chunks = BuildManifest.write(manifestFile, content, type, chunkStore);
+            Path legacyFile = getBuildFile(buildKey, type, LEGACY_CACHE_FILE_SUFFIX);
+            Files.deleteIfExists(legacyFile);
+
+            Map<String, Long> chunkSizes = new HashMap<>();
+            for (String chunk : chunks) {
+                chunkSizes.put(chunk, chunkStore.size(chunk));
+            }
+            BuildsCacheIndex index = loadIndex();
+            index.removeFile(buildKey, legacyFile.getFileName().toString());
+            List<String> unreferenced = index.addFile(buildKey, manifestFile.getFileName().toString(),
+                    Files.size(manifestFile), chunkSizes, System.currentTimeMillis());
+            chunkStore.delete(unreferenced);
+            index.write(indexFile);
+            return null;
+        });
+        scheduleMaintenance();
     }
 
     /**
@@ -96,18 +146,146 @@ public class BuildsScanCache {
      * @throws IOException in case of error during reading the cache file.
      */
     byte[] load(String buildName, String buildNumber, Type type) throws IOException {
-        File buildFile = getBuildFile(buildName, buildNumber, type);
-        if (!buildFile.exists()) {
+        String buildKey = getBuildKey(buildName, buildNumber);
+        byte[] content = load(buildKey, type);
+        if (content != null) {
+            pendingAccesses.put(buildKey, System.currentTimeMillis());
+            scheduleMaintenance();
+        }
+        return content;
+    }
+
+    private byte[] load(String buildKey, Type type) throws IOException {
+        Path manifestFile = getBuildFile(buildKey, type, BuildManifest.MANIFEST_FILE_SUFFIX);
+        if (Files.exists(manifestFile)) {
+            return BuildManifest.read(manifestFile, chunkStore);
+        }
+        Path legacyFile = getBuildFile(buildKey, type, LEGACY_CACHE_FILE_SUFFIX);
+        if (!Files.exists(legacyFile)) {
             return null;
         }
-        try (FileInputStream fis = new FileInputStream(buildFile);
-             BufferedInputStream bis = new BufferedInputStream(fis);
+        try (InputStream is = Files.newInputStream(legacyFile);
+             BufferedInputStream bis = new BufferedInputStream(is);
              ZipInputStream zis = new ZipInputStream(bis)) {
-            zis.getNextEntry();
+            ZipEntry entry = zis.getNextEntry();
+            if (entry == null || !type.toString().equals(entry.getName())) {
+                throw new ZipException("The cache file is corrupted: " + legacyFile);
+            }
+            // The ZIP input stream verifies the CRC32 of the entry when reaching its end
             return IOUtils.toByteArray(zis);
         }
     }
 
+    /**
+     * Wait for the scheduled maintenance of the cache to complete, for example before deleting the cache directory.
+     *
+     * @throws InterruptedException if the current thread was interrupted while waiting.
+     */
+    public void awaitMaintenance() throws InterruptedException {
+        do {
+            CountDownLatch maintenanceDone = new CountDownLatch(1);
+            maintenanceExecutor.execute(maintenanceDone::countDown);
+            maintenanceDone.await();
+        } while (maintenanceScheduled.get());
+    }
+
+    private void scheduleMaintenance() {
+        if (!maintenanceScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        maintenanceExecutor.execute(() -> {
+            maintenanceScheduled.set(false);
+            try {
+                if (runMaintenance()) {
+                    scheduleMaintenance();
+                }
+            } catch (IOException e) {
+                log.debug("Builds cache maintenance failed: " + ExceptionUtils.getRootCauseMessage(e));
+            }
+        });
+    }
+
+    /**
+     * Write the pending access times to the index and evict the least recently used builds, until the cache is within
+     * its limits or the eviction limit of a single run is reached.
+     *
+     * @return true if more builds should be evicted.
+     * @throws IOException in case of any IO error.
+     */
+    boolean runMaintenance() throws IOException {
+        return CacheFiles.withLock(lockFile, () -> {
+            BuildsCacheIndex index = loadIndex();
+            for (Map.Entry<String, Long> access : pendingAccesses.entrySet()) {
+                index.touch(access.getKey(), access.getValue());
+                pendingAccesses.remove(access.getKey(), access.getValue());
+            }
+            for (int evictions = 0; evictions < MAX_EVICTIONS_PER_RUN && exceedsLimits(index); evictions++) {
+                BuildsCacheIndex.Eviction eviction = index.removeBuild(index.getLeastRecentlyUsed());
+                for (String file : eviction.files()) {
+                    Path pathToDelete = buildsDir.resolve(file);
+                    log.debug("Deleting " + pathToDelete);
+                    Files.deleteIfExists(pathToDelete);
+                }
+                chunkStore.delete(eviction.chunks());
+            }
+            index.write(indexFile);
+            return exceedsLimits(index);
+        });
+    }
+
+    private boolean exceedsLimits(BuildsCacheIndex index) {
+        return index.getBuildsCount() > MAX_BUILDS || (index.getBuildsCount() > 0 && index.getTotalSize() > maxSizeBytes);
+    }
+
+    /**
+     * Read the index. If the index is missing or corrupted, rebuild it from the cache directory and delete chunks that
+     * are not referenced by any build. Should be called while holding the lock.
+     *
+     * @return the index.
+     * @throws IOException in case of any IO error.
+     */
+    private BuildsCacheIndex loadIndex() throws IOException {
+        if (Files.exists(indexFile)) {
+            try {
+                return BuildsCacheIndex.read(indexFile);
+            } catch (IOException e) {
+                log.debug("Rebuilding the builds cache index: " + ExceptionUtils.getRootCauseMessage(e));
+            }
+        }
+        BuildsCacheIndex index = new BuildsCacheIndex();
+        Set<String> referenced = new HashSet<>();
+        List<Path> buildFiles;
+        try (Stream<Path> files = Files.list(buildsDir)) {
+            // Skip the lock file, the index, the chunks directory and temporary files of writes in progress
+            buildFiles = files.filter(BuildsScanCache::isBuildFile).toList();
+        }
+        for (Path file : buildFiles) {
+            Map<String, Long> chunkSizes = new HashMap<>();
+            if (file.toString().endsWith(BuildManifest.MANIFEST_FILE_SUFFIX)) {
+                try {
+                    for (String chunk : BuildManifest.readChunkDigests(file)) {
+                        chunkSizes.put(chunk, chunkStore.size(chunk));
+                    }
+                } catch (IOException e) {
+                    log.debug("Deleting corrupted cache file " + file + ": " + ExceptionUtils.getRootCauseMessage(e));
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+            }
+            referenced.addAll(chunkSizes.keySet());
+            String fileName = file.getFileName().toString();
+            String buildKey = fileName.substring(fileName.lastIndexOf('_') + 1, fileName.lastIndexOf('.'));
+            index.addFile(buildKey, fileName, Files.size(file), chunkSizes, Files.getLastModifiedTime(file).toMillis());
+        }
+        chunkStore.retainAll(referenced);
+        return index;
+    }
+
+    private static boolean isBuildFile(Path file) {
+        String fileName = file.getFileName().toString();
+        return fileName.endsWith(BuildManifest.MANIFEST_FILE_SUFFIX) || fileName.endsWith(LEGACY_CACHE_FILE_SUFFIX);
+    }
+
     /**
      * Load the build info cache of the input build.
      *
@@ -148,9 +326,11 @@ public class BuildsScanCache {
         return null;
     }
 
-    private File getBuildFile(String buildName, String buildNumber, Type type) {
-        String buildIdentifier = String.format("%s_%s", buildName, buildNumber);
-        String fileName = type.toString() + "_" + DigestUtils.sha256Hex(buildIdentifier) + ".zip";
-        return buildsDir.resolve(fileName).toFile();
+    private static String getBuildKey(String buildName, String buildNumber) {
+        return DigestUtils.sha256Hex(String.format("%s_%s", buildName, buildNumber));
+    }
+
+    private Path getBuildFile(String buildKey, Type type, String suffix) {
+        return buildsDir.resolve(type.toString() + "_" + buildKey + suffix);
     }
 }
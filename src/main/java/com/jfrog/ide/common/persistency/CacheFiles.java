@@ -0,0 +1,88 @@
+package com.jfrog.ide.common.persistency;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * File utilities for the persistent caches, allowing several IDE processes to share a cache directory.
+ * Cache files are written to a temporary file and atomically moved to their target, so readers never see a partially
+ * written file. Writers are serialized using a lock file, both within the JVM and across processes.
+ */
+public final class CacheFiles {
+    private static final Map<Path, ReentrantLock> jvmLocks = new ConcurrentHashMap<>();
+
+    private CacheFiles() {
+    }
+
+    public interface IOAction<T> {
+        T run() throws IOException;
+    }
+
+    public interface FileWriter {
+        void write(Path file) throws IOException;
+    }
+
+    /**
+     * Write a file by writing a temporary file in the same directory and atomically replacing the target file.
+     *
+     * @param target the file to write.
+     * @param writer writes the content to the given temporary file.
+     * @throws IOException in case of I/O error. In this case, the target file remains unchanged.
+     */
+    public static void writeAtomically(Path target, FileWriter writer) throws IOException {
+        Path tempFile = Files.createTempFile(target.getParent(), target.getFileName().toString() + ".", ".tmp");
+        try {
+            writer.write(tempFile);
+            // Make sure the content is on the disk before it replaces the target file
+            try (FileChannel channel = FileChannel.open(tempFile, WRITE)) {
+                channel.force(true);
+            }
+            try {
+                Files.move(tempFile, target, ATOMIC_MOVE, REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target, REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Run an action while holding an exclusive lock on the lock file.
+     * The lock is held both within the JVM and across processes. Nested calls with the same lock file in the same
+     * thread are allowed.
+     *
+     * @param lockFile the lock file. Created if it doesn't exist.
+     * @param action   the action to run.
+     * @return the result of the action.
+     * @throws IOException in case of I/O error in the lock file or in the action.
+     */
+    public static <T> T withLock(Path lockFile, IOAction<T> action) throws IOException {
+        ReentrantLock jvmLock = jvmLocks.computeIfAbsent(lockFile.toAbsolutePath().normalize(), path -> new ReentrantLock());
+        jvmLock.lock();
+        try {
+            if (jvmLock.getHoldCount() > 1) {
+                // The file lock is already held by this thread
+                return action.run();
+            }
+            try (FileChannel channel = FileChannel.open(lockFile, CREATE, WRITE);
+                 FileLock ignored = channel.lock()) {
+                return action.run();
+            }
+        } finally {
+            jvmLock.unlock();
+        }
+    }
+}
@@ -6,28 +6,42 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
 import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
 import com.jfrog.ide.common.log.Utils;
+import com.jfrog.ide.common.nodes.DescriptorFileTreeNode;
 import com.jfrog.ide.common.nodes.FileTreeNode;
+import com.jfrog.ide.common.nodes.VulnerabilityNode;
 import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
 import org.jfrog.build.api.util.Log;
 
+import javax.swing.tree.MutableTreeNode;
+import javax.swing.tree.TreeNode;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Base64;
-import java.util.List;
+import java.util.*;
+import java.util.stream.Collectors;
 
+import static com.jfrog.ide.common.persistency.ScanCacheFormat.IndexEntry;
 import static com.jfrog.ide.common.utils.Utils.createMapper;
 
 /**
  * Cache for Xray scan results.
+ * The results are stored in a binary file, see {@link ScanCacheFormat}. Caches stored in the legacy JSON format are
+ * migrated to the binary format on load.
+ * When loading the cache, only the file index is read. The issues of each file are read on first access.
+ * The cache file is replaced atomically and writers are serialized using a lock file, so several IDE processes can
+ * share the same cache directory.
  *
  * @author yahavi
  */
 public class ScanCache {
     private final File file;
-    private final ObjectMapper objectMapper;
+    private final File legacyFile;
+    private final Path lockFile;
+    // Lazy nodes whose results couldn't be read. They are empty, so they must not be written back to the cache.
+    private final Set<FileTreeNode> unreadableNodes = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
     @Getter
     private ScanCacheObject scanCacheObject;
 
@@ -40,53 +54,166 @@ public class ScanCache {
      * @throws IOException in case of I/O problem in the paths.
      */
     public ScanCache(String projectId, Path basePath, Log logger) throws IOException {
-        // We do that to allow inheritance on deserialization
-        PolymorphicTypeValidator ptv = BasicPolymorphicTypeValidator.builder()
-                .allowIfSubType("com.jfrog.ide.common.nodes")
-                .allowIfSubType("com.jfrog.ide.common.nodes.subentities")
-                .allowIfSubType("com.jfrog.ide.common.persistency")
-                .allowIfSubType("java.util.ArrayList")
-                .allowIfSubType("java.util.Vector")
-                .build();
-        objectMapper = createMapper();
-        objectMapper.activateDefaultTyping(ptv, ObjectMapper.DefaultTyping.NON_FINAL);
-        file = basePath.resolve(Base64.getEncoder().encodeToString(projectId.getBytes(StandardCharsets.UTF_8)) + "XrayScanCache.json").toFile();
+        String cacheFilePrefix = Base64.getEncoder().encodeToString(projectId.getBytes(StandardCharsets.UTF_8));
+        file = basePath.resolve(cacheFilePrefix + "XrayScanCache.bin").toFile();
+        legacyFile = basePath.resolve(cacheFilePrefix + "XrayScanCache.json").toFile();
+        lockFile = basePath.resolve(cacheFilePrefix + "XrayScanCache.lock");
         logger.debug("Project cache path: " + file.getAbsolutePath());
-        if (!file.exists()) {
-            Files.createDirectories(basePath);
+        if (file.exists()) {
+            readCachedNodes(logger);
             return;
         }
-        readCachedNodes(logger);
+        if (legacyFile.exists()) {
+            migrateLegacyCache(logger);
+            return;
+        }
+        Files.createDirectories(basePath);
     }
 
     /**
      * Write the given {@link FileTreeNode}s to cache.
      *
      * @param nodes a list of {@link FileTreeNode}s to cache.
-     * @throws IOException in case of I/O error during write.
+     * @throws IOException in case of I/O error during write, or if the nodes include cached nodes whose results
+     *                     couldn't be read. In this case, the cache file remains unchanged.
      */
     public void cacheNodes(List<FileTreeNode> nodes) throws IOException {
         scanCacheObject = new ScanCacheObject(nodes, System.currentTimeMillis());
-        objectMapper.writeValue(file, scanCacheObject);
+        writeCachedNodes();
     }
 
     public void deleteScanCacheObject() throws IOException {
-        if (file.exists()) {
-            if (!file.delete()) {
-                throw new IOException("Wasn't able to delete the cache file: " + file.getAbsolutePath());
+        CacheFiles.withLock(lockFile, () -> {
+            for (File cacheFile : new File[]{file, legacyFile}) {
+                if (cacheFile.exists() && !cacheFile.delete()) {
+                    throw new IOException("Wasn't able to delete the cache file: " + cacheFile.getAbsolutePath());
+                }
             }
+            return null;
+        });
+    }
+
+    /**
+     * Get the cached results of a single file, without reading the results of other files.
+     *
+     * @param filePath the path of the file.
+     * @return the cached {@link FileTreeNode}s of the file, or an empty list if there are no cached results for it.
+     */
+    public List<FileTreeNode> getFileResults(String filePath) {
+        if (scanCacheObject == null) {
+            return List.of();
         }
+        return scanCacheObject.getFileTreeNodes().stream()
+                .filter(node -> StringUtils.equals(node.getFilePath(), filePath))
+                .collect(Collectors.toList());
     }
 
-    private void readCachedNodes(Log logger) throws IOException {
+    private void writeCachedNodes() throws IOException {
+        List<FileTreeNode> nodes = scanCacheObject.getFileTreeNodes();
+        // Collecting the referenced vulnerabilities also loads the lazy nodes, before their cache file is replaced
+        Set<VulnerabilityNode> sharedVulnerabilities = ScanCacheWriter.collectReferencedVulnerabilities(nodes);
+        for (FileTreeNode node : nodes) {
+            if (unreadableNodes.contains(node)) {
+                throw new IOException("Couldn't read the cached results of " + node.getFilePath() + ". The scan cache is not updated.");
+            }
+        }
+        CacheFiles.withLock(lockFile, () -> {
+            CacheFiles.writeAtomically(file.toPath(), tempFile -> {
+                try (ScanCacheWriter writer = new ScanCacheWriter(tempFile, scanCacheObject.getVersion(), scanCacheObject.getScanTimestamp(), sharedVulnerabilities)) {
+                    for (FileTreeNode node : nodes) {
+                        writer.write(node);
+                    }
+                }
+            });
+            return null;
+        });
+    }
+
+    private void readCachedNodes(Log logger) {
         try {
-            scanCacheObject = objectMapper.readValue(file, ScanCacheObject.class);
-            if (scanCacheObject.getVersion() != ScanCacheObject.CACHE_VERSION) {
-                logger.info("Invalid cache version " + scanCacheObject.getVersion() + ". Ignoring the old cache and starting a new one.");
-                scanCacheObject = null;
+            ScanCacheReader reader = new ScanCacheReader(file.toPath(), ScanCacheObject.CACHE_VERSION);
+            if (reader.getCacheVersion() != ScanCacheObject.CACHE_VERSION) {
+                logger.info("Invalid cache version " + reader.getCacheVersion() + ". Ignoring the old cache and starting a new one.");
+                return;
+            }
+            List<FileTreeNode> nodes = new ArrayList<>();
+            for (IndexEntry entry : reader.getIndex()) {
+                nodes.add(createLazyNode(reader, entry, logger));
+            }
+            scanCacheObject = new ScanCacheObject(nodes, reader.getScanTimestamp());
+        } catch (IOException | RuntimeException e) {
+            Utils.logError(logger, "Failed reading cache file. Ignoring the old cache and starting a new one.", e, false);
+        }
+    }
+
+    /**
+     * Create a {@link FileTreeNode} of an index entry. The children of the node are read from the cache file on first
+     * access. If they can't be read, the node remains empty and is never written back to the cache.
+     */
+    private FileTreeNode createLazyNode(ScanCacheReader reader, IndexEntry entry, Log logger) {
+        FileTreeNode node = entry.descriptor() ? new DescriptorFileTreeNode(entry.filePath()) : new FileTreeNode(entry.filePath());
+        node.setTopSeverity(entry.topSeverity());
+        node.setChildrenLoader(lazyNode -> {
+            try {
+                FileTreeNode cachedNode = reader.read(entry);
+                for (TreeNode child : Collections.list(cachedNode.children())) {
+                    lazyNode.add((MutableTreeNode) child);
+                }
+                lazyNode.setTopSeverity(cachedNode.getSeverity());
+            } catch (IOException | RuntimeException e) {
+                unreadableNodes.add(lazyNode);
+                Utils.logError(logger, "Failed reading the cached results of " + entry.filePath(), e, false);
+            }
+        });
+        return node;
+    }
+
+    /**
+     * Read a cache stored in the legacy JSON format, and rewrite it in the binary format.
+     * The legacy cache is used only if its version matches {@link ScanCacheObject#CACHE_VERSION}.
+     *
+     * @param logger - The logger.
+     * @throws IOException in case of I/O error during the migration.
+     */
+    private void migrateLegacyCache(Log logger) throws IOException {
+        CacheFiles.withLock(lockFile, () -> {
+            if (legacyFile.exists()) {
+                migrateLegacyCacheLocked(logger);
+            } else if (file.exists()) {
+                // Migrated by another process
+                readCachedNodes(logger);
+            }
+            return null;
+        });
+    }
+
+    private void migrateLegacyCacheLocked(Log logger) throws IOException {
+        try {
+            ScanCacheObject legacyCacheObject = createLegacyMapper().readValue(legacyFile, ScanCacheObject.class);
+            if (legacyCacheObject.getVersion() != ScanCacheObject.CACHE_VERSION) {
+                logger.info("Invalid cache version " + legacyCacheObject.getVersion() + ". Ignoring the old cache and starting a new one.");
+            } else {
+                scanCacheObject = legacyCacheObject;
+                writeCachedNodes();
+                logger.debug("Migrated the scan cache to the binary format: " + file.getAbsolutePath());
             }
         } catch (JsonParseException | JsonMappingException e) {
             Utils.logError(logger, "Failed reading cache file. Ignoring the old cache and starting a new one.", e, false);
         }
+        Files.deleteIfExists(legacyFile.toPath());
+    }
+
+    static ObjectMapper createLegacyMapper() {
+        // We do that to allow inheritance on deserialization
+        PolymorphicTypeValidator ptv = BasicPolymorphicTypeValidator.builder()
+                .allowIfSubType("com.jfrog.ide.common.nodes")
+                .allowIfSubType("com.jfrog.ide.common.nodes.subentities")
+                .allowIfSubType("com.jfrog.ide.common.persistency")
+                .allowIfSubType("java.util.ArrayList")
+                .allowIfSubType("java.util.Vector")
+                .build();
+        ObjectMapper objectMapper = createMapper();
+        objectMapper.activateDefaultTyping(ptv, ObjectMapper.DefaultTyping.NON_FINAL);
+        return objectMapper;
     }
 }
@@ -0,0 +1,98 @@
+package com.jfrog.ide.common.persistency;
+
+import com.jfrog.ide.common.nodes.subentities.Severity;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.zip.CRC32;
+
+/**
+ * Constants and primitives of the binary scan cache format.
+ * <p>
+ * The file layout is:
+ * <pre>
+ * Header:          magic (int), format version (short), cache version (int), scan timestamp (long),
+ *                  shared vulnerabilities offset (long), string table offset (long), index offset (long),
+ *                  shared sections checksum (int), index checksum (int), header checksum (int)
+ * Node records:    one record for each root {@link com.jfrog.ide.common.nodes.FileTreeNode} and its descendants
+ * Shared vulns:    number of vulnerabilities (varint), and the vulnerability nodes referenced by applicable issues
+ * String table:    number of strings (varint), and for each string - UTF-8 length (varint) and bytes
+ * Index:           number of records (varint), and for each record - file path (UTF-8 length and bytes),
+ *                  node type (byte), top severity (varint), record offset (long), record length (int) and
+ *                  record checksum (int)
+ * </pre>
+ * Inside the records, strings are written as indexes in the string table. The string table is written after the
+ * records, so that the nodes can be written one by one without holding the whole document in memory.
+ * The index allows reading the results of a single file without reading the other records.
+ * Vulnerabilities referenced by applicable issues are stored in a shared section, so that records can be read
+ * independently and still reference the same vulnerability node.
+ * All checksums are CRC32. The shared sections checksum covers the shared vulnerabilities and the string table, and
+ * the header checksum covers all the preceding header fields. This allows detecting a corrupted file without parsing it.
+ */
+final class ScanCacheFormat {
+    static final int MAGIC = 0x4A465343;
+    static final short FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = Integer.BYTES + Short.BYTES + Integer.BYTES + Long.BYTES * 4 + Integer.BYTES * 3;
+
+    // Node record tags
+    static final byte FILE_TREE_NODE = 1;
+    static final byte DESCRIPTOR_FILE_TREE_NODE = 2;
+    static final byte DEPENDENCY_NODE = 3;
+    static final byte VULNERABILITY_NODE = 4;
+    static final byte VULNERABILITY_NODE_REF = 5;
+    static final byte LICENSE_VIOLATION_NODE = 6;
+    static final byte FILE_ISSUE_NODE = 7;
+    static final byte SAST_ISSUE_NODE = 8;
+    static final byte SCA_ISSUE_NODE = 9;
+    static final byte APPLICABLE_ISSUE_NODE = 10;
+
+    private ScanCacheFormat() {
+    }
+
+    /**
+     * An entry in the index of the node records.
+     *
+     * @param filePath    the file path of the root node.
+     * @param descriptor  true if the root node is a {@link com.jfrog.ide.common.nodes.DescriptorFileTreeNode}.
+     * @param topSeverity the top severity of the root node.
+     * @param offset      the offset of the record in the file.
+     * @param length      the length of the record in bytes.
+     * @param checksum    the CRC32 checksum of the record.
+     */
+    record IndexEntry(String filePath, boolean descriptor, Severity topSeverity, long offset, int length, int checksum) {
+    }
+
+    static int checksum(byte[] bytes, int offset, int length) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(bytes, offset, length);
+        return (int) crc32.getValue();
+    }
+
+    /**
+     * Write a non-negative int using 7 bits per byte.
+     *
+     * @param out   the output to write to.
+     * @param value the value to write.
+     * @throws IOException in case of I/O error.
+     */
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length integer in scan cache");
+    }
+}
@@ -0,0 +1,467 @@
+package com.jfrog.ide.common.persistency;
+
+import com.jfrog.ide.common.nodes.*;
+import com.jfrog.ide.common.nodes.subentities.*;
+import com.jfrog.ide.common.parse.Applicability;
+import lombok.Getter;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import static com.jfrog.ide.common.persistency.ScanCacheFormat.*;
+
+/**
+ * Reads {@link FileTreeNode}s from a binary scan cache file.
+ * The header and the index are read on construction. The node records are read on demand, each record independently,
+ * using positional reads. The file is opened only for the duration of each read.
+ * If another process replaced the file since the index was read, the index of the new file is read, and the records
+ * are looked up by their file paths.
+ * See {@link ScanCacheFormat} for the file layout.
+ */
+class ScanCacheReader {
+    private static final Severity[] SEVERITIES = Severity.values();
+    private static final SourceCodeScanType[] SOURCE_CODE_SCAN_TYPES = SourceCodeScanType.values();
+    private static final Applicability[] APPLICABILITIES = Applicability.values();
+
+    private final Path file;
+    private final int expectedCacheVersion;
+    private byte[] header;
+    private long sharedVulnerabilitiesOffset;
+    private long stringTableOffset;
+    private long indexOffset;
+    private int sharedSectionsChecksum;
+    private int indexChecksum;
+    @Getter
+    private int cacheVersion;
+    @Getter
+    private long scanTimestamp;
+    @Getter
+    private List<IndexEntry> index = new ArrayList<>();
+    // The index entries by their file paths. Set when the file is replaced, since the entries of the original index
+    // don't point to the records of the new file.
+    private Map<String, IndexEntry> replacedIndex;
+    private String[] strings;
+    private VulnerabilityNode[] sharedVulnerabilities;
+    private DataInputStream record;
+
+    /**
+     * Read the header of a binary scan cache file.
+     * The index is read only if the cache version matches the expected version.
+     *
+     * @param file                 the cache file.
+     * @param expectedCacheVersion the cache version supported by the caller.
+     * @throws IOException in case of I/O error or if the file is not a valid binary scan cache.
+     */
+    ScanCacheReader(Path file, int expectedCacheVersion) throws IOException {
+        this.file = file;
+        this.expectedCacheVersion = expectedCacheVersion;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            readHeader(channel, readFully(channel, 0, HEADER_SIZE));
+        }
+    }
+
+    /**
+     * Read the node record of an index entry.
+     *
+     * @param entry the index entry.
+     * @return the root node of the record, including all of its descendants.
+     * @throws IOException in case of I/O error, a malformed record or if the file was replaced by a file without the
+     *                     results of the entry's file path.
+     */
+    synchronized FileTreeNode read(IndexEntry entry) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            byte[] currentHeader = readFully(channel, 0, HEADER_SIZE);
+            if (!Arrays.equals(currentHeader, header)) {
+                // Another process replaced the cache file since the index was read
+                replacedIndex = new HashMap<>();
+                readHeader(channel, currentHeader);
+                for (IndexEntry replacedEntry : index) {
+                    replacedIndex.putIfAbsent(replacedEntry.filePath(), replacedEntry);
+                }
+                if (cacheVersion != expectedCacheVersion) {
+                    throw new IOException("The scan cache file was replaced by a cache of version " + cacheVersion + ": " + file);
+                }
+            }
+            if (replacedIndex != null) {
+                IndexEntry replacedEntry = replacedIndex.get(entry.filePath());
+                if (replacedEntry == null || replacedEntry.descriptor() != entry.descriptor()) {
+                    throw new IOException("The scan cache file was replaced by a cache without the results of " + entry.filePath() + ": " + file);
+                }
+                entry = replacedEntry;
+            }
+            if (sharedVulnerabilities == null) {
+                readSharedSections(channel);
+            }
+            byte[] recordBytes = readFully(channel, entry.offset(), entry.length());
+            verifyChecksum(recordBytes, entry.checksum(), "node record of " + entry.filePath());
+            record = new DataInputStream(new ByteArrayInputStream(recordBytes));
+            DefaultMutableTreeNode node = readNode();
+            if (!(node instanceof FileTreeNode)) {
+                throw new IOException("Unexpected root node in scan cache: " + node.getClass().getName());
+            }
+            return (FileTreeNode) node;
+        }
+    }
+
+    List<FileTreeNode> readAll() throws IOException {
+        List<FileTreeNode> nodes = new ArrayList<>(index.size());
+        for (IndexEntry entry : index) {
+            nodes.add(read(entry));
+        }
+        return nodes;
+    }
+
+    private static byte[] readFully(FileChannel channel, long position, long length) throws IOException {
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new IOException("Invalid section length in scan cache: " + length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Scan cache file is truncated");
+            }
+        }
+        return buffer.array();
+    }
+
+    private void verifyChecksum(byte[] bytes, int expectedChecksum, String section) throws IOException {
+        if (checksum(bytes, 0, bytes.length) != expectedChecksum) {
+            throw new IOException("Scan cache " + section + " is corrupted: " + file);
+        }
+    }
+
+    /**
+     * Read the header. The index is read only if the cache version matches the expected version.
+     * The shared sections are read on the next record read.
+     */
+    private void readHeader(FileChannel channel, byte[] header) throws IOException {
+        ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+        if (headerBuffer.getInt() != MAGIC) {
+            throw new IOException("Not a binary scan cache file: " + file);
+        }
+        short formatVersion = headerBuffer.getShort();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("Unsupported scan cache format version " + formatVersion);
+        }
+        int cacheVersion = headerBuffer.getInt();
+        long scanTimestamp = headerBuffer.getLong();
+        long sharedVulnerabilitiesOffset = headerBuffer.getLong();
+        long stringTableOffset = headerBuffer.getLong();
+        long indexOffset = headerBuffer.getLong();
+        int sharedSectionsChecksum = headerBuffer.getInt();
+        int indexChecksum = headerBuffer.getInt();
+        int headerChecksum = headerBuffer.getInt();
+        if (headerChecksum != checksum(header, 0, HEADER_SIZE - Integer.BYTES)) {
+            throw new IOException("Scan cache header is corrupted: " + file);
+        }
+        this.cacheVersion = cacheVersion;
+        this.scanTimestamp = scanTimestamp;
+        this.sharedVulnerabilitiesOffset = sharedVulnerabilitiesOffset;
+        this.stringTableOffset = stringTableOffset;
+        this.indexOffset = indexOffset;
+        this.sharedSectionsChecksum = sharedSectionsChecksum;
+        this.indexChecksum = indexChecksum;
+        index = new ArrayList<>();
+        strings = null;
+        sharedVulnerabilities = null;
+        if (cacheVersion == expectedCacheVersion) {
+            readIndex(channel);
+        }
+        // Set last, so if reading the index failed, it is read again on the next read
+        this.header = header;
+    }
+
+    private void readIndex(FileChannel channel) throws IOException {
+        byte[] indexBytes = readFully(channel, indexOffset, channel.size() - indexOffset);
+        verifyChecksum(indexBytes, indexChecksum, "index");
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(indexBytes));
+        int entriesCount = readVarInt(in);
+        index = new ArrayList<>(entriesCount);
+        for (int i = 0; i < entriesCount; i++) {
+            String filePath = readUtf8(in);
+            boolean descriptor = in.readByte() == DESCRIPTOR_FILE_TREE_NODE;
+            Severity topSeverity = readEnum(in, SEVERITIES);
+            index.add(new IndexEntry(filePath, descriptor, topSeverity, in.readLong(), in.readInt(), in.readInt()));
+        }
+    }
+
+    /**
+     * Read the string table and the shared vulnerabilities, which are required for reading any node record.
+     */
+    private void readSharedSections(FileChannel channel) throws IOException {
+        byte[] sharedSections = readFully(channel, sharedVulnerabilitiesOffset, indexOffset - sharedVulnerabilitiesOffset);
+        verifyChecksum(sharedSections, sharedSectionsChecksum, "string table");
+        int stringTableStart = (int) (stringTableOffset - sharedVulnerabilitiesOffset);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(sharedSections, stringTableStart, sharedSections.length - stringTableStart));
+        strings = new String[readVarInt(in)];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = readUtf8(in);
+        }
+
+        record = new DataInputStream(new ByteArrayInputStream(sharedSections, 0, stringTableStart));
+        VulnerabilityNode[] vulnerabilityNodes = new VulnerabilityNode[readVarInt(record)];
+        for (int i = 0; i < vulnerabilityNodes.length; i++) {
+            vulnerabilityNodes[i] = readVulnerabilityFields();
+        }
+        sharedVulnerabilities = vulnerabilityNodes;
+    }
+
+    private static String readUtf8(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private DefaultMutableTreeNode readNode() throws IOException {
+        byte tag = record.readByte();
+        DefaultMutableTreeNode node;
+        switch (tag) {
+            case FILE_TREE_NODE, DESCRIPTOR_FILE_TREE_NODE -> {
+                String filePath = readString();
+                Severity topSeverity = readEnum(SEVERITIES);
+                FileTreeNode fileTreeNode = tag == FILE_TREE_NODE ? new FileTreeNode(filePath) : new DescriptorFileTreeNode(filePath);
+                readChildren(fileTreeNode);
+                fileTreeNode.setTopSeverity(topSeverity);
+                return fileTreeNode;
+            }
+            case DEPENDENCY_NODE -> node = readDependencyNode();
+            case VULNERABILITY_NODE, VULNERABILITY_NODE_REF -> {
+                // The children of the vulnerability node are read together with its fields
+                return readVulnerabilityNode(tag);
+            }
+            case LICENSE_VIOLATION_NODE -> node = new LicenseViolationNode(readString(), readString(), readStringList(),
+                    readEnum(SEVERITIES), readString(), readStringList());
+            case FILE_ISSUE_NODE -> {
+                String title = readString(), reason = readString();
+                FindingInfo findingInfo = readFindingInfo();
+                Severity severity = readEnum(SEVERITIES);
+                SourceCodeScanType reporterType = readEnum(SOURCE_CODE_SCAN_TYPES);
+                node = new FileIssueNode(title, findingInfo.getFilePath(), findingInfo.getRowStart(), findingInfo.getColStart(),
+                        findingInfo.getRowEnd(), findingInfo.getColEnd(), reason, findingInfo.getLineSnippet(),
+                        reporterType, severity, readString(), readString());
+            }
+            case SAST_ISSUE_NODE -> {
+                String title = readString(), reason = readString();
+                FindingInfo findingInfo = readFindingInfo();
+                Severity severity = readEnum(SEVERITIES);
+                // The reporter type of SAST issues is always SAST
+                readEnum(SOURCE_CODE_SCAN_TYPES);
+                String ruleId = readString(), fullDescription = readString();
+                node = new SastIssueNode(title, findingInfo.getFilePath(), findingInfo.getRowStart(), findingInfo.getColStart(),
+                        findingInfo.getRowEnd(), findingInfo.getColEnd(), reason, findingInfo.getLineSnippet(),
+                        readCodeFlows(), severity, ruleId, fullDescription);
+            }
+            case SCA_ISSUE_NODE -> node = readScaIssueNode();
+            case APPLICABLE_ISSUE_NODE -> node = readApplicableIssueNode();
+            default -> throw new IOException("Unknown node tag in scan cache: " + tag);
+        }
+        readChildren(node);
+        return node;
+    }
+
+    private void readChildren(DefaultMutableTreeNode node) throws IOException {
+        int childrenCount = readVarInt(record);
+        for (int i = 0; i < childrenCount; i++) {
+            node.add(readNode());
+        }
+    }
+
+    private DependencyNode readDependencyNode() throws IOException {
+        DependencyNode node = new DependencyNode().componentId(readString());
+        node.setIndirect(record.readBoolean());
+        if (record.readBoolean()) {
+            int impactPathsCount = readVarInt(record);
+            ImpactTree impactTree = new ImpactTree(record.readBoolean() ? readImpactTreeNode() : null);
+            impactTree.setImpactPathsCount(impactPathsCount);
+            node.setImpactTree(impactTree);
+        }
+        int licensesCount = readVarInt(record);
+        for (int i = 0; i < licensesCount; i++) {
+            node.addLicense(new License(readString(), readString()));
+        }
+        return node;
+    }
+
+    private ImpactTreeNode readImpactTreeNode() throws IOException {
+        ImpactTreeNode node = new ImpactTreeNode(readString());
+        int childrenCount = readVarInt(record);
+        for (int i = 0; i < childrenCount; i++) {
+            node.getChildren().add(readImpactTreeNode());
+        }
+        return node;
+    }
+
+    private VulnerabilityNode readVulnerabilityNode(byte tag) throws IOException {
+        if (tag == VULNERABILITY_NODE_REF) {
+            int id = readVarInt(record);
+            if (sharedVulnerabilities == null || id >= sharedVulnerabilities.length) {
+                throw new IOException("Invalid vulnerability reference in scan cache: " + id);
+            }
+            return sharedVulnerabilities[id];
+        }
+        return readVulnerabilityFields();
+    }
+
+    private VulnerabilityNode readVulnerabilityFields() throws IOException {
+        VulnerabilityNode node = new VulnerabilityNode(readString(), readEnum(SEVERITIES), readString(), readStringList(),
+                readStringList(), readCve(), readString(), readStringList(), readStringList(), readResearchInfo(), readString());
+        node.setApplicableInfo(readApplicableInfo());
+        readChildren(node);
+        return node;
+    }
+
+    private Cve readCve() throws IOException {
+        if (!record.readBoolean()) {
+            return null;
+        }
+        return new Cve(readString(), readString(), readString(), readString(), readString());
+    }
+
+    private ResearchInfo readResearchInfo() throws IOException {
+        if (!record.readBoolean()) {
+            return null;
+        }
+        Severity severity = readEnum(SEVERITIES);
+        String shortDescription = readString(), fullDescription = readString(), remediation = readString();
+        List<SeverityReason> severityReasons = null;
+        int size = readVarInt(record);
+        if (size > 0) {
+            severityReasons = new ArrayList<>(size - 1);
+            for (int i = 1; i < size; i++) {
+                severityReasons.add(new SeverityReason(readString(), readString(), record.readBoolean()));
+            }
+        }
+        return new ResearchInfo(severity, shortDescription, fullDescription, remediation, severityReasons);
+    }
+
+    private ApplicableInfo readApplicableInfo() throws IOException {
+        if (!record.readBoolean()) {
+            return null;
+        }
+        ApplicableInfo applicableInfo = new ApplicableInfo(record.readBoolean(), readString(), null, null, null);
+        List<Evidence> evidences = null;
+        int size = readVarInt(record);
+        if (size > 0) {
+            evidences = new ArrayList<>(size - 1);
+            for (int i = 1; i < size; i++) {
+                evidences.add(new Evidence(readString(), readString(), readString()));
+            }
+        }
+        applicableInfo.setEvidences(evidences);
+        return applicableInfo;
+    }
+
+    private FindingInfo readFindingInfo() throws IOException {
+        String filePath = readString();
+        int rowStart = readVarInt(record), colStart = readVarInt(record), rowEnd = readVarInt(record), colEnd = readVarInt(record);
+        return new FindingInfo(filePath, rowStart, colStart, rowEnd, colEnd, readString());
+    }
+
+    private FindingInfo[][] readCodeFlows() throws IOException {
+        int size = readVarInt(record);
+        if (size == 0) {
+            return null;
+        }
+        FindingInfo[][] codeFlows = new FindingInfo[size - 1][];
+        for (int i = 0; i < codeFlows.length; i++) {
+            codeFlows[i] = new FindingInfo[readVarInt(record)];
+            for (int j = 0; j < codeFlows[i].length; j++) {
+                codeFlows[i][j] = readFindingInfo();
+            }
+        }
+        return codeFlows;
+    }
+
+    private ScaIssueNode readScaIssueNode() throws IOException {
+        String title = readString(), reason = readString();
+        Severity severity = readEnum(SEVERITIES);
+        String ruleId = readString();
+        Applicability applicability = readEnum(APPLICABILITIES);
+        List<List<ImpactPath>> impactPaths = null;
+        int size = readVarInt(record);
+        if (size > 0) {
+            impactPaths = new ArrayList<>(size - 1);
+            for (int i = 1; i < size; i++) {
+                int pathSize = readVarInt(record);
+                List<ImpactPath> impactPath = new ArrayList<>(pathSize);
+                for (int j = 0; j < pathSize; j++) {
+                    impactPath.add(new ImpactPath(readString(), readString()));
+                }
+                impactPaths.add(impactPath);
+            }
+        }
+        String[] fixedVersions = null;
+        size = readVarInt(record);
+        if (size > 0) {
+            fixedVersions = new String[size - 1];
+            for (int i = 0; i < fixedVersions.length; i++) {
+                fixedVersions[i] = readString();
+            }
+        }
+        return new ScaIssueNode(title, reason, severity, ruleId, applicability, impactPaths, fixedVersions, readString());
+    }
+
+    private ApplicableIssueNode readApplicableIssueNode() throws IOException {
+        String title = readString(), reason = readString();
+        FindingInfo findingInfo = readFindingInfo();
+        Severity severity = readEnum(SEVERITIES);
+        // The reporter type of applicable issues is always CONTEXTUAL, and they have no full description
+        readEnum(SOURCE_CODE_SCAN_TYPES);
+        String ruleId = readString();
+        readString();
+        String scannerSearchTarget = readString();
+        byte tag = record.readByte();
+        if (tag != VULNERABILITY_NODE && tag != VULNERABILITY_NODE_REF) {
+            throw new IOException("Expected a vulnerability node in scan cache, but found tag " + tag);
+        }
+        ApplicableIssueNode node = new ApplicableIssueNode(title, findingInfo.getRowStart(), findingInfo.getColStart(),
+                findingInfo.getRowEnd(), findingInfo.getColEnd(), findingInfo.getFilePath(), reason,
+                findingInfo.getLineSnippet(), scannerSearchTarget, readVulnerabilityNode(tag), ruleId);
+        node.setSeverity(severity);
+        return node;
+    }
+
+    private List<String> readStringList() throws IOException {
+        int size = readVarInt(record);
+        if (size == 0) {
+            return null;
+        }
+        List<String> list = new ArrayList<>(size - 1);
+        for (int i = 1; i < size; i++) {
+            list.add(readString());
+        }
+        return list;
+    }
+
+    private String readString() throws IOException {
+        int index = readVarInt(record);
+        if (index == 0) {
+            return null;
+        }
+        if (index > strings.length) {
+            throw new IOException("Invalid string index in scan cache: " + index);
+        }
+        return strings[index - 1];
+    }
+
+    private <T extends Enum<T>> T readEnum(T[] values) throws IOException {
+        return readEnum(record, values);
+    }
+
+    private static <T extends Enum<T>> T readEnum(DataInputStream in, T[] values) throws IOException {
+        int ordinal = readVarInt(in);
+        if (ordinal == 0) {
+            return null;
+        }
+        if (ordinal > values.length) {
+            throw new IOException("Invalid enum value in scan cache: " + ordinal);
+        }
+        return values[ordinal - 1];
+    }
+}
@@ -0,0 +1,431 @@
+package com.jfrog.ide.common.persistency;
+
+import com.jfrog.ide.common.nodes.*;
+import com.jfrog.ide.common.nodes.subentities.*;
+
+import javax.swing.tree.TreeNode;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+import static com.jfrog.ide.common.persistency.ScanCacheFormat.*;
+
+/**
+ * Writes {@link FileTreeNode}s to a binary scan cache file, one node record at a time.
+ * See {@link ScanCacheFormat} for the file layout.
+ */
+class ScanCacheWriter implements Closeable {
+    private final Map<String, Integer> strings = new LinkedHashMap<>();
+    private final Map<VulnerabilityNode, Integer> sharedVulnerabilities = new IdentityHashMap<>();
+    private final List<IndexEntry> index = new ArrayList<>();
+    private final RecordBuffer recordBuffer = new RecordBuffer();
+    private final DataOutputStream record = new DataOutputStream(recordBuffer);
+    private final FileChannel channel;
+    private final DataOutputStream out;
+    private final int cacheVersion;
+    private final long scanTimestamp;
+    private long position = HEADER_SIZE;
+
+    /**
+     * @param file                  the cache file to write.
+     * @param cacheVersion          the version of the cached nodes.
+     * @param scanTimestamp         the time of the scan.
+     * @param sharedVulnerabilities the vulnerability nodes referenced by applicable issues.
+     *                              See {@link #collectReferencedVulnerabilities(List)}.
+     * @throws IOException in case of I/O error.
+     */
+    ScanCacheWriter(Path file, int cacheVersion, long scanTimestamp, Collection<VulnerabilityNode> sharedVulnerabilities) throws IOException {
+        this.cacheVersion = cacheVersion;
+        this.scanTimestamp = scanTimestamp;
+        for (VulnerabilityNode vulnerabilityNode : sharedVulnerabilities) {
+            this.sharedVulnerabilities.putIfAbsent(vulnerabilityNode, this.sharedVulnerabilities.size());
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        // The header is written when closing the writer
+        channel.position(HEADER_SIZE);
+        out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+    }
+
+    /**
+     * Collect the vulnerability nodes referenced by {@link ApplicableIssueNode}s.
+     *
+     * @param nodes the nodes to be written.
+     * @return the referenced vulnerability nodes.
+     */
+    static Set<VulnerabilityNode> collectReferencedVulnerabilities(List<FileTreeNode> nodes) {
+        Set<VulnerabilityNode> vulnerabilityNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (FileTreeNode node : nodes) {
+            for (TreeNode descendant : Collections.list(node.depthFirstEnumeration())) {
+                if (descendant instanceof ApplicableIssueNode) {
+                    vulnerabilityNodes.add(((ApplicableIssueNode) descendant).getIssue());
+                }
+            }
+        }
+        return vulnerabilityNodes;
+    }
+
+    /**
+     * Write a root node and all of its descendants as a single node record.
+     *
+     * @param node the node to write.
+     * @throws IOException in case of I/O error or if the node contains an unsupported node type.
+     */
+    void write(FileTreeNode node) throws IOException {
+        recordBuffer.reset();
+        writeNode(node);
+        index.add(new IndexEntry(node.getFilePath(), node instanceof DescriptorFileTreeNode, node.getSeverity(), position,
+                recordBuffer.size(), recordBuffer.checksum()));
+        recordBuffer.writeTo(out);
+        position += recordBuffer.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (channel) {
+            CRC32 sharedSectionsChecksum = new CRC32();
+            long sharedVulnerabilitiesOffset = position;
+            recordBuffer.reset();
+            writeVarInt(record, sharedVulnerabilities.size());
+            VulnerabilityNode[] sortedVulnerabilities = new VulnerabilityNode[sharedVulnerabilities.size()];
+            sharedVulnerabilities.forEach((vulnerabilityNode, id) -> sortedVulnerabilities[id] = vulnerabilityNode);
+            for (VulnerabilityNode vulnerabilityNode : sortedVulnerabilities) {
+                writeVulnerabilityFields(vulnerabilityNode);
+            }
+            writeSection(sharedSectionsChecksum);
+
+            // The string table is written after all other sections that refer to strings
+            long stringTableOffset = position;
+            recordBuffer.reset();
+            writeVarInt(record, strings.size());
+            for (String str : strings.keySet()) {
+                writeUtf8(str);
+            }
+            writeSection(sharedSectionsChecksum);
+
+            CRC32 indexChecksum = new CRC32();
+            long indexOffset = position;
+            recordBuffer.reset();
+            writeVarInt(record, index.size());
+            for (IndexEntry entry : index) {
+                writeUtf8(entry.filePath());
+                record.writeByte(entry.descriptor() ? DESCRIPTOR_FILE_TREE_NODE : FILE_TREE_NODE);
+                writeEnum(entry.topSeverity());
+                record.writeLong(entry.offset());
+                record.writeInt(entry.length());
+                record.writeInt(entry.checksum());
+            }
+            writeSection(indexChecksum);
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putShort(FORMAT_VERSION)
+                    .putInt(cacheVersion)
+                    .putLong(scanTimestamp)
+                    .putLong(sharedVulnerabilitiesOffset)
+                    .putLong(stringTableOffset)
+                    .putLong(indexOffset)
+                    .putInt((int) sharedSectionsChecksum.getValue())
+                    .putInt((int) indexChecksum.getValue());
+            header.putInt(checksum(header.array(), 0, header.position())).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+    }
+
+    private void writeSection(CRC32 checksum) throws IOException {
+        recordBuffer.update(checksum);
+        recordBuffer.writeTo(out);
+        position += recordBuffer.size();
+    }
+
+    private void writeUtf8(String str) throws IOException {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(record, bytes.length);
+        record.write(bytes);
+    }
+
+    private void writeNode(TreeNode node) throws IOException {
+        Class<?> nodeClass = node.getClass();
+        if (nodeClass == FileTreeNode.class || nodeClass == DescriptorFileTreeNode.class) {
+            writeFileTreeNode((FileTreeNode) node);
+        } else if (nodeClass == DependencyNode.class) {
+            writeDependencyNode((DependencyNode) node);
+        } else if (nodeClass == VulnerabilityNode.class) {
+            writeVulnerabilityNode((VulnerabilityNode) node);
+            // The children of vulnerability nodes are written with their fields
+            return;
+        } else if (nodeClass == LicenseViolationNode.class) {
+            writeLicenseViolationNode((LicenseViolationNode) node);
+        } else if (nodeClass == FileIssueNode.class) {
+            record.writeByte(FILE_ISSUE_NODE);
+            writeFileIssueFields((FileIssueNode) node);
+        } else if (nodeClass == SastIssueNode.class) {
+            record.writeByte(SAST_ISSUE_NODE);
+            writeFileIssueFields((FileIssueNode) node);
+            writeCodeFlows(((SastIssueNode) node).getCodeFlows());
+        } else if (nodeClass == ScaIssueNode.class) {
+            writeScaIssueNode((ScaIssueNode) node);
+        } else if (nodeClass == ApplicableIssueNode.class) {
+            ApplicableIssueNode applicableIssueNode = (ApplicableIssueNode) node;
+            record.writeByte(APPLICABLE_ISSUE_NODE);
+            writeFileIssueFields(applicableIssueNode);
+            writeString(applicableIssueNode.getScannerSearchTarget());
+            writeVulnerabilityNode(applicableIssueNode.getIssue());
+        } else {
+            throw new IOException("Unsupported node type in scan cache: " + nodeClass.getName());
+        }
+        writeChildren(node);
+    }
+
+    private void writeChildren(TreeNode node) throws IOException {
+        writeVarInt(record, node.getChildCount());
+        for (int i = 0; i < node.getChildCount(); i++) {
+            writeNode(node.getChildAt(i));
+        }
+    }
+
+    private void writeFileTreeNode(FileTreeNode node) throws IOException {
+        record.writeByte(node instanceof DescriptorFileTreeNode ? DESCRIPTOR_FILE_TREE_NODE : FILE_TREE_NODE);
+        writeString(node.getFilePath());
+        writeEnum(node.getSeverity());
+    }
+
+    private void writeDependencyNode(DependencyNode node) throws IOException {
+        record.writeByte(DEPENDENCY_NODE);
+        writeString(node.getComponentId());
+        record.writeBoolean(node.isIndirect());
+        ImpactTree impactTree = node.getImpactTree();
+        record.writeBoolean(impactTree != null);
+        if (impactTree != null) {
+            writeVarInt(record, impactTree.getImpactPathsCount());
+            record.writeBoolean(impactTree.getRoot() != null);
+            if (impactTree.getRoot() != null) {
+                writeImpactTreeNode(impactTree.getRoot());
+            }
+        }
+        List<License> licenses = node.getLicenses();
+        writeVarInt(record, licenses.size());
+        for (License license : licenses) {
+            writeString(license.getName());
+            writeString(license.getMoreInfoUrl());
+        }
+    }
+
+    private void writeImpactTreeNode(ImpactTreeNode node) throws IOException {
+        writeString(node.getName());
+        writeVarInt(record, node.getChildren().size());
+        for (ImpactTreeNode child : node.getChildren()) {
+            writeImpactTreeNode(child);
+        }
+    }
+
+    /**
+     * Write a vulnerability node. Vulnerability nodes referenced by {@link ApplicableIssueNode}s are written in the
+     * shared vulnerabilities section, and only their IDs are written in the node records.
+     *
+     * @param node the vulnerability node.
+     * @throws IOException in case of I/O error.
+     */
+    private void writeVulnerabilityNode(VulnerabilityNode node) throws IOException {
+        Integer id = sharedVulnerabilities.get(node);
+        if (id != null) {
+            record.writeByte(VULNERABILITY_NODE_REF);
+            writeVarInt(record, id);
+            return;
+        }
+        record.writeByte(VULNERABILITY_NODE);
+        writeVulnerabilityFields(node);
+    }
+
+    private void writeVulnerabilityFields(VulnerabilityNode node) throws IOException {
+        writeString(node.getIssueId());
+        writeEnum(node.getSeverity(false));
+        writeString(node.getSummary());
+        writeStringList(node.getFixedVersions());
+        writeStringList(node.getInfectedVersions());
+        writeCve(node.getCve());
+        writeString(node.getLastUpdated());
+        writeStringList(node.getWatchNames());
+        writeStringList(node.getReferences());
+        writeResearchInfo(node.getResearchInfo());
+        writeString(node.getIgnoreRuleUrl());
+        writeApplicableInfo(node.getApplicableInfo());
+        writeChildren(node);
+    }
+
+    private void writeCve(Cve cve) throws IOException {
+        record.writeBoolean(cve != null);
+        if (cve == null) {
+            return;
+        }
+        writeString(cve.getCveId());
+        writeString(cve.getCvssV2Score());
+        writeString(cve.getCvssV2Vector());
+        writeString(cve.getCvssV3Score());
+        writeString(cve.getCvssV3Vector());
+    }
+
+    private void writeResearchInfo(ResearchInfo researchInfo) throws IOException {
+        record.writeBoolean(researchInfo != null);
+        if (researchInfo == null) {
+            return;
+        }
+        writeEnum(researchInfo.getSeverity());
+        writeString(researchInfo.getShortDescription());
+        writeString(researchInfo.getFullDescription());
+        writeString(researchInfo.getRemediation());
+        List<SeverityReason> severityReasons = researchInfo.getSeverityReasons();
+        writeSize(severityReasons);
+        if (severityReasons != null) {
+            for (SeverityReason severityReason : severityReasons) {
+                writeString(severityReason.getName());
+                writeString(severityReason.getDescription());
+                record.writeBoolean(severityReason.isPositive());
+            }
+        }
+    }
+
+    private void writeApplicableInfo(ApplicableInfo applicableInfo) throws IOException {
+        record.writeBoolean(applicableInfo != null);
+        if (applicableInfo == null) {
+            return;
+        }
+        record.writeBoolean(applicableInfo.isApplicable());
+        writeString(applicableInfo.getSearchTarget());
+        List<Evidence> evidences = applicableInfo.getEvidences();
+        writeSize(evidences);
+        if (evidences != null) {
+            for (Evidence evidence : evidences) {
+                writeString(evidence.getReason());
+                writeString(evidence.getFilePathEvidence());
+                writeString(evidence.getCodeEvidence());
+            }
+        }
+    }
+
+    private void writeLicenseViolationNode(LicenseViolationNode node) throws IOException {
+        record.writeByte(LICENSE_VIOLATION_NODE);
+        writeString(node.getFullName());
+        writeString(node.getName());
+        writeStringList(node.getReferences());
+        writeEnum(node.getSeverity());
+        writeString(node.getLastUpdated());
+        writeStringList(node.getWatchNames());
+    }
+
+    private void writeFileIssueFields(FileIssueNode node) throws IOException {
+        writeString(node.getTitle());
+        writeString(node.getReason());
+        writeFindingInfo(node.getFindingInfo() == null ? new FindingInfo() : node.getFindingInfo());
+        writeEnum(node.getSeverity());
+        writeEnum(node.getReporterType());
+        writeString(node.getRuleId());
+        writeString(node.getFullDescription());
+    }
+
+    private void writeFindingInfo(FindingInfo findingInfo) throws IOException {
+        writeString(findingInfo.getFilePath());
+        writeVarInt(record, findingInfo.getRowStart());
+        writeVarInt(record, findingInfo.getColStart());
+        writeVarInt(record, findingInfo.getRowEnd());
+        writeVarInt(record, findingInfo.getColEnd());
+        writeString(findingInfo.getLineSnippet());
+    }
+
+    private void writeCodeFlows(FindingInfo[][] codeFlows) throws IOException {
+        writeVarInt(record, codeFlows == null ? 0 : codeFlows.length + 1);
+        if (codeFlows == null) {
+            return;
+        }
+        for (FindingInfo[] codeFlow : codeFlows) {
+            writeVarInt(record, codeFlow.length);
+            for (FindingInfo findingInfo : codeFlow) {
+                writeFindingInfo(findingInfo);
+            }
+        }
+    }
+
+    private void writeScaIssueNode(ScaIssueNode node) throws IOException {
+        record.writeByte(SCA_ISSUE_NODE);
+        writeString(node.getTitle());
+        writeString(node.getReason());
+        writeEnum(node.getSeverity());
+        writeString(node.getRuleId());
+        writeEnum(node.getApplicability());
+        List<List<ImpactPath>> impactPaths = node.getImpactPaths();
+        writeSize(impactPaths);
+        if (impactPaths != null) {
+            for (List<ImpactPath> impactPath : impactPaths) {
+                writeVarInt(record, impactPath.size());
+                for (ImpactPath pathNode : impactPath) {
+                    writeString(pathNode.getName());
+                    writeString(pathNode.getVersion());
+                }
+            }
+        }
+        String[] fixedVersions = node.getFixedVersions();
+        writeVarInt(record, fixedVersions == null ? 0 : fixedVersions.length + 1);
+        if (fixedVersions != null) {
+            for (String fixedVersion : fixedVersions) {
+                writeString(fixedVersion);
+            }
+        }
+        writeString(node.getFullDescription());
+    }
+
+    /**
+     * Write the size of a nullable list. 0 represents null.
+     */
+    private void writeSize(List<?> list) throws IOException {
+        writeVarInt(record, list == null ? 0 : list.size() + 1);
+    }
+
+    private void writeStringList(List<String> list) throws IOException {
+        writeSize(list);
+        if (list != null) {
+            for (String str : list) {
+                writeString(str);
+            }
+        }
+    }
+
+    /**
+     * Write a nullable string as an index in the string table. 0 represents null.
+     */
+    private void writeString(String str) throws IOException {
+        if (str == null) {
+            writeVarInt(record, 0);
+            return;
+        }
+        Integer index = strings.putIfAbsent(str, strings.size());
+        writeVarInt(record, (index == null ? strings.size() - 1 : index) + 1);
+    }
+
+    /**
+     * Write a nullable enum as its ordinal. 0 represents null.
+     */
+    private void writeEnum(Enum<?> value) throws IOException {
+        writeVarInt(record, value == null ? 0 : value.ordinal() + 1);
+    }
+
+    /**
+     * A byte array output stream that computes the checksum of its content without copying it.
+     */
+    private static class RecordBuffer extends ByteArrayOutputStream {
+        int checksum() {
+            return ScanCacheFormat.checksum(buf, 0, count);
+        }
+
+        void update(CRC32 crc32) {
+            crc32.update(buf, 0, count);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.jfrog.ide.common.scan;
+
+import com.jfrog.ide.common.configuration.ServerConfig;
+import com.jfrog.ide.common.nodes.DependencyNode;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.jfrog.ide.common.utils.Utils.removeComponentIdPrefix;
+import static com.jfrog.ide.common.utils.Utils.resolveXrayUrl;
+import static org.apache.commons.lang3.StringUtils.*;
+
+/**
+ * Stores the graph scan results of single components, so that components that were recently scanned with the same
+ * policy context are not sent to Xray again.
+ * Components without issues are stored as well, because Xray doesn't return them in the scan results.
+ */
+public class ComponentResultsCache {
+    public static final long DEFAULT_EXPIRATION_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final Map<String, CachedResult> results = new ConcurrentHashMap<>();
+    private final long expirationMillis;
+
+    public ComponentResultsCache() {
+        this(DEFAULT_EXPIRATION_MILLIS);
+    }
+
+    /**
+     * @param expirationMillis the time in milliseconds after which a component result is considered expired.
+     */
+    public ComponentResultsCache(long expirationMillis) {
+        this.expirationMillis = expirationMillis;
+    }
+
+    /**
+     * Create the policy context of a scan. Results of the same component may differ between servers, projects and
+     * watches, therefore the policy context is part of the cache key.
+     *
+     * @param server JFrog platform server configuration.
+     * @return the policy context string.
+     */
+    public static String createPolicyContext(ServerConfig server) {
+        String xrayUrl = resolveXrayUrl(server.getXrayUrl(), server.getUrl());
+        ServerConfig.PolicyType policyType = server.getPolicyType() == null ? ServerConfig.PolicyType.VULNERABILITIES : server.getPolicyType();
+        String policy = switch (policyType) {
+            case PROJECT -> trimToEmpty(server.getProject());
+            case WATCHES -> Arrays.stream(split(defaultString(server.getWatches()), ","))
+                    .map(String::trim)
+                    .filter(watch -> !watch.isEmpty())
+                    .sorted()
+                    .reduce((first, second) -> first + "," + second)
+                    .orElse("");
+            case VULNERABILITIES -> "";
+        };
+        return xrayUrl + "|" + policyType + "|" + policy;
+    }
+
+    /**
+     * Return the components that are missing from the cache or that their cached results expired.
+     *
+     * @param policyContext the policy context created by {@link #createPolicyContext(ServerConfig)}.
+     * @param componentIds  the prefixed component IDs, e.g. npm://lodash:4.17.21.
+     * @return the components that should be sent to Xray.
+     */
+    public Set<String> getComponentsToScan(String policyContext, Collection<String> componentIds) {
+        long now = System.currentTimeMillis();
+        Set<String> componentsToScan = new HashSet<>();
+        for (String componentId : componentIds) {
+            String key = createKey(policyContext, componentId);
+            CachedResult cachedResult = results.get(key);
+            if (cachedResult == null) {
+                componentsToScan.add(componentId);
+            } else if (cachedResult.isExpired(now, expirationMillis)) {
+                results.remove(key, cachedResult);
+                componentsToScan.add(componentId);
+            }
+        }
+        return componentsToScan;
+    }
+
+    /**
+     * Store the results of a graph scan.
+     *
+     * @param policyContext       the policy context created by {@link #createPolicyContext(ServerConfig)}.
+     * @param scannedComponentIds the prefixed component IDs sent to Xray.
+     * @param scanResults         the scan results, mapped by component IDs without prefix.
+     */
+    public void addResults(String policyContext, Collection<String> scannedComponentIds, Map<String, DependencyNode> scanResults) {
+        long now = System.currentTimeMillis();
+        for (String componentId : scannedComponentIds) {
+            DependencyNode dependencyNode = scanResults.get(removeComponentIdPrefix(componentId));
+            // Store a copy, so changes made in the returned tree won't affect the cache
+            DependencyNode cachedNode = dependencyNode == null ? null : (DependencyNode) dependencyNode.clone();
+            results.put(createKey(policyContext, componentId), new CachedResult(cachedNode, now));
+        }
+    }
+
+    /**
+     * Add the cached results of the input components to the scan results.
+     * Components without issues are skipped, as they don't appear in the scan results.
+     *
+     * @param policyContext the policy context created by {@link #createPolicyContext(ServerConfig)}.
+     * @param componentIds  the prefixed component IDs to populate.
+     * @param scanResults   the scan results to populate, mapped by component IDs without prefix.
+     */
+    public void populateCachedResults(String policyContext, Collection<String> componentIds, Map<String, DependencyNode> scanResults) {
+        for (String componentId : componentIds) {
+            CachedResult cachedResult = results.get(createKey(policyContext, componentId));
+            if (cachedResult == null || cachedResult.dependencyNode == null) {
+                continue;
+            }
+            scanResults.putIfAbsent(removeComponentIdPrefix(componentId), (DependencyNode) cachedResult.dependencyNode.clone());
+        }
+    }
+
+    public int size() {
+        return results.size();
+    }
+
+    public void clear() {
+        results.clear();
+    }
+
+    private static String createKey(String policyContext, String componentId) {
+        return policyContext + "|" + componentId;
+    }
+
+    private record CachedResult(DependencyNode dependencyNode, long timestamp) {
+        boolean isExpired(long now, long expirationMillis) {
+            return now - timestamp > expirationMillis;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.jfrog.ide.common.scan;
 import com.jfrog.ide.common.configuration.ServerConfig;
 import com.jfrog.ide.common.deptree.DepTree;
 import com.jfrog.ide.common.deptree.DepTreeNode;
+import com.jfrog.ide.common.deptree.ImpactTreeBuilder;
 import com.jfrog.ide.common.log.ProgressIndicator;
 import com.jfrog.ide.common.nodes.DependencyNode;
 import com.jfrog.ide.common.nodes.LicenseViolationNode;
@@ -11,6 +12,7 @@ import com.jfrog.ide.common.nodes.subentities.License;
 import com.jfrog.ide.common.nodes.subentities.ResearchInfo;
 import com.jfrog.ide.common.nodes.subentities.Severity;
 import com.jfrog.ide.common.nodes.subentities.SeverityReason;
+import com.jfrog.ide.common.utils.BlockingTaskExecutor;
 import com.jfrog.xray.client.Xray;
 import com.jfrog.xray.client.services.common.Cve;
 import com.jfrog.xray.client.services.scan.*;
@@ -18,6 +20,7 @@ import com.jfrog.xray.client.services.system.Version;
 import lombok.Getter;
 import lombok.Setter;
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.jfrog.build.api.util.Log;
 import org.jfrog.build.extractor.scan.DependencyTree;
@@ -25,7 +28,7 @@ import org.jfrog.build.extractor.scan.DependencyTree;
 import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.util.*;
-import java.util.concurrent.CancellationException;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
 import static com.jfrog.ide.common.utils.Utils.removeComponentIdPrefix;
@@ -45,55 +48,194 @@ import static org.apache.commons.lang3.StringUtils.split;
 @Setter
 public class GraphScanLogic implements ScanLogic {
     public static final String MINIMAL_XRAY_VERSION_SUPPORTED_FOR_GRAPH_SCAN = "3.29.0";
+    public static final int DEFAULT_CHUNKS_PARALLELISM = 3;
+    private static final long CANCEL_CHECK_INTERVAL_MILLIS = 200;
     private Log log;
+    /**
+     * Maximum number of components to send in a single graph scan request. If 0 or less, all components are sent in
+     * a single request.
+     */
+    private int chunkSize;
+    /**
+     * Maximum number of graph scan requests to run concurrently in chunks mode.
+     */
+    private int chunksParallelism = DEFAULT_CHUNKS_PARALLELISM;
+    /**
+     * Results of previously scanned components. If null, all components are sent to Xray on every scan.
+     */
+    private ComponentResultsCache resultsCache;
 
     public GraphScanLogic(Log log) {
+        this(log, null);
+    }
+
+    /**
+     * @param log          the logger.
+     * @param resultsCache results of previously scanned components. Components with valid cached results are not sent
+     *                     to Xray again. The cache may be shared between scans and between instances.
+     */
+    public GraphScanLogic(Log log, ComponentResultsCache resultsCache) {
         this.log = log;
+        this.resultsCache = resultsCache;
     }
 
     @Override
     public Map<String, DependencyNode> scanArtifacts(DepTree depTree, ServerConfig server, ProgressIndicator indicator, ComponentPrefix prefix, Runnable checkCanceled) throws IOException, InterruptedException {
-        // Xray's graph scan API does not support progress indication currently.
+        // Xray's graph scan API does not support progress indication currently. In chunks mode, the progress is updated per finished chunk.
         indicator.setIndeterminate(true);
-        DependencyTree nodesToScan = createScanTree(depTree, prefix);
-
-        if (nodesToScan.isLeaf()) {
+        Set<String> componentIds = getComponentIds(depTree, prefix);
+        if (componentIds.isEmpty()) {
             log.debug("No components found to scan.");
             // No components found to scan
             return null;
         }
-        try (Xray xrayClient = createXrayClientBuilder(server, log).build()) {
-            validateXraySupport(xrayClient.system().version());
-            // Start scan
-            log.debug("Starting to scan, sending a dependency graph to Xray");
-            checkCanceled.run();
-            Map<String, DependencyNode> response = scan(xrayClient, nodesToScan, server, checkCanceled, indicator);
-            indicator.setFraction(1);
-            return response;
-        } catch (CancellationException e) {
-            throw new InterruptedIOException("Xray scan was canceled.");
+
+        String policyContext = null;
+        Set<String> componentsToScan = componentIds;
+        if (resultsCache != null) {
+            policyContext = ComponentResultsCache.createPolicyContext(server);
+            componentsToScan = resultsCache.getComponentsToScan(policyContext, componentIds);
+            log.debug(String.format("%d out of %d components were found in the results cache.", componentIds.size() - componentsToScan.size(), componentIds.size()));
+        }
+
+        Map<String, DependencyNode> response = new HashMap<>();
+        if (!componentsToScan.isEmpty()) {
+            String rootFullId = prefix.getPrefix() + depTree.rootId();
+            try (Xray xrayClient = createXrayClient(server)) {
+                validateXraySupport(xrayClient.system().version());
+                // Start scan
+                checkCanceled.run();
+                if (chunkSize > 0 && componentsToScan.size() > chunkSize) {
+                    response = scanInChunks(xrayClient, rootFullId, componentsToScan, server, checkCanceled, indicator);
+                } else {
+                    log.debug("Starting to scan, sending a dependency graph to Xray");
+                    response = scan(xrayClient, createScanTree(rootFullId, componentsToScan), server, checkCanceled, new XrayScanProgressImpl(indicator));
+                }
+            } catch (CancellationException e) {
+                throw new InterruptedIOException("Xray scan was canceled.");
+            }
+        }
+
+        if (resultsCache != null) {
+            Set<String> cachedComponents = new HashSet<>(componentIds);
+            cachedComponents.removeAll(componentsToScan);
+            resultsCache.populateCachedResults(policyContext, cachedComponents, response);
+            resultsCache.addResults(policyContext, componentsToScan, response);
         }
+        // The impact trees depend on the scanned tree, so they are set after the results are cached
+        ImpactTreeBuilder.populateImpactTrees(depTree, response);
+        indicator.setFraction(1);
+        return response;
     }
 
     /**
-     * Create a tree of all components required to scan.
-     * The returned tree is of type {@link DependencyTree} as expected by the Xray client library.
+     * Create the Xray client of a scan.
+     *
+     * @param server JFrog platform server configuration.
+     * @return the Xray client.
+     */
+    Xray createXrayClient(ServerConfig server) {
+        return createXrayClientBuilder(server, log).build();
+    }
+
+    /**
+     * Collect the IDs of all components required to scan.
      *
      * @param tree   the dependency tree to scan.
      * @param prefix components prefix for xray scan, e.g. gav:// or npm://.
-     * @return a graph of components for Xray scan.
+     * @return the prefixed IDs of the components.
      */
-    private DependencyTree createScanTree(DepTree tree, ComponentPrefix prefix) {
-        String rootFullId = prefix.getPrefix() + tree.rootId();
-        DependencyTree scanTree = new DependencyTree(rootFullId);
-        Set<String> componentsAdded = new HashSet<>();
+    private Set<String> getComponentIds(DepTree tree, ComponentPrefix prefix) {
+        Set<String> componentIds = new HashSet<>();
         for (Map.Entry<String, DepTreeNode> nodeEntry : tree.nodes().entrySet()) {
-            String compId = nodeEntry.getKey();
-            if (nodeEntry.getValue().getDescriptorFilePath() == null && componentsAdded.add(compId)) {
-                String nodeFullId = prefix.getPrefix() + compId;
-                scanTree.add(new DependencyTree(nodeFullId));
+            if (nodeEntry.getValue().getDescriptorFilePath() == null) {
+                componentIds.add(prefix.getPrefix() + nodeEntry.getKey());
             }
         }
+        return componentIds;
+    }
+
+    /**
+     * Split the components into chunks of up to {@link #chunkSize} components and scan the chunks concurrently.
+     * The progress is updated whenever a chunk scan is finished. While waiting for the chunks, the cancellation is
+     * checked periodically in the calling thread.
+     *
+     * @param xrayClient    the Xray client.
+     * @param rootFullId    the prefixed ID of the root of the scanned tree.
+     * @param componentIds  the prefixed IDs of the components to scan.
+     * @param server        JFrog platform server configuration.
+     * @param checkCanceled a callback that throws an exception if scan was cancelled by user
+     * @param indicator     the progress indicator.
+     * @return the merged results of all chunks.
+     * @throws IOException          in case of connection issues.
+     * @throws InterruptedException in case of scan canceled.
+     */
+    Map<String, DependencyNode> scanInChunks(Xray xrayClient, String rootFullId, Set<String> componentIds, ServerConfig server,
+                                             Runnable checkCanceled, ProgressIndicator indicator) throws IOException, InterruptedException {
+        List<List<String>> chunks = ListUtils.partition(new ArrayList<>(componentIds), chunkSize);
+        log.debug(String.format("Starting to scan, sending %d components to Xray in %d chunks", componentIds.size(), chunks.size()));
+        indicator.setIndeterminate(false);
+        indicator.setFraction(0);
+
+        Map<String, DependencyNode> results = new HashMap<>();
+        List<Future<Map<String, DependencyNode>>> chunkFutures = new ArrayList<>();
+        try (BlockingTaskExecutor executor = new BlockingTaskExecutor("xray-graph-scan", Math.min(chunksParallelism, chunks.size()))) {
+            CompletionService<Map<String, DependencyNode>> completionService = new ExecutorCompletionService<>(executor);
+            try {
+                for (List<String> chunk : chunks) {
+                    // The progress of a single chunk is not reported, to keep the overall progress monotonic
+                    chunkFutures.add(completionService.submit(() -> scan(xrayClient, createScanTree(rootFullId, chunk), server, checkCanceled, fraction -> {
+                    })));
+                }
+                int finishedChunks = 0;
+                while (finishedChunks < chunks.size()) {
+                    Future<Map<String, DependencyNode>> chunkFuture = completionService.poll(CANCEL_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                    checkCanceled.run();
+                    if (chunkFuture == null) {
+                        continue;
+                    }
+                    results.putAll(getChunkResults(chunkFuture));
+                    indicator.setFraction((double) ++finishedChunks / chunks.size());
+                }
+            } finally {
+                // Stop the remaining chunks if the scan failed or was canceled
+                chunkFutures.forEach(chunkFuture -> chunkFuture.cancel(true));
+            }
+        }
+        return results;
+    }
+
+    private Map<String, DependencyNode> getChunkResults(Future<Map<String, DependencyNode>> chunkFuture) throws IOException, InterruptedException {
+        try {
+            return chunkFuture.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Xray scan failed", cause);
+        }
+    }
+
+    /**
+     * Create a tree of the components required to scan.
+     * The returned tree is of type {@link DependencyTree} as expected by the Xray client library.
+     *
+     * @param rootFullId   the prefixed ID of the root of the scanned tree.
+     * @param componentIds the prefixed IDs of the components to scan.
+     * @return a graph of components for Xray scan.
+     */
+    private DependencyTree createScanTree(String rootFullId, Collection<String> componentIds) {
+        DependencyTree scanTree = new DependencyTree(rootFullId);
+        for (String nodeFullId : componentIds) {
+            scanTree.add(new DependencyTree(nodeFullId));
+        }
         return scanTree;
     }
 
@@ -114,13 +256,14 @@ public class GraphScanLogic implements ScanLogic {
      * @param artifactsToScan the bulk of components to scan.
      * @param server          JFrog platform server configuration.
      * @param checkCanceled   a callback that throws an exception if scan was cancelled by user
+     * @param progress        the scan progress reporter.
      * @throws IOException          in case of connection issues.
      * @throws InterruptedException in case of scan canceled.
      */
-    private Map<String, DependencyNode> scan(Xray xrayClient, DependencyTree artifactsToScan, ServerConfig server, Runnable checkCanceled, ProgressIndicator indicator) throws IOException, InterruptedException {
+    private Map<String, DependencyNode> scan(Xray xrayClient, DependencyTree artifactsToScan, ServerConfig server, Runnable checkCanceled, XrayScanProgress progress) throws IOException, InterruptedException {
         String projectKey = server.getPolicyType() == ServerConfig.PolicyType.PROJECT ? server.getProject() : "";
         String[] watches = server.getPolicyType() == ServerConfig.PolicyType.WATCHES ? split(server.getWatches(), ",") : null;
-        GraphResponse scanResults = xrayClient.scan().graph(artifactsToScan, new XrayScanProgressImpl(indicator), checkCanceled, projectKey, watches);
+        GraphResponse scanResults = xrayClient.scan().graph(artifactsToScan, progress, checkCanceled, projectKey, watches);
         Map<String, DependencyNode> results = new HashMap<>();
 
         // If a project key provided, add all returned violated licenses and vulnerabilities.
@@ -0,0 +1,180 @@
+package com.jfrog.ide.common.utils;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs blocking tasks, such as HTTP requests and CLI subprocesses, with bounded concurrency.
+ * On Java 21 and above, each task runs on its own virtual thread, so waiting on I/O doesn't occupy a platform thread.
+ * On older Java versions, the tasks run on a fixed pool of platform threads.
+ * <p>
+ * The number of tasks running at the same time never exceeds the concurrency limit, so fanning out hundreds of tasks
+ * doesn't open hundreds of connections or processes at once.
+ */
+public class BlockingTaskExecutor implements Executor, AutoCloseable {
+    private static final Method newVirtualThreadPerTaskExecutor = findVirtualThreadPerTaskExecutorFactory();
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final boolean virtualThreads;
+
+    public interface BlockingTask<T> {
+        T run() throws IOException, InterruptedException;
+    }
+
+    /**
+     * @param name           - The name prefix of the threads
+     * @param maxConcurrency - The maximal number of tasks to run at the same time
+     */
+    public BlockingTaskExecutor(String name, int maxConcurrency) {
+        this(name, maxConcurrency, true);
+    }
+
+    /**
+     * @param name                  - The name prefix of the threads
+     * @param maxConcurrency        - The maximal number of tasks to run at the same time
+     * @param preferVirtualThreads  - If false, use platform threads even if virtual threads are supported
+     */
+    public BlockingTaskExecutor(String name, int maxConcurrency, boolean preferVirtualThreads) {
+        int concurrency = Math.max(1, maxConcurrency);
+        ExecutorService virtualExecutor = preferVirtualThreads ? createVirtualThreadExecutor() : null;
+        this.virtualThreads = virtualExecutor != null;
+        this.executor = virtualThreads ? virtualExecutor : Executors.newFixedThreadPool(concurrency, createThreadFactory(name));
+        this.permits = new Semaphore(concurrency);
+    }
+
+    /**
+     * @return true if virtual threads are supported by the running JVM.
+     */
+    public static boolean isVirtualThreadsSupported() {
+        return newVirtualThreadPerTaskExecutor != null;
+    }
+
+    /**
+     * @return true if the tasks of this executor run on virtual threads.
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Submit a task.
+     *
+     * @param task - The task to run
+     * @return the future result of the task.
+     */
+    public <T> Future<T> submit(BlockingTask<T> task) {
+        return executor.submit(() -> {
+            permits.acquire();
+            try {
+                return task.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    /**
+     * Run a task within the concurrency limit. This allows using the executor in a {@link CompletionService}.
+     *
+     * @param command - The task to run
+     */
+    @Override
+    public void execute(Runnable command) {
+        submit(() -> {
+            command.run();
+            return null;
+        });
+    }
+
+    /**
+     * Run the tasks and wait for all of them to complete.
+     * If one of the tasks fails, the remaining tasks are canceled and the failure is thrown.
+     *
+     * @param tasks - The tasks to run
+     * @return the results of the tasks, in the order of the tasks.
+     * @throws IOException          if one of the tasks threw an exception.
+     * @throws InterruptedException if the current thread was interrupted while waiting.
+     */
+    public <T> List<T> invokeAll(List<? extends BlockingTask<T>> tasks) throws IOException, InterruptedException {
+        List<Future<T>> futures = new ArrayList<>();
+        tasks.forEach(task -> futures.add(submit(task)));
+        List<T> results = new ArrayList<>();
+        try {
+            for (Future<T> future : futures) {
+                results.add(getResult(future));
+            }
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        return results;
+    }
+
+    private static <T> T getResult(Future<T> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Stop accepting tasks, and wait for the running tasks to complete.
+     * If the current thread is interrupted while waiting, the running tasks are interrupted.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                // Keep waiting for the running tasks
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ExecutorService createVirtualThreadExecutor() {
+        if (newVirtualThreadPerTaskExecutor == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) newVirtualThreadPerTaskExecutor.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static Method findVirtualThreadPerTaskExecutorFactory() {
+        // Virtual threads are available since Java 21, while this library is compiled for Java 17
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory createThreadFactory(String name) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
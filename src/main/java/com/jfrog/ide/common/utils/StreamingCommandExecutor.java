@@ -0,0 +1,203 @@
+package com.jfrog.ide.common.utils;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.SystemUtils;
+import org.jfrog.build.api.util.Log;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes a command and passes its standard output to a consumer while the command runs, instead of buffering the
+ * whole output in a string like {@link org.jfrog.build.extractor.executor.CommandExecutor}.
+ * Large outputs, such as 'npm ls --all --json' and 'go mod graph', can then be parsed incrementally.
+ * <p>
+ * The command line is built the same way as in CommandExecutor: on Unix the command runs through '/bin/sh -c', and on
+ * Windows through 'cmd /c'. The standard error is collected in the background, up to {@link #MAX_ERROR_LENGTH}
+ * characters.
+ */
+public class StreamingCommandExecutor {
+    static final int MAX_ERROR_LENGTH = 1024 * 1024;
+    private static final long EXECUTION_TIMEOUT_MINUTES = 120;
+    private static final long PROCESS_TERMINATION_TIMEOUT_SECONDS = 30;
+
+    private final String executablePath;
+    private final Map<String, String> env;
+
+    /**
+     * Consumes the standard output of a command.
+     */
+    public interface OutputConsumer<T> {
+        T consume(InputStream stdout) throws IOException;
+    }
+
+    /**
+     * Consumes the standard output of a command line by line.
+     */
+    public interface LineConsumer {
+        void accept(String line) throws IOException;
+    }
+
+    /**
+     * The results of a command.
+     *
+     * @param output    the value returned by the output consumer.
+     * @param err       the standard error of the command.
+     * @param exitValue the exit value of the command.
+     */
+    public record Results<T>(T output, String err, int exitValue) {
+        public boolean isOk() {
+            return exitValue == 0;
+        }
+    }
+
+    /**
+     * @param executablePath - The executable, either a name in the PATH or a path
+     * @param env            - Environment variables to add to the environment of the current process
+     */
+    public StreamingCommandExecutor(String executablePath, Map<String, String> env) {
+        this.executablePath = executablePath.trim();
+        this.env = new HashMap<>(System.getenv());
+        if (env != null) {
+            this.env.putAll(env);
+        }
+        if (!SystemUtils.IS_OS_WINDOWS && this.env.containsKey("PATH")) {
+            this.env.put("PATH", this.env.get("PATH") + File.pathSeparator + "/usr/local/bin");
+        }
+    }
+
+    /**
+     * Execute a command, and pass its standard output to the consumer.
+     * The rest of the output, which isn't read by the consumer, is discarded. The stream is closed after the consumer
+     * returns, so the consumer doesn't need to close it. If the consumer throws an exception, the command is terminated.
+     *
+     * @param workingDirectory - The working directory, or null for the current working directory
+     * @param args             - The command arguments
+     * @param logger           - The logger of the command line, or null
+     * @param outputConsumer   - Consumes the standard output
+     * @return the command results, containing the value returned by the consumer.
+     * @throws IOException          in case of an error in running the command, or if the consumer failed.
+     * @throws InterruptedException if the current thread was interrupted while waiting for the command.
+     */
+    public <T> Results<T> exeCommand(File workingDirectory, List<String> args, Log logger, OutputConsumer<T> outputConsumer)
+            throws IOException, InterruptedException {
+        Map<String, String> processEnv = new HashMap<>(env);
+        List<String> command = formatCommand(args, processEnv);
+        if (logger != null) {
+            logger.info("Executing command: " + String.join(" ", command));
+        }
+        ProcessBuilder processBuilder = new ProcessBuilder(command).directory(workingDirectory);
+        processBuilder.environment().putAll(processEnv);
+        Process process = processBuilder.start();
+        process.getOutputStream().close();
+        StringBuilder err = new StringBuilder();
+        Thread errorReader = startErrorReader(process.getErrorStream(), err);
+        boolean done = false;
+        try {
+            T output;
+            try (InputStream stdout = process.getInputStream()) {
+                // Parsers such as Jackson close the stream when done, so the unread output couldn't be drained
+                output = outputConsumer.consume(new FilterInputStream(stdout) {
+                    @Override
+                    public void close() {
+                    }
+                });
+                // Drain the unread output, so the process doesn't block on a full pipe
+                stdout.transferTo(OutputStream.nullOutputStream());
+            }
+            if (!process.waitFor(EXECUTION_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+                throw new IOException(String.format("Process '%s' had been terminated forcibly after timeout.", String.join(" ", command)));
+            }
+            errorReader.join(TimeUnit.SECONDS.toMillis(PROCESS_TERMINATION_TIMEOUT_SECONDS));
+            done = true;
+            synchronized (err) {
+                return new Results<>(output, err.toString(), process.exitValue());
+            }
+        } finally {
+            if (!done) {
+                terminate(process);
+            }
+        }
+    }
+
+    /**
+     * Execute a command, and pass each line of its standard output to the consumer.
+     *
+     * @param workingDirectory - The working directory, or null for the current working directory
+     * @param args             - The command arguments
+     * @param logger           - The logger of the command line, or null
+     * @param lineConsumer     - Consumes the lines of the standard output
+     * @return the command results.
+     * @throws IOException          in case of an error in running the command, or if the consumer failed.
+     * @throws InterruptedException if the current thread was interrupted while waiting for the command.
+     */
+    public Results<Void> exeCommandByLines(File workingDirectory, List<String> args, Log logger, LineConsumer lineConsumer)
+            throws IOException, InterruptedException {
+        return exeCommand(workingDirectory, args, logger, stdout -> {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(stdout, StandardCharsets.UTF_8));
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lineConsumer.accept(line);
+            }
+            return null;
+        });
+    }
+
+    private List<String> formatCommand(List<String> args, Map<String, String> processEnv) {
+        List<String> command = new ArrayList<>(args);
+        if (SystemUtils.IS_OS_WINDOWS) {
+            String executable = executablePath;
+            Path path = Paths.get(executablePath);
+            if (path.isAbsolute() && path.getParent() != null) {
+                // Run the executable by its name, from the PATH
+                String pathKey = processEnv.containsKey("Path") ? "Path" : "PATH";
+                processEnv.put(pathKey, path.getParent() + File.pathSeparator + StringUtils.defaultString(processEnv.get(pathKey)));
+                executable = path.getFileName().toString();
+            }
+            command.add(0, executable.replaceAll(" ", "^ "));
+            command.addAll(0, List.of("cmd", "/c"));
+            return command;
+        }
+        command.add(0, executablePath.replaceAll(" ", "\\\\ "));
+        return List.of("/bin/sh", "-c", String.join(" ", command));
+    }
+
+    private static Thread startErrorReader(InputStream stderr, StringBuilder err) {
+        Thread errorReader = new Thread(() -> {
+            try (Reader reader = new InputStreamReader(stderr, StandardCharsets.UTF_8)) {
+                char[] buffer = new char[8192];
+                for (int read = reader.read(buffer); read != -1; read = reader.read(buffer)) {
+                    synchronized (err) {
+                        err.append(buffer, 0, Math.max(0, Math.min(read, MAX_ERROR_LENGTH - err.length())));
+                    }
+                }
+            } catch (IOException e) {
+                // The process was terminated
+            }
+        }, "streaming-command-stderr");
+        errorReader.setDaemon(true);
+        errorReader.start();
+        return errorReader;
+    }
+
+    private static void terminate(Process process) {
+        if (!process.isAlive()) {
+            return;
+        }
+        process.destroy();
+        try {
+            if (!process.waitFor(PROCESS_TERMINATION_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.jfrog.ide.common.yarn;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
+import com.jfrog.ide.common.utils.StreamingCommandExecutor;
 import org.jfrog.build.extractor.WslUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.jfrog.build.api.util.Log;
@@ -21,6 +22,7 @@ import java.util.stream.Stream;
 public class YarnDriver {
     private static final ObjectReader jsonReader = new ObjectMapper().reader();
     private final CommandExecutor commandExecutor;
+    private final StreamingCommandExecutor streamingExecutor;
     private final Log log;
     private final boolean useWsl;
 
@@ -35,6 +37,7 @@ public class YarnDriver {
     public YarnDriver(Map<String, String> env, Log log, boolean useWsl) {
         this.useWsl = useWsl;
         this.commandExecutor = useWsl ? new CommandExecutor("wsl.exe", env) : new CommandExecutor("yarn", env);
+        this.streamingExecutor = new StreamingCommandExecutor(useWsl ? "wsl.exe" : "yarn", env);
         this.log = log;
     }
 
@@ -64,6 +67,7 @@ public class YarnDriver {
 
     /**
      * Runs 'yarn list' command and returns the output as a JsonNode.
+     * The output is parsed while the command runs, without buffering it in a string.
      * @param workingDirectory - The working directory to run the command from.
      * @param extraArgs - Extra arguments to pass to the command.
      * @return the command output.
@@ -75,15 +79,16 @@ public class YarnDriver {
         args.add("--no-progress");
         args.addAll(extraArgs);
         try {
-            CommandResults commandRes = runCommand(workingDirectory, args.toArray(new String[0]));
-            String res = StringUtils.defaultIfBlank(commandRes.getRes(), "{}");
-            JsonNode jsonResults = jsonReader.readTree(res);
+            StreamingCommandExecutor.Results<JsonNode> commandRes = runStreamingCommand(workingDirectory, args.toArray(new String[0]), stdout -> {
+                JsonNode jsonResults = jsonReader.readTree(stdout);
+                return jsonResults == null || jsonResults.isMissingNode() ? jsonReader.createObjectNode() : jsonResults;
+            });
 
             if (!commandRes.isOk()) {
                 log.error("Errors occurred during Yarn list command. " +
-                        "The dependency tree may be incomplete:\n" + commandRes.getErr());
+                        "The dependency tree may be incomplete:\n" + commandRes.err());
             }
-            return jsonResults;
+            return commandRes.output();
         } catch (IOException | InterruptedException e) {
             throw new IOException("yarn list failed", e);
         }
@@ -99,6 +104,7 @@ public class YarnDriver {
 
     /**
      * Runs 'yarn why' command and returns the output as an array of JsonNodes.
+     * Each line of the output is parsed while the command runs.
      * @param workingDirectory - The working directory to run the command from.
      * @param componentName - The component name to run the command for.
      * @return the command output.
@@ -106,24 +112,22 @@ public class YarnDriver {
     public JsonNode[] why(File workingDirectory, String componentName) throws IOException {
         String[] args = {"why", componentName, "--json", "--no-progress"};
         try {
-            CommandResults commandRes = runCommand(workingDirectory, args);
+            List<JsonNode> yarnWhyResults = new ArrayList<>();
+            StreamingCommandExecutor.Results<Void> commandRes = runStreamingCommandByLines(workingDirectory, args, line -> {
+                if (StringUtils.isNotBlank(line)) {
+                    yarnWhyResults.add(jsonReader.readTree(line));
+                }
+            });
 
             // Note that although the command may succeed (commandRes.isOk() == true), the result may still contain errors (such as no match found)
-            String err = commandRes.getErr();
+            String err = commandRes.err();
             if (!StringUtils.isBlank(err)) {
                 log.error("Errors occurred during Yarn why command for dependency '" + componentName + "'. " +
                         "The dependency tree may be incomplete:\n" + err);
                 return new JsonNode[0];
             }
 
-            String res = commandRes.getRes();
-            String[] splitResults = res.split("\n");
-            JsonNode[] yarnWhyResults = new JsonNode[splitResults.length];
-            for (int i = 0; i < splitResults.length; i++) {
-                yarnWhyResults[i] = jsonReader.readTree(splitResults[i]);
-            }
-
-            return yarnWhyResults;
+            return yarnWhyResults.toArray(new JsonNode[0]);
 
         } catch (IOException | InterruptedException e) {
             throw new IOException("yarn why failed", e);
@@ -149,8 +153,36 @@ public class YarnDriver {
     }
 
     private CommandResults runCommand(File workingDirectory, String[] args, List<String> extraArgs) throws IOException, InterruptedException {
+        CommandResults commandRes = commandExecutor.exeCommand(getExecutorWorkingDirectory(workingDirectory), buildArgs(workingDirectory, args, extraArgs), null, null);
+        if (!commandRes.isOk()) {
+            throw new IOException(commandRes.getErr() + commandRes.getRes());
+        }
+        return commandRes;
+    }
+
+    private <T> StreamingCommandExecutor.Results<T> runStreamingCommand(File workingDirectory, String[] args, StreamingCommandExecutor.OutputConsumer<T> outputConsumer) throws IOException, InterruptedException {
+        StreamingCommandExecutor.Results<T> commandRes = streamingExecutor.exeCommand(getExecutorWorkingDirectory(workingDirectory), buildArgs(workingDirectory, args, Collections.emptyList()), null, outputConsumer);
+        if (!commandRes.isOk()) {
+            throw new IOException(commandRes.err());
+        }
+        return commandRes;
+    }
+
+    private StreamingCommandExecutor.Results<Void> runStreamingCommandByLines(File workingDirectory, String[] args, StreamingCommandExecutor.LineConsumer lineConsumer) throws IOException, InterruptedException {
+        StreamingCommandExecutor.Results<Void> commandRes = streamingExecutor.exeCommandByLines(getExecutorWorkingDirectory(workingDirectory), buildArgs(workingDirectory, args, Collections.emptyList()), null, lineConsumer);
+        if (!commandRes.isOk()) {
+            throw new IOException(commandRes.err());
+        }
+        return commandRes;
+    }
+
+    private File getExecutorWorkingDirectory(File workingDirectory) {
+        // In WSL, the working directory is handled by --cd
+        return useWsl ? null : workingDirectory;
+    }
+
+    private List<String> buildArgs(File workingDirectory, String[] args, List<String> extraArgs) {
         List<String> finalArgs = new ArrayList<>();
-        File wdForExecutor = workingDirectory;
         if (useWsl) {
             // Route through wsl.exe. If a working directory is given, convert it to a Linux path via --cd.
             if (workingDirectory != null) {
@@ -159,13 +191,8 @@ public class YarnDriver {
             }
             finalArgs.add("--exec");
             finalArgs.add("yarn");
-            wdForExecutor = null; // Working directory is handled by --cd above
         }
         Stream.concat(Arrays.stream(args), extraArgs.stream()).forEach(finalArgs::add);
-        CommandResults commandRes = commandExecutor.exeCommand(wdForExecutor, finalArgs, null, null);
-        if (!commandRes.isOk()) {
-            throw new IOException(commandRes.getErr() + commandRes.getRes());
-        }
-        return commandRes;
+        return finalArgs;
     }
-}
\ No newline at end of file
+}
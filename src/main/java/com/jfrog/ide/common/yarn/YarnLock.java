@@ -0,0 +1,260 @@
+package com.jfrog.ide.common.yarn;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * The entries of a yarn.lock file, by their descriptors.
+ * Both the Yarn Classic (v1) format and the Yarn Berry (v2 and above) YAML format are supported.
+ * <p>
+ * A descriptor is a package name and a range, as declared by a dependent package. For example: "lodash@^4.17.0" in
+ * Yarn Classic, or "lodash@npm:^4.17.0" in Yarn Berry. Several descriptors may resolve to the same entry.
+ */
+public class YarnLock {
+    private static final YAMLFactory yamlFactory = new YAMLFactory();
+    private static final String BERRY_METADATA = "__metadata";
+    private static final String BERRY_DEFAULT_PROTOCOL = "npm:";
+
+    private final Map<String, Entry> entries;
+    private final Map<String, List<Entry>> entriesByName = new HashMap<>();
+    private final boolean berry;
+
+    /**
+     * An entry of the lock file.
+     *
+     * @param name         the package name.
+     * @param version      the resolved version.
+     * @param dependencies the ranges of the dependencies by their names. Contains the optional dependencies too.
+     */
+    public record Entry(String name, String version, Map<String, String> dependencies) {
+    }
+
+    private YarnLock(Map<String, Entry> entries, boolean berry) {
+        this.entries = entries;
+        this.berry = berry;
+        for (Entry entry : new LinkedHashSet<>(entries.values())) {
+            entriesByName.computeIfAbsent(entry.name(), name -> new ArrayList<>()).add(entry);
+        }
+    }
+
+    /**
+     * Parse a yarn.lock file.
+     *
+     * @param lockFile the yarn.lock file.
+     * @return the parsed lock file.
+     * @throws IOException in case of I/O error, or if the lock file is invalid.
+     */
+    public static YarnLock parse(Path lockFile) throws IOException {
+        String content = Files.readString(lockFile, StandardCharsets.UTF_8);
+        return isBerry(content) ? parseBerry(new StringReader(content)) : parseClassic(new StringReader(content));
+    }
+
+    /**
+     * @return true if the lock file was created by Yarn Berry.
+     */
+    public boolean isBerry() {
+        return berry;
+    }
+
+    /**
+     * @return the number of descriptors in the lock file.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Resolve a dependency to its entry.
+     * If the range isn't in the lock file, for example after package.json was edited without running 'yarn install',
+     * an entry of the package whose version is equal to the range is returned.
+     *
+     * @param name  the package name.
+     * @param range the range, as declared by the dependent package.
+     * @return the entry, or null if the dependency is not in the lock file.
+     */
+    public Entry resolve(String name, String range) {
+        Entry entry = entries.get(name + "@" + range);
+        if (entry == null && berry) {
+            // Ranges without a protocol use the default npm protocol
+            entry = entries.get(name + "@" + BERRY_DEFAULT_PROTOCOL + range);
+        }
+        if (entry == null) {
+            String version = StringUtils.removeStart(range, BERRY_DEFAULT_PROTOCOL);
+            entry = entriesByName.getOrDefault(name, List.of()).stream()
+                    .filter(candidate -> candidate.version().equals(version))
+                    .findFirst().orElse(null);
+        }
+        return entry;
+    }
+
+    private static boolean isBerry(String content) {
+        // The metadata appears at the top of the file, after the header comments
+        return content.lines()
+                .filter(line -> !line.isBlank() && !line.startsWith("#"))
+                .findFirst()
+                .map(line -> line.startsWith(BERRY_METADATA + ":"))
+                .orElse(false);
+    }
+
+    /**
+     * Parse the Yarn Classic format. For example:
+     * <pre>
+     * "@babel/code-frame@^7.0.0", "@babel/code-frame@^7.10.4":
+     *   version "7.10.4"
+     *   dependencies:
+     *     "@babel/highlight" "^7.10.4"
+     * </pre>
+     */
+    static YarnLock parseClassic(Reader reader) throws IOException {
+        Map<String, Entry> entries = new HashMap<>();
+        List<String> descriptors = null;
+        String version = null;
+        Map<String, String> dependencies = null;
+        boolean inDependencies = false;
+        try (BufferedReader bufferedReader = new BufferedReader(reader)) {
+            for (String line = bufferedReader.readLine(); line != null; line = bufferedReader.readLine()) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                int indent = line.length() - line.stripLeading().length();
+                String content = line.strip();
+                if (indent == 0) {
+                    addEntry(entries, descriptors, null, version, dependencies);
+                    descriptors = new ArrayList<>();
+                    for (String descriptor : StringUtils.removeEnd(content, ":").split(",")) {
+                        descriptors.add(unquote(descriptor.strip()));
+                    }
+                    version = null;
+                    dependencies = new LinkedHashMap<>();
+                    inDependencies = false;
+                } else if (descriptors == null) {
+                    throw new IOException("Invalid yarn.lock line: " + line);
+                } else if (content.endsWith(":")) {
+                    String section = StringUtils.removeEnd(content, ":");
+                    inDependencies = section.equals("dependencies") || section.equals("optionalDependencies");
+                } else {
+                    String[] keyValue = splitKeyValue(content);
+                    if (inDependencies && indent > 2) {
+                        dependencies.put(keyValue[0], keyValue[1]);
+                    } else {
+                        inDependencies = false;
+                        if (keyValue[0].equals("version")) {
+                            version = keyValue[1];
+                        }
+                    }
+                }
+            }
+        }
+        addEntry(entries, descriptors, null, version, dependencies);
+        return new YarnLock(entries, false);
+    }
+
+    /**
+     * Parse the Yarn Berry YAML format. For example:
+     * <pre>
+     * "@babel/code-frame@npm:^7.0.0, @babel/code-frame@npm:^7.10.4":
+     *   version: 7.10.4
+     *   dependencies:
+     *     "@babel/highlight": ^7.10.4
+     * </pre>
+     * The scalars are read by their text, so versions and ranges such as 1.10 are not converted to numbers.
+     */
+    static YarnLock parseBerry(Reader reader) throws IOException {
+        Map<String, Entry> entries = new HashMap<>();
+        try (JsonParser parser = yamlFactory.createParser(reader)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Invalid yarn.lock: expected a YAML mapping");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String key = parser.currentName();
+                parser.nextToken();
+                if (key.equals(BERRY_METADATA) || parser.currentToken() != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                List<String> descriptors = new ArrayList<>();
+                for (String descriptor : key.split(",")) {
+                    descriptors.add(descriptor.strip());
+                }
+                String resolution = null;
+                String version = null;
+                Map<String, String> dependencies = new LinkedHashMap<>();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    parser.nextToken();
+                    if (field.equals("version")) {
+                        version = parser.getText();
+                    } else if (field.equals("resolution")) {
+                        resolution = parser.getText();
+                    } else if ((field.equals("dependencies") || field.equals("optionalDependencies")) && parser.currentToken() == JsonToken.START_OBJECT) {
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String dependency = parser.currentName();
+                            parser.nextToken();
+                            dependencies.put(dependency, parser.getText());
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                addEntry(entries, descriptors, resolution, version, dependencies);
+            }
+        }
+        return new YarnLock(entries, true);
+    }
+
+    private static void addEntry(Map<String, Entry> entries, List<String> descriptors, String resolution, String version, Map<String, String> dependencies) {
+        if (descriptors == null || descriptors.isEmpty() || version == null) {
+            return;
+        }
+        Entry entry = new Entry(getPackageName(resolution != null ? resolution : descriptors.get(0)), version, dependencies);
+        descriptors.forEach(descriptor -> entries.put(descriptor, entry));
+    }
+
+    /**
+     * Get the package name of a descriptor or a resolution. The name may start with '@' for scoped packages.
+     * For aliases, such as "my-ms@npm:ms@2.0.0", the name of the real package is returned.
+     */
+    static String getPackageName(String descriptor) {
+        int separator = descriptor.indexOf('@', 1);
+        if (separator < 0) {
+            return descriptor;
+        }
+        String range = descriptor.substring(separator + 1);
+        if (range.startsWith(BERRY_DEFAULT_PROTOCOL) && range.indexOf('@', BERRY_DEFAULT_PROTOCOL.length() + 1) > 0) {
+            return getPackageName(range.substring(BERRY_DEFAULT_PROTOCOL.length()));
+        }
+        return descriptor.substring(0, separator);
+    }
+
+    /**
+     * Split a line of the form 'key value', where the key and the value may be quoted.
+     */
+    private static String[] splitKeyValue(String content) {
+        String key;
+        String value;
+        if (content.startsWith("\"")) {
+            int closingQuote = content.indexOf('"', 1);
+            key = content.substring(1, closingQuote);
+            value = content.substring(closingQuote + 1);
+        } else {
+            key = StringUtils.substringBefore(content, " ");
+            value = StringUtils.substringAfter(content, " ");
+        }
+        return new String[]{key, unquote(value.strip())};
+    }
+
+    private static String unquote(String value) {
+        return value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"") ? value.substring(1, value.length() - 1) : value;
+    }
+}
@@ -0,0 +1,215 @@
+package com.jfrog.ide.common.yarn;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jfrog.ide.common.deptree.CompactDepTree;
+import com.jfrog.ide.common.deptree.DepTree;
+import com.jfrog.ide.common.deptree.ImpactTreeBuilder;
+import com.jfrog.ide.common.deptree.ParentsIndex;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+
+import static com.jfrog.ide.common.utils.Utils.createComponentId;
+
+/**
+ * Build yarn dependency tree from yarn.lock, without running 'yarn list' and 'yarn why'.
+ * Both Yarn Classic and Yarn Berry lock files are supported.
+ * <p>
+ * The direct dependencies are read from the project's package.json and resolved through the lock file. The impact
+ * paths of any package are found in-process by {@link ImpactTreeBuilder}, walking up the parents index of the tree
+ * from the package to the project root. The tree and its index are rebuilt only when yarn.lock changes. Each call to
+ * {@link #buildTree()} returns a new view of the tree, so changes that callers make to it don't affect the index.
+ * <p>
+ * Projects with workspaces aren't supported, because the dependencies of the workspace packages are declared in their
+ * own package.json files. For such projects, null is returned, and 'yarn list' and 'yarn why' should be used instead.
+ */
+public class YarnLockTreeBuilder {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String[] ROOT_DEPENDENCIES_FIELDS = {"dependencies", "devDependencies", "optionalDependencies"};
+
+    private final Path projectDir;
+    private final String descriptorFilePath;
+    private LockIndex lockIndex;
+
+    /**
+     * The state of a file when it was read.
+     *
+     * @param lastModified the last modified time of the file.
+     * @param size         the size of the file.
+     */
+    private record FileStamp(FileTime lastModified, long size) {
+        private static FileStamp of(Path file) throws IOException {
+            return new FileStamp(Files.getLastModifiedTime(file), Files.size(file));
+        }
+    }
+
+    /**
+     * The dependency tree of the lock file and the parents of its nodes.
+     *
+     * @param yarnLockStamp    the state of yarn.lock when it was read.
+     * @param packageJsonStamp the state of package.json when it was read.
+     * @param tree             the dependency tree, or null if the project has workspaces.
+     * @param parents          the parents index of the tree, or null if the project has workspaces.
+     */
+    private record LockIndex(FileStamp yarnLockStamp, FileStamp packageJsonStamp, CompactDepTree tree, ParentsIndex parents) {
+    }
+
+    public YarnLockTreeBuilder(Path projectDir, String descriptorFilePath) {
+        this.projectDir = projectDir;
+        this.descriptorFilePath = descriptorFilePath;
+    }
+
+    /**
+     * @return true if the project has a yarn.lock file.
+     */
+    public boolean isYarnLockExists() {
+        return Files.isRegularFile(getYarnLock());
+    }
+
+    /**
+     * @return true if the tree and the impact paths can be read from yarn.lock: the project has a yarn.lock file and
+     * no workspaces.
+     * @throws IOException in case of I/O error, or if yarn.lock or package.json are invalid.
+     */
+    public boolean isSupported() throws IOException {
+        return getLockIndex() != null;
+    }
+
+    /**
+     * Build the yarn project dependency tree from yarn.lock.
+     *
+     * @return full dependency tree without Xray scan results, or null if yarn.lock doesn't exist or the project has
+     * workspaces.
+     * @throws IOException in case of I/O error, or if yarn.lock or package.json are invalid.
+     */
+    public DepTree buildTree() throws IOException {
+        LockIndex index = getLockIndex();
+        return index != null ? index.tree().asDepTree() : null;
+    }
+
+    /**
+     * Find the dependency paths from the package to the root project in yarn.lock.
+     * The paths have the same form as the paths that are extracted from 'yarn why': the project, the names of the
+     * intermediate packages, and the package full name.
+     *
+     * @param projectRootId   - The name of the project to display in the root of the impact tree.
+     * @param packageName     - The package name (without version).
+     * @param packageVersions - The package versions.
+     * @return A map of package full name (<NAME>:<VERSION>) to a list of dependency paths, or null if yarn.lock
+     * doesn't exist or the project has workspaces.
+     * @throws IOException in case of I/O error, or if yarn.lock or package.json are invalid.
+     */
+    public Map<String, List<List<String>>> findDependencyImpactPaths(String projectRootId, String packageName, Set<String> packageVersions) throws IOException {
+        LockIndex index = getLockIndex();
+        if (index == null) {
+            return null;
+        }
+        List<String> packageFullNames = new ArrayList<>();
+        for (String packageVersion : packageVersions) {
+            packageFullNames.add(createComponentId(packageName, packageVersion));
+        }
+        Map<String, List<List<String>>> packageImpactPaths = new HashMap<>();
+        ImpactTreeBuilder.findImpactPaths(index.parents(), packageFullNames).forEach((packageFullName, paths) -> {
+            Set<List<String>> impactPaths = new LinkedHashSet<>();
+            for (List<String> path : paths) {
+                impactPaths.add(toImpactPath(projectRootId, path));
+            }
+            packageImpactPaths.put(packageFullName, new ArrayList<>(impactPaths));
+        });
+        return packageImpactPaths;
+    }
+
+    /**
+     * @return the impact path in the form of 'yarn why': the project, the names of the intermediate packages and the
+     * package full name.
+     */
+    private static List<String> toImpactPath(String projectRootId, List<String> path) {
+        List<String> impactPath = new ArrayList<>(path.size());
+        impactPath.add(projectRootId);
+        for (String componentId : path.subList(1, path.size() - 1)) {
+            impactPath.add(StringUtils.substringBeforeLast(componentId, ":"));
+        }
+        impactPath.add(path.get(path.size() - 1));
+        return impactPath;
+    }
+
+    private Path getYarnLock() {
+        return projectDir.resolve("yarn.lock");
+    }
+
+    private synchronized LockIndex getLockIndex() throws IOException {
+        Path yarnLock = getYarnLock();
+        if (!Files.isRegularFile(yarnLock)) {
+            lockIndex = null;
+            return null;
+        }
+        Path packageJsonPath = projectDir.resolve("package.json");
+        if (!Files.isRegularFile(packageJsonPath)) {
+            throw new IOException("Could not scan Yarn project dependencies, because the package.json file is missing.");
+        }
+        FileStamp yarnLockStamp = FileStamp.of(yarnLock);
+        FileStamp packageJsonStamp = FileStamp.of(packageJsonPath);
+        if (lockIndex == null || !lockIndex.yarnLockStamp().equals(yarnLockStamp) || !lockIndex.packageJsonStamp().equals(packageJsonStamp)) {
+            lockIndex = createLockIndex(yarnLock, yarnLockStamp, packageJsonPath, packageJsonStamp);
+        }
+        return lockIndex.tree() != null ? lockIndex : null;
+    }
+
+    private LockIndex createLockIndex(Path yarnLock, FileStamp yarnLockStamp, Path packageJsonPath, FileStamp packageJsonStamp) throws IOException {
+        JsonNode packageJson = objectMapper.readTree(packageJsonPath.toFile());
+        if (packageJson == null) {
+            throw new IOException("Could not scan Yarn project dependencies, because the package.json file is empty.");
+        }
+        if (packageJson.has("workspaces")) {
+            return new LockIndex(yarnLockStamp, packageJsonStamp, null, null);
+        }
+        CompactDepTree tree = buildCompactTree(YarnLock.parse(yarnLock), packageJson);
+        return new LockIndex(yarnLockStamp, packageJsonStamp, tree, new ParentsIndex(tree.asDepTree()));
+    }
+
+    private CompactDepTree buildCompactTree(YarnLock yarnLock, JsonNode packageJson) throws IOException {
+        String packageId = YarnTreeBuilder.getPackageId(packageJson, projectDir);
+        CompactDepTree.Builder treeBuilder = new CompactDepTree.Builder();
+        treeBuilder.descriptorFilePath(packageId, descriptorFilePath);
+
+        // Resolve the direct dependencies, and then visit the lock entries breadth-first
+        Deque<Map.Entry<String, YarnLock.Entry>> visits = new ArrayDeque<>();
+        for (String field : ROOT_DEPENDENCIES_FIELDS) {
+            JsonNode dependencies = packageJson.path(field);
+            dependencies.fieldNames().forEachRemaining(name ->
+                    addDependency(yarnLock, treeBuilder, visits, packageId, name, dependencies.get(name).asText()));
+        }
+        Set<YarnLock.Entry> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        while (!visits.isEmpty()) {
+            Map.Entry<String, YarnLock.Entry> visit = visits.poll();
+            if (!visited.add(visit.getValue())) {
+                continue;
+            }
+            visit.getValue().dependencies().forEach((name, range) ->
+                    addDependency(yarnLock, treeBuilder, visits, visit.getKey(), name, range));
+        }
+        return treeBuilder.build(packageId);
+    }
+
+    private static void addDependency(YarnLock yarnLock, CompactDepTree.Builder treeBuilder,
+                                      Deque<Map.Entry<String, YarnLock.Entry>> visits, String parentId, String name, String range) {
+        YarnLock.Entry entry = yarnLock.resolve(name, range);
+        if (entry == null) {
+            // An optional dependency that isn't installed on this platform, or an outdated lock file
+            return;
+        }
+        String componentId = createComponentId(entry.name(), entry.version());
+        treeBuilder.addChild(parentId, componentId);
+        // As in 'yarn list', the scope of a component is its npm scope
+        String customScope = StringUtils.substringBetween(componentId, "@", "/");
+        if (customScope != null) {
+            treeBuilder.addScope(componentId, customScope);
+        }
+        visits.add(Map.entry(componentId, entry));
+    }
+}
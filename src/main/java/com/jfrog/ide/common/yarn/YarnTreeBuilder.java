@@ -5,32 +5,61 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jfrog.ide.common.deptree.DepTree;
 import com.jfrog.ide.common.deptree.DepTreeNode;
 import com.jfrog.ide.common.nodes.subentities.ImpactTree;
+import com.jfrog.ide.common.utils.BlockingTaskExecutor;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.jfrog.build.extractor.WslUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.jfrog.build.api.util.Log;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.jfrog.ide.common.utils.Utils.createComponentId;
 
 /**
  * Build yarn dependency tree before the Xray scan.
+ * If the project has a yarn.lock file and no workspaces, the tree and the impact paths are read from it by
+ * {@link YarnLockTreeBuilder}. Otherwise, 'yarn list' and 'yarn why' are used.
  *
  * @author tala
  */
 @SuppressWarnings({"unused"})
 public class YarnTreeBuilder {
     private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int YARN_WHY_CONCURRENCY = 4;
     private final YarnDriver yarnDriver;
+    private final YarnLockTreeBuilder yarnLockTreeBuilder;
     private final Path projectDir;
     private final String descriptorFilePath;
+    private ImpactPathsCache impactPathsCache;
+
+    private record ImpactPathsKey(String projectRootId, String packageFullName) {
+    }
+
+    /**
+     * The impact paths of the packages, for one state of yarn.lock and package.json.
+     *
+     * @param hash  the hash of yarn.lock and package.json.
+     * @param paths the impact paths of the packages, empty for packages that aren't in the project.
+     */
+    private record ImpactPathsCache(String hash, Map<ImpactPathsKey, Optional<List<List<String>>>> paths) {
+    }
 
     public YarnTreeBuilder(Path projectDir, String descriptorFilePath, Map<String, String> env, Log log) {
+        this(projectDir, descriptorFilePath, new YarnDriver(env, log, WslUtils.isWslPath(projectDir)));
+    }
+
+    YarnTreeBuilder(Path projectDir, String descriptorFilePath, YarnDriver yarnDriver) {
         this.projectDir = projectDir;
         this.descriptorFilePath = descriptorFilePath;
-        this.yarnDriver = new YarnDriver(env, log, WslUtils.isWslPath(projectDir));
+        this.yarnDriver = yarnDriver;
+        this.yarnLockTreeBuilder = new YarnLockTreeBuilder(projectDir, descriptorFilePath);
     }
 
     /**
@@ -40,6 +69,10 @@ public class YarnTreeBuilder {
      * @throws IOException in case of I/O error.
      */
     public DepTree buildTree() throws IOException {
+        DepTree yarnLockTree = yarnLockTreeBuilder.buildTree();
+        if (yarnLockTree != null) {
+            return yarnLockTree;
+        }
         if (!yarnDriver.isYarnInstalled(projectDir.toFile())) {
             throw new IOException("Could not scan Yarn project dependencies, because Yarn is not in the PATH. [WSL=" + this.yarnDriver.runsThroughWsl() + "]");
         }
@@ -179,6 +212,10 @@ public class YarnTreeBuilder {
      * @throws IOException in case of I/O error returned from the running "yarn why" command in the yarnDriver.
      */
     public Map<String, List<List<String>>> findDependencyImpactPaths(String projectRootId, String packageName, Set<String> packageVersions) throws IOException {
+        Map<String, List<List<String>>> yarnLockImpactPaths = yarnLockTreeBuilder.findDependencyImpactPaths(projectRootId, packageName, packageVersions);
+        if (yarnLockImpactPaths != null) {
+            return yarnLockImpactPaths;
+        }
         JsonNode[] yarnWhyItem = yarnDriver.why(projectDir.toFile(), packageName);
 
         // Parse "yarn why" results and generate the dependency paths
@@ -214,6 +251,107 @@ public class YarnTreeBuilder {
         return packageImpactPaths;
     }
 
+    /**
+     * Finds the dependency paths of many packages at once.
+     * If the project has a yarn.lock file and no workspaces, the paths are read from it. Otherwise, "yarn why" runs for
+     * the packages concurrently, with up to {@value #YARN_WHY_CONCURRENCY} commands at the same time.
+     * The results are cached by the hash of yarn.lock and package.json, so repeated queries don't run "yarn why" or
+     * walk the dependency graph again until one of the files changes. Projects without yarn.lock aren't cached.
+     * Concurrent calls don't wait for each other, so a package that is queried by several calls at once may be
+     * resolved more than once.
+     *
+     * @param projectRootId    - The name of the project to display in the root of the impact tree.
+     * @param packagesVersions - The versions of the packages by the package names (without versions).
+     * @return A map of package full name (<NAME>:<VERSION>) to a list of dependency paths.
+     * @throws IOException in case of I/O error returned from the running "yarn why" commands.
+     */
+    public Map<String, List<List<String>>> findDependenciesImpactPaths(String projectRootId, Map<String, Set<String>> packagesVersions) throws IOException {
+        String hash = getImpactPathsCacheHash();
+        Map<ImpactPathsKey, Optional<List<List<String>>>> cache = getImpactPathsCache(hash);
+
+        // Collect the cached results, and the packages that should be resolved
+        Map<String, List<List<String>>> packagesImpactPaths = new HashMap<>();
+        Map<String, Set<String>> uncachedPackages = new LinkedHashMap<>();
+        packagesVersions.forEach((packageName, packageVersions) -> {
+            for (String packageVersion : packageVersions) {
+                String packageFullName = createComponentId(packageName, packageVersion);
+                Optional<List<List<String>>> cached = cache.get(new ImpactPathsKey(projectRootId, packageFullName));
+                if (cached == null) {
+                    uncachedPackages.computeIfAbsent(packageName, key -> new HashSet<>()).add(packageVersion);
+                } else {
+                    cached.ifPresent(paths -> packagesImpactPaths.put(packageFullName, paths));
+                }
+            }
+        });
+        if (uncachedPackages.isEmpty()) {
+            return packagesImpactPaths;
+        }
+
+        List<Map<String, List<List<String>>>> results = new ArrayList<>();
+        if (yarnLockTreeBuilder.isSupported()) {
+            for (Map.Entry<String, Set<String>> uncachedPackage : uncachedPackages.entrySet()) {
+                results.add(findDependencyImpactPaths(projectRootId, uncachedPackage.getKey(), uncachedPackage.getValue()));
+            }
+        } else {
+            List<BlockingTaskExecutor.BlockingTask<Map<String, List<List<String>>>>> tasks = new ArrayList<>();
+            uncachedPackages.forEach((packageName, packageVersions) ->
+                    tasks.add(() -> findDependencyImpactPaths(projectRootId, packageName, packageVersions)));
+            try (BlockingTaskExecutor executor = new BlockingTaskExecutor("yarn-why", YARN_WHY_CONCURRENCY)) {
+                results = executor.invokeAll(tasks);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("yarn why was interrupted", e);
+            }
+        }
+
+        Iterator<Map<String, List<List<String>>>> resultsIterator = results.iterator();
+        uncachedPackages.forEach((packageName, packageVersions) -> {
+            Map<String, List<List<String>>> packageImpactPaths = resultsIterator.next();
+            packagesImpactPaths.putAll(packageImpactPaths);
+            if (hash == null) {
+                return;
+            }
+            for (String packageVersion : packageVersions) {
+                String packageFullName = createComponentId(packageName, packageVersion);
+                cache.put(new ImpactPathsKey(projectRootId, packageFullName), Optional.ofNullable(packageImpactPaths.get(packageFullName)));
+            }
+        });
+        return packagesImpactPaths;
+    }
+
+    /**
+     * Get the cached impact paths for the current state of the project files. The cache is replaced when the files
+     * change, so results of queries that started before the change are stored in the old cache and discarded.
+     *
+     * @param hash the hash of yarn.lock and package.json, or null if the project isn't cached.
+     * @return the cache.
+     */
+    private synchronized Map<ImpactPathsKey, Optional<List<List<String>>>> getImpactPathsCache(String hash) {
+        if (impactPathsCache == null || !Objects.equals(hash, impactPathsCache.hash())) {
+            impactPathsCache = new ImpactPathsCache(hash, new ConcurrentHashMap<>());
+        }
+        return impactPathsCache.paths();
+    }
+
+    /**
+     * @return the SHA-256 of yarn.lock and package.json, or null if the project doesn't have a yarn.lock file.
+     */
+    private String getImpactPathsCacheHash() throws IOException {
+        Path yarnLock = projectDir.resolve("yarn.lock");
+        if (!Files.isRegularFile(yarnLock)) {
+            return null;
+        }
+        MessageDigest digest = DigestUtils.getSha256Digest();
+        for (Path file : List.of(yarnLock, projectDir.resolve("package.json"))) {
+            if (Files.isRegularFile(file)) {
+                try (InputStream inputStream = Files.newInputStream(file)) {
+                    DigestUtils.updateDigest(digest, inputStream);
+                }
+            }
+        }
+        return Hex.encodeHexString(digest.digest());
+    }
+
     /**
      * Convert Yarn's package name (e.g. @scope/comp@1.0.0) to Xray's component ID (e.g. @scope/comp:1.0.0).
      *
@@ -236,6 +374,17 @@ public class YarnTreeBuilder {
         if (packageJson == null) {
             throw new IOException("Could not scan Yarn project dependencies, because the package.json file is missing.");
         }
+        return getPackageId(packageJson, projectDir);
+    }
+
+    /**
+     * Get the root package ID from the project's package.json.
+     *
+     * @param packageJson - The content of package.json.
+     * @param projectDir  - The project directory.
+     * @return root package name.
+     */
+    static String getPackageId(JsonNode packageJson, Path projectDir) {
         String packageName;
         JsonNode nameNode = packageJson.get("name");
         if (nameNode != null) {
@@ -0,0 +1,72 @@
+package com.jfrog.ide.common.ci;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+
+public class BuildDetailsRequestsTest {
+
+    @Test
+    public void testDownloadOnce() throws Exception {
+        BuildDetailsRequests buildDetailsRequests = new BuildDetailsRequests("https://xray.jfrog.io", null);
+        AtomicInteger downloads = new AtomicInteger();
+        CountDownLatch downloadStarted = new CountDownLatch(1);
+        CountDownLatch releaseDownload = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = executor.submit(() -> {
+                buildDetailsRequests.downloadOnce("build", "1", () -> {
+                    downloads.incrementAndGet();
+                    downloadStarted.countDown();
+                    await(releaseDownload);
+                });
+                return null;
+            });
+            downloadStarted.await();
+
+            // A concurrent download of the same build should wait for the running download
+            CompletableFuture<Thread> secondThread = new CompletableFuture<>();
+            Future<?> second = executor.submit(() -> {
+                secondThread.complete(Thread.currentThread());
+                buildDetailsRequests.downloadOnce("build", "1", downloads::incrementAndGet);
+                return null;
+            });
+            // A download of another build should run
+            buildDetailsRequests.downloadOnce("build", "2", downloads::incrementAndGet);
+            assertEquals(downloads.get(), 2);
+
+            while (secondThread.get().getState() != Thread.State.WAITING) {
+                Thread.sleep(1);
+            }
+            releaseDownload.countDown();
+            first.get();
+            second.get();
+            assertEquals(downloads.get(), 2);
+
+            // The build is downloaded again after the running download is done
+            buildDetailsRequests.downloadOnce("build", "1", downloads::incrementAndGet);
+            assertEquals(downloads.get(), 3);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testDownloadFailure() throws IOException {
+        new BuildDetailsRequests("https://xray.jfrog.io", null).downloadOnce("build", "1", () -> {
+            throw new IOException("Download failed");
+        });
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static com.jfrog.ide.common.utils.Utils.createMapper;
+import static org.jfrog.build.client.PreemptiveHttpClientBuilder.CONNECTION_POOL_SIZE;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
 
@@ -33,6 +34,7 @@ public class CiManagerBaseTest {
     private static final String BUILD_TIMESTAMP = "2021-03-17T17:08:38.989+0200";
 
     ObjectMapper mapper = createMapper();
+    private CiManagerBase ciManagerBase;
     private Path cachePath;
 
     @BeforeMethod
@@ -41,7 +43,12 @@ public class CiManagerBaseTest {
     }
 
     @AfterMethod
-    public void tearDown() throws IOException {
+    public void tearDown() throws IOException, InterruptedException {
+        if (ciManagerBase != null) {
+            // The cache index is written in the background after saving builds
+            ciManagerBase.buildsCache.awaitMaintenance();
+            ciManagerBase = null;
+        }
         FileUtils.deleteDirectory(cachePath.toFile());
     }
 
@@ -53,7 +60,7 @@ public class CiManagerBaseTest {
     @Test(dataProvider = "builds")
     public void testLoadBuildTree(String buildName, String buildNumber) throws IOException, ParseException {
         // Create CI Manager Base
-        CiManagerBase ciManagerBase = new CiManagerBase(cachePath, "test", new NullLog(), null);
+        ciManagerBase = new CiManagerBase(cachePath, "test", new NullLog(), null);
         cacheDummyBuild(ciManagerBase, buildName, buildNumber);
 
         // Load build tree
@@ -67,6 +74,14 @@ public class CiManagerBaseTest {
         assertEquals(generalInfo.getComponentId(), buildName + ":" + buildNumber);
     }
 
+    @Test
+    public void testGetWorkersCount() {
+        assertEquals(CiManagerBase.getWorkersCount(4, 100), 4);
+        assertEquals(CiManagerBase.getWorkersCount(4, 2), 2);
+        assertEquals(CiManagerBase.getWorkersCount(0, 100), 1);
+        assertEquals(CiManagerBase.getWorkersCount(1000, 1000), CONNECTION_POOL_SIZE);
+    }
+
     private void cacheDummyBuild(CiManagerBase ciManagerBase, String buildName, String buildNumber) throws IOException {
         Build build = new BuildInfoBuilder(buildName).number(buildNumber).started(BUILD_TIMESTAMP).build();
         ciManagerBase.buildsCache.save(mapper.writeValueAsBytes(build), buildName, buildNumber, BuildsScanCache.Type.BUILD_INFO);
@@ -0,0 +1,94 @@
+package com.jfrog.ide.common.configuration;
+
+import org.apache.commons.io.FileUtils;
+import org.jfrog.build.extractor.executor.CommandResults;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+
+public class CliCommandCacheTest {
+    private final AtomicInteger runs = new AtomicInteger();
+    private Path tempDir;
+    private Path executable;
+    private Path cliHomeDir;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("ide-plugins-common-test-cli-cache");
+        executable = Files.writeString(tempDir.resolve("jf"), "executable");
+        cliHomeDir = Files.createDirectories(tempDir.resolve(".jfrog"));
+        runs.set(0);
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        CliCommandCache.invalidate(executable);
+        FileUtils.forceDelete(tempDir.toFile());
+    }
+
+    @Test
+    public void testCachedResults() throws IOException, InterruptedException {
+        assertEquals(getVersion(), "jf version 1");
+        assertEquals(getVersion(), "jf version 1");
+        assertEquals(runs.get(), 1);
+
+        // Other arguments are cached separately
+        CliCommandCache.get(executable, cliHomeDir, List.of("config", "export"), this::runCommand);
+        assertEquals(runs.get(), 2);
+
+        // Modifying the executable invalidates the results
+        Files.setLastModifiedTime(executable, FileTime.fromMillis(Files.getLastModifiedTime(executable).toMillis() + 1000));
+        assertEquals(getVersion(), "jf version 3");
+        assertEquals(getVersion(), "jf version 3");
+
+        // Adding and modifying CLI configuration files invalidates the results
+        Path configFile = Files.writeString(cliHomeDir.resolve("jfrog-cli.conf.v6"), "{}");
+        assertEquals(getVersion(), "jf version 4");
+        Files.writeString(configFile, "{\"servers\": []}");
+        assertEquals(getVersion(), "jf version 5");
+
+        // Other files in the CLI home directory don't invalidate the results
+        Files.writeString(cliHomeDir.resolve("other.json"), "{}");
+        assertEquals(getVersion(), "jf version 5");
+
+        CliCommandCache.invalidate(executable);
+        assertEquals(getVersion(), "jf version 6");
+    }
+
+    @Test
+    public void testNotCachedResults() throws IOException, InterruptedException {
+        // Failed commands are not cached
+        CommandResults failure = new CommandResults();
+        failure.setExitValue(1);
+        CliCommandCache.get(executable, cliHomeDir, List.of("--version"), () -> {
+            runs.incrementAndGet();
+            return failure;
+        });
+        assertEquals(getVersion(), "jf version 2");
+
+        // Commands of an unknown executable are not cached
+        CliCommandCache.get(null, cliHomeDir, List.of("--version"), this::runCommand);
+        CliCommandCache.get(tempDir.resolve("missing"), cliHomeDir, List.of("--version"), this::runCommand);
+        assertEquals(runs.get(), 4);
+    }
+
+    private String getVersion() throws IOException, InterruptedException {
+        return CliCommandCache.get(executable, cliHomeDir, List.of("--version"), this::runCommand).getRes();
+    }
+
+    private CommandResults runCommand() {
+        CommandResults results = new CommandResults();
+        results.setRes("jf version " + runs.incrementAndGet());
+        results.setExitValue(0);
+        return results;
+    }
+}
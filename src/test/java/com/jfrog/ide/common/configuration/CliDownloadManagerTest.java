@@ -0,0 +1,174 @@
+package com.jfrog.ide.common.configuration;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.jfrog.build.api.util.NullLog;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+public class CliDownloadManagerTest {
+    private static final String VERSION = "2.99.0";
+    private static final String OS_AND_ARC = "linux-amd64";
+    private static final String EXECUTABLE = "jf";
+    private final byte[] content = new byte[300_000];
+    private final List<String> ranges = new CopyOnWriteArrayList<>();
+    private final AtomicInteger interruptedResponses = new AtomicInteger();
+    private volatile String checksum;
+    // Which requests get the checksum header
+    private volatile boolean checksumOnGet;
+    private volatile boolean checksumOnHead;
+    private HttpServer server;
+    private Path cacheDir;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        new Random(17).nextBytes(content);
+        checksum = DigestUtils.sha256Hex(content);
+        checksumOnGet = true;
+        checksumOnHead = true;
+        ranges.clear();
+        interruptedResponses.set(0);
+        cacheDir = Files.createTempDirectory("ide-plugins-common-test-cli-download");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/jfrog-cli/v2-jf/" + VERSION + "/jfrog-cli-" + OS_AND_ARC + "/" + EXECUTABLE, this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        server.stop(0);
+        FileUtils.forceDelete(cacheDir.toFile());
+    }
+
+    @Test
+    public void testDownloadAndCache() throws IOException {
+        Path executable = createDownloadManager().getExecutable(VERSION, OS_AND_ARC, EXECUTABLE);
+        assertEquals(Files.readAllBytes(executable), content);
+        assertTrue(Files.isExecutable(executable));
+        assertEquals(ranges.size(), 1);
+
+        // The second call uses the cached executable
+        assertEquals(createDownloadManager().getExecutable(VERSION, OS_AND_ARC, EXECUTABLE), executable);
+        assertEquals(ranges.size(), 1);
+
+        // A corrupted cached executable is downloaded again
+        Files.write(executable, new byte[]{1, 2, 3});
+        createDownloadManager().getExecutable(VERSION, OS_AND_ARC, EXECUTABLE);
+        assertEquals(Files.readAllBytes(executable), content);
+        assertEquals(ranges.size(), 2);
+    }
+
+    @Test
+    public void testResumeDownload() throws IOException {
+        interruptedResponses.set(1);
+        Path executable = createDownloadManager().getExecutable(VERSION, OS_AND_ARC, EXECUTABLE);
+        assertEquals(Files.readAllBytes(executable), content);
+        assertEquals(ranges.size(), 2);
+        assertNull(ranges.get(0));
+        assertEquals(ranges.get(1), "bytes=" + content.length / 2 + "-");
+    }
+
+    @Test
+    public void testChecksumMismatch() throws IOException {
+        checksum = DigestUtils.sha256Hex("other content");
+        assertThrows(IOException.class, () -> createDownloadManager().getExecutable(VERSION, OS_AND_ARC, EXECUTABLE));
+        try (var files = Files.walk(cacheDir)) {
+            assertTrue(files.noneMatch(file -> file.getFileName().toString().startsWith(EXECUTABLE)));
+        }
+    }
+
+    @Test
+    public void testChecksumFromHeadRequest() throws IOException {
+        checksumOnGet = false;
+        Path executable = createDownloadManager().getExecutable(VERSION, OS_AND_ARC, EXECUTABLE);
+        assertEquals(Files.readAllBytes(executable), content);
+        assertEquals(Files.readString(executable.resolveSibling(EXECUTABLE + ".sha256")), checksum);
+    }
+
+    @Test
+    public void testMissingChecksum() throws IOException {
+        checksumOnGet = false;
+        checksumOnHead = false;
+        assertThrows(IOException.class, () -> createDownloadManager().getExecutable(VERSION, OS_AND_ARC, EXECUTABLE));
+        try (var files = Files.walk(cacheDir)) {
+            assertTrue(files.noneMatch(file -> file.getFileName().toString().startsWith(EXECUTABLE)));
+        }
+    }
+
+    @Test
+    public void testConcurrentDownloads() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Path>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> createDownloadManager().getExecutable(VERSION, OS_AND_ARC, EXECUTABLE)));
+            }
+            for (Future<Path> future : futures) {
+                assertEquals(Files.readAllBytes(future.get()), content);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(ranges.size(), 1);
+    }
+
+    private CliDownloadManager createDownloadManager() {
+        return new CliDownloadManager("http://127.0.0.1:" + server.getAddress().getPort() + "/", cacheDir, new NullLog());
+    }
+
+    /**
+     * Serve the content, supporting range requests and HEAD requests. Interrupted responses send only half of the
+     * content.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            if (checksumOnHead) {
+                exchange.getResponseHeaders().add(CliDownloadManager.CHECKSUM_HEADER, checksum);
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        ranges.add(range);
+        int start = range == null ? 0 : Integer.parseInt(range.replaceAll("bytes=(\\d+)-", "$1"));
+        if (checksumOnGet) {
+            exchange.getResponseHeaders().add(CliDownloadManager.CHECKSUM_HEADER, checksum);
+        }
+        if (range != null) {
+            exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + (content.length - 1) + "/" + content.length);
+        }
+        exchange.sendResponseHeaders(range == null ? 200 : 206, content.length - start);
+        OutputStream out = exchange.getResponseBody();
+        if (interruptedResponses.getAndDecrement() > 0) {
+            out.write(content, start, (content.length - start) / 2);
+            out.flush();
+            try {
+                // Closing the response before all bytes are written closes the connection
+                out.close();
+            } catch (IOException e) {
+                // Expected: insufficient bytes written to stream
+            }
+            return;
+        }
+        out.write(content, start, content.length - start);
+        out.close();
+    }
+}
@@ -0,0 +1,64 @@
+package com.jfrog.ide.common.configuration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.jfrog.ide.common.nodes.FileTreeNode;
+import com.jfrog.ide.common.parse.SarifParser;
+import org.jfrog.build.api.util.NullLog;
+import org.testng.annotations.Test;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+
+public class ShardedAuditResultsTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void testSplitToShards() {
+        List<String> directories = List.of("a", "b", "c", "d", "e");
+        assertEquals(JfrogCliDriver.splitToShards(directories, 2), List.of(List.of("a", "c", "e"), List.of("b", "d")));
+        assertEquals(JfrogCliDriver.splitToShards(directories, 1), List.of(directories));
+        assertEquals(JfrogCliDriver.splitToShards(directories, 10).size(), 5);
+        assertEquals(JfrogCliDriver.splitToShards(null, 4), List.of(List.of()));
+    }
+
+    @Test
+    public void testMergeShardsResults() throws IOException {
+        String resourcesDir = "src/test/resources/parse/";
+        JsonNode scaReport = mapper.readTree(new FileInputStream(resourcesDir + "sca_no_jas.json"));
+        JsonNode sastReport = mapper.readTree(new FileInputStream(resourcesDir + "code_flows_in_sast.json"));
+        SarifParser parser = new SarifParser(new NullLog());
+        List<FileTreeNode> scaResults;
+        try (FileInputStream input = new FileInputStream(resourcesDir + "sca_no_jas.json")) {
+            scaResults = parser.parse(input);
+        }
+        List<FileTreeNode> sastResults;
+        try (FileInputStream input = new FileInputStream(resourcesDir + "code_flows_in_sast.json")) {
+            sastResults = parser.parse(input);
+        }
+        List<FileTreeNode> merged = JfrogCliDriver.mergeShardsResults(Arrays.asList(scaResults, null, sastResults));
+
+        // The merged results are the results of a single report with the runs of both reports
+        ObjectNode mergedReport = ((ObjectNode) scaReport).deepCopy();
+        ArrayNode runs = mergedReport.putArray("runs");
+        runs.addAll((ArrayNode) scaReport.get("runs"));
+        runs.addAll((ArrayNode) sastReport.get("runs"));
+        assertEquals(merged, parser.parse(mergedReport.toString()));
+        assertEquals(merged.size(), scaResults.size() + sastResults.size());
+    }
+
+    @Test
+    public void testFailedDirectories() {
+        ShardedAuditResults results = new ShardedAuditResults(new ArrayList<>(), List.of(
+                new ShardedAuditResults.ShardFailure(List.of("a", "c"), new IOException("Shard failed")),
+                new ShardedAuditResults.ShardFailure(List.of("d"), new IOException("Shard failed"))));
+        assertEquals(results.getFailedDirectories(), List.of("a", "c", "d"));
+    }
+}
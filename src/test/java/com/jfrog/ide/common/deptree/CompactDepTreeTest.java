@@ -0,0 +1,170 @@
+package com.jfrog.ide.common.deptree;
+
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+import static org.testng.Assert.*;
+
+public class CompactDepTreeTest {
+
+    @Test
+    public void testBuilder() {
+        CompactDepTree tree = new CompactDepTree.Builder()
+                .addChild("root:1.0.0", "b:1.0.0")
+                .addChild("root:1.0.0", "a:1.0.0")
+                .addChild("root:1.0.0", "b:1.0.0")
+                .addChild("a:1.0.0", "c:2.0.0")
+                .addScope("root:1.0.0", "prod")
+                .addScope("a:1.0.0", "prod")
+                .addScope("a:1.0.0", "dev")
+                .addScope("a:1.0.0", "prod")
+                .descriptorFilePath("root:1.0.0", "/project/package.json")
+                .build("root:1.0.0");
+
+        assertEquals(tree.size(), 4);
+        assertEquals(tree.getRootId(), "root:1.0.0");
+        assertEquals(tree.indexOf("missing:1.0.0"), -1);
+        int root = tree.getRootIndex();
+        int a = tree.indexOf("a:1.0.0");
+        int b = tree.indexOf("b:1.0.0");
+        int c = tree.indexOf("c:2.0.0");
+
+        // Duplicate edges are removed, and the children are sorted by their indexes
+        assertEquals(tree.getChildren(root), new int[]{b, a});
+        assertEquals(tree.getChildCount(a), 1);
+        assertEquals(tree.getChild(a, 0), c);
+        assertTrue(tree.hasChild(a, c));
+        assertFalse(tree.hasChild(c, a));
+        assertEquals(tree.getChildCount(c), 0);
+
+        assertEquals(tree.getScopes(a), Set.of("prod", "dev"));
+        assertTrue(tree.hasScope(root, "prod"));
+        assertFalse(tree.hasScope(root, "dev"));
+        assertFalse(tree.hasScope(root, "test"));
+        assertTrue(tree.getScopes(c).isEmpty());
+        assertEquals(tree.getDescriptorFilePath(root), "/project/package.json");
+        assertNull(tree.getDescriptorFilePath(a));
+    }
+
+    @Test
+    public void testDepTreeAdapter() {
+        DepTree depTree = createDepTree(2000, 70);
+        DepTree compactDepTree = CompactDepTree.of(depTree).asDepTree();
+
+        assertEquals(compactDepTree.rootId(), depTree.rootId());
+        assertEquals(compactDepTree.nodes().size(), depTree.nodes().size());
+        assertEquals(compactDepTree.nodes().keySet(), depTree.nodes().keySet());
+        for (Map.Entry<String, DepTreeNode> entry : depTree.nodes().entrySet()) {
+            DepTreeNode expected = entry.getValue();
+            DepTreeNode actual = compactDepTree.nodes().get(entry.getKey());
+            assertEquals(actual.getChildren(), expected.getChildren(), entry.getKey());
+            assertEquals(actual.getScopes(), expected.getScopes(), entry.getKey());
+            assertEquals(actual.getDescriptorFilePath(), expected.getDescriptorFilePath());
+            for (String child : expected.getChildren()) {
+                assertTrue(actual.getChildren().contains(child));
+            }
+        }
+        assertNull(compactDepTree.nodes().get("missing:1.0.0"));
+        assertFalse(compactDepTree.nodes().containsKey("missing:1.0.0"));
+        assertFalse(compactDepTree.getRootNode().getChildren().contains(depTree.rootId()));
+
+        // Each node has a single view
+        assertSame(compactDepTree.getRootNode(), compactDepTree.getRootNode());
+        assertSame(compactDepTree.nodes().entrySet().iterator().next().getValue(), compactDepTree.nodes().get(depTree.rootId()));
+    }
+
+    @Test
+    public void testModifyDepTreeAdapter() {
+        DepTree depTree = createDepTree(100, 5);
+        CompactDepTree compactTree = CompactDepTree.of(depTree);
+        DepTree compactDepTree = compactTree.asDepTree();
+        DepTreeNode rootNode = compactDepTree.getRootNode();
+        String firstChild = rootNode.getChildren().iterator().next();
+
+        rootNode.descriptorFilePath("/other/package.json");
+        rootNode.getChildren().add("added:1.0.0");
+        rootNode.getChildren().remove(firstChild);
+        rootNode.getScopes().add("added-scope");
+        compactDepTree.nodes().put("added:1.0.0", new DepTreeNode());
+        compactDepTree.nodes().get(firstChild).children(new HashSet<>(Set.of("added:1.0.0")));
+
+        // The modifications are visible in the view, and the nodes keep their identity
+        assertSame(compactDepTree.getRootNode(), rootNode);
+        assertEquals(compactDepTree.getRootNodeDescriptorFilePath(), "/other/package.json");
+        assertTrue(rootNode.getChildren().contains("added:1.0.0"));
+        assertFalse(rootNode.getChildren().contains(firstChild));
+        assertTrue(rootNode.getScopes().contains("added-scope"));
+        assertEquals(compactDepTree.nodes().size(), depTree.nodes().size() + 1);
+        assertEquals(compactDepTree.nodes().get(firstChild).getChildren(), Set.of("added:1.0.0"));
+
+        // The compact tree and its other views are not modified
+        DepTree otherView = compactTree.asDepTree();
+        assertEquals(otherView.getRootNodeDescriptorFilePath(), "/project/package.json");
+        assertEquals(otherView.getRootNode().getChildren(), depTree.getRootNode().getChildren());
+        assertEquals(otherView.nodes().keySet(), depTree.nodes().keySet());
+        assertEquals(compactTree.getDescriptorFilePath(compactTree.getRootIndex()), "/project/package.json");
+    }
+
+    @Test
+    public void testModifyDepTreeAdapterEntries() {
+        DepTree depTree = createDepTree(100, 5);
+        CompactDepTree compactTree = CompactDepTree.of(depTree);
+        String componentId = depTree.nodes().keySet().iterator().next();
+
+        // Each unmodified view is modified through its entries, its key set and its iterator
+        Map<String, DepTreeNode> nodes = compactTree.asDepTree().nodes();
+        DepTreeNode replacement = new DepTreeNode();
+        for (Map.Entry<String, DepTreeNode> entry : nodes.entrySet()) {
+            if (entry.getKey().equals(componentId)) {
+                assertNotSame(entry.setValue(replacement), replacement);
+            }
+        }
+        assertSame(nodes.get(componentId), replacement);
+        assertEquals(nodes.size(), depTree.nodes().size());
+
+        nodes = compactTree.asDepTree().nodes();
+        assertTrue(nodes.keySet().remove(componentId));
+        assertFalse(nodes.containsKey(componentId));
+        assertEquals(nodes.size(), depTree.nodes().size() - 1);
+
+        nodes = compactTree.asDepTree().nodes();
+        for (Iterator<Map.Entry<String, DepTreeNode>> iterator = nodes.entrySet().iterator(); iterator.hasNext(); ) {
+            if (iterator.next().getKey().equals(componentId)) {
+                iterator.remove();
+                assertThrows(IllegalStateException.class, iterator::remove);
+            }
+        }
+        assertFalse(nodes.containsKey(componentId));
+        assertEquals(nodes.keySet(), Set.copyOf(compactTree.asDepTree().nodes().keySet().stream()
+                .filter(id -> !id.equals(componentId)).toList()));
+    }
+
+    /**
+     * Create a random dependency tree.
+     *
+     * @param nodesCount  the number of nodes.
+     * @param scopesCount the number of scopes. More than 64 scopes require more than one word per node.
+     */
+    private static DepTree createDepTree(int nodesCount, int scopesCount) {
+        Random random = new Random(1);
+        Map<String, DepTreeNode> nodes = new HashMap<>();
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < nodesCount; i++) {
+            String id = "component-" + i + ":1." + random.nextInt(10) + ".0";
+            ids.add(id);
+            Set<String> scopes = new HashSet<>();
+            for (int j = random.nextInt(4); j > 0; j--) {
+                scopes.add("scope-" + random.nextInt(scopesCount));
+            }
+            nodes.put(id, new DepTreeNode().scopes(scopes));
+        }
+        for (int i = 1; i < nodesCount; i++) {
+            // Each node has a parent before it, so all nodes are reachable from the root
+            nodes.get(ids.get(random.nextInt(i))).getChildren().add(ids.get(i));
+            nodes.get(ids.get(random.nextInt(i))).getChildren().add(ids.get(i));
+        }
+        nodes.get(ids.get(0)).descriptorFilePath("/project/package.json");
+        return new DepTree(ids.get(0), nodes);
+    }
+}
@@ -0,0 +1,66 @@
+package com.jfrog.ide.common.deptree;
+
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.Assert.*;
+
+public class DepTreeDiffTest {
+
+    @Test
+    public void testDiff() {
+        DepTree previous = createTree(Map.of(
+                "root:1.0.0", new DepTreeNode().scopes(Set.of("prod")).children(Set.of("a:1.0.0", "b:1.0.0")),
+                "a:1.0.0", new DepTreeNode().scopes(Set.of("prod")).children(Set.of("c:1.0.0")),
+                "b:1.0.0", new DepTreeNode().scopes(Set.of("dev")).children(Set.of("d:1.0.0")),
+                "c:1.0.0", new DepTreeNode().scopes(Set.of("prod")),
+                "d:1.0.0", new DepTreeNode().scopes(Set.of("dev"))));
+        DepTree current = createTree(Map.of(
+                "root:1.0.0", new DepTreeNode().scopes(Set.of("prod")).children(Set.of("a:1.0.0", "b:2.0.0")),
+                "a:1.0.0", new DepTreeNode().scopes(Set.of("prod")).children(Set.of("c:1.0.0", "d:1.0.0")),
+                "b:2.0.0", new DepTreeNode().scopes(Set.of("dev")),
+                "c:1.0.0", new DepTreeNode().scopes(Set.of("prod", "dev")),
+                "d:1.0.0", new DepTreeNode().scopes(Set.of("prod"))));
+
+        DepTreeDiff diff = DepTreeDiff.compute(previous, current);
+        assertFalse(diff.isEmpty());
+        assertEquals(diff.getAddedComponents(), Set.of("b:2.0.0"));
+        assertEquals(diff.getRemovedComponents(), Set.of("b:1.0.0"));
+        assertEquals(diff.getReparentedComponents(), Map.of("d:1.0.0",
+                new DepTreeDiff.ParentsChange(Set.of("b:1.0.0"), Set.of("a:1.0.0"))));
+        assertEquals(diff.getChangedScopes(), Map.of(
+                "c:1.0.0", new DepTreeDiff.ScopesChange(Set.of("prod"), Set.of("prod", "dev")),
+                "d:1.0.0", new DepTreeDiff.ScopesChange(Set.of("dev"), Set.of("prod"))));
+        assertEquals(diff.getChangedComponents(), Set.of("b:2.0.0", "c:1.0.0", "d:1.0.0"));
+    }
+
+    @Test
+    public void testSameTree() {
+        Map<String, DepTreeNode> nodes = new HashMap<>();
+        nodes.put("root:1.0.0", new DepTreeNode().scopes(new HashSet<>(Set.of("prod"))).children(new HashSet<>(Set.of("a:1.0.0"))));
+        nodes.put("a:1.0.0", new DepTreeNode().scopes(new HashSet<>(Set.of("prod"))));
+        DepTree tree = new DepTree("root:1.0.0", nodes);
+
+        // A compact copy of the tree is equal to the tree
+        assertTrue(DepTreeDiff.compute(tree, CompactDepTree.of(tree).asDepTree()).isEmpty());
+    }
+
+    @Test
+    public void testNoPreviousTree() {
+        DepTree current = createTree(Map.of(
+                "root:1.0.0", new DepTreeNode().children(Set.of("a:1.0.0")),
+                "a:1.0.0", new DepTreeNode()));
+        DepTreeDiff diff = DepTreeDiff.compute(null, current);
+        assertEquals(diff.getAddedComponents(), Set.of("root:1.0.0", "a:1.0.0"));
+        assertTrue(diff.getRemovedComponents().isEmpty());
+        assertTrue(diff.getReparentedComponents().isEmpty());
+    }
+
+    private static DepTree createTree(Map<String, DepTreeNode> nodes) {
+        return new DepTree("root:1.0.0", nodes);
+    }
+}
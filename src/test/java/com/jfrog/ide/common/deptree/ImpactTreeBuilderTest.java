@@ -0,0 +1,178 @@
+package com.jfrog.ide.common.deptree;
+
+import com.jfrog.ide.common.nodes.DependencyNode;
+import com.jfrog.ide.common.nodes.subentities.ImpactTree;
+import com.jfrog.ide.common.nodes.subentities.ImpactTreeNode;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+import static org.testng.Assert.*;
+
+public class ImpactTreeBuilderTest {
+
+    /**
+     * root -> a, b, d
+     * a -> c
+     * b -> c
+     * c -> d, a (a cycle)
+     * e -> d (e is unreachable from the root)
+     */
+    private static DepTree createTree() {
+        Map<String, DepTreeNode> nodes = new LinkedHashMap<>();
+        nodes.put("root:1.0.0", new DepTreeNode().children(new LinkedHashSet<>(List.of("a:1.0.0", "b:1.0.0", "d:1.0.0"))));
+        nodes.put("a:1.0.0", new DepTreeNode().children(Set.of("c:1.0.0")));
+        nodes.put("b:1.0.0", new DepTreeNode().children(Set.of("c:1.0.0")));
+        nodes.put("c:1.0.0", new DepTreeNode().children(new LinkedHashSet<>(List.of("d:1.0.0", "a:1.0.0"))));
+        nodes.put("d:1.0.0", new DepTreeNode());
+        nodes.put("e:1.0.0", new DepTreeNode().children(Set.of("d:1.0.0")));
+        return new DepTree("root:1.0.0", nodes);
+    }
+
+    @Test
+    public void testGetParents() {
+        ParentsIndex index = new ParentsIndex(createTree());
+        assertEquals(index.getParents("d:1.0.0"), Set.of("root:1.0.0", "c:1.0.0", "e:1.0.0"));
+        assertEquals(index.getParents("a:1.0.0"), Set.of("root:1.0.0", "c:1.0.0"));
+        assertTrue(index.getParents("root:1.0.0").isEmpty());
+        assertTrue(index.getParents("missing:1.0.0").isEmpty());
+    }
+
+    @Test
+    public void testFindImpactPaths() {
+        Map<String, List<List<String>>> impactPaths = ImpactTreeBuilder.findImpactPaths(createTree(),
+                List.of("d:1.0.0", "c:1.0.0", "e:1.0.0", "root:1.0.0", "missing:1.0.0"));
+
+        // The unreachable component, the root and the missing component are skipped
+        assertEquals(impactPaths.keySet(), Set.of("d:1.0.0", "c:1.0.0"));
+        assertEquals(impactPaths.get("c:1.0.0"), List.of(
+                List.of("root:1.0.0", "a:1.0.0", "c:1.0.0"),
+                List.of("root:1.0.0", "b:1.0.0", "c:1.0.0")));
+
+        // Shortest first, and the paths through the cycle don't visit a node twice
+        List<List<String>> paths = impactPaths.get("d:1.0.0");
+        assertEquals(paths.get(0), List.of("root:1.0.0", "d:1.0.0"));
+        assertEquals(new HashSet<>(paths), Set.of(
+                List.of("root:1.0.0", "d:1.0.0"),
+                List.of("root:1.0.0", "a:1.0.0", "c:1.0.0", "d:1.0.0"),
+                List.of("root:1.0.0", "b:1.0.0", "c:1.0.0", "d:1.0.0")));
+    }
+
+    /**
+     * root -> direct, middle0 ... middle39
+     * direct -> middle0
+     * middle0 ... middle39 -> leaf
+     */
+    private static DepTree createWideTree() {
+        Map<String, DepTreeNode> nodes = new HashMap<>();
+        Set<String> rootChildren = new HashSet<>();
+        for (int i = 0; i < ImpactTree.IMPACT_PATHS_LIMIT * 2; i++) {
+            String middle = "middle" + i + ":1.0.0";
+            rootChildren.add(middle);
+            nodes.put(middle, new DepTreeNode().children(Set.of("leaf:1.0.0")));
+        }
+        rootChildren.add("direct:1.0.0");
+        nodes.put("direct:1.0.0", new DepTreeNode().children(Set.of("middle0:1.0.0")));
+        nodes.put("root:1.0.0", new DepTreeNode().children(rootChildren));
+        nodes.put("leaf:1.0.0", new DepTreeNode());
+        return new DepTree("root:1.0.0", nodes);
+    }
+
+    @Test
+    public void testImpactPathsLimit() {
+        List<List<String>> paths = ImpactTreeBuilder.findImpactPaths(createWideTree(), List.of("leaf:1.0.0")).get("leaf:1.0.0");
+        assertEquals(paths.size(), ImpactTree.IMPACT_PATHS_LIMIT);
+        // The longer path through the direct dependency isn't reached
+        paths.forEach(path -> assertEquals(path.size(), 3));
+    }
+
+    @Test
+    public void testImpactPathsCount() {
+        // All the paths are counted, while the impact tree holds only the limit
+        DependencyNode leaf = new DependencyNode().componentId("npm://leaf:1.0.0");
+        ImpactTreeBuilder.populateImpactTrees(createWideTree(), Map.of("leaf:1.0.0", leaf));
+        assertEquals(leaf.getImpactTree().getImpactPathsCount(), ImpactTree.IMPACT_PATHS_LIMIT * 2 + 1);
+        assertEquals(leaf.getImpactTree().getRoot().getChildren().size(), ImpactTree.IMPACT_PATHS_LIMIT);
+
+        // The search reaches c from a, so the edge c -> a closes a cycle, and the path root -> b -> c -> a isn't counted
+        ParentsIndex index = new ParentsIndex(createTree());
+        int[] pathsCounts = ImpactTreeBuilder.countPaths(index);
+        assertEquals(pathsCounts[index.indexOf("root:1.0.0")], 1);
+        assertEquals(pathsCounts[index.indexOf("a:1.0.0")], 1);
+        assertEquals(pathsCounts[index.indexOf("c:1.0.0")], 2);
+        assertEquals(pathsCounts[index.indexOf("d:1.0.0")], 3);
+        assertEquals(pathsCounts[index.indexOf("e:1.0.0")], 0);
+    }
+
+    @Test
+    public void testImpactPathsCountIsStable() {
+        // The edges of the tree of createTree, where the cycle a -> c -> a is closed by different edges depending on
+        // which of a and c the search reaches first
+        List<String[]> edges = List.of(new String[]{"root:1.0.0", "a:1.0.0"}, new String[]{"root:1.0.0", "b:1.0.0"},
+                new String[]{"root:1.0.0", "d:1.0.0"}, new String[]{"a:1.0.0", "c:1.0.0"}, new String[]{"b:1.0.0", "c:1.0.0"},
+                new String[]{"c:1.0.0", "d:1.0.0"}, new String[]{"c:1.0.0", "a:1.0.0"}, new String[]{"e:1.0.0", "d:1.0.0"});
+        Random random = new Random(1);
+        for (int i = 0; i < 20; i++) {
+            // Insert the nodes and their children in a different order each time
+            List<String[]> shuffledEdges = new ArrayList<>(edges);
+            Collections.shuffle(shuffledEdges, random);
+            Map<String, DepTreeNode> nodes = new LinkedHashMap<>();
+            for (String[] edge : shuffledEdges) {
+                nodes.computeIfAbsent(edge[0], id -> new DepTreeNode().children(new LinkedHashSet<>())).getChildren().add(edge[1]);
+                nodes.computeIfAbsent(edge[1], id -> new DepTreeNode().children(new LinkedHashSet<>()));
+            }
+            ParentsIndex index = new ParentsIndex(new DepTree("root:1.0.0", nodes));
+            int[] pathsCounts = ImpactTreeBuilder.countPaths(index);
+            assertEquals(pathsCounts[index.indexOf("a:1.0.0")], 1);
+            assertEquals(pathsCounts[index.indexOf("b:1.0.0")], 1);
+            assertEquals(pathsCounts[index.indexOf("c:1.0.0")], 2);
+            assertEquals(pathsCounts[index.indexOf("d:1.0.0")], 3);
+        }
+    }
+
+    @Test
+    public void testPopulateImpactTrees() {
+        DependencyNode d = new DependencyNode().componentId("npm://d:1.0.0");
+        DependencyNode c = new DependencyNode().componentId("npm://c:1.0.0");
+        DependencyNode e = new DependencyNode().componentId("npm://e:1.0.0");
+        ImpactTreeBuilder.populateImpactTrees(createTree(), Map.of("d:1.0.0", d, "c:1.0.0", c, "e:1.0.0", e));
+
+        ImpactTree impactTree = d.getImpactTree();
+        assertNotNull(impactTree);
+        assertEquals(impactTree.getImpactPathsCount(), 3);
+        ImpactTreeNode root = impactTree.getRoot();
+        assertEquals(root.getName(), "root:1.0.0");
+        assertEquals(getChildNames(root), Set.of("d:1.0.0", "a:1.0.0", "b:1.0.0"));
+        for (ImpactTreeNode child : root.getChildren()) {
+            if (!child.getName().equals("d:1.0.0")) {
+                assertEquals(getChildNames(child), Set.of("c:1.0.0"));
+                assertEquals(getChildNames(child.getChildren().get(0)), Set.of("d:1.0.0"));
+            }
+        }
+
+        assertEquals(c.getImpactTree().getImpactPathsCount(), 2);
+        assertTrue(c.getImpactTree().contains("b:1.0.0"));
+        assertNull(e.getImpactTree());
+    }
+
+    @Test
+    public void testPopulateImpactTreesAfterTreeChange() {
+        DepTree depTree = createTree();
+        DependencyNode e = new DependencyNode().componentId("npm://e:1.0.0");
+        ImpactTreeBuilder.populateImpactTrees(depTree, Map.of("e:1.0.0", e));
+        assertNull(e.getImpactTree());
+
+        // e becomes reachable from the root
+        depTree.getRootNode().getChildren().add("e:1.0.0");
+        ImpactTreeBuilder.populateImpactTrees(depTree, Map.of("e:1.0.0", e));
+        assertNotNull(e.getImpactTree());
+        assertEquals(e.getImpactTree().getImpactPathsCount(), 1);
+        assertEquals(getChildNames(e.getImpactTree().getRoot()), Set.of("e:1.0.0"));
+    }
+
+    private static Set<String> getChildNames(ImpactTreeNode node) {
+        Set<String> names = new HashSet<>();
+        node.getChildren().forEach(child -> names.add(child.getName()));
+        return names;
+    }
+}
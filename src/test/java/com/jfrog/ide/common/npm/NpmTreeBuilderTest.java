@@ -41,6 +41,9 @@ public class NpmTreeBuilderTest {
 
     @BeforeMethod
     public void setUp(Object[] testArgs) {
+        if (testArgs.length == 0) {
+            return;
+        }
         try {
             tempProject = Files.createTempDirectory("ide-plugins-common-npm").toFile();
             tempProject.deleteOnExit();
@@ -114,6 +117,32 @@ public class NpmTreeBuilderTest {
         checkDependencyTree(expectedProjectId, expectedChildren);
     }
 
+    @Test
+    public void singleListCommandTest() throws IOException {
+        tempProject = Files.createTempDirectory("ide-plugins-common-npm").toFile();
+        FileUtils.copyDirectory(NPM_ROOT.resolve("sharedDependency").toFile(), tempProject);
+        DepTree twoCommandsTree = buildTree(tempProject.toPath(), false);
+        DepTree singleCommandTree = buildTree(tempProject.toPath(), true);
+
+        assertEquals(singleCommandTree.rootId(), "package-name5:0.0.1");
+        assertEquals(singleCommandTree.nodes().keySet(), twoCommandsTree.nodes().keySet());
+        for (String componentId : twoCommandsTree.nodes().keySet()) {
+            assertEquals(singleCommandTree.nodes().get(componentId).getChildren(), twoCommandsTree.nodes().get(componentId).getChildren(), componentId);
+        }
+        // ms is a development dependency, and is also required by the production dependency debug
+        assertEquals(singleCommandTree.nodes().get("ms:2.1.1").getScopes(), Sets.newHashSet("prod", "dev"));
+        assertEquals(twoCommandsTree.nodes().get("ms:2.1.1").getScopes(), Sets.newHashSet("prod", "dev"));
+        // In the default mode on npm 7 and above, 'npm ls --dev' lists the production dependencies as well
+        assertEquals(singleCommandTree.nodes().get("debug:4.1.1").getScopes(), Sets.newHashSet("prod"));
+        assertTrue(twoCommandsTree.nodes().get("debug:4.1.1").getScopes().contains("prod"));
+    }
+
+    private static DepTree buildTree(Path projectDir, boolean singleListCommand) throws IOException {
+        NpmTreeBuilder npmTreeBuilder = new NpmTreeBuilder(projectDir, projectDir.resolve("package.json").toString(), null);
+        npmTreeBuilder.setSingleListCommand(singleListCommand);
+        return npmTreeBuilder.buildTree(new NullLog());
+    }
+
     private void checkDependencyTree(String expectedProjectId, int expectedChildren) {
         assertNotNull(depTree);
         assertEquals(depTree.rootId(), expectedProjectId);
@@ -0,0 +1,62 @@
+package com.jfrog.ide.common.npm;
+
+import com.jfrog.ide.common.deptree.DepTree;
+import com.jfrog.ide.common.deptree.DepTreeNode;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.Assert.*;
+
+public class PackageLockTreeBuilderTest {
+    private static final Path NPM_ROOT = Paths.get(".").toAbsolutePath().normalize().resolve(Paths.get("src", "test", "resources", "npm"));
+
+    @Test
+    public void testBuildTree() throws IOException {
+        Path projectDir = NPM_ROOT.resolve("packageLockV3");
+        String descriptorFilePath = projectDir.resolve("package.json").toString();
+        DepTree depTree = new PackageLockTreeBuilder(projectDir, descriptorFilePath).buildTree();
+        assertNotNull(depTree);
+        assertEquals(depTree.rootId(), "package-name5:1.0.0");
+        assertEquals(depTree.getRootNodeDescriptorFilePath(), descriptorFilePath);
+
+        // The missing optional and peer dependencies are skipped, the alias gets the real package name and the
+        // workspace link is followed, including the development dependencies of the workspace
+        Map<String, Set<String>> expectedChildren = Map.of(
+                "package-name5:1.0.0", Set.of("progress:2.0.3", "send:0.17.1", "ms:2.0.0", "ws-a:0.1.0", "debug:4.1.1"),
+                "send:0.17.1", Set.of("ms:2.1.1", "debug:4.1.1"),
+                "debug:4.1.1", Set.of("ms:2.1.2"),
+                "ws-a:0.1.0", Set.of("progress:2.0.3", "has-flag:4.0.0"));
+        Map<String, Set<String>> expectedScopes = Map.of(
+                "package-name5:1.0.0", Set.of("prod", "dev"),
+                "progress:2.0.3", Set.of("prod"),
+                "send:0.17.1", Set.of("prod"),
+                "ms:2.1.1", Set.of("prod"),
+                "ms:2.0.0", Set.of("prod"),
+                "ws-a:0.1.0", Set.of("prod"),
+                "debug:4.1.1", Set.of("prod", "dev"),
+                "ms:2.1.2", Set.of("prod", "dev"),
+                "has-flag:4.0.0", Set.of("dev"));
+        assertEquals(depTree.nodes().keySet(), expectedScopes.keySet());
+        for (Map.Entry<String, DepTreeNode> entry : depTree.nodes().entrySet()) {
+            assertEquals(entry.getValue().getChildren(), expectedChildren.getOrDefault(entry.getKey(), Set.of()), entry.getKey());
+            assertEquals(entry.getValue().getScopes(), expectedScopes.get(entry.getKey()), entry.getKey());
+        }
+    }
+
+    @Test
+    public void testUnsupportedLockfile() throws IOException {
+        // lockfileVersion 1
+        Path projectDir = NPM_ROOT.resolve("dependencyPackageLock");
+        assertNull(new PackageLockTreeBuilder(projectDir, projectDir.resolve("package.json").toString()).buildTree());
+
+        // No package-lock.json
+        projectDir = NPM_ROOT.resolve("dependency");
+        assertFalse(new PackageLockTreeBuilder(projectDir, projectDir.resolve("package.json").toString()).isPackageLockExists());
+        assertNull(new PackageLockTreeBuilder(projectDir, projectDir.resolve("package.json").toString()).buildTree());
+    }
+}
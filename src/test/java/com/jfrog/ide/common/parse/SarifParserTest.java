@@ -2,6 +2,9 @@ package com.jfrog.ide.common.parse;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.jfrog.ide.common.nodes.FileIssueNode;
 import com.jfrog.ide.common.nodes.FileTreeNode;
 import com.jfrog.ide.common.nodes.SastIssueNode;
@@ -12,11 +15,16 @@ import org.jfrog.build.api.util.NullLog;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.testng.Assert.*;
 
@@ -42,8 +50,16 @@ public class SarifParserTest {
     public void testParseInvalidSarifReport() {
         // test a report without "runs" element
         assertThrows(NoSuchElementException.class, () -> parser.parse(readSarifReportFromFile(resourcesDir + "invalid_sarif.json")));
-        // test a report without "results" element
-        assertThrows(NullPointerException.class, () -> parser.parse(readSarifReportFromFile(resourcesDir + "invalid_sarif_no_results.json")));
+        // test a run without "tool" element
+        String noTool = "{\"runs\": [{\"results\": []}]}";
+        assertThrows(UncheckedIOException.class, () -> parser.parse(noTool));
+        assertThrows(IOException.class, () -> parser.parse(new ByteArrayInputStream(noTool.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    public void testParseSarifReportWithoutResults() throws IOException {
+        // The "results" element is optional, and a run without it has no results
+        assertTrue(parser.parse(readSarifReportFromFile(resourcesDir + "invalid_sarif_no_results.json")).isEmpty());
     }
 
     @Test
@@ -118,4 +134,159 @@ public class SarifParserTest {
             }
         });
     }
+
+    @Test
+    public void testParseSarifReportFromStream() throws IOException {
+        // Parse the report file directly, without reading it to a string first
+        try (FileInputStream input = new FileInputStream(resourcesDir + "sca_iac_secrets_sast.json")) {
+            results = parser.parse(input);
+        }
+        assertEquals(results, parser.parse(readSarifReportFromFile(resourcesDir + "sca_iac_secrets_sast.json")));
+        assertEquals(results.stream().mapToInt(fileTreeNode -> fileTreeNode.getChildren().size()).sum(), 19);
+    }
+
+    @Test
+    public void testParseSarifReportWithResultsBeforeTool() throws IOException {
+        String report = readSarifReportFromFile(resourcesDir + "code_flows_in_sast.json");
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonNode run = objectMapper.readTree(report).get("runs").get(0);
+        ObjectNode reorderedRun = objectMapper.createObjectNode();
+        reorderedRun.set("results", run.get("results"));
+        reorderedRun.set("tool", run.get("tool"));
+        ObjectNode reorderedReport = objectMapper.createObjectNode();
+        reorderedReport.putArray("runs").add(reorderedRun);
+
+        assertEquals(parser.parse(reorderedReport.toString()), parser.parse(report));
+    }
+
+    @Test(timeOut = 60000)
+    public void testParseLargeSarifReport() {
+        int rulesCount = 5000;
+        int resultsCount = 50000;
+        int filesCount = 500;
+        String report = createSyntheticSastReport(rulesCount, resultsCount, filesCount);
+
+        results = parser.parse(report);
+
+        assertEquals(results.size(), filesCount);
+        assertEquals(results.stream().mapToInt(fileTreeNode -> fileTreeNode.getChildren().size()).sum(), resultsCount);
+        results.forEach(fileTreeNode -> fileTreeNode.getChildren().forEach(child -> {
+            SastIssueNode issue = (SastIssueNode) child;
+            // Each result is reported at the line matching its rule number
+            assertEquals(issue.getRuleId(), "rule-" + (issue.getRowStart() % rulesCount));
+        }));
+    }
+
+    @Test
+    public void testRuleLookupBenchmark() throws IOException {
+        // Compare the rules index with the linear scan of the rules that was used for each result before
+        JsonNode run = new ObjectMapper().readTree(createSyntheticSastReport(5000, 50000, 500)).get("runs").get(0);
+        List<JsonNode> rules = new ArrayList<>();
+        run.get("tool").get("driver").get("rules").forEach(rules::add);
+        List<String> ruleIds = new ArrayList<>();
+        run.get("results").forEach(result -> ruleIds.add(result.get("ruleId").asText()));
+        SarifParser.RunTool tool = new SarifParser.RunTool(run.get("tool"));
+
+        // The linear scan is measured on a sample of the results, since scanning for all of them takes seconds
+        List<String> sample = ruleIds.subList(0, 5000);
+        for (int i = 0; i < 3; i++) {
+            linearRuleLookup(rules, sample.subList(0, 500));
+            indexedRuleLookup(tool, ruleIds);
+        }
+        long linearNanos = Long.MAX_VALUE;
+        long indexedNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            assertEquals(linearRuleLookup(rules, sample), sample.size());
+            linearNanos = Math.min(linearNanos, (System.nanoTime() - start) / sample.size());
+            start = System.nanoTime();
+            assertEquals(indexedRuleLookup(tool, ruleIds), ruleIds.size());
+            indexedNanos = Math.min(indexedNanos, (System.nanoTime() - start) / ruleIds.size());
+        }
+        // With 5000 rules, the linear scan is about three orders of magnitude slower per result
+        assertTrue(indexedNanos * 20 < linearNanos,
+                "Indexed lookup: " + indexedNanos + "ns per result, linear scan: " + linearNanos + "ns per result");
+    }
+
+    private static int linearRuleLookup(List<JsonNode> rules, List<String> ruleIds) {
+        int found = 0;
+        for (String ruleId : ruleIds) {
+            JsonNode rule = rules.stream()
+                    .filter(r -> r.get("id").asText().equals(ruleId))
+                    .findFirst()
+                    .orElse(null);
+            found += rule != null ? 1 : 0;
+        }
+        return found;
+    }
+
+    private static int indexedRuleLookup(SarifParser.RunTool tool, List<String> ruleIds) {
+        int found = 0;
+        for (String ruleId : ruleIds) {
+            found += tool.getRule(ruleId, MissingNode.getInstance()) != null ? 1 : 0;
+        }
+        return found;
+    }
+
+    /**
+     * Create a SAST SARIF report. Half of the results have a ruleIndex, and the others have a ruleId only.
+     */
+    private static String createSyntheticSastReport(int rulesCount, int resultsCount, int filesCount) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ObjectNode run = objectMapper.createObjectNode();
+        ObjectNode driver = run.putObject("tool").putObject("driver");
+        driver.put("name", "JFrog Sast");
+        ArrayNode rules = driver.putArray("rules");
+        for (int i = 0; i < rulesCount; i++) {
+            ObjectNode rule = rules.addObject();
+            rule.put("id", "rule-" + i);
+            rule.putObject("shortDescription").put("text", "Rule " + i);
+            rule.putObject("fullDescription").put("text", "Full description of rule " + i);
+        }
+        ArrayNode results = run.putArray("results");
+        for (int i = 0; i < resultsCount; i++) {
+            int ruleNumber = (i * 7919) % rulesCount;
+            ObjectNode result = results.addObject();
+            result.put("ruleId", "rule-" + ruleNumber);
+            if (i % 2 == 0) {
+                result.put("ruleIndex", ruleNumber);
+            }
+            result.put("level", "error");
+            result.putObject("message").put("text", "Finding " + i);
+            ObjectNode physicalLocation = result.putArray("locations").addObject().putObject("physicalLocation");
+            physicalLocation.putObject("artifactLocation").put("uri", "file:///src/file" + (i % filesCount) + ".js");
+            ObjectNode region = physicalLocation.putObject("region");
+            region.put("startLine", ruleNumber + rulesCount * (i / rulesCount));
+            region.put("startColumn", 1);
+            region.put("endLine", ruleNumber + rulesCount * (i / rulesCount));
+            region.put("endColumn", 10);
+            region.putObject("snippet").put("text", "snippet " + i);
+        }
+        ObjectNode report = objectMapper.createObjectNode();
+        report.putArray("runs").add(run);
+        return report.toString();
+    }
+
+    @Test
+    public void testParallelParse() throws IOException {
+        ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+        try {
+            SarifParser parallelParser = new SarifParser(new NullLog(), forkJoinPool);
+            for (String report : List.of("sca_no_jas.json", "code_flows_in_sast.json", "sca_iac_secrets_sast.json")) {
+                String output = readSarifReportFromFile(resourcesDir + report);
+                assertEquals(parallelParser.parse(output), parser.parse(output), report);
+            }
+            // Results of the same files are converted by different tasks and merged
+            String output = createSyntheticSastReport(500, 20000, 50);
+            List<FileTreeNode> expected = parser.parse(output);
+            List<FileTreeNode> actual = parallelParser.parse(output);
+            assertEquals(actual, expected);
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(actual.get(i).getFilePath(), expected.get(i).getFilePath());
+                assertEquals(actual.get(i).getChildren(), expected.get(i).getChildren());
+            }
+        } finally {
+            forkJoinPool.shutdown();
+        }
+    }
 }
@@ -0,0 +1,115 @@
+package com.jfrog.ide.common.persistency;
+
+import com.jfrog.ide.common.nodes.FileTreeNode;
+import org.apache.commons.io.FileUtils;
+import org.jfrog.build.api.util.NullLog;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class AuditFingerprintsTest {
+    private static final String TEST_PROJECT_ID = "test-project-id";
+    private Path tempDirPath;
+    private Path cachePath;
+    private String npmDir;
+    private String goDir;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        tempDirPath = Files.createTempDirectory("ide-plugins-common-test-fingerprints");
+        cachePath = tempDirPath.resolve("cache");
+        npmDir = Files.createDirectories(tempDirPath.resolve("npm")).toString();
+        goDir = Files.createDirectories(tempDirPath.resolve("go")).toString();
+        Files.writeString(Path.of(npmDir, "package.json"), "{\"name\": \"npm-project\"}");
+        Files.writeString(Path.of(goDir, "go.mod"), "module go-project");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        FileUtils.forceDelete(tempDirPath.toFile());
+    }
+
+    @Test
+    public void changedDirectoriesTest() throws IOException {
+        AuditFingerprints auditFingerprints = new AuditFingerprints(TEST_PROJECT_ID, cachePath, new NullLog());
+        Map<String, String> fingerprints = AuditFingerprints.computeFingerprints(List.of(npmDir, goDir));
+        // All directories are new
+        assertEquals(auditFingerprints.getChangedDirectories(fingerprints), List.of(npmDir, goDir));
+        auditFingerprints.update(fingerprints);
+
+        // Read the stored fingerprints
+        auditFingerprints = new AuditFingerprints(TEST_PROJECT_ID, cachePath, new NullLog());
+        assertTrue(auditFingerprints.getChangedDirectories(AuditFingerprints.computeFingerprints(List.of(npmDir, goDir))).isEmpty());
+
+        // Files that aren't descriptors don't change the fingerprint
+        Files.writeString(Path.of(goDir, "main.go"), "package main");
+        assertTrue(auditFingerprints.getChangedDirectories(AuditFingerprints.computeFingerprints(List.of(npmDir, goDir))).isEmpty());
+
+        // Adding a lock file changes the fingerprint
+        Files.writeString(Path.of(goDir, "go.sum"), "github.com/jfrog/jfrog-client-go v1.0.0 h1:abc=");
+        assertEquals(auditFingerprints.getChangedDirectories(AuditFingerprints.computeFingerprints(List.of(npmDir, goDir))), List.of(goDir));
+
+        // After clearing, all directories are rescanned
+        auditFingerprints.clear();
+        assertEquals(auditFingerprints.getChangedDirectories(fingerprints), List.of(npmDir, goDir));
+        auditFingerprints = new AuditFingerprints(TEST_PROJECT_ID, cachePath, new NullLog());
+        assertEquals(auditFingerprints.getChangedDirectories(fingerprints), List.of(npmDir, goDir));
+    }
+
+    @Test
+    public void mergeResultsTest() {
+        List<FileTreeNode> cachedNodes = List.of(
+                new FileTreeNode("/project/npm/package.json"),
+                new FileTreeNode("/project/npm/index.js"),
+                new FileTreeNode("/project/npm-legacy/package.json"),
+                new FileTreeNode("/project/go/go.mod"),
+                new FileTreeNode("requirements.txt"));
+        List<FileTreeNode> freshNodes = List.of(
+                new FileTreeNode("/project/npm/package.json"),
+                new FileTreeNode("requirements.txt"));
+
+        List<FileTreeNode> results = AuditFingerprints.mergeResults(freshNodes, cachedNodes,
+                List.of("/project/npm", "/project/npm-legacy", "/project/go"), List.of("/project/npm"));
+        List<String> resultPaths = results.stream().map(FileTreeNode::getFilePath).collect(Collectors.toList());
+        assertEquals(resultPaths, List.of("/project/npm/package.json", "requirements.txt",
+                "/project/npm-legacy/package.json", "/project/go/go.mod"));
+        assertTrue(results.get(0) == freshNodes.get(0));
+
+        // Windows paths
+        results = AuditFingerprints.mergeResults(List.of(), List.of(new FileTreeNode("C:\\project\\npm\\package.json"),
+                new FileTreeNode("C:/project/go/go.mod")), List.of("C:\\project\\npm", "C:\\project\\go"), List.of("C:\\project\\npm"));
+        assertEquals(results.size(), 1);
+        assertEquals(results.get(0).getFilePath(), "C:/project/go/go.mod");
+    }
+
+    @Test
+    public void mergeResultsNestedDirectoriesTest() {
+        List<String> workingDirectories = List.of("/project/a", "/project/a/b");
+        List<FileTreeNode> cachedNodes = List.of(
+                new FileTreeNode("/project/a/package.json"),
+                new FileTreeNode("/project/a/c/index.js"),
+                new FileTreeNode("/project/a/b/package.json"),
+                new FileTreeNode("/project/a/b/c/index.js"));
+
+        // Rescanning the outer directory keeps the cached results of the unchanged inner directory
+        List<FileTreeNode> results = AuditFingerprints.mergeResults(List.of(new FileTreeNode("/project/a/package.json")),
+                cachedNodes, workingDirectories, List.of("/project/a"));
+        assertEquals(results.stream().map(FileTreeNode::getFilePath).collect(Collectors.toList()),
+                List.of("/project/a/package.json", "/project/a/b/package.json", "/project/a/b/c/index.js"));
+
+        // Rescanning the inner directory keeps the cached results of the unchanged outer directory
+        results = AuditFingerprints.mergeResults(List.of(), cachedNodes, workingDirectories, List.of("/project/a/b"));
+        assertEquals(results.stream().map(FileTreeNode::getFilePath).collect(Collectors.toList()),
+                List.of("/project/a/package.json", "/project/a/c/index.js"));
+    }
+}
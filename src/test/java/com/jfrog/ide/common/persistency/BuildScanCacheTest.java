@@ -1,18 +1,29 @@
 package com.jfrog.ide.common.persistency;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.ArrayUtils;
 import org.jfrog.build.api.util.NullLog;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
 /**
  * @author yahavi
@@ -33,7 +44,7 @@ public class BuildScanCacheTest {
 
     @Test
     public void cacheNotExistTest() throws IOException {
-        BuildsScanCache buildsScanCache = new BuildsScanCache("build-not-exist-test", tempProject, new NullLog());
+        BuildsScanCache buildsScanCache = createBuildsScanCache("build-not-exist-test", BuildsScanCache.DEFAULT_MAX_SIZE_BYTES);
 
         byte[] res = buildsScanCache.load("build-not-exist", "42", BuildsScanCache.Type.BUILD_INFO);
         assertNull(res);
@@ -41,7 +52,7 @@ public class BuildScanCacheTest {
 
     @Test
     public void buildInfoCacheTest() throws IOException {
-        BuildsScanCache buildsScanCache = new BuildsScanCache("build-cache-test", tempProject, new NullLog());
+        BuildsScanCache buildsScanCache = createBuildsScanCache("build-cache-test", BuildsScanCache.DEFAULT_MAX_SIZE_BYTES);
 
         // Save build info cache
         byte[] expectedBuildInfo = IOUtils.resourceToByteArray("/ci/artifactory-build.json");
@@ -52,9 +63,106 @@ public class BuildScanCacheTest {
         assertEquals(actualBuildInfo, expectedBuildInfo);
     }
 
+    @Test(expectedExceptions = IOException.class)
+    public void corruptedCacheTest() throws IOException {
+        BuildsScanCache buildsScanCache = createBuildsScanCache("corrupted-cache-test", BuildsScanCache.DEFAULT_MAX_SIZE_BYTES);
+        buildsScanCache.save(IOUtils.resourceToByteArray("/ci/artifactory-build.json"), "maven-build", "1", BuildsScanCache.Type.BUILD_INFO);
+
+        // Truncate the cache file
+        try (Stream<Path> files = Files.walk(tempProject)) {
+            Path cacheFile = files.filter(file -> file.toString().endsWith(".manifest")).findFirst().orElseThrow();
+            byte[] content = Files.readAllBytes(cacheFile);
+            Files.write(cacheFile, Arrays.copyOf(content, content.length / 2));
+        }
+        buildsScanCache.load("maven-build", "1", BuildsScanCache.Type.BUILD_INFO);
+    }
+
+    @Test
+    public void chunksDeduplicationTest() throws IOException {
+        BuildsScanCache buildsScanCache = createBuildsScanCache("chunks-dedup-test", BuildsScanCache.DEFAULT_MAX_SIZE_BYTES);
+        byte[] firstBuildInfo = IOUtils.resourceToByteArray("/ci/artifactory-build.json");
+        buildsScanCache.save(firstBuildInfo, "maven-build", "1", BuildsScanCache.Type.BUILD_INFO);
+        long firstBuildChunks = countChunks();
+        assertTrue(firstBuildChunks > 1);
+
+        // The second build differs only in its number, so only the chunk containing the build number should be added
+        byte[] secondBuildInfo = new String(firstBuildInfo, StandardCharsets.UTF_8)
+                .replace("\"number\": \"1\"", "\"number\": \"2\"")
+                .getBytes(StandardCharsets.UTF_8);
+        buildsScanCache.save(secondBuildInfo, "maven-build", "2", BuildsScanCache.Type.BUILD_INFO);
+        assertEquals(countChunks(), firstBuildChunks + 1);
+
+        assertEquals(buildsScanCache.load("maven-build", "1", BuildsScanCache.Type.BUILD_INFO), firstBuildInfo);
+        assertEquals(buildsScanCache.load("maven-build", "2", BuildsScanCache.Type.BUILD_INFO), secondBuildInfo);
+    }
+
+    @Test
+    public void legacyCacheTest() throws IOException {
+        BuildsScanCache buildsScanCache = createBuildsScanCache("legacy-cache-test", BuildsScanCache.DEFAULT_MAX_SIZE_BYTES);
+        byte[] expectedBuildInfo = IOUtils.resourceToByteArray("/ci/artifactory-build.json");
+
+        // Write a build info cache in the ZIP format of older versions
+        Path buildsDir = getBuildsDir("legacy-cache-test");
+        String fileName = "BUILD_INFO_" + DigestUtils.sha256Hex("maven-build_1") + ".zip";
+        try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(buildsDir.resolve(fileName)))) {
+            zos.putNextEntry(new ZipEntry(BuildsScanCache.Type.BUILD_INFO.toString()));
+            zos.write(expectedBuildInfo);
+        }
+        assertEquals(buildsScanCache.load("maven-build", "1", BuildsScanCache.Type.BUILD_INFO), expectedBuildInfo);
+
+        // Saving the build replaces the ZIP file
+        buildsScanCache.save(expectedBuildInfo, "maven-build", "1", BuildsScanCache.Type.BUILD_INFO);
+        assertFalse(Files.exists(buildsDir.resolve(fileName)));
+        assertEquals(buildsScanCache.load("maven-build", "1", BuildsScanCache.Type.BUILD_INFO), expectedBuildInfo);
+    }
+
+    @Test
+    public void evictionTest() throws IOException, InterruptedException {
+        byte[] scanResults = IOUtils.resourceToByteArray("/ci/xray-details-build.json");
+        BuildsScanCache sizeCache = createBuildsScanCache("eviction-size-test", BuildsScanCache.DEFAULT_MAX_SIZE_BYTES);
+        sizeCache.save(scanResults, "maven-build", "1", BuildsScanCache.Type.BUILD_SCAN_RESULTS);
+        long buildSize = getCacheSize("eviction-size-test");
+
+        // Allow 2 builds in the cache
+        BuildsScanCache buildsScanCache = createBuildsScanCache("eviction-test", buildSize * 5 / 2);
+        for (String buildNumber : new String[]{"1", "2", "3"}) {
+            // Make the build contents different, so that they don't share chunks
+            byte[] content = ArrayUtils.addAll(scanResults, buildNumber.getBytes(StandardCharsets.UTF_8));
+            buildsScanCache.save(content, "maven-build", buildNumber, BuildsScanCache.Type.BUILD_SCAN_RESULTS);
+            Thread.sleep(5);
+            if ("2".equals(buildNumber)) {
+                // Access build 1 so that build 2 becomes the least recently used build
+                assertNotNull(buildsScanCache.load("maven-build", "1", BuildsScanCache.Type.BUILD_SCAN_RESULTS));
+                Thread.sleep(5);
+            }
+        }
+        assertNotNull(buildsScanCache.load("maven-build", "1", BuildsScanCache.Type.BUILD_SCAN_RESULTS));
+        assertNull(buildsScanCache.load("maven-build", "2", BuildsScanCache.Type.BUILD_SCAN_RESULTS));
+        assertNotNull(buildsScanCache.load("maven-build", "3", BuildsScanCache.Type.BUILD_SCAN_RESULTS));
+        assertTrue(getCacheSize("eviction-test") <= buildSize * 5 / 2);
+    }
+
+    @Test
+    public void indexRebuildTest() throws IOException {
+        BuildsScanCache buildsScanCache = createBuildsScanCache("index-rebuild-test", BuildsScanCache.DEFAULT_MAX_SIZE_BYTES);
+        byte[] expectedBuildInfo = IOUtils.resourceToByteArray("/ci/artifactory-build.json");
+        buildsScanCache.save(expectedBuildInfo, "maven-build", "1", BuildsScanCache.Type.BUILD_INFO);
+
+        // Delete the index and add a chunk that is not referenced by any build
+        Path buildsDir = getBuildsDir("index-rebuild-test");
+        Files.delete(buildsDir.resolve(BuildsCacheIndex.INDEX_FILE_NAME));
+        Path orphanChunk = buildsDir.resolve(BuildChunkStore.CHUNKS_DIR_NAME).resolve(DigestUtils.sha256Hex("orphan"));
+        Files.write(orphanChunk, new byte[]{1});
+
+        buildsScanCache = createBuildsScanCache("index-rebuild-test", BuildsScanCache.DEFAULT_MAX_SIZE_BYTES);
+        assertTrue(Files.exists(buildsDir.resolve(BuildsCacheIndex.INDEX_FILE_NAME)));
+        assertFalse(Files.exists(orphanChunk));
+        assertEquals(buildsScanCache.load("maven-build", "1", BuildsScanCache.Type.BUILD_INFO), expectedBuildInfo);
+    }
+
     @Test
     public void xrayScanCacheTest() throws IOException {
-        BuildsScanCache buildsScanCache = new BuildsScanCache("xray-scan-cache-test", tempProject, new NullLog());
+        BuildsScanCache buildsScanCache = createBuildsScanCache("xray-scan-cache-test", BuildsScanCache.DEFAULT_MAX_SIZE_BYTES);
 
         // Save build info cache
         byte[] expectedBuildInfo = IOUtils.resourceToByteArray("/ci/xray-details-build.json");
@@ -64,4 +172,27 @@ public class BuildScanCacheTest {
         byte[] actualBuildInfo = buildsScanCache.load("maven-build", "1", BuildsScanCache.Type.BUILD_SCAN_RESULTS);
         assertEquals(actualBuildInfo, expectedBuildInfo);
     }
+
+    private BuildsScanCache createBuildsScanCache(String projectName, long maxSizeBytes) throws IOException {
+        // Run the cache maintenance synchronously
+        return new BuildsScanCache(projectName, tempProject, new NullLog(), maxSizeBytes, Runnable::run);
+    }
+
+    private Path getBuildsDir(String projectName) {
+        return tempProject.resolve(Base64.getEncoder().encodeToString(projectName.getBytes(StandardCharsets.UTF_8))).resolve(projectName);
+    }
+
+    private long getCacheSize(String projectName) throws IOException {
+        try (Stream<Path> files = Files.walk(getBuildsDir(projectName))) {
+            return files.filter(file -> file.toString().endsWith(".manifest") || file.getParent().endsWith("chunks"))
+                    .mapToLong(file -> file.toFile().length())
+                    .sum();
+        }
+    }
+
+    private long countChunks() throws IOException {
+        try (Stream<Path> files = Files.walk(tempProject)) {
+            return files.filter(file -> file.getParent().endsWith("chunks")).count();
+        }
+    }
 }
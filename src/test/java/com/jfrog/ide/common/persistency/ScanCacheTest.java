@@ -1,10 +1,8 @@
 package com.jfrog.ide.common.persistency;
 
 import com.jfrog.ide.common.nodes.*;
-import com.jfrog.ide.common.nodes.subentities.Cve;
-import com.jfrog.ide.common.nodes.subentities.ResearchInfo;
-import com.jfrog.ide.common.nodes.subentities.Severity;
-import com.jfrog.ide.common.nodes.subentities.SeverityReason;
+import com.jfrog.ide.common.nodes.subentities.*;
+import com.jfrog.ide.common.parse.Applicability;
 import org.apache.commons.io.FileUtils;
 import org.jfrog.build.api.util.NullLog;
 import org.testng.Assert;
@@ -12,11 +10,16 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class ScanCacheTest {
     private Path tempCacheDirPath;
@@ -48,6 +51,156 @@ public class ScanCacheTest {
         Assert.assertEquals(actual, fileTreeNodes);
     }
 
+    @Test
+    public void allNodeTypesTest() throws IOException {
+        final String TEST_PROJECT_ID = "test-project-id";
+        List<FileTreeNode> fileTreeNodes = getFileTreeNode();
+
+        DescriptorFileTreeNode descriptorFileTreeNode = (DescriptorFileTreeNode) fileTreeNodes.get(1);
+        DependencyNode dependencyNode = new DependencyNode().componentId("gav://org.example:lib:1.0.0");
+        dependencyNode.setIndirect(true);
+        dependencyNode.addLicense(new License("MIT", "https://opensource.org/licenses/MIT"));
+        ImpactTreeNode impactTreeRoot = new ImpactTreeNode("root");
+        impactTreeRoot.getChildren().add(new ImpactTreeNode("org.example:lib:1.0.0"));
+        ImpactTree impactTree = new ImpactTree(impactTreeRoot);
+        impactTree.incImpactPathsCount();
+        dependencyNode.setImpactTree(impactTree);
+        dependencyNode.addIssue(new LicenseViolationNode("GNU General Public License", "GPL-3.0",
+                new ArrayList<>(List.of("https://www.gnu.org/licenses")), Severity.Medium, "lastUpdated", null));
+        descriptorFileTreeNode.addDependency(dependencyNode);
+
+        FileTreeNode sourceFile = new FileTreeNode("path/to/source.java");
+        FindingInfo[][] codeFlows = {{new FindingInfo("path/to/source.java", 1, 2, 3, 4, "snippet")}};
+        sourceFile.addIssue(new SastIssueNode("sast", "path/to/source.java", 5, 6, 7, 8, "reason", "snippet", codeFlows, Severity.High, "ruleID", "fullDescription"));
+        sourceFile.addIssue(new FileIssueNode("secret", "path/to/source.java", 9, 10, 11, 12, "reason", "snippet", SourceCodeScanType.SECRETS, Severity.Low, "ruleID"));
+        sourceFile.addIssue(new ScaIssueNode("sca", "reason", Severity.Critical, "CVE-2021-22060_org.springframework:spring-core_5.0.3.RELEASE",
+                Applicability.APPLICABLE, new ArrayList<>(List.of(new ArrayList<>(List.of(new ImpactPath("spring-core", "5.0.3.RELEASE"))))),
+                new String[]{"5.3.14"}, "fullDescription"));
+        fileTreeNodes.add(sourceFile);
+
+        ScanCache cache = new ScanCache(TEST_PROJECT_ID, tempCacheDirPath, new NullLog());
+        cache.cacheNodes(fileTreeNodes);
+        ScanCacheObject actual = new ScanCache(TEST_PROJECT_ID, tempCacheDirPath, new NullLog()).getScanCacheObject();
+        Assert.assertEquals(actual.getScanTimestamp(), cache.getScanCacheObject().getScanTimestamp());
+        Assert.assertEquals(actual.getFileTreeNodes().size(), fileTreeNodes.size());
+        Assert.assertEquals(actual.getFileTreeNodes().get(0), fileTreeNodes.get(0));
+        Assert.assertEquals(actual.getFileTreeNodes().get(2), fileTreeNodes.get(2));
+
+        // Licenses and impact trees don't implement equals, so they are compared by their fields
+        DependencyNode loadedLibrary = (DependencyNode) actual.getFileTreeNodes().get(1).getChildAt(1);
+        Assert.assertEquals(loadedLibrary.getComponentId(), dependencyNode.getComponentId());
+        Assert.assertTrue(loadedLibrary.isIndirect());
+        Assert.assertEquals(loadedLibrary.getLicenses().get(0).getName(), "MIT");
+        Assert.assertEquals(loadedLibrary.getLicenses().get(0).getMoreInfoUrl(), "https://opensource.org/licenses/MIT");
+        Assert.assertEquals(loadedLibrary.getImpactTree().getImpactPathsCount(), 1);
+        Assert.assertEquals(loadedLibrary.getImpactTree().getRoot().getChildren().get(0).getName(), "org.example:lib:1.0.0");
+        Assert.assertEquals(loadedLibrary.getChildAt(0), dependencyNode.getChildAt(0));
+        Assert.assertEquals(actual.getFileTreeNodes().get(1).getSeverity(), descriptorFileTreeNode.getSeverity());
+
+        // The applicable issue and the vulnerability should reference the same node after loading
+        ApplicableIssueNode applicableIssueNode = (ApplicableIssueNode) actual.getFileTreeNodes().get(0).getChildAt(0);
+        DependencyNode loadedDependency = (DependencyNode) actual.getFileTreeNodes().get(1).getChildAt(0);
+        Assert.assertSame(applicableIssueNode.getIssue(), loadedDependency.getChildAt(0));
+        Assert.assertTrue(applicableIssueNode.getIssue().isApplicable());
+
+        ScaIssueNode scaIssueNode = (ScaIssueNode) actual.getFileTreeNodes().get(2).getChildAt(2);
+        Assert.assertEquals(scaIssueNode.getApplicability(), Applicability.APPLICABLE);
+        Assert.assertEquals(scaIssueNode.getComponentName(), "org.springframework:spring-core");
+        Assert.assertEquals(scaIssueNode.getFixedVersions(), new String[]{"5.3.14"});
+    }
+
+    @Test
+    public void fileResultsTest() throws IOException {
+        final String TEST_PROJECT_ID = "test-project-id";
+        List<FileTreeNode> fileTreeNodes = getFileTreeNode();
+        new ScanCache(TEST_PROJECT_ID, tempCacheDirPath, new NullLog()).cacheNodes(fileTreeNodes);
+
+        ScanCache cache = new ScanCache(TEST_PROJECT_ID, tempCacheDirPath, new NullLog());
+        Assert.assertEquals(cache.getFileResults("path/to/missing.txt"), List.of());
+        List<FileTreeNode> descriptorResults = cache.getFileResults("path/to/descriptor.xml");
+        Assert.assertEquals(descriptorResults.size(), 1);
+        // The severity is available before the issues are loaded
+        Assert.assertEquals(descriptorResults.get(0).getSeverity(), fileTreeNodes.get(1).getSeverity());
+        Assert.assertEquals(descriptorResults.get(0), fileTreeNodes.get(1));
+        Assert.assertEquals(((DescriptorFileTreeNode) descriptorResults.get(0)).getDependencies().size(), 1);
+
+        // Records are read independently, but reference the same vulnerability node
+        ApplicableIssueNode applicableIssueNode = (ApplicableIssueNode) cache.getFileResults("path/to/file.txt").get(0).getChildAt(0);
+        Assert.assertSame(applicableIssueNode.getIssue(), descriptorResults.get(0).getChildAt(0).getChildAt(0));
+    }
+
+    @Test
+    public void replacedCacheFileTest() throws IOException {
+        final String TEST_PROJECT_ID = "test-project-id";
+        new ScanCache(TEST_PROJECT_ID, tempCacheDirPath, new NullLog()).cacheNodes(getFileTreeNode());
+        ScanCache cache = new ScanCache(TEST_PROJECT_ID, tempCacheDirPath, new NullLog());
+
+        // Another process rewrites the cache file with new results, before the cached nodes are loaded
+        List<FileTreeNode> newFileTreeNodes = getFileTreeNode();
+        ((DescriptorFileTreeNode) newFileTreeNodes.get(1)).addDependency(new DependencyNode().componentId("newComponentId"));
+        Collections.reverse(newFileTreeNodes);
+        new ScanCache(TEST_PROJECT_ID, tempCacheDirPath, new NullLog()).cacheNodes(newFileTreeNodes);
+
+        // The results are read from the new file, by their file paths
+        DescriptorFileTreeNode descriptorNode = (DescriptorFileTreeNode) cache.getFileResults("path/to/descriptor.xml").get(0);
+        Assert.assertEquals(descriptorNode, newFileTreeNodes.get(0));
+        Assert.assertEquals(descriptorNode.getDependencies().size(), 2);
+        Assert.assertEquals(cache.getFileResults("path/to/file.txt").get(0), newFileTreeNodes.get(1));
+    }
+
+    @Test
+    public void replacedCacheFileWithoutResultsTest() throws IOException {
+        final String TEST_PROJECT_ID = "test-project-id";
+        new ScanCache(TEST_PROJECT_ID, tempCacheDirPath, new NullLog()).cacheNodes(getFileTreeNode());
+        ScanCache cache = new ScanCache(TEST_PROJECT_ID, tempCacheDirPath, new NullLog());
+
+        // Another process rewrites the cache file without the results of one of the files
+        List<FileTreeNode> newFileTreeNodes = getFileTreeNode().subList(1, 2);
+        new ScanCache(TEST_PROJECT_ID, tempCacheDirPath, new NullLog()).cacheNodes(newFileTreeNodes);
+
+        // The results of the missing file can't be read, so the cache must not be overwritten with an empty node
+        Assert.assertEquals(cache.getFileResults("path/to/file.txt").get(0).getChildCount(), 0);
+        Assert.assertThrows(IOException.class, () -> cache.cacheNodes(cache.getScanCacheObject().getFileTreeNodes()));
+        Assert.assertEquals(new ScanCache(TEST_PROJECT_ID, tempCacheDirPath, new NullLog()).getScanCacheObject().getFileTreeNodes(), newFileTreeNodes);
+    }
+
+    @Test
+    public void corruptedCacheTest() throws IOException {
+        final String TEST_PROJECT_ID = "test-project-id";
+        new ScanCache(TEST_PROJECT_ID, tempCacheDirPath, new NullLog()).cacheNodes(getFileTreeNode());
+        String cacheFilePrefix = Base64.getEncoder().encodeToString(TEST_PROJECT_ID.getBytes(StandardCharsets.UTF_8));
+        Path cacheFile = tempCacheDirPath.resolve(cacheFilePrefix + "XrayScanCache.bin");
+
+        // Only the cache file and the lock file should remain after writing
+        try (Stream<Path> files = Files.list(tempCacheDirPath)) {
+            Assert.assertEquals(files.count(), 2);
+        }
+
+        // Corrupt the last byte of the index and make sure the cache is ignored
+        byte[] content = Files.readAllBytes(cacheFile);
+        content[content.length - 1] ^= 1;
+        Files.write(cacheFile, content);
+        Assert.assertNull(new ScanCache(TEST_PROJECT_ID, tempCacheDirPath, new NullLog()).getScanCacheObject());
+    }
+
+    @Test
+    public void legacyCacheMigrationTest() throws IOException {
+        final String TEST_PROJECT_ID = "test-project-id";
+        List<FileTreeNode> fileTreeNodes = getFileTreeNode();
+        String cacheFilePrefix = Base64.getEncoder().encodeToString(TEST_PROJECT_ID.getBytes(StandardCharsets.UTF_8));
+        File legacyFile = tempCacheDirPath.resolve(cacheFilePrefix + "XrayScanCache.json").toFile();
+        ScanCache.createLegacyMapper().writeValue(legacyFile, new ScanCacheObject(fileTreeNodes, 1L));
+
+        ScanCache cache = new ScanCache(TEST_PROJECT_ID, tempCacheDirPath, new NullLog());
+        Assert.assertEquals(cache.getScanCacheObject().getFileTreeNodes(), fileTreeNodes);
+        Assert.assertFalse(legacyFile.exists());
+
+        // The migrated cache should be loaded from the binary file
+        ScanCacheObject migrated = new ScanCache(TEST_PROJECT_ID, tempCacheDirPath, new NullLog()).getScanCacheObject();
+        Assert.assertEquals(migrated.getFileTreeNodes(), fileTreeNodes);
+        Assert.assertEquals(migrated.getScanTimestamp(), 1L);
+    }
+
     private static List<FileTreeNode> getFileTreeNode() {
         List<FileTreeNode> fileTreeNodes = new ArrayList<>();
         DescriptorFileTreeNode descriptorFileTreeNode = new DescriptorFileTreeNode("path/to/descriptor.xml");
@@ -0,0 +1,58 @@
+package com.jfrog.ide.common.scan;
+
+import com.jfrog.ide.common.nodes.DependencyNode;
+import com.jfrog.ide.common.nodes.VulnerabilityNode;
+import com.jfrog.ide.common.nodes.subentities.Cve;
+import com.jfrog.ide.common.nodes.subentities.Severity;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+import static org.testng.Assert.*;
+
+public class ComponentResultsCacheTest {
+    private static final String POLICY_CONTEXT = "https://xray.jfrog.io|VULNERABILITIES|";
+    private static final String VULNERABLE = "npm://vulnerable:1.0.0";
+    private static final String CLEAN = "npm://clean:1.0.0";
+
+    @Test
+    public void testCachedResults() {
+        ComponentResultsCache cache = new ComponentResultsCache();
+        List<String> components = List.of(VULNERABLE, CLEAN);
+        assertEquals(cache.getComponentsToScan(POLICY_CONTEXT, components), Set.copyOf(components));
+
+        Map<String, DependencyNode> scanResults = new HashMap<>();
+        scanResults.put("vulnerable:1.0.0", createDependencyNode());
+        cache.addResults(POLICY_CONTEXT, components, scanResults);
+
+        // Both the vulnerable and the clean components should not be scanned again
+        assertTrue(cache.getComponentsToScan(POLICY_CONTEXT, components).isEmpty());
+        assertEquals(cache.getComponentsToScan(POLICY_CONTEXT, List.of(VULNERABLE, "npm://new:1.0.0")), Set.of("npm://new:1.0.0"));
+
+        // Results of other policy contexts should not be used
+        assertEquals(cache.getComponentsToScan("https://xray.jfrog.io|PROJECT|proj", components), Set.copyOf(components));
+
+        Map<String, DependencyNode> populated = new HashMap<>();
+        cache.populateCachedResults(POLICY_CONTEXT, components, populated);
+        assertEquals(populated.keySet(), Set.of("vulnerable:1.0.0"));
+        DependencyNode cachedNode = populated.get("vulnerable:1.0.0");
+        assertEquals(cachedNode, scanResults.get("vulnerable:1.0.0"));
+        assertNotSame(cachedNode, scanResults.get("vulnerable:1.0.0"));
+    }
+
+    @Test
+    public void testExpiredResults() {
+        ComponentResultsCache cache = new ComponentResultsCache(-1);
+        cache.addResults(POLICY_CONTEXT, List.of(CLEAN), new HashMap<>());
+        assertEquals(cache.size(), 1);
+        assertEquals(cache.getComponentsToScan(POLICY_CONTEXT, List.of(CLEAN)), Set.of(CLEAN));
+        assertEquals(cache.size(), 0);
+    }
+
+    private DependencyNode createDependencyNode() {
+        DependencyNode dependencyNode = new DependencyNode().componentId(VULNERABLE);
+        dependencyNode.addIssue(new VulnerabilityNode("XRAY-1", Severity.High, "summary", new ArrayList<>(), new ArrayList<>(),
+                new Cve("CVE-2022-0001", null, null, null, null), "", null, null, null, null));
+        return dependencyNode;
+    }
+}
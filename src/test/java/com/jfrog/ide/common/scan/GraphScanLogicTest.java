@@ -0,0 +1,193 @@
+package com.jfrog.ide.common.scan;
+
+import com.jfrog.ide.common.configuration.ServerConfig;
+import com.jfrog.ide.common.deptree.DepTree;
+import com.jfrog.ide.common.deptree.DepTreeNode;
+import com.jfrog.ide.common.log.ProgressIndicator;
+import com.jfrog.ide.common.nodes.DependencyNode;
+import com.jfrog.ide.common.nodes.VulnerabilityNode;
+import com.jfrog.xray.client.Xray;
+import com.jfrog.xray.client.services.scan.Component;
+import com.jfrog.xray.client.services.scan.GraphResponse;
+import com.jfrog.xray.client.services.scan.Scan;
+import com.jfrog.xray.client.services.scan.Vulnerability;
+import com.jfrog.xray.client.services.system.Version;
+import org.jfrog.build.api.util.NullLog;
+import org.jfrog.build.extractor.scan.DependencyTree;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.Test;
+
+import javax.swing.tree.TreeNode;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+public class GraphScanLogicTest {
+    private static final Set<String> COMPONENT_IDS = Set.of("npm://a:1.0.0", "npm://b:1.0.0", "npm://c:1.0.0", "npm://d:1.0.0", "npm://e:1.0.0");
+
+    @Test
+    public void testScanInChunks() throws Exception {
+        Xray xrayClient = mockXrayClient(null);
+        GraphScanLogic scanLogic = new GraphScanLogic(new NullLog());
+        scanLogic.setChunkSize(2);
+        RecordingProgressIndicator indicator = new RecordingProgressIndicator();
+
+        Map<String, DependencyNode> results = scanLogic.scanInChunks(xrayClient, "npm://root:1.0.0", COMPONENT_IDS,
+                mock(ServerConfig.class), () -> {
+                }, indicator);
+
+        // Each chunk is sent in a separate request, and the results of all chunks are merged
+        verify(xrayClient.scan(), times(3)).graph(any(), any(), any(), any(), any());
+        assertEquals(results.keySet(), Set.of("a:1.0.0", "b:1.0.0", "c:1.0.0", "d:1.0.0", "e:1.0.0"));
+        results.forEach((componentId, dependencyNode) -> {
+            assertEquals(dependencyNode.getChildCount(), 1);
+            assertEquals(((VulnerabilityNode) dependencyNode.getChildAt(0)).getIssueId(), "XRAY-" + componentId);
+        });
+
+        // The progress is updated once per finished chunk
+        assertEquals(indicator.fractions, List.of(0.0, 1.0 / 3, 2.0 / 3, 1.0));
+    }
+
+    @Test(timeOut = 30000)
+    public void testScanInChunksCanceled() throws Exception {
+        // The chunks never finish, so the cancellation must be detected by the calling thread
+        CountDownLatch neverFinished = new CountDownLatch(1);
+        Xray xrayClient = mockXrayClient(neverFinished);
+        GraphScanLogic scanLogic = new GraphScanLogic(new NullLog());
+        scanLogic.setChunkSize(2);
+        AtomicBoolean canceled = new AtomicBoolean();
+        Thread callingThread = Thread.currentThread();
+        Runnable checkCanceled = () -> {
+            if (canceled.get() && Thread.currentThread() == callingThread) {
+                throw new CancellationException();
+            }
+        };
+
+        canceled.set(true);
+        assertThrows(CancellationException.class, () -> scanLogic.scanInChunks(xrayClient, "npm://root:1.0.0", COMPONENT_IDS,
+                mock(ServerConfig.class), checkCanceled, new RecordingProgressIndicator()));
+    }
+
+    @Test
+    public void testScanArtifactsWithResultsCache() throws Exception {
+        Xray xrayClient = mockXrayClient(null, Set.of("npm://clean:1.0.0"));
+        Version version = mock(Version.class);
+        when(version.isAtLeast(any())).thenReturn(true);
+        when(xrayClient.system().version()).thenReturn(version);
+        ComponentResultsCache resultsCache = new ComponentResultsCache();
+        GraphScanLogic scanLogic = new GraphScanLogic(new NullLog(), resultsCache) {
+            @Override
+            Xray createXrayClient(ServerConfig server) {
+                return xrayClient;
+            }
+        };
+        ServerConfig server = mock(ServerConfig.class);
+        when(server.getXrayUrl()).thenReturn("https://xray.example.com/xray");
+
+        Map<String, DependencyNode> firstResults = scanLogic.scanArtifacts(createDepTree("a:1.0.0", "b:1.0.0", "clean:1.0.0"),
+                server, new RecordingProgressIndicator(), ComponentPrefix.NPM, () -> {
+                });
+        assertEquals(firstResults.keySet(), Set.of("a:1.0.0", "b:1.0.0"));
+        // The components without issues are cached too
+        assertEquals(resultsCache.size(), 3);
+
+        Map<String, DependencyNode> secondResults = scanLogic.scanArtifacts(createDepTree("a:1.0.0", "b:1.0.0", "clean:1.0.0", "d:1.0.0"),
+                server, new RecordingProgressIndicator(), ComponentPrefix.NPM, () -> {
+                });
+
+        // Only the new component is sent to Xray
+        ArgumentCaptor<DependencyTree> scanTrees = ArgumentCaptor.forClass(DependencyTree.class);
+        verify(xrayClient.scan(), times(2)).graph(scanTrees.capture(), any(), any(), any(), any());
+        assertEquals(getScannedComponents(scanTrees.getAllValues().get(0)), Set.of("npm://a:1.0.0", "npm://b:1.0.0", "npm://clean:1.0.0"));
+        assertEquals(getScannedComponents(scanTrees.getAllValues().get(1)), Set.of("npm://d:1.0.0"));
+
+        // The cached results are merged into the response as copies
+        assertEquals(secondResults.keySet(), Set.of("a:1.0.0", "b:1.0.0", "d:1.0.0"));
+        for (String componentId : List.of("a:1.0.0", "b:1.0.0")) {
+            DependencyNode cachedNode = secondResults.get(componentId);
+            assertNotSame(cachedNode, firstResults.get(componentId));
+            assertEquals(((VulnerabilityNode) cachedNode.getChildAt(0)).getIssueId(), "XRAY-" + componentId);
+        }
+        assertEquals(resultsCache.size(), 4);
+    }
+
+    private static DepTree createDepTree(String... componentIds) {
+        Map<String, DepTreeNode> nodes = new HashMap<>();
+        nodes.put("root:1.0.0", new DepTreeNode().descriptorFilePath("/project/package.json").children(new HashSet<>(List.of(componentIds))));
+        for (String componentId : componentIds) {
+            nodes.put(componentId, new DepTreeNode());
+        }
+        return new DepTree("root:1.0.0", nodes);
+    }
+
+    private static Set<String> getScannedComponents(DependencyTree scanTree) {
+        Set<String> componentIds = new HashSet<>();
+        for (TreeNode child : Collections.list(scanTree.children())) {
+            componentIds.add((String) ((DependencyTree) child).getUserObject());
+        }
+        return componentIds;
+    }
+
+    private static Xray mockXrayClient(CountDownLatch scanLatch) throws Exception {
+        return mockXrayClient(scanLatch, Set.of());
+    }
+
+    /**
+     * Mock an Xray client, which reports a single vulnerability for each scanned component.
+     *
+     * @param scanLatch         if not null, each scan waits for it before returning.
+     * @param cleanComponentIds the prefixed IDs of components without vulnerabilities.
+     */
+    private static Xray mockXrayClient(CountDownLatch scanLatch, Set<String> cleanComponentIds) throws Exception {
+        Scan scan = mock(Scan.class);
+        when(scan.graph(any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            if (scanLatch != null) {
+                scanLatch.await();
+            }
+            DependencyTree scanTree = invocation.getArgument(0);
+            List<Vulnerability> vulnerabilities = new ArrayList<>();
+            for (String componentId : getScannedComponents(scanTree)) {
+                if (!cleanComponentIds.contains(componentId)) {
+                    vulnerabilities.add(mockVulnerability(componentId));
+                }
+            }
+            GraphResponse graphResponse = mock(GraphResponse.class);
+            doReturn(vulnerabilities).when(graphResponse).getVulnerabilities();
+            return graphResponse;
+        });
+        Xray xrayClient = mock(Xray.class, RETURNS_DEEP_STUBS);
+        when(xrayClient.scan()).thenReturn(scan);
+        return xrayClient;
+    }
+
+    private static Vulnerability mockVulnerability(String componentId) {
+        Vulnerability vulnerability = mock(Vulnerability.class);
+        doReturn(Map.of(componentId, mock(Component.class))).when(vulnerability).getComponents();
+        when(vulnerability.getIssueId()).thenReturn("XRAY-" + componentId.replace("npm://", ""));
+        when(vulnerability.getSeverity()).thenReturn("High");
+        return vulnerability;
+    }
+
+    private static class RecordingProgressIndicator implements ProgressIndicator {
+        private final List<Double> fractions = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void setFraction(double fraction) {
+            fractions.add(fraction);
+        }
+
+        @Override
+        public void setIndeterminate(boolean indeterminate) {
+        }
+
+        @Override
+        public void setText(String title) {
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.jfrog.ide.common.utils;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+public class BlockingTaskExecutorTest {
+
+    @DataProvider
+    private Object[][] preferVirtualThreadsProvider() {
+        return new Object[][]{{true}, {false}};
+    }
+
+    @Test(dataProvider = "preferVirtualThreadsProvider")
+    public void testInvokeAll(boolean preferVirtualThreads) throws IOException, InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<BlockingTaskExecutor.BlockingTask<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            int taskNumber = i;
+            tasks.add(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(2);
+                running.decrementAndGet();
+                return taskNumber;
+            });
+        }
+        try (BlockingTaskExecutor executor = new BlockingTaskExecutor("test", 4, preferVirtualThreads)) {
+            assertEquals(executor.isVirtualThreads(), preferVirtualThreads && BlockingTaskExecutor.isVirtualThreadsSupported());
+            List<Integer> results = executor.invokeAll(tasks);
+            for (int i = 0; i < tasks.size(); i++) {
+                assertEquals(results.get(i).intValue(), i);
+            }
+        }
+        assertTrue(maxRunning.get() <= 4, "Running tasks: " + maxRunning.get());
+    }
+
+    @Test(expectedExceptions = IOException.class, expectedExceptionsMessageRegExp = "Task failed")
+    public void testTaskFailure() throws IOException, InterruptedException {
+        try (BlockingTaskExecutor executor = new BlockingTaskExecutor("test", 2)) {
+            executor.invokeAll(List.of(() -> "success", () -> {
+                throw new IOException("Task failed");
+            }));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.jfrog.ide.common.utils;
+
+import org.apache.commons.lang3.SystemUtils;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+public class StreamingCommandExecutorTest {
+
+    @BeforeClass
+    public void setUp() {
+        if (SystemUtils.IS_OS_WINDOWS) {
+            throw new SkipException("The test commands run through /bin/sh");
+        }
+    }
+
+    @Test
+    public void testLines() throws IOException, InterruptedException {
+        StreamingCommandExecutor executor = new StreamingCommandExecutor("printf", null);
+        List<String> lines = new ArrayList<>();
+        StreamingCommandExecutor.Results<Void> results = executor.exeCommandByLines(null, List.of("'a b\\nc\\n\\nd'"), null, lines::add);
+        assertTrue(results.isOk());
+        assertEquals(lines, List.of("a b", "c", "", "d"));
+        assertEquals(results.err(), "");
+    }
+
+    @Test
+    public void testOutputStream() throws IOException, InterruptedException {
+        StreamingCommandExecutor executor = new StreamingCommandExecutor("echo", Map.of("TEST_VALUE", "streamed"));
+        StreamingCommandExecutor.Results<String> results = executor.exeCommand(null, List.of("$TEST_VALUE"), null,
+                stdout -> new String(stdout.readAllBytes(), StandardCharsets.UTF_8).trim());
+        assertTrue(results.isOk());
+        assertEquals(results.output(), "streamed");
+    }
+
+    @Test
+    public void testWorkingDirectory() throws IOException, InterruptedException {
+        Path tempDir = Files.createTempDirectory("ide-plugins-common-streaming");
+        try {
+            Files.writeString(tempDir.resolve("file.txt"), "content");
+            StreamingCommandExecutor executor = new StreamingCommandExecutor("cat", null);
+            StreamingCommandExecutor.Results<String> results = executor.exeCommand(tempDir.toFile(), List.of("file.txt"), null,
+                    stdout -> new String(stdout.readAllBytes(), StandardCharsets.UTF_8));
+            assertEquals(results.output(), "content");
+        } finally {
+            Files.deleteIfExists(tempDir.resolve("file.txt"));
+            Files.deleteIfExists(tempDir);
+        }
+    }
+
+    @Test
+    public void testErrorAndExitValue() throws IOException, InterruptedException {
+        StreamingCommandExecutor executor = new StreamingCommandExecutor("echo", null);
+        StreamingCommandExecutor.Results<Void> results = executor.exeCommandByLines(null, List.of("out; echo err >&2; exit 3"), null, line -> {
+        });
+        assertFalse(results.isOk());
+        assertEquals(results.exitValue(), 3);
+        assertEquals(results.err().trim(), "err");
+    }
+
+    @Test
+    public void testUnreadOutput() throws IOException, InterruptedException {
+        // The consumer reads only the first line. The rest of the output is drained, so the command doesn't block.
+        StreamingCommandExecutor executor = new StreamingCommandExecutor("seq", null);
+        StreamingCommandExecutor.Results<Integer> results = executor.exeCommand(null, List.of("1", "200000"), null,
+                stdout -> stdout.read());
+        assertTrue(results.isOk());
+        assertEquals(results.output().intValue(), '1');
+    }
+
+    @Test
+    public void testConsumerClosesOutput() throws IOException, InterruptedException {
+        // Parsers may close the stream after reading the first value, before the rest of the output is drained
+        StreamingCommandExecutor executor = new StreamingCommandExecutor("seq", null);
+        StreamingCommandExecutor.Results<Integer> results = executor.exeCommand(null, List.of("1", "200000"), null, stdout -> {
+            try (stdout) {
+                return stdout.read();
+            }
+        });
+        assertTrue(results.isOk());
+        assertEquals(results.output().intValue(), '1');
+    }
+
+    @Test(timeOut = 60000)
+    public void testConsumerFailure() {
+        // The command runs until it is terminated
+        StreamingCommandExecutor executor = new StreamingCommandExecutor("yes", null);
+        IOException exception = expectThrows(IOException.class, () -> executor.exeCommandByLines(new File("."), List.of(), null, line -> {
+            throw new IOException("Consumer failure");
+        }));
+        assertEquals(exception.getMessage(), "Consumer failure");
+    }
+}
@@ -0,0 +1,166 @@
+package com.jfrog.ide.common.yarn;
+
+import com.jfrog.ide.common.deptree.DepTree;
+import com.jfrog.ide.common.deptree.DepTreeNode;
+import com.jfrog.ide.common.nodes.subentities.ImpactTree;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.Assert.*;
+
+/**
+ * Test the dependency tree and the impact paths that are built from Yarn Classic and Yarn Berry lock files.
+ */
+public class YarnLockTreeBuilderTest {
+    private static final Path YARN_ROOT = Paths.get(".").toAbsolutePath().normalize().resolve(Paths.get("src", "test", "resources", "yarn"));
+
+    @Test
+    public void testClassicTree() throws IOException {
+        Path projectDir = YARN_ROOT.resolve("dependency");
+        assertFalse(YarnLock.parse(projectDir.resolve("yarn.lock")).isBerry());
+        String descriptorFilePath = projectDir.resolve("package.json").toString();
+        DepTree depTree = new YarnLockTreeBuilder(projectDir, descriptorFilePath).buildTree();
+        assertNotNull(depTree);
+        assertEquals(depTree.rootId(), "package-name2:0.0.1");
+        assertEquals(depTree.getRootNodeDescriptorFilePath(), descriptorFilePath);
+        assertEquals(depTree.getRootNode().getChildren(),
+                Set.of("progress:2.0.3", "has-flag:3.0.0", "@ungap/promise-all-settled:1.1.2", "@types/node:14.14.10"));
+        assertEquals(depTree.nodes().get("@ungap/promise-all-settled:1.1.2").getScopes(), Set.of("ungap"));
+        assertEquals(depTree.nodes().get("@types/node:14.14.10").getScopes(), Set.of("types"));
+        assertTrue(depTree.nodes().get("progress:2.0.3").getScopes().isEmpty());
+    }
+
+    @Test
+    public void testEmptyProject() throws IOException {
+        Path projectDir = YARN_ROOT.resolve("empty");
+        DepTree depTree = new YarnLockTreeBuilder(projectDir, projectDir.resolve("package.json").toString()).buildTree();
+        assertNotNull(depTree);
+        assertEquals(depTree.rootId(), "package-name1:0.0.1");
+        assertTrue(depTree.getRootNode().getChildren().isEmpty());
+    }
+
+    @Test
+    public void testBerryTree() throws IOException {
+        Path projectDir = YARN_ROOT.resolve("berry");
+        assertTrue(YarnLock.parse(projectDir.resolve("yarn.lock")).isBerry());
+        DepTree depTree = new YarnLockTreeBuilder(projectDir, projectDir.resolve("package.json").toString()).buildTree();
+        assertNotNull(depTree);
+        assertEquals(depTree.rootId(), "package-name3:0.0.1");
+
+        // The alias gets the real package name, and the unresolved dependency of fsevents is skipped
+        Map<String, Set<String>> expectedChildren = Map.of(
+                "package-name3:0.0.1", Set.of("debug:4.1.1", "@types/node:14.14.10", "ms:2.0.0", "send:0.17.1", "fsevents:2.3.2"),
+                "debug:4.1.1", Set.of("ms:2.1.1"),
+                "send:0.17.1", Set.of("debug:2.6.9", "ms:2.1.1"),
+                "debug:2.6.9", Set.of("ms:2.0.0"));
+        assertEquals(depTree.nodes().keySet(), Set.of("package-name3:0.0.1", "debug:4.1.1", "debug:2.6.9",
+                "@types/node:14.14.10", "ms:2.0.0", "ms:2.1.1", "send:0.17.1", "fsevents:2.3.2"));
+        for (Map.Entry<String, DepTreeNode> entry : depTree.nodes().entrySet()) {
+            assertEquals(entry.getValue().getChildren(), expectedChildren.getOrDefault(entry.getKey(), Set.of()), entry.getKey());
+        }
+        assertEquals(depTree.nodes().get("@types/node:14.14.10").getScopes(), Set.of("types"));
+    }
+
+    @Test
+    public void testBerryImpactPaths() throws IOException {
+        Path projectDir = YARN_ROOT.resolve("berry");
+        YarnLockTreeBuilder treeBuilder = new YarnLockTreeBuilder(projectDir, projectDir.resolve("package.json").toString());
+        Map<String, List<List<String>>> impactPaths = treeBuilder.findDependencyImpactPaths("package-name3", "ms", Set.of("2.0.0", "2.1.1", "3.0.0"));
+
+        // The shortest paths come first, and versions that aren't in the lock file are skipped
+        assertEquals(impactPaths, Map.of(
+                "ms:2.0.0", List.of(
+                        List.of("package-name3", "ms:2.0.0"),
+                        List.of("package-name3", "send", "debug", "ms:2.0.0")),
+                "ms:2.1.1", List.of(
+                        List.of("package-name3", "debug", "ms:2.1.1"),
+                        List.of("package-name3", "send", "ms:2.1.1"))));
+    }
+
+    @Test
+    public void testClassicImpactPaths() throws IOException {
+        Path projectDir = YARN_ROOT.resolve("exampleYarnPackage");
+        YarnLockTreeBuilder treeBuilder = new YarnLockTreeBuilder(projectDir, projectDir.resolve("package.json").toString());
+        Map<String, List<List<String>>> impactPaths = treeBuilder.findDependencyImpactPaths("example-yarn-package", "lodash", Set.of("4.16.2"));
+        List<List<String>> paths = impactPaths.get("lodash:4.16.2");
+        assertNotNull(paths);
+        assertEquals(paths.size(), ImpactTree.IMPACT_PATHS_LIMIT);
+        assertEquals(paths.get(0), List.of("example-yarn-package", "lodash:4.16.2"));
+        // The paths that are reported by 'yarn why'
+        assertTrue(paths.containsAll(List.of(
+                List.of("example-yarn-package", "jest-cli", "jest-runtime", "babel-core", "lodash:4.16.2"),
+                List.of("example-yarn-package", "jest-cli", "jest-runtime", "babel-core", "babel-register", "lodash:4.16.2"),
+                List.of("example-yarn-package", "jest-cli", "istanbul-lib-instrument", "babel-generator", "lodash:4.16.2"),
+                List.of("example-yarn-package", "jest-cli", "istanbul-lib-instrument", "babel-template", "lodash:4.16.2"),
+                List.of("example-yarn-package", "jest-cli", "istanbul-lib-instrument", "babel-traverse", "lodash:4.16.2"),
+                List.of("example-yarn-package", "jest-cli", "istanbul-lib-instrument", "babel-types", "lodash:4.16.2"))));
+        for (int i = 1; i < paths.size(); i++) {
+            assertTrue(paths.get(i - 1).size() <= paths.get(i).size());
+        }
+    }
+
+    @Test
+    public void testYarnLockChanged() throws IOException {
+        File tempProject = Files.createTempDirectory("ide-plugins-common-yarn-lock").toFile();
+        try {
+            FileUtils.copyDirectory(YARN_ROOT.resolve("berry").toFile(), tempProject);
+            Path projectDir = tempProject.toPath();
+            YarnLockTreeBuilder treeBuilder = new YarnLockTreeBuilder(projectDir, projectDir.resolve("package.json").toString());
+            assertTrue(treeBuilder.buildTree().nodes().containsKey("debug:4.1.1"));
+
+            // Upgrade debug in the lock file
+            Path yarnLock = projectDir.resolve("yarn.lock");
+            Files.writeString(yarnLock, Files.readString(yarnLock).replace("version: 4.1.1", "version: 4.3.10"));
+            assertTrue(treeBuilder.buildTree().nodes().containsKey("debug:4.3.10"));
+            assertTrue(treeBuilder.findDependencyImpactPaths("package-name3", "debug", Set.of("4.1.1")).isEmpty());
+
+            // Remove the lock file
+            Files.delete(yarnLock);
+            assertFalse(treeBuilder.isYarnLockExists());
+            assertNull(treeBuilder.buildTree());
+            assertNull(treeBuilder.findDependencyImpactPaths("package-name3", "debug", Set.of("4.3.10")));
+        } finally {
+            FileUtils.deleteQuietly(tempProject);
+        }
+    }
+
+    @Test
+    public void testWorkspaces() throws IOException {
+        // The dependencies of the workspace packages aren't in the root package.json, so 'yarn list' and 'yarn why' are used
+        Path projectDir = YARN_ROOT.resolve("workspaces");
+        YarnLockTreeBuilder treeBuilder = new YarnLockTreeBuilder(projectDir, projectDir.resolve("package.json").toString());
+        assertTrue(treeBuilder.isYarnLockExists());
+        assertFalse(treeBuilder.isSupported());
+        assertNull(treeBuilder.buildTree());
+        assertNull(treeBuilder.findDependencyImpactPaths("package-name5", "progress", Set.of("2.0.3")));
+    }
+
+    @Test
+    public void testPackageJsonChanged() throws IOException {
+        File tempProject = Files.createTempDirectory("ide-plugins-common-yarn-lock").toFile();
+        try {
+            FileUtils.copyDirectory(YARN_ROOT.resolve("dependency").toFile(), tempProject);
+            Path projectDir = tempProject.toPath();
+            YarnLockTreeBuilder treeBuilder = new YarnLockTreeBuilder(projectDir, projectDir.resolve("package.json").toString());
+            assertTrue(treeBuilder.isSupported());
+            assertEquals(treeBuilder.buildTree().getRootNode().getChildren().size(), 4);
+
+            // Add workspaces to the project
+            Path packageJson = projectDir.resolve("package.json");
+            Files.writeString(packageJson, Files.readString(packageJson).replace("\"private\": true,", "\"private\": true,\n  \"workspaces\": [\"packages/*\"],"));
+            assertFalse(treeBuilder.isSupported());
+            assertNull(treeBuilder.buildTree());
+        } finally {
+            FileUtils.deleteQuietly(tempProject);
+        }
+    }
+}
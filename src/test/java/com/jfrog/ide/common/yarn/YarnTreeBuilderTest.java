@@ -16,9 +16,10 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.testng.Assert.*;
 
@@ -32,7 +33,9 @@ public class YarnTreeBuilderTest {
     public enum Project {
         EMPTY("package-name1", "empty"),
         DEPENDENCY("package-name2", "dependency"),
-        EXAMPLE("example-yarn-package", "exampleYarnPackage");
+        EXAMPLE("example-yarn-package", "exampleYarnPackage"),
+        // Without yarn.lock, the tree is built by 'yarn list'
+        NO_LOCK("package-name4", "noLock");
 
         private final String name;
         private final Path path;
@@ -65,6 +68,7 @@ public class YarnTreeBuilderTest {
         return new Object[][]{
                 {Project.EMPTY, 0},
                 {Project.DEPENDENCY, 4},
+                {Project.NO_LOCK, 0},
         };
     }
 
@@ -157,13 +161,28 @@ public class YarnTreeBuilderTest {
     private Object[][] findDependencyImpactPathsProvider() {
         return new Object[][]{
                 {Project.DEPENDENCY, "@types/node", Set.of("14.14.10"), List.of(List.of("package-name2", "@types/node:14.14.10"))},
-                {Project.EXAMPLE, "lodash", Set.of("4.16.2"), List.of(List.of("example-yarn-package", "lodash:4.16.2"),
-                        List.of("example-yarn-package", "jest-cli", "jest-runtime", "babel-core", "lodash:4.16.2"),
-                        List.of("example-yarn-package", "jest-cli", "jest-runtime", "babel-core", "babel-register", "lodash:4.16.2"),
+                // The paths are read from yarn.lock, shortest first and up to the limit, including the paths of 'yarn why'
+                {Project.EXAMPLE, "lodash", Set.of("4.16.2"), List.of(
+                        List.of("example-yarn-package", "lodash:4.16.2"),
                         List.of("example-yarn-package", "jest-cli", "istanbul-lib-instrument", "babel-generator", "lodash:4.16.2"),
                         List.of("example-yarn-package", "jest-cli", "istanbul-lib-instrument", "babel-template", "lodash:4.16.2"),
                         List.of("example-yarn-package", "jest-cli", "istanbul-lib-instrument", "babel-traverse", "lodash:4.16.2"),
-                        List.of("example-yarn-package", "jest-cli", "istanbul-lib-instrument", "babel-types", "lodash:4.16.2")
+                        List.of("example-yarn-package", "jest-cli", "istanbul-lib-instrument", "babel-types", "lodash:4.16.2"),
+                        List.of("example-yarn-package", "jest-cli", "jest-runtime", "babel-core", "lodash:4.16.2"),
+                        List.of("example-yarn-package", "jest-cli", "istanbul-api", "istanbul-lib-instrument", "babel-generator", "lodash:4.16.2"),
+                        List.of("example-yarn-package", "jest-cli", "istanbul-api", "istanbul-lib-instrument", "babel-template", "lodash:4.16.2"),
+                        List.of("example-yarn-package", "jest-cli", "istanbul-api", "istanbul-lib-instrument", "babel-traverse", "lodash:4.16.2"),
+                        List.of("example-yarn-package", "jest-cli", "istanbul-api", "istanbul-lib-instrument", "babel-types", "lodash:4.16.2"),
+                        List.of("example-yarn-package", "jest-cli", "jest-runtime", "babel-core", "babel-generator", "lodash:4.16.2"),
+                        List.of("example-yarn-package", "jest-cli", "jest-runtime", "babel-core", "babel-template", "lodash:4.16.2"),
+                        List.of("example-yarn-package", "jest-cli", "istanbul-lib-instrument", "babel-template", "babel-traverse", "lodash:4.16.2"),
+                        List.of("example-yarn-package", "jest-cli", "jest-runtime", "babel-core", "babel-traverse", "lodash:4.16.2"),
+                        List.of("example-yarn-package", "jest-cli", "istanbul-lib-instrument", "babel-generator", "babel-types", "lodash:4.16.2"),
+                        List.of("example-yarn-package", "jest-cli", "istanbul-lib-instrument", "babel-template", "babel-types", "lodash:4.16.2"),
+                        List.of("example-yarn-package", "jest-cli", "istanbul-lib-instrument", "babel-traverse", "babel-types", "lodash:4.16.2"),
+                        List.of("example-yarn-package", "jest-cli", "jest-runtime", "babel-core", "babel-types", "lodash:4.16.2"),
+                        List.of("example-yarn-package", "jest-cli", "jest-runtime", "babel-jest", "babel-core", "lodash:4.16.2"),
+                        List.of("example-yarn-package", "jest-cli", "jest-runtime", "babel-core", "babel-register", "lodash:4.16.2")
                 )},
         };
     }
@@ -179,11 +198,51 @@ public class YarnTreeBuilderTest {
         for (String packageVersion : packageVersions) {
             String packageFullName = packageName + ":" + packageVersion;
             assertTrue(pathsMap.containsKey(packageFullName));
-            List<List<String>> paths = pathsMap.get(packageFullName);
-            assertEquals(paths.size(), expectedPaths.size());
-            for (List<String> path : paths) {
-                assertTrue(expectedPaths.contains(path));
+            assertEquals(pathsMap.get(packageFullName), expectedPaths);
+        }
+    }
+
+    @Test
+    public void findDependenciesImpactPathsTest() throws IOException {
+        String projectRootId = Project.EXAMPLE.name;
+        YarnTreeBuilder yarnTreeBuilder = createYarnTreeBuilder(Project.EXAMPLE);
+        Map<String, Set<String>> packagesVersions = Map.of(
+                "lodash", Set.of("4.16.2"),
+                "minimist", Set.of("0.0.8", "1.2.0", "9.9.9"));
+        Map<String, List<List<String>>> pathsMap = yarnTreeBuilder.findDependenciesImpactPaths(projectRootId, packagesVersions);
+
+        // The batch results are the same as the results of the single package queries
+        Map<String, List<List<String>>> expectedPathsMap = new HashMap<>();
+        for (Map.Entry<String, Set<String>> packageVersions : packagesVersions.entrySet()) {
+            expectedPathsMap.putAll(yarnTreeBuilder.findDependencyImpactPaths(projectRootId, packageVersions.getKey(), packageVersions.getValue()));
+        }
+        assertEquals(pathsMap.keySet(), Set.of("lodash:4.16.2", "minimist:0.0.8", "minimist:1.2.0"));
+        assertEquals(pathsMap, expectedPathsMap);
+
+        // Repeated queries are served from the cache
+        assertEquals(yarnTreeBuilder.findDependenciesImpactPaths(projectRootId, Map.of("minimist", Set.of("1.2.0", "9.9.9"))),
+                Map.of("minimist:1.2.0", pathsMap.get("minimist:1.2.0")));
+    }
+
+    @Test
+    public void findDependenciesImpactPathsConcurrentlyTest() throws Exception {
+        String projectRootId = Project.EXAMPLE.name;
+        YarnTreeBuilder yarnTreeBuilder = createYarnTreeBuilder(Project.EXAMPLE);
+        Map<String, Set<String>> packagesVersions = Map.of("lodash", Set.of("4.16.2"), "minimist", Set.of("0.0.8", "1.2.0"));
+        Map<String, List<List<String>>> expectedPathsMap = yarnTreeBuilder.findDependenciesImpactPaths(projectRootId, packagesVersions);
+
+        // Calls from several threads share the cache, and get the same results
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Map<String, List<List<String>>>>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> yarnTreeBuilder.findDependenciesImpactPaths(projectRootId, packagesVersions)));
+            }
+            for (Future<Map<String, List<List<String>>>> future : futures) {
+                assertEquals(future.get(), expectedPathsMap);
             }
+        } finally {
+            executor.shutdownNow();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,67 @@
+package com.jfrog.ide.common.yarn;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.testng.annotations.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Test the impact paths of projects without yarn.lock, which are found by concurrent 'yarn why' commands.
+ * The yarn driver is mocked, so yarn doesn't have to be installed.
+ */
+public class YarnTreeBuilderYarnWhyTest {
+    private static final Path NO_LOCK_PROJECT = Paths.get(".").toAbsolutePath().normalize().resolve(Paths.get("src", "test", "resources", "yarn", "noLock"));
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int PACKAGES_COUNT = 8;
+
+    @Test(timeOut = 30000)
+    public void findDependenciesImpactPathsWithoutYarnLockTest() throws Exception {
+        YarnDriver yarnDriver = mockYarnDriver();
+        YarnTreeBuilder yarnTreeBuilder = new YarnTreeBuilder(NO_LOCK_PROJECT, NO_LOCK_PROJECT.resolve("package.json").toString(), yarnDriver);
+        Map<String, Set<String>> packagesVersions = new LinkedHashMap<>();
+        Map<String, List<List<String>>> expectedPathsMap = new HashMap<>();
+        for (int i = 0; i < PACKAGES_COUNT; i++) {
+            packagesVersions.put("package-" + i, Set.of("1.0." + i, "9.9.9"));
+            expectedPathsMap.put("package-" + i + ":1.0." + i, List.of(List.of("package-name4", "parent-" + i, "package-" + i + ":1.0." + i)));
+        }
+
+        // The commands of the first packages finish last, so each package must get the results of its own command
+        Map<String, List<List<String>>> pathsMap = yarnTreeBuilder.findDependenciesImpactPaths("package-name4", packagesVersions);
+        assertEquals(pathsMap, expectedPathsMap);
+        verify(yarnDriver, times(PACKAGES_COUNT)).why(any(), anyString());
+
+        // Projects without yarn.lock aren't cached, so 'yarn why' runs again for each package
+        assertEquals(yarnTreeBuilder.findDependenciesImpactPaths("package-name4", packagesVersions), expectedPathsMap);
+        verify(yarnDriver, times(2 * PACKAGES_COUNT)).why(any(), anyString());
+    }
+
+    /**
+     * Mock a yarn driver, whose 'yarn why package-i' finds version 1.0.i of the package with a single parent,
+     * parent-i. The command of package-i takes longer than the commands of the packages after it.
+     */
+    private static YarnDriver mockYarnDriver() throws Exception {
+        YarnDriver yarnDriver = mock(YarnDriver.class);
+        when(yarnDriver.why(any(), anyString())).thenAnswer(invocation -> {
+            String packageName = invocation.getArgument(1);
+            int packageIndex = Integer.parseInt(packageName.substring("package-".length()));
+            Thread.sleep(10L * (PACKAGES_COUNT - packageIndex));
+            return new JsonNode[]{
+                    objectMapper.createObjectNode()
+                            .put("type", "info")
+                            .put("data", "=> Found \"" + packageName + "@1.0." + packageIndex + "\""),
+                    objectMapper.createObjectNode()
+                            .put("type", "info")
+                            .put("data", "This module exists because \"parent-" + packageIndex + "\" depends on it.")
+            };
+        });
+        return yarnDriver;
+    }
+}